@@ -25,8 +25,11 @@ public class AppStarter {
         addOption(null, "slot-id", true, "Slot ID for PKCS11 driver. If not specified, first available slot is used.").
         addOption(null, "pdf-level", true, "PDF signature level. Supported values: PAdES_BASELINE_B (default), XAdES_BASELINE_B, CAdES_BASELINE_B.").
         addOption(null, "en319132", false, "Sign according to EN 319 132 or EN 319 122.").
-        addOption(null, "tsa-server", true, "Url of TimeStamp Authority server that should be used for timestamping in signature level BASELINE_T. If provided, BASELINE_T signatures are made.").
-        addOption(null, "plain-xml", false, "Enable signing plain (non-slovak-eform) XML files.");
+        addOption(null, "tsa-server", true, "Url of TimeStamp Authority server that should be used for timestamping in signature level BASELINE_T. If provided, BASELINE_T signatures are made. Multiple comma separated urls are tried in order when a server fails.").
+        addOption(null, "plain-xml", false, "Enable signing plain (non-slovak-eform) XML files.").
+        addOption(null, "bundle", false, "Sign all files of the source directory with one signature in a single ASiC-E container. Signature form is CAdES if --pdf-level is CAdES_BASELINE_B, XAdES otherwise.").
+        addOption(null, "extend", true, "Extend existing signatures of the source files instead of signing. Supported values: BASELINE_T, BASELINE_LT. Requires --tsa-server, no token is used.").
+        addOption(null, "tsa-concurrency", true, "Maximum number of timestamp requests sent to each TSA server at once. Default is 4.");
 
     public static void start(String[] args) {
         try {
@@ -58,6 +61,10 @@ public class AppStarter {
 
                 If --force is enabled, the target will be overwritten if it already exists.
 
+                If --bundle is enabled, all files of the source are signed together and saved as one ASiC-E container. The target is a file, "directory_signed.asice" next to the source directory if no target is specified.
+
+                If --extend is enabled, signatures of already signed files (XAdES, CAdES, PAdES or ASiC containers) are extended to the given level and the files are processed in parallel. Extended files keep their format and are saved with the suffix "_extended" if no target is specified. BASELINE_LT level loads EU trusted lists first.
+
                 If target is specified with missing parent directories, they are created onyl if --parents is enabled. Otherwise, the signing fails. For example, if the source is "file.pdf" and the target is "target/file_signed.pdf", the target directory "target" must exist. If it does not exist, the signing fails. If --parents is enabled, the target directory "target" is created if it does not exist.
                 """;
 
@@ -76,6 +83,8 @@ public class AppStarter {
                 autogram --cli -s target/directory-example/file-example.pdf -pdfa
                 autogram --cli -s target/directory-example/file-example.pdf -d eid
                 autogram --cli -s target/file-example.pdf -d eid --tsa-server http://tsa.izenpe.com
+                autogram --cli -s target/directory-example -t target/bundle-example.asice --bundle -d eid
+                autogram --cli -s target/directory-example --extend BASELINE_T --tsa-server http://tsa.izenpe.com --tsa-concurrency 8
                 """;
         final PrintWriter pw = new PrintWriter(System.out);
         formatter.printUsage(pw, 80, syntax);
@@ -3,6 +3,7 @@ package digital.slovensko.autogram.core;
 import digital.slovensko.autogram.core.errors.*;
 import digital.slovensko.autogram.core.visualization.DocumentVisualizationBuilder;
 import digital.slovensko.autogram.core.visualization.UnsupportedVisualization;
+import digital.slovensko.autogram.core.visualization.Visualization;
 import digital.slovensko.autogram.drivers.TokenDriver;
 import digital.slovensko.autogram.ui.BatchUiResult;
 import digital.slovensko.autogram.ui.UI;
@@ -11,18 +12,26 @@ import digital.slovensko.autogram.util.PDFUtils;
 import eu.europa.esig.dss.model.DSSException;
 import eu.europa.esig.dss.pdfa.PDFAStructureValidator;
 import eu.europa.esig.dss.spi.x509.tsp.TSPSource;
+import org.xml.sax.SAXException;
 
+import javax.xml.parsers.ParserConfigurationException;
 import java.io.File;
+import java.io.IOException;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 
 public class Autogram {
     private final UI ui;
     private final UserSettings settings;
-    /** Current batch, should be null if no batch was started yet */
-    private Batch batch = null;
+    /** Batches by their ID, expired batches are removed by {@link #removeExpiredBatches()} */
+    private final Map<String, Batch> batches = new ConcurrentHashMap<>();
+    /** Pipelines of started batches by batch ID, created with the first document */
+    private final Map<String, BatchSigningPipeline> batchPipelines = new ConcurrentHashMap<>();
     private final PasswordManager passwordManager;
 
     public Autogram(UI ui, UserSettings settings) {
@@ -73,7 +82,7 @@ public class Autogram {
             }
 
             try {
-                var visualization = DocumentVisualizationBuilder.fromJob(job, settings);
+                var visualization = buildVisualization(job);
                 ui.onUIThreadDo(() -> ui.showVisualization(visualization, this));
             } catch (AutogramException e) {
                 ui.onUIThreadDo(() -> ui.showError(e));
@@ -90,27 +99,45 @@ public class Autogram {
         });
     }
 
+    /**
+     * Builds the same preview of the document as is shown before signing, without showing it.
+     */
+    public Visualization buildVisualization(SigningJob job) throws IOException, ParserConfigurationException, SAXException {
+        return DocumentVisualizationBuilder.fromJob(job, settings);
+    }
+
     private void signCommonAndThen(SigningJob job, SigningKey signingKey, Consumer<SigningJob> callback) {
         try {
             job.signWithKeyAndRespond(signingKey);
-            if (batch == null || batch.isEnded() || batch.isAllProcessed())
-                passwordManager.reset();
+            onJobSigned();
 
             callback.accept(job);
-        } catch (PINIncorrectException e) {
-            passwordManager.reset();
-            throw e;
-        } catch (AutogramException e) {
-            throw e;
-        } catch (DSSException e) {
-            throw AutogramException.createFromDSSException(e);
-        } catch (IllegalArgumentException e) {
-            throw AutogramException.createFromIllegalArgumentException(e);
         } catch (Exception e) {
-            throw new UnrecognizedException(e);
+            throw toSigningException(e);
         }
     }
 
+    private void onJobSigned() {
+        if (batches.values().stream().allMatch(batch -> batch.isEnded() || batch.isAllProcessed()))
+            passwordManager.reset();
+    }
+
+    private AutogramException toSigningException(Exception e) {
+        if (e instanceof PINIncorrectException)
+            passwordManager.reset();
+
+        if (e instanceof AutogramException autogramException)
+            return autogramException;
+
+        if (e instanceof DSSException dssException)
+            return AutogramException.createFromDSSException(dssException);
+
+        if (e instanceof IllegalArgumentException illegalArgumentException)
+            return AutogramException.createFromIllegalArgumentException(illegalArgumentException);
+
+        return new UnrecognizedException(e);
+    }
+
     public void sign(SigningJob job, SigningKey signingKey) {
         ui.onWorkThreadDo(() -> {
             try {
@@ -134,9 +161,8 @@ public class Autogram {
      * @param responder              - callback for http response
      */
     public void batchStart(int totalNumberOfDocuments, BatchResponder responder) {
-        if (batch != null && !batch.isEnded())
-            throw new BatchConflictException("Iné hromadné podpisovanie už prebieha");
-        batch = new Batch(totalNumberOfDocuments);
+        var batch = new Batch(totalNumberOfDocuments);
+        batches.put(batch.getId(), batch);
 
         var startBatchTask = new AutogramBatchStartCallback(batch, responder);
 
@@ -152,30 +178,42 @@ public class Autogram {
      * @param batchId - current batch ID, used to authenticate the request
      */
     public void batchSign(SigningJob job, String batchId) {
-        if (batch == null) throw new BatchNotStartedException(); // TODO replace with checked exception
+        var batch = findBatch(batchId);
+        batch.addJob(batchId, job.getResponder(), job.getDocument().getName());
+
+        var pipeline = batchPipelines.computeIfAbsent(batch.getId(), id -> new BatchSigningPipeline(
+                batch.getSigningKey(),
+                startedJob -> batch.onJobStarted(startedJob.getResponder()),
+                signedJob -> onBatchJobSigned(signedJob),
+                (failedJob, e) -> onBatchJobFailed(batch, failedJob, e)));
+        pipeline.submit(job);
+    }
 
-        batch.addJob(batchId);
+    private void onBatchJobSigned(SigningJob job) {
+        Logging.log("GUI: Signing batch job: " + job.hashCode() + " file " + job.getDocument().getName());
+        onJobSigned();
+        ui.onUIThreadDo(() -> {
+            ui.updateBatch();
+        });
+    }
+
+    private void onBatchJobFailed(Batch batch, SigningJob job, Exception e) {
+        var error = toSigningException(e);
+        job.onDocumentSignFailed(error);
+        if (!error.batchCanContinue()) {
+            // documents waiting for the token would fail the same way, e.g. each of them trying an incorrect PIN
+            var pipeline = batchPipelines.get(batch.getId());
+            if (pipeline != null)
+                pipeline.stop(error);
 
-        ui.onWorkThreadDo(() -> {
-            try {
-                signCommonAndThen(job, batch.getSigningKey(), (jobNew) -> {
-                    Logging.log("GUI: Signing batch job: " + job.hashCode() + " file " + job.getDocument().getName());
-                });
-            } catch (AutogramException e) {
-                job.onDocumentSignFailed(e);
-                if (!e.batchCanContinue()) {
-                    ui.onUIThreadDo(() -> {
-                        ui.cancelBatch(batch);
-                    });
-                    throw e;
-                }
-            } catch (Exception e) {
-                AutogramException autogramException = new AutogramException("Document signing has failed", "", "", e);
-                job.onDocumentSignFailed(autogramException);
-            }
             ui.onUIThreadDo(() -> {
-                ui.updateBatch();
+                ui.cancelBatch(batch);
             });
+            return;
+        }
+
+        ui.onUIThreadDo(() -> {
+            ui.updateBatch();
         });
     }
 
@@ -185,20 +223,64 @@ public class Autogram {
      * @param batchId - current batch ID, used to authenticate the request
      */
     public boolean batchEnd(String batchId) {
+        var batch = findBatch(batchId);
         batch.validate(batchId);
         batch.end();
+        stopBatchPipeline(batch);
         ui.onUIThreadDo(() -> {
             ui.cancelBatch(batch);
         });
         return batch.isAllProcessed();
     }
 
+    /**
+     * Documents of the batch that have not reached the token yet fail instead of being signed after the batch ended
+     */
+    private void stopBatchPipeline(Batch batch) {
+        var pipeline = batchPipelines.get(batch.getId());
+        if (pipeline != null)
+            pipeline.stop(new BatchEndedException("Hromadné podpisovanie bolo ukončené"));
+
+        batchPipelines.remove(batch.getId());
+    }
+
     public Batch getBatch(String batchId) {
-        if (batch == null) throw new BatchNotStartedException(); // TODO replace with checked exception
+        var batch = findBatch(batchId);
         batch.validate(batchId);
         return batch;
     }
 
+    private Batch findBatch(String batchId) {
+        if (batches.isEmpty()) throw new BatchNotStartedException(); // TODO replace with checked exception
+
+        var batch = batchId == null ? null : batches.get(batchId);
+        if (batch == null) throw new BatchInvalidIdException();
+
+        return batch;
+    }
+
+    /**
+     * Forget batches that expired, ended ones are kept until then so that their clients get a meaningful error
+     */
+    public void removeExpiredBatches() {
+        batches.values().removeIf(batch -> {
+            if (!batch.isExpired())
+                return false;
+
+            if (!batch.isEnded()) {
+                batch.end();
+                ui.onUIThreadDo(() -> ui.cancelBatch(batch));
+            }
+
+            stopBatchPipeline(batch);
+            return true;
+        });
+    }
+
+    public void initializeBatchSweeper(ScheduledExecutorService scheduledExecutorService) {
+        scheduledExecutorService.scheduleAtFixedRate(this::removeExpiredBatches, 1, 1, TimeUnit.MINUTES);
+    }
+
     public void pickSigningKeyAndThen(Consumer<SigningKey> callback) {
         var drivers = settings.getDriverDetector().getAvailableDrivers();
         ui.pickTokenDriverAndThen(drivers,
@@ -1,12 +1,20 @@
 package digital.slovensko.autogram.core;
 
-import java.util.Date;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import digital.slovensko.autogram.core.errors.AutogramException;
+import digital.slovensko.autogram.core.errors.BatchDocumentsExceededException;
 import digital.slovensko.autogram.core.errors.BatchEndedException;
 import digital.slovensko.autogram.core.errors.BatchExpiredException;
 import digital.slovensko.autogram.core.errors.BatchInvalidIdException;
 import digital.slovensko.autogram.util.Logging;
+import digital.slovensko.autogram.util.Metrics;
 
 enum BatchState {
     INITIALIZED, STARTED, ENDED
@@ -15,55 +23,123 @@ enum BatchState {
 /**
  * Batch is a session for signing multiple documents with the same key.
  * 
- * This class is used for checking runtime conditions and tracking progress.
+ * This class is used for checking runtime conditions and tracking progress. Documents are added, signed and reported
+ * from many threads at once, so counters are atomic and each document has its own {@link BatchDocument} status,
+ * looked up by the responder of its job. Responders are forgotten once their document is done or failed, so that the
+ * batch does not keep exchanges of finished requests.
  */
 public class Batch {
+    private static final long EXPIRATION_MILLIS = 1000 * 60 * 10;
+
     private final String batchId = generateNewBatchId();
     private final int totalNumberOfDocuments;
 
-    private BatchState state = BatchState.INITIALIZED;
-    private SigningKey signingKey = null;
+    private volatile BatchState state = BatchState.INITIALIZED;
+    private volatile SigningKey signingKey = null;
 
-    private Date expriationDate = new Date(System.currentTimeMillis() + 1000 * 60 * 10);
-    private int addedDocumentsCount = 0;
-    private int successfulDocumentsCount = 0;
-    private int failedDocumentsCount = 0;
+    private volatile long expirationMillis;
+    private final AtomicInteger addedDocumentsCount = new AtomicInteger();
+    private final AtomicInteger successfulDocumentsCount = new AtomicInteger();
+    private final AtomicInteger failedDocumentsCount = new AtomicInteger();
+    private final Map<Integer, BatchDocument> documents = new ConcurrentHashMap<>();
+    private final Map<Responder, BatchDocument> documentsByResponder = new ConcurrentHashMap<>();
+    private final List<BatchListener> listeners = new CopyOnWriteArrayList<>();
+    private long startedAt = 0;
 
     public Batch(int totalNumberOfDocuments) {
         this.totalNumberOfDocuments = totalNumberOfDocuments;
         resetExpirationDate();
     }
 
-    public void start(SigningKey key) {
+    public synchronized void start(SigningKey key) {
         if (state != BatchState.INITIALIZED)
             throw new BatchEndedException("Nie je možné opätovne spustiť hromadné podpisovanie");
-        state = BatchState.STARTED;
         signingKey = key;
+        startedAt = System.nanoTime();
+        state = BatchState.STARTED;
+        Metrics.histogram("autogram_batch_size_documents", "Declared number of documents of started batches",
+                Metrics.SIZE_BUCKETS).observe(totalNumberOfDocuments);
     }
 
-    public void addJob(String batchId) {
+    /**
+     * @param responder responder of the job signing the document, it reports the result with the same responder
+     */
+    public BatchDocument addJob(String batchId, Responder responder, String documentName) {
         validate(batchId);
 
-        if (this.totalNumberOfDocuments <= this.addedDocumentsCount)
-            throw new IllegalAccessError("Sent more sign requests than declared at start");
+        var index = addedDocumentsCount.getAndUpdate(count -> count < totalNumberOfDocuments ? count + 1 : count);
+        if (index >= totalNumberOfDocuments)
+            throw new BatchDocumentsExceededException(totalNumberOfDocuments);
+
+        var document = new BatchDocument(index, documentName);
+        documents.put(index, document);
+        documentsByResponder.put(responder, document);
+        resetExpirationDate();
 
-        addedDocumentsCount++;
+        return document;
     }
 
-    public void onJobSuccess() {
-        successfulDocumentsCount++;
+    public void onJobStarted(Responder responder) {
+        var document = documentsByResponder.get(responder);
+        if (document != null)
+            document.start();
+    }
+
+    public void onJobSuccess(Responder responder, String documentName) {
+        if (finish(responder, BatchDocument.Status.DONE) == null)
+            return;
+
+        successfulDocumentsCount.incrementAndGet();
+        Metrics.counter("autogram_batch_documents_total", "Documents processed in batches", "result", "signed").increment();
         Logging.log("Batch " + batchId + " success");
         log();
+        listeners.forEach(listener -> listener.onDocumentProcessed(this, documentName, null));
     }
 
-    public void onJobFailure() {
-        failedDocumentsCount++;
+    public void onJobFailure(Responder responder, AutogramException error) {
+        var document = finish(responder, BatchDocument.Status.FAILED);
+        if (document == null)
+            return;
+
+        failedDocumentsCount.incrementAndGet();
+        Metrics.counter("autogram_batch_documents_total", "Documents processed in batches", "result", "failed").increment();
         Logging.log("Batch " + batchId + " failed");
         log();
+        listeners.forEach(listener -> listener.onDocumentProcessed(this, document.getName(), error));
+    }
+
+    /**
+     * @return null if the document was already reported as done or failed, or the responder was never added, e.g. its
+     *         job failed because the batch had already ended
+     */
+    private BatchDocument finish(Responder responder, BatchDocument.Status result) {
+        var document = documentsByResponder.remove(responder);
+        if (document == null || !document.finish(result))
+            return null;
+
+        return document;
     }
 
     public void end() {
-        state = BatchState.ENDED;
+        synchronized (this) {
+            if (state == BatchState.ENDED)
+                return;
+
+            if (state == BatchState.STARTED)
+                Metrics.latency("autogram_batch_duration_seconds", "Duration of batches from start to end")
+                        .observeSince(startedAt);
+
+            state = BatchState.ENDED;
+        }
+        listeners.forEach(listener -> listener.onBatchEnded(this));
+    }
+
+    public void addListener(BatchListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(BatchListener listener) {
+        listeners.remove(listener);
     }
 
     private void validateInternal() {
@@ -92,6 +168,10 @@ public class Batch {
         return batchId;
     }
 
+    String getId() {
+        return batchId;
+    }
+
     public boolean isEnded() {
         return state == BatchState.ENDED;
     }
@@ -108,8 +188,38 @@ public class Batch {
         return totalNumberOfDocuments;
     }
 
+    public int getAddedDocumentsCount() {
+        return addedDocumentsCount.get();
+    }
+
+    public int getSuccessfulDocumentsCount() {
+        return successfulDocumentsCount.get();
+    }
+
+    public int getFailedDocumentsCount() {
+        return failedDocumentsCount.get();
+    }
+
     public int getProcessedDocumentsCount(){
-        return successfulDocumentsCount + failedDocumentsCount;
+        return successfulDocumentsCount.get() + failedDocumentsCount.get();
+    }
+
+    /**
+     * @return added documents in the order they were added
+     */
+    public List<BatchDocument> getDocuments() {
+        return documents.values().stream().sorted(Comparator.comparingInt(BatchDocument::getIndex)).toList();
+    }
+
+    /**
+     * @return documents whose responders are kept until they are done or failed
+     */
+    int getUnfinishedResponderCount() {
+        return documentsByResponder.size();
+    }
+
+    public long countDocuments(BatchDocument.Status status) {
+        return documents.values().stream().filter(document -> document.getStatus() == status).count();
     }
 
     public SigningKey getSigningKey() {
@@ -121,12 +231,12 @@ public class Batch {
         return UUID.randomUUID().toString();
     }
 
-    private boolean isExpired() {
-        return expriationDate.before(new Date());
+    public boolean isExpired() {
+        return expirationMillis < System.currentTimeMillis();
     }
 
     public void resetExpirationDate() {
-        expriationDate = new Date(System.currentTimeMillis() + 1000 * 60 * 10); // 1 minute
+        expirationMillis = System.currentTimeMillis() + EXPIRATION_MILLIS;
     }
 
     public void log() {
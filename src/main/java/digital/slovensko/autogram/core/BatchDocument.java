@@ -0,0 +1,91 @@
+package digital.slovensko.autogram.core;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Status of one document of a {@link Batch}. Transitions are atomic, a document is done or failed only once however
+ * many threads report it.
+ */
+public class BatchDocument {
+    public enum Status {
+        QUEUED, SIGNING, DONE, FAILED;
+
+        public boolean isFinished() {
+            return this == DONE || this == FAILED;
+        }
+    }
+
+    private final int index;
+    private final String name;
+    private final AtomicReference<Status> status = new AtomicReference<>(Status.QUEUED);
+    private final long queuedAt = System.nanoTime();
+    private volatile long startedAt = 0;
+    private volatile long finishedAt = 0;
+
+    BatchDocument(int index, String name) {
+        this.index = index;
+        this.name = name;
+    }
+
+    /**
+     * @return true if the document was queued
+     */
+    boolean start() {
+        if (!status.compareAndSet(Status.QUEUED, Status.SIGNING))
+            return false;
+
+        startedAt = System.nanoTime();
+        return true;
+    }
+
+    /**
+     * @return true if this call finished the document, false if it was finished before
+     */
+    boolean finish(Status result) {
+        var previous = status.getAndUpdate(current -> current.isFinished() ? current : result);
+        if (previous.isFinished())
+            return false;
+
+        var now = System.nanoTime();
+        if (startedAt == 0)
+            startedAt = now;
+        finishedAt = now;
+        return true;
+    }
+
+    /**
+     * @return order in which the document was added to the batch
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Status getStatus() {
+        return status.get();
+    }
+
+    /**
+     * @return time from adding the document until signing started, so far if it is still queued
+     */
+    public Duration getQueueTime() {
+        var started = startedAt;
+        return Duration.ofNanos((started == 0 ? System.nanoTime() : started) - queuedAt);
+    }
+
+    /**
+     * @return time from start of signing until the document was done or failed, zero if it is still queued
+     */
+    public Duration getSigningTime() {
+        var started = startedAt;
+        var finished = finishedAt;
+        if (started == 0)
+            return Duration.ZERO;
+
+        return Duration.ofNanos((finished == 0 ? System.nanoTime() : finished) - started);
+    }
+}
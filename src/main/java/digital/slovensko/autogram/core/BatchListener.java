@@ -0,0 +1,16 @@
+package digital.slovensko.autogram.core;
+
+import digital.slovensko.autogram.core.errors.AutogramException;
+
+/**
+ * Notified about progress of a {@link Batch}, on the thread that made the progress.
+ */
+public interface BatchListener {
+    /**
+     * @param documentName name of the signed document, or of the document as added to the batch if signing failed
+     * @param error        null if the document was signed
+     */
+    void onDocumentProcessed(Batch batch, String documentName, AutogramException error);
+
+    void onBatchEnded(Batch batch);
+}
@@ -0,0 +1,196 @@
+package digital.slovensko.autogram.core;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Signs documents of a batch in three stages: prepare (data to sign) and finish (signed document and response) run
+ * on all cores, the token stage signs on one thread, one document at a time in the order they were submitted.
+ *
+ * Each stage admits a bounded number of jobs through a semaphore. When a stage is full the previous one waits, and so
+ * does the caller of {@link #submit}, so only a few documents per thread are held in memory however big the batch is.
+ * A job counts against the prepare stage until it is handed to the token, so documents prepared ahead of a slow one
+ * are bounded as well. Idle threads stop after a while, a pipeline of an ended batch needs no shutdown.
+ */
+public class BatchSigningPipeline {
+    private static final long IDLE_THREAD_TIMEOUT_SECONDS = 30;
+    /** handed over in place of a job that failed before reaching the token */
+    private static final Runnable SKIP = () -> {};
+
+    private final SigningKey key;
+    private final Consumer<SigningJob> onStarted;
+    private final Consumer<SigningJob> onSigned;
+    private final BiConsumer<SigningJob, Exception> onFailed;
+    private final ThreadPoolExecutor prepareStage;
+    private final ThreadPoolExecutor tokenStage;
+    private final ThreadPoolExecutor finishStage;
+    private final Semaphore preparePermits;
+    private final Semaphore tokenPermits;
+    private final Semaphore finishPermits;
+    /** prepared jobs by submission sequence, waiting for the jobs submitted before them */
+    private final Map<Long, Runnable> prepared = new HashMap<>();
+    private long submitted = 0;
+    private long nextToToken = 0;
+    private volatile Exception stopReason;
+
+    /**
+     * @param parallelism threads of the prepare and finish stages, also the number of jobs waiting for each stage
+     * @param onStarted called on a prepare thread when the job leaves the queue
+     * @param onSigned called on a finish thread after the responder got the signed document
+     * @param onFailed called on the thread of the failed stage, the job's responder is not notified
+     */
+    public BatchSigningPipeline(SigningKey key, int parallelism, Consumer<SigningJob> onStarted,
+            Consumer<SigningJob> onSigned, BiConsumer<SigningJob, Exception> onFailed) {
+        this.key = key;
+        this.onStarted = onStarted;
+        this.onSigned = onSigned;
+        this.onFailed = onFailed;
+        this.prepareStage = buildStage("prepare", parallelism);
+        this.tokenStage = buildStage("token", 1);
+        this.finishStage = buildStage("finish", parallelism);
+        this.preparePermits = new Semaphore(2 * parallelism);
+        this.tokenPermits = new Semaphore(1 + parallelism);
+        this.finishPermits = new Semaphore(2 * parallelism);
+    }
+
+    public BatchSigningPipeline(SigningKey key, int parallelism, Consumer<SigningJob> onSigned,
+            BiConsumer<SigningJob, Exception> onFailed) {
+        this(key, parallelism, job -> {}, onSigned, onFailed);
+    }
+
+    public BatchSigningPipeline(SigningKey key, Consumer<SigningJob> onStarted, Consumer<SigningJob> onSigned,
+            BiConsumer<SigningJob, Exception> onFailed) {
+        this(key, Runtime.getRuntime().availableProcessors(), onStarted, onSigned, onFailed);
+    }
+
+    /**
+     * Queues the job for signing, waits while the prepare stage is full.
+     *
+     * @throws RejectedExecutionException when interrupted while waiting
+     */
+    public void submit(SigningJob job) {
+        try {
+            preparePermits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException(e);
+        }
+
+        long sequence;
+        synchronized (prepared) {
+            sequence = submitted++;
+        }
+
+        prepareStage.execute(() -> prepare(sequence, job));
+    }
+
+    /**
+     * Fails jobs that have not reached the token yet with the reason, e.g. after an incorrect PIN, so that the token is
+     * not tried again for each of them. Jobs already signed by the token are finished.
+     */
+    public void stop(Exception reason) {
+        stopReason = reason;
+    }
+
+    private void prepare(long sequence, SigningJob job) {
+        if (stopReason != null) {
+            onFailed.accept(job, stopReason);
+            handOverToToken(sequence, SKIP);
+            return;
+        }
+
+        Runnable signWithKey = SKIP;
+        try {
+            onStarted.accept(job);
+            var signature = job.prepareSignature(key);
+            signWithKey = () -> signWithKey(signature);
+        } catch (Exception e) {
+            onFailed.accept(job, e);
+        }
+
+        handOverToToken(sequence, signWithKey);
+    }
+
+    /**
+     * Passes prepared jobs to the token in submission order, a job prepared early waits for those submitted before it.
+     */
+    private void handOverToToken(long sequence, Runnable signWithKey) {
+        synchronized (prepared) {
+            prepared.put(sequence, signWithKey);
+            for (var next = prepared.remove(nextToToken); next != null; next = prepared.remove(nextToToken)) {
+                nextToToken++;
+                preparePermits.release();
+                if (next != SKIP)
+                    execute(tokenStage, tokenPermits, next);
+            }
+        }
+    }
+
+    private void signWithKey(SigningJob.PreparedSignature<?> signature) {
+        if (stopReason != null) {
+            onFailed.accept(signature.getJob(), stopReason);
+            return;
+        }
+
+        try {
+            signature.signWithKey();
+            execute(finishStage, finishPermits, () -> finish(signature));
+        } catch (Exception e) {
+            onFailed.accept(signature.getJob(), e);
+        }
+    }
+
+    private void finish(SigningJob.PreparedSignature<?> signature) {
+        try {
+            signature.finishAndRespond();
+            onSigned.accept(signature.getJob());
+        } catch (Exception e) {
+            onFailed.accept(signature.getJob(), e);
+        }
+    }
+
+    /**
+     * Waits for room in the stage, the permit is released when the task ends.
+     */
+    private static void execute(ThreadPoolExecutor stage, Semaphore permits, Runnable task) {
+        permits.acquireUninterruptibly();
+        try {
+            stage.execute(() -> {
+                try {
+                    task.run();
+                } finally {
+                    permits.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Queue is unbounded, stages are bounded by their permits, so that execute never blocks inside the executor and
+     * a task is never left in the queue of a stage whose threads timed out.
+     */
+    private static ThreadPoolExecutor buildStage(String name, int threads) {
+        var threadCounter = new AtomicInteger();
+        var executor = new ThreadPoolExecutor(threads, threads, IDLE_THREAD_TIMEOUT_SECONDS, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(),
+                runnable -> {
+                    var thread = new Thread(runnable, "autogram-batch-" + name + "-" + threadCounter.getAndIncrement());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        executor.allowCoreThreadTimeOut(true);
+
+        return executor;
+    }
+}
@@ -0,0 +1,38 @@
+package digital.slovensko.autogram.core;
+
+import java.util.concurrent.Semaphore;
+
+import eu.europa.esig.dss.enumerations.DigestAlgorithm;
+import eu.europa.esig.dss.model.DSSException;
+import eu.europa.esig.dss.model.TimestampBinary;
+import eu.europa.esig.dss.spi.x509.tsp.TSPSource;
+
+/**
+ * Limits the number of timestamp requests sent to the TSA at once, so that documents processed in parallel do not
+ * flood it.
+ */
+public class ConcurrencyLimitedTSPSource implements TSPSource {
+    private final TSPSource source;
+    private final transient Semaphore permits;
+
+    public ConcurrencyLimitedTSPSource(TSPSource source, int limit) {
+        this.source = source;
+        this.permits = new Semaphore(limit);
+    }
+
+    @Override
+    public TimestampBinary getTimeStampResponse(DigestAlgorithm digestAlgorithm, byte[] digest) throws DSSException {
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DSSException("Interrupted while waiting for the TSA", e);
+        }
+
+        try {
+            return source.getTimeStampResponse(digestAlgorithm, digest);
+        } finally {
+            permits.release();
+        }
+    }
+}
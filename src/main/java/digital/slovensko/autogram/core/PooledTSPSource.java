@@ -0,0 +1,219 @@
+package digital.slovensko.autogram.core;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+
+import digital.slovensko.autogram.util.Metrics;
+import eu.europa.esig.dss.enumerations.DigestAlgorithm;
+import eu.europa.esig.dss.model.DSSException;
+import eu.europa.esig.dss.model.TimestampBinary;
+import eu.europa.esig.dss.service.tsp.OnlineTSPSource;
+import eu.europa.esig.dss.spi.client.http.DataLoader;
+import eu.europa.esig.dss.spi.exception.DSSExternalResourceException;
+import eu.europa.esig.dss.spi.x509.tsp.TSPSource;
+
+/**
+ * Timestamps over one shared HTTP client keeping connections to the TSAs alive, so documents timestamped in parallel
+ * do not each pay for a new connection.
+ *
+ * Each TSA gets at most {@code concurrency} requests at once. A failed request fails over to the next TSA of the list,
+ * the one that answered last is tried first. When all of them fail, the round is retried up to {@code retries} times
+ * after an exponential backoff with jitter.
+ */
+public class PooledTSPSource implements TSPSource {
+    public static final Duration DEFAULT_TIMEOUT = Duration.ofSeconds(10);
+    public static final int DEFAULT_RETRIES = 2;
+    public static final int DEFAULT_CONCURRENCY = 4;
+    private static final long BACKOFF_MILLIS = 250;
+
+    private final List<Endpoint> endpoints;
+    private final int retries;
+    private final long backoffMillis;
+    private final AtomicInteger preferred = new AtomicInteger();
+
+    public PooledTSPSource(List<String> urls, Duration timeout, int retries, int concurrency) {
+        this(urls, new PooledDataLoader(timeout)::createSource, retries, concurrency, BACKOFF_MILLIS);
+    }
+
+    PooledTSPSource(List<String> urls, Function<String, TSPSource> sources, int retries, int concurrency,
+            long backoffMillis) {
+        if (urls.isEmpty())
+            throw new IllegalArgumentException("At least one TSA url is required");
+
+        this.endpoints = urls.stream().map(url -> new Endpoint(url, new ConcurrencyLimitedTSPSource(
+                timed(sources.apply(url), getHost(url)), concurrency))).toList();
+        this.retries = retries;
+        this.backoffMillis = backoffMillis;
+    }
+
+    public List<String> getUrls() {
+        return endpoints.stream().map(Endpoint::url).toList();
+    }
+
+    @Override
+    public TimestampBinary getTimeStampResponse(DigestAlgorithm digestAlgorithm, byte[] digest) throws DSSException {
+        DSSException failure = null;
+        for (var attempt = 0; attempt <= retries; attempt++) {
+            if (attempt > 0) {
+                Metrics.counter("autogram_timestamp_retries_total", "Timestamp requests retried after all TSAs failed")
+                        .increment();
+                backoff(attempt, failure);
+            }
+
+            var first = preferred.get();
+            for (var i = 0; i < endpoints.size(); i++) {
+                var index = (first + i) % endpoints.size();
+                try {
+                    var response = endpoints.get(index).source().getTimeStampResponse(digestAlgorithm, digest);
+                    preferred.set(index);
+
+                    return response;
+                } catch (DSSException e) {
+                    failure = e;
+                }
+            }
+        }
+
+        throw failure;
+    }
+
+    /**
+     * Sleeps for a random time up to the exponentially growing backoff, so that parallel requests do not retry at once.
+     */
+    private void backoff(int attempt, DSSException failure) {
+        var max = backoffMillis << (attempt - 1);
+        try {
+            Thread.sleep(max / 2 + ThreadLocalRandom.current().nextLong(max / 2 + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw failure;
+        }
+    }
+
+    private static TSPSource timed(TSPSource source, String host) {
+        return (digestAlgorithm, digest) -> {
+            var start = System.nanoTime();
+            var outcome = "failure";
+            try {
+                var response = source.getTimeStampResponse(digestAlgorithm, digest);
+                outcome = "success";
+
+                return response;
+            } finally {
+                Metrics.latency("autogram_timestamp_duration_seconds", "Duration of timestamp requests",
+                        "tsa", host, "outcome", outcome).observeSince(start);
+            }
+        };
+    }
+
+    private static String getHost(String url) {
+        try {
+            var host = URI.create(url).getHost();
+            return host == null ? url : host;
+        } catch (IllegalArgumentException e) {
+            return url;
+        }
+    }
+
+    private record Endpoint(String url, TSPSource source) {
+    }
+
+    /**
+     * DSS data loader on the JDK HTTP client, which pools keep-alive connections. Only timestamp requests are
+     * posted through it.
+     */
+    private static final class PooledDataLoader implements DataLoader {
+        private final Duration timeout;
+        private transient volatile HttpClient client;
+        private String contentType = "application/timestamp-query";
+
+        private PooledDataLoader(Duration timeout) {
+            this.timeout = timeout;
+        }
+
+        private TSPSource createSource(String url) {
+            return new OnlineTSPSource(url, this);
+        }
+
+        /**
+         * Created on the first request, settings rebuild the source on every change.
+         */
+        private HttpClient getClient() {
+            if (client == null)
+                synchronized (this) {
+                    if (client == null)
+                        client = HttpClient.newBuilder()
+                                .version(HttpClient.Version.HTTP_1_1)
+                                .connectTimeout(timeout)
+                                .followRedirects(HttpClient.Redirect.NORMAL)
+                                .build();
+                }
+
+            return client;
+        }
+
+        @Override
+        public byte[] get(String url) {
+            return send(url, builder -> builder.GET());
+        }
+
+        @Override
+        public DataAndUrl get(List<String> urls) {
+            DSSException failure = new DSSExternalResourceException("No url to get data from");
+            for (var url : urls) {
+                try {
+                    return new DataAndUrl(url, get(url));
+                } catch (DSSException e) {
+                    failure = e;
+                }
+            }
+
+            throw failure;
+        }
+
+        @Override
+        public byte[] post(String url, byte[] content) {
+            return send(url, builder -> builder.header("Content-Type", contentType)
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(content)));
+        }
+
+        @Override
+        public void setContentType(String contentType) {
+            this.contentType = contentType;
+        }
+
+        private byte[] send(String url, UnaryOperator<HttpRequest.Builder> method) {
+            HttpRequest request;
+            try {
+                request = method.apply(HttpRequest.newBuilder(URI.create(url)).timeout(timeout)).build();
+            } catch (IllegalArgumentException e) {
+                throw new DSSExternalResourceException("Invalid TSA url " + url, e);
+            }
+
+            try {
+                var response = getClient().send(request, HttpResponse.BodyHandlers.ofByteArray());
+                if (response.statusCode() / 100 != 2)
+                    throw new DSSExternalResourceException(
+                            "TSA " + url + " responded with HTTP " + response.statusCode());
+
+                return response.body();
+
+            } catch (IOException e) {
+                throw new DSSExternalResourceException("Request to TSA " + url + " failed", e);
+
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new DSSExternalResourceException("Interrupted while waiting for TSA " + url, e);
+            }
+        }
+    }
+}
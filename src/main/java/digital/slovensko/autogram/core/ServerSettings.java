@@ -0,0 +1,35 @@
+package digital.slovensko.autogram.core;
+
+public interface ServerSettings {
+    int getServerThreads();
+
+    int getServerQueueSize();
+
+    int getServerMaxConcurrentRequests();
+
+    long getServerMaxRequestBodySize();
+
+    long getServerRequestBodyBudget();
+
+    int getServerWorkerThreads();
+
+    /**
+     * @return jdk (default) or jetty, see {@code digital.slovensko.autogram.server.ServerTransport}
+     */
+    String getServerTransport();
+
+    /**
+     * @return milliseconds an idle keep-alive connection is kept open
+     */
+    long getServerIdleTimeout();
+
+    /**
+     * @return milliseconds to wait for requests in progress when the server stops
+     */
+    long getServerShutdownTimeout();
+
+    /**
+     * @return bytes of a document kept in memory, larger documents are spilled to a temporary file
+     */
+    long getServerSpillThreshold();
+}
@@ -0,0 +1,162 @@
+package digital.slovensko.autogram.core;
+
+import digital.slovensko.autogram.core.errors.AutogramException;
+import digital.slovensko.autogram.core.errors.DocumentNotSignedException;
+import digital.slovensko.autogram.core.errors.SigningParametersException;
+import digital.slovensko.autogram.core.errors.TsaServerMisconfiguredException;
+import digital.slovensko.autogram.util.DSSUtils;
+import digital.slovensko.autogram.util.Metrics;
+import eu.europa.esig.dss.asic.cades.ASiCWithCAdESSignatureParameters;
+import eu.europa.esig.dss.asic.common.ASiCUtils;
+import eu.europa.esig.dss.asic.xades.ASiCWithXAdESSignatureParameters;
+import eu.europa.esig.dss.cades.CAdESSignatureParameters;
+import eu.europa.esig.dss.enumerations.ASiCContainerType;
+import eu.europa.esig.dss.enumerations.SignatureForm;
+import eu.europa.esig.dss.enumerations.SignatureLevel;
+import eu.europa.esig.dss.model.DSSDocument;
+import eu.europa.esig.dss.model.DSSException;
+import eu.europa.esig.dss.pades.PAdESSignatureParameters;
+import eu.europa.esig.dss.spi.x509.tsp.TSPSource;
+import eu.europa.esig.dss.validation.CertificateVerifier;
+import eu.europa.esig.dss.validation.CommonCertificateVerifier;
+import eu.europa.esig.dss.xades.XAdESSignatureParameters;
+
+/**
+ * Extends signatures of already signed documents to a higher baseline level, e.g. B to T or LT, in the form and
+ * container the document is signed in.
+ *
+ * No token is involved, only the TSA and for LT level also revocation sources, so any number of documents can be
+ * extended in parallel by one extender. Limit the TSA load with {@link ConcurrencyLimitedTSPSource}. DSS services
+ * are shared through {@link SignatureServiceRegistry}, they are not created for every document.
+ */
+public class SignatureExtender {
+    public enum Level {
+        BASELINE_T,
+        BASELINE_LT;
+
+        public SignatureLevel forForm(SignatureForm form) {
+            return SignatureLevel.valueOf(form.name() + "_" + name());
+        }
+    }
+
+    private final Level level;
+    private final TSPSource tspSource;
+    private final CertificateVerifier certificateVerifier;
+
+    public SignatureExtender(Level level, TSPSource tspSource, CertificateVerifier certificateVerifier) {
+        this.level = level;
+        this.tspSource = tspSource;
+        this.certificateVerifier = certificateVerifier;
+    }
+
+    /**
+     * LT level adds revocation data, the {@link SignatureValidator} has to be initialized for its trusted lists and
+     * revocation sources.
+     */
+    public static SignatureExtender create(Level level, TSPSource tspSource) {
+        if (tspSource == null)
+            throw new TsaServerMisconfiguredException(
+                    "Nie je nastavená žiadna adresa TSA servera. Skontrolujte nastavenia TSA servera.", null);
+
+        var certificateVerifier = level == Level.BASELINE_LT
+                ? SignatureValidator.getInstance().getCertificateVerifier()
+                : SignatureServiceRegistry.getInstance().getCertificateVerifier();
+
+        return new SignatureExtender(level, tspSource, certificateVerifier);
+    }
+
+    public Level getLevel() {
+        return level;
+    }
+
+    /**
+     * @return extended document with the name and MIME type of the original one
+     */
+    public DSSDocument extend(DSSDocument document) throws AutogramException {
+        var start = System.nanoTime();
+        SignatureForm form;
+        DSSDocument extended;
+        try {
+            form = getSignatureForm(document);
+            var container = ASiCUtils.isZip(document) ? ASiCUtils.getContainerType(document) : null;
+            var signatureLevel = level.forForm(form);
+
+            extended = container == null
+                    ? extendSignature(document, form, signatureLevel)
+                    : extendContainer(document, form, container, signatureLevel);
+        } catch (DSSException e) {
+            throw AutogramException.createFromDSSException(e);
+        }
+
+        Metrics.latency("autogram_extension_duration_seconds", "Duration of signature extensions",
+                "form", form.name(), "level", level.name()).observeSince(start);
+        Metrics.counter("autogram_extended_documents_total", "Documents with extended signatures",
+                "form", form.name(), "level", level.name()).increment();
+
+        extended.setName(document.getName());
+        extended.setMimeType(document.getMimeType());
+        return extended;
+    }
+
+    private static SignatureForm getSignatureForm(DSSDocument document) {
+        var validator = DSSUtils.createDocumentValidator(document);
+        if (validator == null)
+            throw new DocumentNotSignedException("Dokument nie je v žiadnom z podporovaných formátov podpísaných dokumentov");
+
+        validator.setCertificateVerifier(new CommonCertificateVerifier());
+        var signatures = validator.getSignatures();
+        if (signatures.isEmpty())
+            throw new DocumentNotSignedException("V dokumente neboli nájdené žiadne podpisy");
+
+        return signatures.get(0).getSignatureForm();
+    }
+
+    private DSSDocument extendSignature(DSSDocument document, SignatureForm form, SignatureLevel signatureLevel) {
+        return switch (form) {
+            case XAdES -> {
+                var service = SignatureServiceRegistry.getInstance().getXAdESService(tspSource, certificateVerifier);
+                var parameters = new XAdESSignatureParameters();
+                parameters.setSignatureLevel(signatureLevel);
+                yield service.extendDocument(document, parameters);
+            }
+            case CAdES -> {
+                var service = SignatureServiceRegistry.getInstance().getCAdESService(tspSource, certificateVerifier);
+                var parameters = new CAdESSignatureParameters();
+                parameters.setSignatureLevel(signatureLevel);
+                yield service.extendDocument(document, parameters);
+            }
+            case PAdES -> {
+                var service = SignatureServiceRegistry.getInstance().getPAdESService(tspSource, certificateVerifier);
+                var parameters = new PAdESSignatureParameters();
+                parameters.setSignatureLevel(signatureLevel);
+                yield service.extendDocument(document, parameters);
+            }
+            default -> throw new SigningParametersException("Nepodporovaný formát podpisu",
+                    "Podpisy vo formáte " + form + " nie je možné rozšíriť");
+        };
+    }
+
+    private DSSDocument extendContainer(DSSDocument document, SignatureForm form, ASiCContainerType container,
+            SignatureLevel signatureLevel) {
+        return switch (form) {
+            case XAdES -> {
+                var service = SignatureServiceRegistry.getInstance().getASiCWithXAdESService(container, tspSource,
+                        certificateVerifier);
+                var parameters = new ASiCWithXAdESSignatureParameters();
+                parameters.aSiC().setContainerType(container);
+                parameters.setSignatureLevel(signatureLevel);
+                yield service.extendDocument(document, parameters);
+            }
+            case CAdES -> {
+                var service = SignatureServiceRegistry.getInstance().getASiCWithCAdESService(container, tspSource,
+                        certificateVerifier);
+                var parameters = new ASiCWithCAdESSignatureParameters();
+                parameters.aSiC().setContainerType(container);
+                parameters.setSignatureLevel(signatureLevel);
+                yield service.extendDocument(document, parameters);
+            }
+            default -> throw new SigningParametersException("Nepodporovaný formát podpisu",
+                    "Podpisy vo formáte " + form + " nie je možné rozšíriť");
+        };
+    }
+}
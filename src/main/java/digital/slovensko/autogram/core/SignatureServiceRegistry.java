@@ -0,0 +1,165 @@
+package digital.slovensko.autogram.core;
+
+import java.util.function.Supplier;
+
+import digital.slovensko.autogram.util.LruCache;
+import digital.slovensko.autogram.util.SpillableDocument;
+import eu.europa.esig.dss.asic.cades.signature.ASiCWithCAdESService;
+import eu.europa.esig.dss.asic.xades.signature.ASiCWithXAdESService;
+import eu.europa.esig.dss.cades.signature.CAdESService;
+import eu.europa.esig.dss.enumerations.ASiCContainerType;
+import eu.europa.esig.dss.enumerations.SignatureForm;
+import eu.europa.esig.dss.pades.signature.PAdESService;
+import eu.europa.esig.dss.pdf.ServiceLoaderPdfObjFactory;
+import eu.europa.esig.dss.spi.x509.tsp.TSPSource;
+import eu.europa.esig.dss.validation.CertificateVerifier;
+import eu.europa.esig.dss.validation.CommonCertificateVerifier;
+import eu.europa.esig.dss.xades.signature.XAdESService;
+
+/**
+ * DSS signature services shared by all signing jobs and signature extensions, one per signature form, container, TSP
+ * source and certificate verifier.
+ *
+ * Services are configured only when created and DSS services keep no state between calls, so one instance can sign
+ * any number of documents, also concurrently. TSP sources and verifiers are compared by identity, services of
+ * replaced ones fall out of the cache as least recently used. Signed PDFs are written to {@link SpillableDocument}, so that large
+ * ones do not stay on the heap.
+ */
+public class SignatureServiceRegistry {
+    private static final int MAX_SERVICES = 32;
+    private static final SignatureServiceRegistry instance = new SignatureServiceRegistry();
+
+    private final CommonCertificateVerifier certificateVerifier = new CommonCertificateVerifier();
+    private final LruCache<Key, Object> services = new LruCache<>("signatureServices", MAX_SERVICES, service -> 1);
+
+    public static SignatureServiceRegistry getInstance() {
+        return instance;
+    }
+
+    /**
+     * @return verifier of services signing new documents, it does not check revocation
+     */
+    public CertificateVerifier getCertificateVerifier() {
+        return certificateVerifier;
+    }
+
+    public XAdESService getXAdESService() {
+        return getXAdESService(null, certificateVerifier);
+    }
+
+    /**
+     * @param verifier e.g. with revocation sources for extension to LT level
+     */
+    public XAdESService getXAdESService(TSPSource tspSource, CertificateVerifier verifier) {
+        return get(SignatureForm.XAdES, null, tspSource, verifier, () -> {
+            var service = new XAdESService(verifier);
+            service.setTspSource(tspSource);
+            return service;
+        });
+    }
+
+    public CAdESService getCAdESService() {
+        return getCAdESService(null, certificateVerifier);
+    }
+
+    /**
+     * @param verifier e.g. with revocation sources for extension to LT level
+     */
+    public CAdESService getCAdESService(TSPSource tspSource, CertificateVerifier verifier) {
+        return get(SignatureForm.CAdES, null, tspSource, verifier, () -> {
+            var service = new CAdESService(verifier);
+            service.setTspSource(tspSource);
+            return service;
+        });
+    }
+
+    /**
+     * @param tspSource source of timestamps for T-level signatures or null
+     */
+    public PAdESService getPAdESService(TSPSource tspSource) {
+        return getPAdESService(tspSource, certificateVerifier);
+    }
+
+    /**
+     * @param verifier e.g. with revocation sources for extension to LT level
+     */
+    public PAdESService getPAdESService(TSPSource tspSource, CertificateVerifier verifier) {
+        return get(SignatureForm.PAdES, null, tspSource, verifier, () -> {
+            var pdfObjFactory = new ServiceLoaderPdfObjFactory();
+            pdfObjFactory.setResourcesHandlerBuilder(new SpillableDocument.ResourcesHandlerBuilder());
+
+            var service = new PAdESService(verifier);
+            service.setTspSource(tspSource);
+            service.setPdfObjFactory(pdfObjFactory);
+            return service;
+        });
+    }
+
+    /**
+     * @param tspSource source of timestamps for T-level signatures or null
+     */
+    public ASiCWithXAdESService getASiCWithXAdESService(ASiCContainerType container, TSPSource tspSource) {
+        return getASiCWithXAdESService(container, tspSource, certificateVerifier);
+    }
+
+    /**
+     * @param verifier e.g. with revocation sources for extension to LT level
+     */
+    public ASiCWithXAdESService getASiCWithXAdESService(ASiCContainerType container, TSPSource tspSource,
+            CertificateVerifier verifier) {
+        return get(SignatureForm.XAdES, container, tspSource, verifier, () -> {
+            var service = new ASiCWithXAdESService(verifier);
+            service.setTspSource(tspSource);
+            return service;
+        });
+    }
+
+    /**
+     * @param tspSource source of timestamps for T-level signatures or null
+     */
+    public ASiCWithCAdESService getASiCWithCAdESService(ASiCContainerType container, TSPSource tspSource) {
+        return getASiCWithCAdESService(container, tspSource, certificateVerifier);
+    }
+
+    /**
+     * @param verifier e.g. with revocation sources for extension to LT level
+     */
+    public ASiCWithCAdESService getASiCWithCAdESService(ASiCContainerType container, TSPSource tspSource,
+            CertificateVerifier verifier) {
+        return get(SignatureForm.CAdES, container, tspSource, verifier, () -> {
+            var service = new ASiCWithCAdESService(verifier);
+            service.setTspSource(tspSource);
+            return service;
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private <S> S get(SignatureForm form, ASiCContainerType container, TSPSource tspSource,
+            CertificateVerifier verifier, Supplier<S> factory) {
+        var key = new Key(form, container, tspSource, verifier);
+        var service = services.get(key);
+        if (service != null)
+            return (S) service;
+
+        // two jobs may create the same service at once, either of them can be kept
+        var created = factory.get();
+        services.put(key, created);
+
+        return created;
+    }
+
+    private record Key(SignatureForm form, ASiCContainerType container, TSPSource tspSource,
+            CertificateVerifier verifier) {
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Key key && form == key.form && container == key.container
+                    && tspSource == key.tspSource && verifier == key.verifier;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (31 * (31 * form.hashCode() + (container == null ? 0 : container.hashCode()))
+                    + System.identityHashCode(tspSource)) + System.identityHashCode(verifier);
+        }
+    }
+}
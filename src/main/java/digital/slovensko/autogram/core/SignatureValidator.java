@@ -7,7 +7,9 @@ import java.nio.charset.StandardCharsets;
 import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.transform.TransformerException;
@@ -22,6 +24,7 @@ import org.slf4j.LoggerFactory;
 import org.xml.sax.InputSource;
 import org.xml.sax.SAXException;
 
+import digital.slovensko.autogram.util.Metrics;
 import digital.slovensko.autogram.util.XMLUtils;
 import eu.europa.esig.dss.enumerations.SignatureLevel;
 import eu.europa.esig.dss.model.DSSDocument;
@@ -48,8 +51,15 @@ import static digital.slovensko.autogram.util.DSSUtils.*;
 public class SignatureValidator {
     private static final String LOTL_URL = "https://ec.europa.eu/tools/lotl/eu-lotl.xml";
     private static final String OJ_URL = "https://eur-lex.europa.eu/legal-content/EN/TXT/?uri=uriserv:OJ.C_.2019.276.01.0001.01.ENG";
-    private CertificateVerifier verifier;
-    private TLValidationJob validationJob;
+    /**
+     * Set once by {@link #initialize}, validations read them without locking, so they can run in parallel and
+     * are not blocked by a trusted lists refresh
+     */
+    private volatile CertificateVerifier verifier;
+    private volatile TLValidationJob validationJob;
+    private final CountDownLatch initialized = new CountDownLatch(1);
+    /** Read by metrics without locking, the validator is busy for a long time while refreshing */
+    private volatile int processedTLs = 0;
     private static Logger logger = LoggerFactory.getLogger(SignatureValidator.class);
 
     // Singleton
@@ -65,18 +75,48 @@ public class SignatureValidator {
         return instance;
     }
 
-    public synchronized Reports validate(SignedDocumentValidator docValidator) {
+    public Reports validate(SignedDocumentValidator docValidator) {
         docValidator.setCertificateVerifier(verifier);
 
         // TODO: do not print stack trace inside DSS
         return docValidator.validateDocument();
     }
 
+    /**
+     * Verifier with trusted lists and online revocation sources, null until the validator is initialized.
+     */
+    public CertificateVerifier getCertificateVerifier() {
+        return verifier;
+    }
+
     public synchronized void refresh() {
+        refreshAndMeasure();
+    }
+
+    private void refreshAndMeasure() {
+        var start = System.nanoTime();
         validationJob.offlineRefresh();
+        Metrics.latency("autogram_tl_refresh_duration_seconds", "Duration of trusted lists refresh").observeSince(start);
+
+        processedTLs = validationJob.getSummary().getNumberOfProcessedTLs();
     }
 
     public synchronized void initialize(ExecutorService executorService, List<String> tlCountries) {
+        try {
+            initializeVerifier(executorService, tlCountries);
+        } finally {
+            initialized.countDown();
+        }
+    }
+
+    /**
+     * @return false if the validator is not initialized within the timeout
+     */
+    public boolean awaitInitialization(long timeout, TimeUnit unit) throws InterruptedException {
+        return initialized.await(timeout, unit) && verifier != null;
+    }
+
+    private void initializeVerifier(ExecutorService executorService, List<String> tlCountries) {
         SimpleDateFormat formatter = new SimpleDateFormat("dd/MM/yyyy HH:mm:ss");
         logger.debug("Initializing signature validator at {}", formatter.format(new Date()));
 
@@ -106,13 +146,17 @@ public class SignatureValidator {
         validationJob.setExecutorService(executorService);
         validationJob.setDebug(false);
 
+        Metrics.gauge("autogram_tls_loaded", "Whether trusted lists are loaded", () -> processedTLs > 0 ? 1 : 0);
+        Metrics.gauge("autogram_tls_processed", "Number of processed trusted lists", () -> processedTLs);
+
         logger.debug("Starting signature validator offline refresh");
-        validationJob.offlineRefresh();
+        refreshAndMeasure();
 
-        verifier = new CommonCertificateVerifier();
+        var verifier = new CommonCertificateVerifier();
         verifier.setTrustedCertSources(trustedListCertificateSource);
         verifier.setCrlSource(new OnlineCRLSource());
         verifier.setOcspSource(new OnlineOCSPSource());
+        this.verifier = verifier;
 
         logger.debug("Signature validator initialized at {}", formatter.format(new Date()));
     }
@@ -127,14 +171,34 @@ public class SignatureValidator {
         }
     }
 
-    public synchronized ValidationReports getSignatureValidationReport(SigningJob job) {
+    public ValidationReports getSignatureValidationReport(SigningJob job) {
         var documentValidator = createDocumentValidator(job.getDocument());
         if (documentValidator == null)
             return new ValidationReports(null, job);
 
+        try {
+            initialized.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new ValidationReports(null, job);
+        }
+
         return new ValidationReports(validate(documentValidator), job);
     }
 
+    /**
+     * Validates signatures of the document against trusted lists, the validator must be initialized.
+     *
+     * @return null if the document is not of a supported signed format
+     */
+    public Reports validate(DSSDocument document) {
+        var documentValidator = createDocumentValidator(document);
+        if (documentValidator == null)
+            return null;
+
+        return validate(documentValidator);
+    }
+
     public static String getSignatureValidationReportHTML(Reports signatureValidationReport) {
         try {
             var document = XMLUtils.getSecureDocumentBuilder().parse(new InputSource(new StringReader(signatureValidationReport.getXmlSimpleReport())));
@@ -187,8 +251,8 @@ public class SignatureValidator {
         return report.getSignatureFormat(report.getSignatureIdList().get(0));
     }
 
-    public synchronized boolean areTLsLoaded() {
+    public boolean areTLsLoaded() {
         // TODO: consider validation turned off as well
-        return validationJob.getSummary().getNumberOfProcessedTLs() > 0;
+        return processedTLs > 0;
     }
 }
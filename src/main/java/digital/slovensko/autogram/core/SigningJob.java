@@ -1,23 +1,30 @@
 package digital.slovensko.autogram.core;
 
 import java.io.File;
+import java.util.HashSet;
+import java.util.List;
 
 import digital.slovensko.autogram.core.eforms.EFormUtils;
 import digital.slovensko.autogram.core.eforms.xdc.XDCBuilder;
 import digital.slovensko.autogram.core.eforms.xdc.XDCValidator;
 import digital.slovensko.autogram.core.errors.AutogramException;
+import digital.slovensko.autogram.core.errors.SigningParametersException;
 import digital.slovensko.autogram.util.Logging;
-import eu.europa.esig.dss.asic.cades.signature.ASiCWithCAdESService;
-import eu.europa.esig.dss.asic.xades.signature.ASiCWithXAdESService;
-import eu.europa.esig.dss.cades.signature.CAdESService;
+import digital.slovensko.autogram.util.Metrics;
+import digital.slovensko.autogram.util.SpillableDocument;
+import digital.slovensko.autogram.util.Timing;
+import eu.europa.esig.dss.enumerations.ASiCContainerType;
 import eu.europa.esig.dss.enumerations.MimeTypeEnum;
 import eu.europa.esig.dss.enumerations.SignatureLevel;
 import eu.europa.esig.dss.model.DSSDocument;
+import eu.europa.esig.dss.model.DigestDocument;
 import eu.europa.esig.dss.model.FileDocument;
-import eu.europa.esig.dss.pades.signature.PAdESService;
+import eu.europa.esig.dss.model.SerializableSignatureParameters;
+import eu.europa.esig.dss.model.SignatureValue;
+import eu.europa.esig.dss.model.ToBeSigned;
+import eu.europa.esig.dss.signature.DocumentSignatureService;
+import eu.europa.esig.dss.signature.MultipleDocumentsSignatureService;
 import eu.europa.esig.dss.spi.x509.tsp.TSPSource;
-import eu.europa.esig.dss.validation.CommonCertificateVerifier;
-import eu.europa.esig.dss.xades.signature.XAdESService;
 
 import static digital.slovensko.autogram.core.AutogramMimeType.*;
 import static digital.slovensko.autogram.util.DSSUtils.getXdcfFilename;
@@ -25,132 +32,260 @@ import static digital.slovensko.autogram.util.DSSUtils.getXdcfFilename;
 public class SigningJob {
     private final Responder responder;
     private final DSSDocument document;
+    /** Documents signed together in one container, null for jobs signing a single document */
+    private final List<DSSDocument> bundle;
+    /** Document the job was built from when it was replaced by its XDC transformation, otherwise null */
+    private DSSDocument source;
     private final SigningParameters parameters;
+    private final Timing timing;
+    private final long createdNanos = System.nanoTime();
 
-    private SigningJob(DSSDocument document, SigningParameters parameters, Responder responder) {
+    private SigningJob(DSSDocument document, SigningParameters parameters, Responder responder, Timing timing) {
+        this(document, null, parameters, responder, timing);
+    }
+
+    private SigningJob(DSSDocument document, List<DSSDocument> bundle, SigningParameters parameters,
+            Responder responder, Timing timing) {
         this.document = document;
+        this.bundle = bundle;
         this.parameters = parameters;
         this.responder = responder;
+        this.timing = timing;
     }
 
+    /**
+     * Document to be signed, the first one of a bundle.
+     */
     public DSSDocument getDocument() {
         return this.document;
     }
 
+    /**
+     * All documents covered by the signature, just {@link #getDocument()} unless this is a bundle.
+     */
+    public List<DSSDocument> getDocuments() {
+        return isBundle() ? bundle : List.of(document);
+    }
+
+    public boolean isBundle() {
+        return bundle != null;
+    }
+
+    /**
+     * Document content is not available, only its digest, see {@link #buildFromDigest}.
+     */
+    public boolean isDigestOnly() {
+        return document instanceof DigestDocument;
+    }
+
     public SigningParameters getParameters() {
         return parameters;
     }
 
+    public Responder getResponder() {
+        return responder;
+    }
+
     public int getVisualizationWidth() {
         return parameters.getVisualizationWidth();
     }
 
     public void signWithKeyAndRespond(SigningKey key) throws InterruptedException, AutogramException {
+        var signature = prepareSignature(key);
+        signature.signWithKey();
+        signature.finishAndRespond();
+    }
+
+    /**
+     * First step of signing, computes data to sign without touching the token. The other steps are done by the
+     * returned signature, so that they can run on different threads, see {@link BatchSigningPipeline}.
+     */
+    public PreparedSignature<?> prepareSignature(SigningKey key) {
+        // from submitting the job until the user picked the key and confirmed signing
+        timing.record("wait", createdNanos);
 
-        Logging.log("Signing Job: " + this.hashCode() + " file " + getDocument().getName());
+        Logging.log("Signing Job: " + this.hashCode() + " file " + getDocument().getName()
+                + (isBundle() ? " and " + (bundle.size() - 1) + " more in bundle" : ""));
         boolean isContainer = getParameters().getContainer() != null;
-        var doc = switch (getParameters().getSignatureType()) {
-            case XAdES -> isContainer ? signDocumentAsAsiCWithXAdeS(key) : signDocumentAsXAdeS(key);
-            case CAdES -> isContainer ? signDocumentAsASiCWithCAdeS(key) : signDocumentAsCAdeS(key);
-            case PAdES -> signDocumentAsPAdeS(key);
+        return switch (getParameters().getSignatureType()) {
+            case XAdES -> isContainer ? prepareAsAsiCWithXAdeS(key) : prepareAsXAdeS(key);
+            case CAdES -> isContainer ? prepareAsASiCWithCAdeS(key) : prepareAsCAdeS(key);
+            case PAdES -> prepareAsPAdeS(key);
             default -> throw new RuntimeException(
                     "Unsupported signature type: " + getParameters().getSignatureType());
         };
-        responder.onDocumentSigned(new SignedDocument(doc, key.getCertificate()));
     }
 
     public void onDocumentSignFailed(AutogramException e) {
-        responder.onDocumentSignFailed(e);
+        try {
+            responder.onDocumentSignFailed(e);
+        } finally {
+            release();
+        }
+    }
+
+    /**
+     * Deletes temporary files of the documents to be signed, the job can not be signed afterwards. Called once the
+     * job is signed or failed for good, see {@link SpillableDocument}.
+     */
+    public void release() {
+        for (var document : getDocuments())
+            if (document instanceof SpillableDocument spillable)
+                spillable.close();
+
+        if (source instanceof SpillableDocument spillable)
+            spillable.close();
     }
 
-    private DSSDocument signDocumentAsCAdeS(SigningKey key) {
-        var commonCertificateVerifier = new CommonCertificateVerifier();
-        var service = new CAdESService(commonCertificateVerifier);
-        var jobParameters = getParameters();
+    private PreparedSignature<?> prepareAsCAdeS(SigningKey key) {
+        var service = SignatureServiceRegistry.getInstance().getCAdESService();
         var signatureParameters = getParameters().getCAdESSignatureParameters();
 
         signatureParameters.setSigningCertificate(key.getCertificate());
         signatureParameters.setCertificateChain(key.getCertificateChain());
         signatureParameters.setSignWithExpiredCertificate(true);
 
-        var dataToSign = service.getDataToSign(getDocument(), signatureParameters);
-        var signatureValue = key.sign(dataToSign, jobParameters.getDigestAlgorithm());
-
-        return service.signDocument(getDocument(), signatureParameters, signatureValue);
+        return prepare(service, signatureParameters, key);
     }
 
-    private DSSDocument signDocumentAsAsiCWithXAdeS(SigningKey key) {
-        var commonCertificateVerifier = new CommonCertificateVerifier();
-        var service = new ASiCWithXAdESService(commonCertificateVerifier);
+    private PreparedSignature<?> prepareAsAsiCWithXAdeS(SigningKey key) {
         var signatureParameters = getParameters().getASiCWithXAdESSignatureParameters();
 
         signatureParameters.setSigningCertificate(key.getCertificate());
         signatureParameters.setCertificateChain(key.getCertificateChain());
         signatureParameters.setSignWithExpiredCertificate(true);
 
-        if (signatureParameters.getSignatureLevel().equals(SignatureLevel.XAdES_BASELINE_T))
-            service.setTspSource(getParameters().getTspSource());
-
-        var dataToSign = service.getDataToSign(getDocument(), signatureParameters);
-        var signatureValue = key.sign(dataToSign, getParameters().getDigestAlgorithm());
+        var tspSource = signatureParameters.getSignatureLevel().equals(SignatureLevel.XAdES_BASELINE_T)
+                ? getParameters().getTspSource() : null;
+        var service = SignatureServiceRegistry.getInstance().getASiCWithXAdESService(getParameters().getContainer(),
+                tspSource);
 
-        return service.signDocument(getDocument(), signatureParameters, signatureValue);
+        return prepare(service, signatureParameters, key);
     }
 
-    private DSSDocument signDocumentAsXAdeS(SigningKey key) {
-        var commonCertificateVerifier = new CommonCertificateVerifier();
-        var service = new XAdESService(commonCertificateVerifier);
-        var jobParameters = getParameters();
+    private PreparedSignature<?> prepareAsXAdeS(SigningKey key) {
+        var service = SignatureServiceRegistry.getInstance().getXAdESService();
         var signatureParameters = getParameters().getXAdESSignatureParameters();
 
         signatureParameters.setSigningCertificate(key.getCertificate());
         signatureParameters.setCertificateChain(key.getCertificateChain());
         signatureParameters.setSignWithExpiredCertificate(true);
 
-        var dataToSign = service.getDataToSign(getDocument(), signatureParameters);
-        var signatureValue = key.sign(dataToSign, jobParameters.getDigestAlgorithm());
-
-        return service.signDocument(getDocument(), signatureParameters, signatureValue);
+        return prepare(service, signatureParameters, key);
     }
 
-    private DSSDocument signDocumentAsASiCWithCAdeS(SigningKey key) {
-        var commonCertificateVerifier = new CommonCertificateVerifier();
-        var service = new ASiCWithCAdESService(commonCertificateVerifier);
-        var jobParameters = getParameters();
+    private PreparedSignature<?> prepareAsASiCWithCAdeS(SigningKey key) {
         var signatureParameters = getParameters().getASiCWithCAdESSignatureParameters();
 
         signatureParameters.setSigningCertificate(key.getCertificate());
         signatureParameters.setCertificateChain(key.getCertificateChain());
         signatureParameters.setSignWithExpiredCertificate(true);
 
-        if (signatureParameters.getSignatureLevel().equals(SignatureLevel.CAdES_BASELINE_T))
-            service.setTspSource(getParameters().getTspSource());
+        var tspSource = signatureParameters.getSignatureLevel().equals(SignatureLevel.CAdES_BASELINE_T)
+                ? getParameters().getTspSource() : null;
+        var service = SignatureServiceRegistry.getInstance().getASiCWithCAdESService(getParameters().getContainer(),
+                tspSource);
 
-        var dataToSign = service.getDataToSign(getDocument(), signatureParameters);
-        var signatureValue = key.sign(dataToSign, jobParameters.getDigestAlgorithm());
-
-        return service.signDocument(getDocument(), signatureParameters, signatureValue);
+        return prepare(service, signatureParameters, key);
     }
 
-    private DSSDocument signDocumentAsPAdeS(SigningKey key) {
-        var commonCertificateVerifier = new CommonCertificateVerifier();
-        var service = new PAdESService(commonCertificateVerifier);
-        var jobParameters = getParameters();
+    private PreparedSignature<?> prepareAsPAdeS(SigningKey key) {
         var signatureParameters = getParameters().getPAdESSignatureParameters();
 
         signatureParameters.setSigningCertificate(key.getCertificate());
         signatureParameters.setCertificateChain(key.getCertificateChain());
         signatureParameters.setSignWithExpiredCertificate(true);
 
+        TSPSource tspSource = null;
         if (signatureParameters.getSignatureLevel().equals(SignatureLevel.PAdES_BASELINE_T)) {
-            service.setTspSource(getParameters().getTspSource());
+            tspSource = getParameters().getTspSource();
             signatureParameters.setContentSize(9472*2);
         }
+        var service = SignatureServiceRegistry.getInstance().getPAdESService(tspSource);
+
+        return prepare(service, signatureParameters, key);
+    }
 
-        var dataToSign = service.getDataToSign(getDocument(), signatureParameters);
-        var signatureValue = key.sign(dataToSign, jobParameters.getDigestAlgorithm());
+    private <SP extends SerializableSignatureParameters> PreparedSignature<SP> prepare(
+            DocumentSignatureService<SP, ?> service, SP signatureParameters, SigningKey key) {
+        var signature = new PreparedSignature<>(service, signatureParameters, key);
+
+        var start = System.nanoTime();
+        signature.dataToSign = isBundle()
+                ? asMultipleDocumentsService(service).getDataToSign(bundle, signatureParameters)
+                : service.getDataToSign(getDocument(), signatureParameters);
+        signature.observePhase("getDataToSign", start);
+
+        return signature;
+    }
 
-        return service.signDocument(getDocument(), signatureParameters, signatureValue);
+    /**
+     * Bundles are signed only in ASiC containers, ASiC services sign documents one by one as well as together.
+     */
+    @SuppressWarnings("unchecked")
+    private static <SP extends SerializableSignatureParameters> MultipleDocumentsSignatureService<SP, ?> asMultipleDocumentsService(
+            DocumentSignatureService<SP, ?> service) {
+        return (MultipleDocumentsSignatureService<SP, ?>) service;
+    }
+
+    /**
+     * Signature of this job between the steps of signing. Steps are timed separately, so that time spent in DSS, on the
+     * token (user entering PIN included) and with TSA can be told apart in metrics.
+     */
+    public class PreparedSignature<SP extends SerializableSignatureParameters> {
+        private final DocumentSignatureService<SP, ?> service;
+        private final SP signatureParameters;
+        private final SigningKey key;
+        private final String form = getParameters().getSignatureType().name();
+        private final String container = getParameters().getContainer() == null
+                ? "none" : getParameters().getContainer().name();
+        private ToBeSigned dataToSign;
+        private SignatureValue signatureValue;
+
+        private PreparedSignature(DocumentSignatureService<SP, ?> service, SP signatureParameters, SigningKey key) {
+            this.service = service;
+            this.signatureParameters = signatureParameters;
+            this.key = key;
+        }
+
+        public SigningJob getJob() {
+            return SigningJob.this;
+        }
+
+        /**
+         * Second step, the only one using the token.
+         */
+        public void signWithKey() {
+            var start = System.nanoTime();
+            signatureValue = key.sign(dataToSign, getParameters().getDigestAlgorithm());
+            observePhase("tokenSign", start);
+        }
+
+        /**
+         * Last step, builds the signed document (with timestamp for T-level signatures) and hands it to the responder.
+         */
+        public void finishAndRespond() {
+            var start = System.nanoTime();
+            var signedDocument = isBundle()
+                    ? asMultipleDocumentsService(service).signDocument(bundle, signatureParameters, signatureValue)
+                    : service.signDocument(getDocument(), signatureParameters, signatureValue);
+            observePhase("signDocument", start);
+
+            Metrics.counter("autogram_signed_documents_total", "Documents signed", "form", form, "container", container)
+                    .add(getDocuments().size());
+
+            try {
+                responder.onDocumentSigned(new SignedDocument(signedDocument, key.getCertificate()));
+            } finally {
+                release();
+            }
+        }
+
+        private void observePhase(String phase, long startNanos) {
+            Metrics.latency("autogram_signing_phase_duration_seconds", "Duration of signing phases",
+                    "form", form, "container", container, "phase", phase).observeSince(startNanos);
+            timing.record(phase, startNanos);
+        }
     }
 
     public static FileDocument createDSSFileDocumentFromFile(File file) {
@@ -168,9 +303,14 @@ public class SigningJob {
         return fileDocument;
     }
 
-    private static SigningJob build(DSSDocument document, SigningParameters params, Responder responder) {
-        if (params.shouldCreateXdc() && !isXDC(document.getMimeType()) && !isAsice(document.getMimeType()))
+    private static SigningJob build(DSSDocument document, SigningParameters params, Responder responder, Timing timing) {
+        DSSDocument source = null;
+        if (params.shouldCreateXdc() && !isXDC(document.getMimeType()) && !isAsice(document.getMimeType())) {
+            var start = System.nanoTime();
+            source = document;
             document = XDCBuilder.transform(params, document.getName(), EFormUtils.getXmlFromDocument(document));
+            timing.record("xdcBuild", start);
+        }
 
         if (isTxt(document.getMimeType()))
             document.setMimeType(AutogramMimeType.TEXT_WITH_CHARSET);
@@ -180,17 +320,73 @@ public class SigningJob {
             document.setName(getXdcfFilename(document.getName()));
         }
 
-        return new SigningJob(document, params, responder);
+        var job = new SigningJob(document, params, responder, timing);
+        job.source = source;
+
+        return job;
     }
 
     public static SigningJob buildFromRequest(DSSDocument document, SigningParameters params, Responder responder) {
-        return build(document, params, responder);
+        return buildFromRequest(document, params, responder, Timing.NONE);
+    }
+
+    /**
+     * Phases of building and signing the job are recorded into {@code timing}, time until signing starts as
+     * {@code wait}.
+     */
+    public static SigningJob buildFromRequest(DSSDocument document, SigningParameters params, Responder responder,
+            Timing timing) {
+        return build(document, params, responder, timing);
+    }
+
+    /**
+     * Job signing all {@code documents} with one signature in an ASiC-E container, so the token is used once for the
+     * whole bundle. Documents are signed as they are, without building XML Datacontainers.
+     *
+     * @param params built by {@link SigningParameters#buildForBundle}
+     */
+    public static SigningJob buildBundle(List<DSSDocument> documents, SigningParameters params, Responder responder,
+            Timing timing) throws AutogramException {
+        if (documents == null || documents.isEmpty())
+            throw new SigningParametersException("Dokument je prázdny", "Nebol poskytnutý žiadny dokument na podpis");
+
+        if (params.getContainer() != ASiCContainerType.ASiC_E)
+            throw new SigningParametersException("Nesprávny typ kontajnera",
+                    "Viacero dokumentov možno podpísať spolu len v kontajneri ASiC-E");
+
+        var names = new HashSet<String>();
+        for (var document : documents) {
+            if (document.getName() == null || !names.add(document.getName()))
+                throw new SigningParametersException("Nesprávne názvy dokumentov",
+                        "Každý dokument v kontajneri musí mať názov a názvy sa nesmú opakovať");
+
+            if (isTxt(document.getMimeType()))
+                document.setMimeType(AutogramMimeType.TEXT_WITH_CHARSET);
+        }
+
+        return new SigningJob(documents.get(0), List.copyOf(documents), params, responder, timing);
+    }
+
+    public static SigningJob buildBundle(List<DSSDocument> documents, SigningParameters params, Responder responder)
+            throws AutogramException {
+        return buildBundle(documents, params, responder, Timing.NONE);
+    }
+
+    /**
+     * Job creating a detached signature of a document the client sent only the digest of, the content never leaves
+     * the client. Signature is the only signed output.
+     *
+     * @param params built by {@link SigningParameters#buildForDetached}
+     */
+    public static SigningJob buildFromDigest(DigestDocument document, SigningParameters params, Responder responder,
+            Timing timing) {
+        return new SigningJob(document, params, responder, timing);
     }
 
     public static SigningJob buildFromFile(File file, Responder responder, boolean checkPDFACompliance, SignatureLevel signatureType, boolean isEn319132, TSPSource tspSource, boolean plainXmlEnabled) {
         var document = createDSSFileDocumentFromFile(file);
         var parameters = getParametersForFile(document, checkPDFACompliance, signatureType, isEn319132, tspSource, plainXmlEnabled);
-        return build(document, parameters, responder);
+        return build(document, parameters, responder, Timing.NONE);
     }
 
     private static SigningParameters getParametersForFile(FileDocument document, boolean checkPDFACompliance, SignatureLevel signatureType, boolean isEn319132, TSPSource tspSource, boolean plainXmlEnabled) {
@@ -221,6 +417,6 @@ public class SigningJob {
     }
 
     public boolean shouldCheckPDFCompliance() {
-        return parameters.getCheckPDFACompliance() && isPDF(document.getMimeType());
+        return parameters.getCheckPDFACompliance() && isPDF(document.getMimeType()) && !isDigestOnly();
     }
 }
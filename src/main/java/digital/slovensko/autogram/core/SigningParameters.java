@@ -7,6 +7,7 @@ import digital.slovensko.autogram.core.errors.AutogramException;
 import digital.slovensko.autogram.core.errors.SigningParametersException;
 import digital.slovensko.autogram.core.errors.UnknownEformException;
 import digital.slovensko.autogram.util.AsicContainerUtils;
+import digital.slovensko.autogram.util.Timing;
 import digital.slovensko.autogram.core.eforms.EFormUtils;
 import digital.slovensko.autogram.core.eforms.xdc.XDCValidator;
 import digital.slovensko.autogram.core.eforms.dto.XsltParams;
@@ -62,6 +63,21 @@ public class SigningParameters {
             EFormAttributes eFormAttributes, boolean autoLoadEform, String fsFormId, boolean checkPDFACompliance,
             int preferredPreviewWidth, DSSDocument document, TSPSource tspSource, boolean plainXmlEnabled) throws AutogramException {
 
+        return buildParameters(level, digestAlgorithm, container, packaging, en319132, infoCanonicalization,
+                propertiesCanonicalization, keyInfoCanonicalization, eFormAttributes, autoLoadEform, fsFormId,
+                checkPDFACompliance, preferredPreviewWidth, document, tspSource, plainXmlEnabled, Timing.NONE);
+    }
+
+    /**
+     * Records eForm loading as {@code eform} and XDC validation as {@code xdcValidation} phases into {@code timing}.
+     */
+    public static SigningParameters buildParameters(
+            SignatureLevel level, DigestAlgorithm digestAlgorithm, ASiCContainerType container, SignaturePackaging packaging,
+            boolean en319132, String infoCanonicalization, String propertiesCanonicalization, String keyInfoCanonicalization,
+            EFormAttributes eFormAttributes, boolean autoLoadEform, String fsFormId, boolean checkPDFACompliance,
+            int preferredPreviewWidth, DSSDocument document, TSPSource tspSource, boolean plainXmlEnabled,
+            Timing timing) throws AutogramException {
+
         if (level == null)
             throw new SigningParametersException("Nebol zadaný typ podpisu", "Typ/level podpisu je povinný atribút");
 
@@ -78,8 +94,10 @@ public class SigningParameters {
         if (AutogramMimeType.isXML(extractedDocument.getMimeType()) && XDCValidator.isXDCContent(extractedDocument))
             extractedDocument.setMimeType(AutogramMimeType.XML_DATACONTAINER);
 
+        var start = System.nanoTime();
         fsFormId = EFormUtils.translateFsFormId(fsFormId);
         eFormAttributes = EFormAttributes.build(eFormAttributes, autoLoadEform, fsFormId, extractedDocument, propertiesCanonicalization);
+        timing.record("eform", start);
 
         var extractedDocumentMimeType = extractedDocument.getMimeType();
 
@@ -90,13 +108,15 @@ public class SigningParameters {
 
             if (packaging == null) packaging = SignaturePackaging.ENVELOPING;
 
-            if (AutogramMimeType.isXML(extractedDocumentMimeType) || AutogramMimeType.isXDC(extractedDocumentMimeType))
+            if (AutogramMimeType.isXML(extractedDocumentMimeType) || AutogramMimeType.isXDC(extractedDocumentMimeType)) {
+                start = System.nanoTime();
                 XDCValidator.validateXml(
                         eFormAttributes.schema(), eFormAttributes.transformation(), extractedDocument,
                         propertiesCanonicalization, digestAlgorithm, eFormAttributes.embedUsedSchemas());
-
-            else
+                timing.record("xdcValidation", start);
+            } else {
                 throw new SigningParametersException("Nesprávny typ dokumentu", "Zadaný dokument nemožno podpísať ako elektronický formulár v XML Datacontaineri");
+            }
         }
 
         if (!plainXmlEnabled && (AutogramMimeType.isXML(extractedDocumentMimeType) || AutogramMimeType.isXDC(extractedDocumentMimeType)) && (eFormAttributes.transformation() == null))
@@ -128,6 +148,51 @@ public class SigningParameters {
                 EFormUtils.getFsFormIdFromFilename(document.getName()), checkPDFACompliance, 640, document, tspSource, plainXmlEnabled);
     }
 
+    /**
+     * Parameters for a bundle of documents signed together in one ASiC-E container, see
+     * {@link SigningJob#buildBundle}. Documents are signed as they are, no eForm is loaded or validated.
+     */
+    public static SigningParameters buildForBundle(SignatureLevel level, DigestAlgorithm digestAlgorithm, boolean en319132,
+            TSPSource tspSource) throws AutogramException {
+        if (level == null)
+            throw new SigningParametersException("Nebol zadaný typ podpisu", "Typ/level podpisu je povinný atribút");
+
+        if (level.getSignatureForm() != SignatureForm.XAdES && level.getSignatureForm() != SignatureForm.CAdES)
+            throw new SigningParametersException("Nesprávny typ podpisu",
+                    "Viacero dokumentov možno podpísať spolu len podpisom XAdES alebo CAdES v kontajneri ASiC-E");
+
+        return new SigningParameters(
+                level, digestAlgorithm, ASiCContainerType.ASiC_E, SignaturePackaging.DETACHED, en319132, null, null,
+                null, new EFormAttributes(null, null, null, null, null, null, false), false, 0, tspSource);
+    }
+
+    /**
+     * Parameters for a detached signature of a document known only by its digest, see
+     * {@link SigningJob#buildFromDigest}. The digest algorithm must be the one the document digest was computed with.
+     */
+    public static SigningParameters buildForDetached(SignatureLevel level, DigestAlgorithm digestAlgorithm,
+            boolean en319132) throws AutogramException {
+        if (level == null)
+            throw new SigningParametersException("Nebol zadaný typ podpisu", "Typ/level podpisu je povinný atribút");
+
+        if (level != SignatureLevel.XAdES_BASELINE_B && level != SignatureLevel.CAdES_BASELINE_B)
+            throw new SigningParametersException("Nesprávny typ podpisu",
+                    "Podľa odtlačku dokumentu možno vytvoriť len oddelený podpis XAdES alebo CAdES na úrovni BASELINE_B");
+
+        return new SigningParameters(
+                level, digestAlgorithm, null, SignaturePackaging.DETACHED, en319132, null, null, null,
+                new EFormAttributes(null, null, null, null, null, null, false), false, 0, null);
+    }
+
+    public static SigningParameters buildForBundle(SignatureForm form, boolean en319132, TSPSource tspSource) throws AutogramException {
+        var level = switch (form) {
+            case CAdES -> (tspSource == null) ? SignatureLevel.CAdES_BASELINE_B : SignatureLevel.CAdES_BASELINE_T;
+            default -> (tspSource == null) ? SignatureLevel.XAdES_BASELINE_B : SignatureLevel.XAdES_BASELINE_T;
+        };
+
+        return buildForBundle(level, DigestAlgorithm.SHA256, en319132, tspSource);
+    }
+
         public ASiCWithXAdESSignatureParameters getASiCWithXAdESSignatureParameters() {
         var parameters = new ASiCWithXAdESSignatureParameters();
 
@@ -164,7 +229,8 @@ public class SigningParameters {
 
         parameters.setSignatureLevel(getLevel());
         parameters.setDigestAlgorithm(getDigestAlgorithm());
-        parameters.setSignaturePackaging(SignaturePackaging.ENVELOPING);
+        parameters.setSignaturePackaging(getSignaturePackaging() == SignaturePackaging.DETACHED
+                ? SignaturePackaging.DETACHED : SignaturePackaging.ENVELOPING);
         parameters.setEn319122(isEn319132());
 
         return parameters;
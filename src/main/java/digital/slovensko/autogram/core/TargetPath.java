@@ -21,6 +21,8 @@ public class TargetPath {
     private final boolean isForMultipleFiles;
     private final boolean isParents;
     private final boolean isSignatureLevelPades;
+    /** Extended documents keep the extension of the source and get "_extended" suffix instead of "_signed" */
+    private final boolean isExtension;
     private final FileSystem fs;
 
     public TargetPath(String target, Path source, boolean force, boolean parents, FileSystem fileSystem, boolean isSignatureLevelPades) {
@@ -29,11 +31,17 @@ public class TargetPath {
 
     public TargetPath(String target, Path source, boolean force, boolean parents, boolean multipleFiles,
             FileSystem fileSystem, boolean isSignatureLevelPades) {
+        this(target, source, force, parents, multipleFiles, fileSystem, isSignatureLevelPades, false);
+    }
+
+    private TargetPath(String target, Path source, boolean force, boolean parents, boolean multipleFiles,
+            FileSystem fileSystem, boolean isSignatureLevelPades, boolean isExtension) {
         fs = fileSystem;
         sourceFile = source;
         isForce = force;
         isParents = parents;
         this.isSignatureLevelPades = isSignatureLevelPades;
+        this.isExtension = isExtension;
 
         isGenerated = target == null;
         var isTargetMissing = target == null;
@@ -45,7 +53,7 @@ public class TargetPath {
 
                 targetDirectory = fs.getPath(
                         generateUniqueName(source.toAbsolutePath().getParent().toString(),
-                                source.getFileName().toString() + "_signed",
+                                source.getFileName().toString() + getSuffix(),
                                 ""));
                 targetName = null;
 
@@ -56,7 +64,7 @@ public class TargetPath {
 
         } else {
             var targetFile = fs.getPath(target);
-            if (!hasSourceAndTargetMatchingType(sourceFile, targetFile))
+            if (!hasSourceAndTargetMatchingType(sourceFile, targetFile, isForMultipleFiles))
                 throw new SourceAndTargetTypeMismatchException();
 
             if (Files.exists(targetFile) && !isForce) {
@@ -86,6 +94,23 @@ public class TargetPath {
                 settings.shouldMakeParentDirectories(), FileSystems.getDefault(), settings.shouldSignPDFAsPades());
     }
 
+    /**
+     * Target of a bundle, all files of the source directory are signed into one container file.
+     */
+    public static TargetPath forBundle(CliSettings settings) {
+        return new TargetPath(settings.getTarget(), settings.getSource().toPath(), settings.isForce(),
+                settings.shouldMakeParentDirectories(), false, FileSystems.getDefault(), false);
+    }
+
+    /**
+     * Target of documents with extended signatures, they keep the format and extension of the source.
+     */
+    public static TargetPath forExtension(CliSettings settings) {
+        var source = settings.getSource().toPath();
+        return new TargetPath(settings.getTarget(), source, settings.isForce(), settings.shouldMakeParentDirectories(),
+                Files.isDirectory(source), FileSystems.getDefault(), false, true);
+    }
+
     public static TargetPath fromSource(Path source, boolean isSignatureLevelPades) {
         return new TargetPath(null, source, false, false, FileSystems.getDefault(), isSignatureLevelPades);
     }
@@ -126,15 +151,15 @@ public class TargetPath {
         }
     }
 
-    private static boolean hasSourceAndTargetMatchingType(Path source, Path target) {
+    private static boolean hasSourceAndTargetMatchingType(Path source, Path target, boolean multipleFiles) {
         if (!Files.exists(target))
             return true;
 
         if (source == null)
             return true;
 
-        var bothAreFiles = Files.isRegularFile(target) && Files.isRegularFile(source);
-        var bothAreDirectories = Files.isDirectory(target) && Files.isDirectory(source);
+        var bothAreFiles = Files.isRegularFile(target) && !multipleFiles;
+        var bothAreDirectories = Files.isDirectory(target) && multipleFiles;
 
         return (bothAreDirectories || bothAreFiles);
     }
@@ -201,13 +226,22 @@ public class TargetPath {
         var isSourceFileExtensionPdf = singleSourceFile.getFileName().toString().toLowerCase().endsWith(".pdf");
 
         var extension = isSourceFileExtensionPdf && isSignatureLevelPades ? ".pdf" : ".asice";
+        if (isExtension) {
+            var sourceExtension = com.google.common.io.Files.getFileExtension(singleSourceFile.getFileName().toString());
+            extension = sourceExtension.isEmpty() ? "" : "." + sourceExtension;
+        }
+
         if (useUniqueFileName || isForMultipleFiles)
             return com.google.common.io.Files.getNameWithoutExtension(singleSourceFile.getFileName().toString())
-                    + "_signed"
+                    + getSuffix()
                     + extension;
 
         else
             return com.google.common.io.Files.getNameWithoutExtension(targetDirectory.getFileName().toString())
                     + extension;
     }
+
+    private String getSuffix() {
+        return isExtension ? "_extended" : "_signed";
+    }
 }
@@ -2,15 +2,17 @@ package digital.slovensko.autogram.core;
 
 import digital.slovensko.autogram.ui.gui.SignatureLevelStringConverter;
 import eu.europa.esig.dss.enumerations.SignatureLevel;
-import eu.europa.esig.dss.service.tsp.OnlineTSPSource;
 import eu.europa.esig.dss.spi.x509.tsp.TSPSource;
 
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.prefs.Preferences;
 
-public class UserSettings implements PasswordManagerSettings, SignatureTokenSettings, DriverDetectorSettings {
+public class UserSettings implements PasswordManagerSettings, SignatureTokenSettings, DriverDetectorSettings, ServerSettings {
+    protected static final String DEFAULT_TRUSTED_LIST = "SK,CZ,AT,PL,HU,ES,BE";
+
     private SignatureLevel signatureLevel;
     private String driver;
     private int slotIndex;
@@ -28,8 +30,21 @@ public class UserSettings implements PasswordManagerSettings, SignatureTokenSett
     private TSPSource tspSource;
     private boolean tsaEnabled;
     private String customTsaServer;
+    private long tsaTimeout = PooledTSPSource.DEFAULT_TIMEOUT.toMillis();
+    private int tsaRetries = PooledTSPSource.DEFAULT_RETRIES;
+    private int tsaConcurrency = PooledTSPSource.DEFAULT_CONCURRENCY;
     private boolean bulkEnabled;
     private int pdfDpi;
+    private int serverThreads;
+    private int serverQueueSize;
+    private int serverMaxConcurrentRequests;
+    private long serverMaxRequestBodySize;
+    private long serverRequestBodyBudget;
+    private int serverWorkerThreads;
+    private String serverTransport;
+    private long serverIdleTimeout;
+    private long serverShutdownTimeout;
+    private long serverSpillThreshold;
 
     public static UserSettings load() {
         var prefs = Preferences.userNodeForPackage(UserSettings.class);
@@ -47,12 +62,25 @@ public class UserSettings implements PasswordManagerSettings, SignatureTokenSett
         settings.setPdfaCompliance(prefs.getBoolean("PDFA_COMPLIANCE", true));
         settings.setServerEnabled(prefs.getBoolean("SERVER_ENABLED", true));
         settings.setExpiredCertsEnabled(prefs.getBoolean("EXPIRED_CERTS_ENABLED", false));
-        settings.setTrustedList(prefs.get("TRUSTED_LIST", "SK,CZ,AT,PL,HU,ES,BE"));
+        settings.setTrustedList(prefs.get("TRUSTED_LIST", DEFAULT_TRUSTED_LIST));
         settings.setCustomKeystorePath(prefs.get("CUSTOM_KEYSTORE_PATH", ""));
+        settings.setTsaTimeout(prefs.getLong("TSA_TIMEOUT", PooledTSPSource.DEFAULT_TIMEOUT.toMillis()));
+        settings.setTsaRetries(prefs.getInt("TSA_RETRIES", PooledTSPSource.DEFAULT_RETRIES));
+        settings.setTsaConcurrency(prefs.getInt("TSA_CONCURRENCY", PooledTSPSource.DEFAULT_CONCURRENCY));
         settings.setTsaServer(prefs.get("TSA_SERVER", "http://tsa.izenpe.com"));
         settings.setCustomTsaServer(prefs.get("CUSTOM_TSA_SERVER", ""));
         settings.setTsaEnabled(prefs.getBoolean("TSA_ENABLE", false));
         settings.setPdfDpi(prefs.getInt("PDF_DPI", 100));
+        settings.setServerThreads(prefs.getInt("SERVER_THREADS", 8));
+        settings.setServerQueueSize(prefs.getInt("SERVER_QUEUE_SIZE", 64));
+        settings.setServerMaxConcurrentRequests(prefs.getInt("SERVER_MAX_CONCURRENT_REQUESTS", 8));
+        settings.setServerMaxRequestBodySize(prefs.getLong("SERVER_MAX_REQUEST_BODY_SIZE", 128L * 1024 * 1024));
+        settings.setServerRequestBodyBudget(prefs.getLong("SERVER_REQUEST_BODY_BUDGET", 512L * 1024 * 1024));
+        settings.setServerWorkerThreads(prefs.getInt("SERVER_WORKER_THREADS", Runtime.getRuntime().availableProcessors()));
+        settings.setServerTransport(prefs.get("SERVER_TRANSPORT", "jdk"));
+        settings.setServerIdleTimeout(prefs.getLong("SERVER_IDLE_TIMEOUT", 30_000));
+        settings.setServerShutdownTimeout(prefs.getLong("SERVER_SHUTDOWN_TIMEOUT", 2_000));
+        settings.setServerSpillThreshold(prefs.getLong("SERVER_SPILL_THRESHOLD", 16L * 1024 * 1024));
 
         return settings;
     }
@@ -77,7 +105,20 @@ public class UserSettings implements PasswordManagerSettings, SignatureTokenSett
         prefs.put("TSA_SERVER", tsaServer);
         prefs.put("CUSTOM_TSA_SERVER", customTsaServer);
         prefs.putBoolean("TSA_ENABLE", tsaEnabled);
+        prefs.putLong("TSA_TIMEOUT", tsaTimeout);
+        prefs.putInt("TSA_RETRIES", tsaRetries);
+        prefs.putInt("TSA_CONCURRENCY", tsaConcurrency);
         prefs.putInt("PDF_DPI", pdfDpi);
+        prefs.putInt("SERVER_THREADS", serverThreads);
+        prefs.putInt("SERVER_QUEUE_SIZE", serverQueueSize);
+        prefs.putInt("SERVER_MAX_CONCURRENT_REQUESTS", serverMaxConcurrentRequests);
+        prefs.putLong("SERVER_MAX_REQUEST_BODY_SIZE", serverMaxRequestBodySize);
+        prefs.putLong("SERVER_REQUEST_BODY_BUDGET", serverRequestBodyBudget);
+        prefs.putInt("SERVER_WORKER_THREADS", serverWorkerThreads);
+        prefs.put("SERVER_TRANSPORT", serverTransport);
+        prefs.putLong("SERVER_IDLE_TIMEOUT", serverIdleTimeout);
+        prefs.putLong("SERVER_SHUTDOWN_TIMEOUT", serverShutdownTimeout);
+        prefs.putLong("SERVER_SPILL_THRESHOLD", serverSpillThreshold);
     }
 
     private void setSignatureType(String signatureType) {
@@ -92,7 +133,7 @@ public class UserSettings implements PasswordManagerSettings, SignatureTokenSett
         this.signatureLevel = signatureLevel;
     }
 
-    private void setTrustedList(String trustedList) {
+    protected void setTrustedList(String trustedList) {
         this.trustedList = trustedList == null ? new ArrayList<>() : new ArrayList<>(List.of(trustedList.split(",")));
     }
 
@@ -204,13 +245,24 @@ public class UserSettings implements PasswordManagerSettings, SignatureTokenSett
         return tsaServer;
     }
 
+    /**
+     * @param value TSA url, or comma separated urls of TSAs to fail over to in the given order
+     */
     public void setTsaServer(String value) {
         tsaServer = value;
-        if (value == null)
+        updateTspSource();
+    }
+
+    private void updateTspSource() {
+        if (tsaServer == null) {
             tspSource = null;
+            return;
+        }
 
-        else
-            tspSource = new OnlineTSPSource(tsaServer);
+        // an empty url is kept, timestamping then fails as misconfigured instead of silently signing without it
+        var urls = Arrays.stream(tsaServer.split(",")).map(String::trim).filter(url -> !url.isEmpty()).toList();
+        tspSource = new PooledTSPSource(urls.isEmpty() ? List.of(tsaServer) : urls, Duration.ofMillis(tsaTimeout),
+                tsaRetries, tsaConcurrency);
     }
 
     public String getCustomTsaServer() {
@@ -225,6 +277,33 @@ public class UserSettings implements PasswordManagerSettings, SignatureTokenSett
         return tspSource;
     }
 
+    public long getTsaTimeout() {
+        return tsaTimeout;
+    }
+
+    public void setTsaTimeout(long value) {
+        tsaTimeout = value;
+        updateTspSource();
+    }
+
+    public int getTsaRetries() {
+        return tsaRetries;
+    }
+
+    public void setTsaRetries(int value) {
+        tsaRetries = value;
+        updateTspSource();
+    }
+
+    public int getTsaConcurrency() {
+        return tsaConcurrency;
+    }
+
+    public void setTsaConcurrency(int value) {
+        tsaConcurrency = value;
+        updateTspSource();
+    }
+
     public boolean getTsaEnabled() {
         return tsaEnabled;
     }
@@ -271,4 +350,94 @@ public class UserSettings implements PasswordManagerSettings, SignatureTokenSett
     public void setPdfDpi(int value) {
         pdfDpi = value;
     }
+
+    @Override
+    public int getServerThreads() {
+        return serverThreads;
+    }
+
+    public void setServerThreads(int value) {
+        serverThreads = value;
+    }
+
+    @Override
+    public int getServerQueueSize() {
+        return serverQueueSize;
+    }
+
+    public void setServerQueueSize(int value) {
+        serverQueueSize = value;
+    }
+
+    @Override
+    public int getServerMaxConcurrentRequests() {
+        return serverMaxConcurrentRequests;
+    }
+
+    public void setServerMaxConcurrentRequests(int value) {
+        serverMaxConcurrentRequests = value;
+    }
+
+    @Override
+    public long getServerMaxRequestBodySize() {
+        return serverMaxRequestBodySize;
+    }
+
+    public void setServerMaxRequestBodySize(long value) {
+        serverMaxRequestBodySize = value;
+    }
+
+    @Override
+    public long getServerRequestBodyBudget() {
+        return serverRequestBodyBudget;
+    }
+
+    public void setServerRequestBodyBudget(long value) {
+        serverRequestBodyBudget = value;
+    }
+
+    @Override
+    public int getServerWorkerThreads() {
+        return serverWorkerThreads;
+    }
+
+    public void setServerWorkerThreads(int value) {
+        serverWorkerThreads = value;
+    }
+
+    @Override
+    public String getServerTransport() {
+        return serverTransport;
+    }
+
+    public void setServerTransport(String value) {
+        serverTransport = value;
+    }
+
+    @Override
+    public long getServerIdleTimeout() {
+        return serverIdleTimeout;
+    }
+
+    public void setServerIdleTimeout(long value) {
+        serverIdleTimeout = value;
+    }
+
+    @Override
+    public long getServerShutdownTimeout() {
+        return serverShutdownTimeout;
+    }
+
+    public void setServerShutdownTimeout(long value) {
+        serverShutdownTimeout = value;
+    }
+
+    @Override
+    public long getServerSpillThreshold() {
+        return serverSpillThreshold;
+    }
+
+    public void setServerSpillThreshold(long value) {
+        serverSpillThreshold = value;
+    }
 }
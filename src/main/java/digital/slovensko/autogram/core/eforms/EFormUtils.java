@@ -11,6 +11,7 @@ import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Base64;
 import java.util.Properties;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.regex.Pattern;
 
 import javax.xml.parsers.ParserConfigurationException;
@@ -30,6 +31,8 @@ import org.xml.sax.InputSource;
 import org.xml.sax.SAXException;
 
 import digital.slovensko.autogram.core.eforms.dto.XsltParams;
+import digital.slovensko.autogram.util.LruCache;
+import digital.slovensko.autogram.util.Metrics;
 import digital.slovensko.autogram.util.XMLUtils;
 import eu.europa.esig.dss.enumerations.DigestAlgorithm;
 import eu.europa.esig.dss.model.DSSDocument;
@@ -42,6 +45,14 @@ import eu.europa.esig.dss.xades.DSSXMLUtils;
 public abstract class EFormUtils {
     private static final Charset ENCODING = StandardCharsets.UTF_8;
     public static final String XDC_XMLNS = "http://data.gov.sk/def/container/xmldatacontainer+xml/1.1";
+    private static final long TRANSFORMATION_CACHE_MAX_CHARS = 16 * 1024 * 1024;
+
+    /**
+     * Transformation outputs by digests of the document and the transformation, so that a document previewed
+     * over the server and then signed is transformed only once
+     */
+    private static final LruCache<String, String> transformationCache = new LruCache<>("transformation",
+            TRANSFORMATION_CACHE_MAX_CHARS, String::length);
 
     public static String extractTransformationOutputMimeTypeString(String transformation)
             throws TransformationParsingErrorException {
@@ -210,25 +221,38 @@ public abstract class EFormUtils {
     }
 
     public static byte[] getResource(String url) {
+        var start = System.nanoTime();
+        var fetched = new AtomicBoolean(false);
         var offlineFileLoader = new FileCacheDataLoader();
         offlineFileLoader.setCacheExpirationTime(21600000);  // 6 hours
-        offlineFileLoader.setDataLoader(new CommonsDataLoader());
+        offlineFileLoader.setDataLoader(new CommonsDataLoader() {
+            @Override
+            public byte[] get(String url) {
+                fetched.set(true); // not in the file cache
+                return super.get(url);
+            }
+        });
 
-        DSSDocument xsltDoc;
+        byte[] resource = null;
         try {
-            xsltDoc = offlineFileLoader.getDocument(url);
-        } catch (DSSException e) {
-            return null;
+            var xsltDoc = offlineFileLoader.getDocument(url);
+            if (xsltDoc != null) {
+                try (var stream = xsltDoc.openStream()) {
+                    resource = stream.readAllBytes();
+                }
+            }
+        } catch (DSSException | IOException e) {
+            resource = null;
         }
 
-        if (xsltDoc == null)
-            return null;
+        var source = fetched.get() ? "network" : "cache";
+        var result = resource == null ? "error" : source;
+        Metrics.counter("autogram_eform_resource_requests_total", "eForm resource lookups by where they were served from",
+                "result", result).increment();
+        Metrics.latency("autogram_eform_resource_fetch_duration_seconds", "Duration of eForm resource lookups",
+                "source", source).observeSince(start);
 
-        try {
-            return xsltDoc.openStream().readAllBytes();
-        } catch (IOException e) {
-            return null;
-        }
+        return resource;
     }
 
     public static Document getXmlFromDocument(DSSDocument documentToDisplay) throws XMLValidationException {
@@ -291,6 +315,22 @@ public abstract class EFormUtils {
     }
 
     public static String transform(DSSDocument documentToDisplay, String transformation) throws TransformationException {
+        if (transformation == null)
+            return transformUncached(documentToDisplay, transformation);
+
+        var key = documentToDisplay.getDigest(DigestAlgorithm.SHA256) + ":" + Base64.getEncoder().encodeToString(
+                DSSUtils.digest(DigestAlgorithm.SHA256, transformation.getBytes(ENCODING)));
+
+        var cached = transformationCache.get(key);
+        if (cached != null)
+            return cached;
+
+        var output = transformUncached(documentToDisplay, transformation);
+        transformationCache.put(key, output);
+        return output;
+    }
+
+    private static String transformUncached(DSSDocument documentToDisplay, String transformation) throws TransformationException {
         try {
             var parsedDocument = getXmlFromDocument(documentToDisplay);
             var xmlSource = new DOMSource(parsedDocument);
@@ -4,6 +4,7 @@ import digital.slovensko.autogram.core.AutogramMimeType;
 import digital.slovensko.autogram.core.SigningParameters;
 import digital.slovensko.autogram.core.eforms.dto.XsltParams;
 import digital.slovensko.autogram.core.errors.TransformationException;
+import digital.slovensko.autogram.util.SpillableDocument;
 import digital.slovensko.autogram.util.XMLUtils;
 
 import static digital.slovensko.autogram.core.eforms.EFormUtils.*;
@@ -12,7 +13,6 @@ import static digital.slovensko.autogram.util.XMLUtils.getSecureDocumentBuilder;
 
 import eu.europa.esig.dss.enumerations.DigestAlgorithm;
 import eu.europa.esig.dss.model.DSSDocument;
-import eu.europa.esig.dss.model.InMemoryDocument;
 
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
@@ -25,7 +25,8 @@ import javax.xml.transform.dom.DOMSource;
 import javax.xml.transform.stream.StreamResult;
 import java.io.IOException;
 import java.io.StringReader;
-import java.io.StringWriter;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 
@@ -56,9 +57,10 @@ public abstract class XDCBuilder {
             var transformedDocument = transformDocument(parsedDocument, params.getContainerXmlns(), identifier,
                     identifierVersion, usedSchemas, params.shouldEmbedSchemas());
 
-            var content = getDocumentContent(transformedDocument).getBytes(ENCODING);
+            var content = SpillableDocument.sink();
+            writeDocumentContent(transformedDocument, content);
 
-            return new InMemoryDocument(content, getXdcfFilename(filename), AutogramMimeType.XML_DATACONTAINER_WITH_CHARSET);
+            return content.toDocument(getXdcfFilename(filename), AutogramMimeType.XML_DATACONTAINER_WITH_CHARSET);
 
         } catch (Exception e) {
             throw new TransformationException("Nastala chyba počas transformácie dokumentu",
@@ -82,13 +84,13 @@ public abstract class XDCBuilder {
         return document;
     }
 
-    private static String getDocumentContent(Document document) throws TransformationException, TransformerException {
+    private static void writeDocumentContent(Document document, OutputStream out) throws TransformationException,
+            TransformerException, IOException {
         document.setXmlStandalone(true);
         var xmlSource = new DOMSource(document);
-        var outputTarget = new StreamResult(new StringWriter());
-        XMLUtils.getSecureTransformerFactory().newTransformer().transform(xmlSource, outputTarget);
-
-        return outputTarget.getWriter().toString();
+        try (var writer = new OutputStreamWriter(out, ENCODING)) {
+            XMLUtils.getSecureTransformerFactory().newTransformer().transform(xmlSource, new StreamResult(writer));
+        }
     }
 
     private static Element createXMLDataContainer(Document document, String containerXmlns) {
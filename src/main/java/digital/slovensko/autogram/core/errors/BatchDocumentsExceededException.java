@@ -0,0 +1,9 @@
+package digital.slovensko.autogram.core.errors;
+
+public class BatchDocumentsExceededException extends AutogramException {
+    public BatchDocumentsExceededException(int totalNumberOfDocuments) {
+        super("Hromadné podpisovanie bolo ukončené", "Prekročený počet dokumentov",
+                "Do hromadného podpisovania bolo poslaných viac dokumentov, ako bolo ohlásených pri jeho začatí ("
+                        + totalNumberOfDocuments + ").");
+    }
+}
@@ -0,0 +1,7 @@
+package digital.slovensko.autogram.core.errors;
+
+public class DocumentNotSignedException extends AutogramException {
+    public DocumentNotSignedException(String description) {
+        super("Nastala chyba", "Dokument nie je podpísaný", description);
+    }
+}
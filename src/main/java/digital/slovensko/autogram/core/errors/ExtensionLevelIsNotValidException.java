@@ -0,0 +1,8 @@
+package digital.slovensko.autogram.core.errors;
+
+public class ExtensionLevelIsNotValidException extends AutogramException {
+    public ExtensionLevelIsNotValidException(String value) {
+        super("Nastala chyba", "Zadaná úroveň rozšírenia podpisov nie je platná",
+                "Zadali ste úroveň \"" + value + "\", podporované sú BASELINE_T a BASELINE_LT");
+    }
+}
@@ -0,0 +1,8 @@
+package digital.slovensko.autogram.core.errors;
+
+public class TsaConcurrencyIsNotValidException extends AutogramException {
+    public TsaConcurrencyIsNotValidException(String value) {
+        super("Nastala chyba", "Zadaný počet súbežných požiadaviek na TSA server nie je platný",
+                "Zadali ste počet \"" + value + "\", ktorý nie je kladné číslo");
+    }
+}
@@ -41,6 +41,9 @@ public class DocumentVisualizationBuilder {
     private Visualization createVisualization(SigningJob job, UserSettings userSettings)
         throws IOException, ParserConfigurationException, SAXException {
 
+        if (job.isDigestOnly())
+            return new UnsupportedVisualization(job);
+
         var documentToDisplay = document;
         if (isAsice(documentToDisplay.getMimeType())) {
             try {
@@ -29,18 +29,49 @@ public class PDFVisualization extends Visualization {
         var pdfDocument = PDDocument.load(this.document.openStream());
         var pdfRenderer = new PDFRenderer(pdfDocument);
         var divs = new ArrayList<byte[]>();
-        for (int page = 0; page < pdfDocument.getNumberOfPages(); ++page) {
-            var os = new ByteArrayOutputStream();
-            var bim = pdfRenderer.renderImageWithDPI(page, settings.getPdfDpi(), ImageType.RGB);
-            ImageIO.write(bim, "png", os);
-            divs.add(os.toByteArray());
-        }
+        for (int page = 0; page < pdfDocument.getNumberOfPages(); ++page)
+            divs.add(renderPng(pdfRenderer, page, settings.getPdfDpi()));
 
         pdfDocument.close();
 
         return divs;
     }
 
+    /**
+     * Renders a single page as PNG, for previews outside of the GUI.
+     *
+     * @param page zero-based page index, pages out of range are not rendered
+     */
+    public RenderedPage renderPage(int page, int dpi) throws IOException {
+        try (var pdfDocument = PDDocument.load(this.document.openStream())) {
+            var pageCount = pdfDocument.getNumberOfPages();
+            if (page < 0 || page >= pageCount)
+                return new RenderedPage(null, pageCount);
+
+            return new RenderedPage(renderPng(new PDFRenderer(pdfDocument), page, dpi), pageCount);
+        }
+    }
+
+    public DSSDocument getDocument() {
+        return document;
+    }
+
+    public int getDpi() {
+        return settings.getPdfDpi();
+    }
+
+    private static byte[] renderPng(PDFRenderer pdfRenderer, int page, int dpi) throws IOException {
+        var os = new ByteArrayOutputStream();
+        var bim = pdfRenderer.renderImageWithDPI(page, dpi, ImageType.RGB);
+        ImageIO.write(bim, "png", os);
+        return os.toByteArray();
+    }
+
+    /**
+     * @param image PNG of the page or null if the page does not exist
+     */
+    public record RenderedPage(byte[] image, int pageCount) {}
+
     @Override
     public void initialize(Visualizer visualizer) throws IOException {
         visualizer.setPrefWidth(getVisualizationWidth());
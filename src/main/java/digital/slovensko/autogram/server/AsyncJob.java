@@ -0,0 +1,113 @@
+package digital.slovensko.autogram.server;
+
+import digital.slovensko.autogram.core.Responder;
+import digital.slovensko.autogram.core.SignedDocument;
+import digital.slovensko.autogram.core.errors.AutogramException;
+import digital.slovensko.autogram.server.dto.ErrorResponse;
+import digital.slovensko.autogram.server.dto.JobResponseBody;
+import digital.slovensko.autogram.server.errors.ResultTooLargeException;
+import digital.slovensko.autogram.util.SpillableDocument;
+import eu.europa.esig.dss.model.DSSDocument;
+import eu.europa.esig.dss.spi.DSSUtils;
+
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+enum AsyncJobStatus {
+    PENDING, SIGNED, FAILED
+}
+
+/**
+ * Signing job submitted with {@code POST /jobs}, its result is kept in {@link JobStore} until it is picked up.
+ *
+ * A signed document larger than {@code maxResultBytes} is not kept, the job fails instead.
+ */
+public class AsyncJob extends Responder {
+    private final String jobId = UUID.randomUUID().toString();
+    private final CompletableFuture<SignedDocument> result = new CompletableFuture<>();
+    private final long maxResultBytes;
+    private volatile long completedAt = 0;
+    private volatile long resultBytes = 0;
+    private volatile AutogramException error = null;
+
+    public AsyncJob() {
+        this(Long.MAX_VALUE);
+    }
+
+    public AsyncJob(long maxResultBytes) {
+        this.maxResultBytes = maxResultBytes;
+    }
+
+    @Override
+    public void onDocumentSigned(SignedDocument signedDocument) {
+        var bytes = sizeOf(signedDocument.getDocument());
+        if (bytes > maxResultBytes) {
+            onDocumentSignFailed(new ResultTooLargeException(maxResultBytes));
+            return;
+        }
+
+        resultBytes = bytes;
+        completedAt = System.currentTimeMillis();
+        result.complete(signedDocument);
+    }
+
+    @Override
+    public void onDocumentSignFailed(AutogramException error) {
+        completedAt = System.currentTimeMillis();
+        this.error = error;
+        result.completeExceptionally(error);
+    }
+
+    public String getJobId() {
+        return jobId;
+    }
+
+    public CompletableFuture<SignedDocument> getResult() {
+        return result;
+    }
+
+    public boolean isDone() {
+        return result.isDone();
+    }
+
+    public long getCompletedAt() {
+        return completedAt;
+    }
+
+    /**
+     * @return size of the signed document, 0 until the job is signed
+     */
+    public long getResultBytes() {
+        return resultBytes;
+    }
+
+    public SignedDocument getSignedDocument() {
+        return result.getNow(null);
+    }
+
+    public ErrorResponse getError() {
+        return error == null ? null : ErrorResponse.buildFromException(error);
+    }
+
+    public AsyncJobStatus getStatus() {
+        if (!result.isDone())
+            return AsyncJobStatus.PENDING;
+
+        return result.isCompletedExceptionally() ? AsyncJobStatus.FAILED : AsyncJobStatus.SIGNED;
+    }
+
+    public JobResponseBody toResponseBody() {
+        var error = getError();
+        return new JobResponseBody(jobId, getStatus().name(), error == null ? null : error.getBody());
+    }
+
+    private static long sizeOf(DSSDocument document) {
+        if (document == null)
+            return 0;
+
+        if (document instanceof SpillableDocument spillable)
+            return spillable.getSize();
+
+        return DSSUtils.getFileByteSize(document);
+    }
+}
@@ -3,90 +3,154 @@ package digital.slovensko.autogram.server;
 import static digital.slovensko.autogram.core.Configuration.getProperty;
 
 import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.net.BindException;
 import java.net.InetSocketAddress;
 import java.nio.file.Paths;
 import java.security.KeyStore;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.ExecutorService;
 import javax.net.ssl.KeyManagerFactory;
 import javax.net.ssl.SSLContext;
 import javax.net.ssl.TrustManagerFactory;
-import com.sun.net.httpserver.HttpServer;
-import com.sun.net.httpserver.HttpsConfigurator;
-import com.sun.net.httpserver.HttpsParameters;
-import com.sun.net.httpserver.HttpsServer;
+import com.sun.net.httpserver.Filter;
+import com.sun.net.httpserver.HttpHandler;
 
 import digital.slovensko.autogram.core.Autogram;
+import digital.slovensko.autogram.core.ServerSettings;
+import digital.slovensko.autogram.core.SignatureValidator;
 import digital.slovensko.autogram.server.filters.AutogramCorsFilter;
+import digital.slovensko.autogram.server.filters.CompressionFilter;
+import digital.slovensko.autogram.server.filters.ConcurrencyLimitFilter;
+import digital.slovensko.autogram.server.filters.MetricsFilter;
+import digital.slovensko.autogram.server.filters.RequestBodyBudget;
+import digital.slovensko.autogram.server.filters.RequestSizeLimitFilter;
+import digital.slovensko.autogram.server.filters.ServerTimingFilter;
+import digital.slovensko.autogram.util.SpillableDocument;
 
 public class AutogramServer {
-    private final HttpServer server;
+    private static final int JOB_STORE_CAPACITY = 64;
+    private static final long JOB_TTL_MILLIS = 10 * 60 * 1000;
+    private static final long JOB_STORE_MAX_BYTES = 64L * 1024 * 1024;
+    private static final long CONTROL_REQUEST_MAX_BYTES = 64 * 1024;
+    private static final int IDEMPOTENCY_STORE_CAPACITY = 256;
+    private static final long IDEMPOTENCY_TTL_MILLIS = 10 * 60 * 1000;
+    private static final long IDEMPOTENCY_STORE_MAX_BYTES = 64L * 1024 * 1024;
+
+    private final ServerTransport server;
     private final Autogram autogram;
-
-    public AutogramServer(Autogram autogram, String hostname, int port, boolean isHttps, ExecutorService executorService) {
+    private final ServerExecutor executor;
+    private final long shutdownTimeoutMillis;
+    private final WorkerPool workerPool;
+    private final ConcurrencyLimitFilter concurrencyLimitFilter;
+    private final CompressionFilter compressionFilter = new CompressionFilter();
+    private final MetricsFilter metricsFilter = new MetricsFilter();
+    private final ServerTimingFilter serverTimingFilter = new ServerTimingFilter();
+    private final RequestSizeLimitFilter documentSizeLimitFilter;
+    private final RequestSizeLimitFilter controlSizeLimitFilter;
+    private final JobStore jobStore = new JobStore(JOB_STORE_CAPACITY, JOB_TTL_MILLIS, JOB_STORE_MAX_BYTES);
+    private final IdempotencyStore idempotencyStore = new IdempotencyStore(IDEMPOTENCY_STORE_CAPACITY,
+            IDEMPOTENCY_TTL_MILLIS, IDEMPOTENCY_STORE_MAX_BYTES);
+
+    public AutogramServer(Autogram autogram, String hostname, int port, boolean isHttps, ServerSettings settings) {
         this.autogram = autogram;
-        this.server = buildServer(hostname, port, isHttps);
-        this.server.setExecutor(executorService);
+        // own executor, so that long running requests do not starve other work of the application
+        this.executor = new ServerExecutor(settings);
+        this.server = buildServer(hostname, port, isHttps, settings, executor);
+        this.shutdownTimeoutMillis = settings.getServerShutdownTimeout();
+        this.workerPool = new WorkerPool(settings.getServerWorkerThreads(), settings.getServerQueueSize());
+        this.concurrencyLimitFilter = new ConcurrencyLimitFilter(settings.getServerMaxConcurrentRequests());
+
+        var requestBodyBudget = new RequestBodyBudget(settings.getServerRequestBodyBudget());
+        this.documentSizeLimitFilter = new RequestSizeLimitFilter(settings.getServerMaxRequestBodySize(), requestBodyBudget);
+        this.controlSizeLimitFilter = new RequestSizeLimitFilter(CONTROL_REQUEST_MAX_BYTES, requestBodyBudget);
+        SpillableDocument.setDefaultThreshold(settings.getServerSpillThreshold());
     }
 
     public void start() {
         // Info
-        server.createContext("/info", new InfoEndpoint()).getFilters()
-                .add(new AutogramCorsFilter("GET"));
+        createContext("/info", new InfoEndpoint(), new AutogramCorsFilter("GET"));
+
+        // Metrics
+        createContext("/metrics", new MetricsEndpoint(), new AutogramCorsFilter("GET"), compressionFilter);
 
         // Documentation
-        server.createContext("/docs", new DocumentationEndpoint());
+        createContext("/docs", new DocumentationEndpoint(), compressionFilter);
 
         // Sign
-        server.createContext("/sign", new SignEndpoint(autogram)).getFilters()
-                .add(new AutogramCorsFilter("POST"));
+        createContext("/sign", new SignEndpoint(autogram, idempotencyStore), new AutogramCorsFilter("POST"),
+                serverTimingFilter, compressionFilter, documentSizeLimitFilter);
+
+        createContext("/sign/raw", new RawSignEndpoint(autogram, idempotencyStore), new AutogramCorsFilter("POST"),
+                serverTimingFilter, documentSizeLimitFilter);
+
+        createContext("/sign/bundle", new BundleSignEndpoint(autogram), new AutogramCorsFilter("POST"),
+                serverTimingFilter, compressionFilter, documentSizeLimitFilter);
+
+        createContext("/sign/digest", new DigestSignEndpoint(autogram), new AutogramCorsFilter("POST"),
+                serverTimingFilter, compressionFilter, controlSizeLimitFilter);
 
         // Batch
-        server.createContext("/batch", new BatchEndpoint(autogram)).getFilters()
-                .add(new AutogramCorsFilter(List.of("POST", "DELETE")));
+        createContext("/batch", new BatchEndpoint(autogram),
+                new AutogramCorsFilter(List.of("POST", "DELETE")), serverTimingFilter, compressionFilter,
+                controlSizeLimitFilter);
+
+        var batchDocumentsEndpoint = new BatchDocumentsEndpoint(autogram, idempotencyStore);
+        var batchEventsEndpoint = new BatchEventsEndpoint(autogram);
+        createContext("/batch/", exchange -> {
+            if (exchange.getRequestMethod().equalsIgnoreCase("GET"))
+                batchEventsEndpoint.handle(exchange);
+            else
+                batchDocumentsEndpoint.handle(exchange);
+        }, new AutogramCorsFilter(List.of("POST", "GET")), compressionFilter, documentSizeLimitFilter);
+
+        // Jobs
+        createContext("/jobs", new JobSubmitEndpoint(autogram, jobStore, idempotencyStore), new AutogramCorsFilter("POST"), compressionFilter,
+                documentSizeLimitFilter);
+
+        createContext("/jobs/", new JobEndpoint(jobStore, executor), new AutogramCorsFilter("GET"), compressionFilter);
+
+        // Validation
+        createContext("/validate", new ValidateEndpoint(SignatureValidator.getInstance(), workerPool),
+                new AutogramCorsFilter("POST"), compressionFilter, documentSizeLimitFilter);
+
+        // Extension
+        createContext("/extend", new ExtendEndpoint(autogram, workerPool), new AutogramCorsFilter("POST"),
+                serverTimingFilter, compressionFilter, documentSizeLimitFilter);
+
+        // Visualization
+        createContext("/visualize", new VisualizeEndpoint(autogram, workerPool), new AutogramCorsFilter("POST"),
+                compressionFilter, documentSizeLimitFilter);
+
+        // Start server, the port is already bound by buildServer
+        try {
+            server.start();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Server could not be started", e);
+        }
+    }
 
-        // Start server
-        server.start();
+    private void createContext(String path, HttpHandler handler, Filter... filters) {
+        var contextFilters = new ArrayList<Filter>();
+        contextFilters.add(metricsFilter);
+        contextFilters.add(concurrencyLimitFilter);
+        contextFilters.addAll(List.of(filters));
+        server.createContext(path, handler, contextFilters);
     }
 
-    private HttpServer buildServer(String hostname, int port, boolean isHttps) {
+    /**
+     * JDK server is the default, Jetty (HTTP/2, tunable keep-alive) is used with {@code jetty} transport setting.
+     */
+    private static ServerTransport buildServer(String hostname, int port, boolean isHttps, ServerSettings settings,
+            ServerExecutor executor) {
         try {
-            if (!isHttps)
-                return HttpServer.create(new InetSocketAddress(hostname, port), 0);
-
-            var server = HttpsServer.create(new InetSocketAddress(hostname, port), 0);
-            var p12file = Paths.get(System.getProperty("user.home"), getProperty("file.ssl.pkcs12.cert"))
-                    .toFile();
-            char[] password = "".toCharArray();
-            var ks = KeyStore.getInstance("PKCS12");
-            ks.load(new FileInputStream(p12file), password);
-
-            var kmf = KeyManagerFactory.getInstance("SunX509");
-            kmf.init(ks, password);
-            var tmf = TrustManagerFactory.getInstance("SunX509");
-            tmf.init(ks);
-
-            var sslContext = SSLContext.getInstance("TLSv1.2");
-            sslContext.init(kmf.getKeyManagers(), tmf.getTrustManagers(), null);
-
-            server.setHttpsConfigurator(new HttpsConfigurator(sslContext) {
-                public void configure(HttpsParameters params) {
-                    try {
-                        var c = SSLContext.getDefault();
-                        var engine = c.createSSLEngine();
-                        params.setNeedClientAuth(false);
-                        params.setCipherSuites(engine.getEnabledCipherSuites());
-                        params.setProtocols(engine.getEnabledProtocols());
-                        var defaultSSLParameters = c.getDefaultSSLParameters();
-                        params.setSSLParameters(defaultSSLParameters);
-                    } catch (Exception e) {
-                        throw new RuntimeException(e); // TODO
-                    }
-                }
-            });
-
-            return server;
+            var address = new InetSocketAddress(hostname, port);
+            var sslContext = isHttps ? buildSslContext() : null;
+            if ("jetty".equalsIgnoreCase(settings.getServerTransport()))
+                return new JettyServerTransport(address, sslContext, executor, settings.getServerIdleTimeout());
+
+            return new JdkServerTransport(address, sslContext, executor);
 
         } catch (BindException e) {
             throw new RuntimeException("error.launchFailed.header port is already in use", e); // TODO
@@ -96,8 +160,31 @@ public class AutogramServer {
         }
     }
 
+    private static SSLContext buildSslContext() throws Exception {
+        var p12file = Paths.get(System.getProperty("user.home"), getProperty("file.ssl.pkcs12.cert"))
+                .toFile();
+        char[] password = "".toCharArray();
+        var ks = KeyStore.getInstance("PKCS12");
+        ks.load(new FileInputStream(p12file), password);
+
+        var kmf = KeyManagerFactory.getInstance("SunX509");
+        kmf.init(ks, password);
+        var tmf = TrustManagerFactory.getInstance("SunX509");
+        tmf.init(ks);
+
+        var sslContext = SSLContext.getInstance("TLSv1.2");
+        sslContext.init(kmf.getKeyManagers(), tmf.getTrustManagers(), null);
+
+        return sslContext;
+    }
+
+    /**
+     * Stops accepting requests first, so that requests in progress can still be handled by the executor. Handlers
+     * that are still waiting afterwards (e.g. for the user to sign) are interrupted.
+     */
     public void stop() {
-        ((ExecutorService) server.getExecutor()).shutdown(); // TODO find out why requests hang
-        server.stop(1);
+        server.stop(shutdownTimeoutMillis);
+        executor.shutdownNow();
+        workerPool.shutdown();
     }
 }
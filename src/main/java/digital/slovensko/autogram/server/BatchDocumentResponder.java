@@ -0,0 +1,44 @@
+package digital.slovensko.autogram.server;
+
+import digital.slovensko.autogram.core.Responder;
+import digital.slovensko.autogram.core.SignedDocument;
+import digital.slovensko.autogram.core.errors.AutogramException;
+import digital.slovensko.autogram.server.dto.ErrorResponse;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Responds with a single line of {@link NdjsonResponseWriter} for one document of a multi-document batch request.
+ */
+public class BatchDocumentResponder extends Responder {
+    private final NdjsonResponseWriter writer;
+    private final int index;
+    private final CompletableFuture<Void> done = new CompletableFuture<>();
+
+    public BatchDocumentResponder(NdjsonResponseWriter writer, int index) {
+        this.writer = writer;
+        this.index = index;
+    }
+
+    @Override
+    public void onDocumentSigned(SignedDocument signedDocument) {
+        try {
+            writer.writeSignedDocument(index, signedDocument);
+        } finally {
+            done.complete(null);
+        }
+    }
+
+    @Override
+    public void onDocumentSignFailed(AutogramException error) {
+        try {
+            writer.writeError(index, ErrorResponse.buildFromException(error));
+        } finally {
+            done.complete(null);
+        }
+    }
+
+    public CompletableFuture<Void> getDone() {
+        return done;
+    }
+}
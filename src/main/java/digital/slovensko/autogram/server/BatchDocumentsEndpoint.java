@@ -0,0 +1,161 @@
+package digital.slovensko.autogram.server;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.Strictness;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import digital.slovensko.autogram.core.Autogram;
+import digital.slovensko.autogram.core.ResponderInBatch;
+import digital.slovensko.autogram.core.SigningJob;
+import digital.slovensko.autogram.core.errors.AutogramException;
+import digital.slovensko.autogram.core.errors.UnrecognizedException;
+import digital.slovensko.autogram.server.dto.ErrorResponse;
+import digital.slovensko.autogram.server.dto.ServerJson;
+import digital.slovensko.autogram.server.dto.SignRequestBody;
+import digital.slovensko.autogram.server.errors.MalformedBodyException;
+import digital.slovensko.autogram.util.SpillableDocument;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.regex.Pattern;
+
+/**
+ * Signs many documents of a started batch in a single request.
+ *
+ * Request body is either a JSON array of {@link SignRequestBody} or a stream of them delimited by newlines. The body
+ * is received as a whole before the first line is written (spilled to a temporary file when large), many HTTP/1.1
+ * clients read the response only after they sent the request and would deadlock with the server otherwise.
+ * Documents are then signed as they are parsed and every result is written as one NDJSON line in the order of
+ * completion, with {@code index} pointing to the position of the document in the request. Documents already signed in the batch
+ * (e.g. when the request is retried) are answered from {@link IdempotencyStore} instead of being signed again.
+ */
+public class BatchDocumentsEndpoint implements HttpHandler {
+    private static final Pattern PATH = Pattern.compile("^/batch/([^/]+)/documents/?$");
+    private final static Gson gson = ServerJson.gson();
+
+    private final Autogram autogram;
+    private final IdempotencyStore idempotencyStore;
+
+    public BatchDocumentsEndpoint(Autogram autogram, IdempotencyStore idempotencyStore) {
+        this.autogram = autogram;
+        this.idempotencyStore = idempotencyStore;
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        var matcher = PATH.matcher(exchange.getRequestURI().getPath());
+        if (!matcher.matches()) {
+            exchange.sendResponseHeaders(404, -1);
+            exchange.close();
+            return;
+        }
+
+        var batchId = matcher.group(1);
+        try {
+            autogram.getBatch(batchId);
+        } catch (Exception e) {
+            EndpointUtils.respondWithError(ErrorResponse.buildFromException(e), exchange);
+            return;
+        }
+
+        SpillableDocument requestBody;
+        try {
+            requestBody = SpillableDocument.from(exchange.getRequestBody(), null, null);
+        } catch (IOException e) {
+            var response = ErrorResponse.buildFromException(new MalformedBodyException(e.getMessage(), e));
+            EndpointUtils.respondWithError(response, exchange);
+            return;
+        } catch (AutogramException e) {
+            // request body over the size limit
+            EndpointUtils.respondWithError(ErrorResponse.buildFromException(e), exchange);
+            return;
+        }
+
+        var writer = new NdjsonResponseWriter(exchange);
+        try (requestBody) {
+            writer.start();
+            signDocuments(exchange, requestBody, batchId, writer);
+            writer.close();
+        } catch (AutogramException e) {
+            // response is already being streamed, client has gone away
+            exchange.close();
+        }
+    }
+
+    private void signDocuments(HttpExchange exchange, SpillableDocument requestBody, String batchId,
+            NdjsonResponseWriter writer) {
+        var pending = new ArrayList<CompletableFuture<Void>>();
+        var index = 0;
+        try (var reader = new JsonReader(new InputStreamReader(requestBody.openStream(), StandardCharsets.UTF_8))) {
+            reader.setStrictness(Strictness.LENIENT); // allows multiple top-level values
+
+            var isArray = reader.peek() == JsonToken.BEGIN_ARRAY;
+            if (isArray)
+                reader.beginArray();
+
+            for (; isArray ? reader.hasNext() : reader.peek() != JsonToken.END_DOCUMENT; index++) {
+                SignRequestBody body = gson.fromJson(reader, SignRequestBody.class);
+                var responder = new BatchDocumentResponder(writer, index);
+
+                SigningJob job;
+                IdempotencyStore.Claim claim = null;
+                try {
+                    body.validateDocument();
+                    body.validateSigningParameters();
+                    var parameters = body.getParameters(autogram.getTspSource(), autogram.isPlainXmlEnabled());
+                    var batch = autogram.getBatch(batchId);
+
+                    claim = idempotencyStore.claim(IdempotencyStore.buildKey(exchange, body));
+                    if (!claim.isNew()) {
+                        pending.add(responder.getDone());
+                        IdempotencyStore.replay(claim, responder);
+                        continue;
+                    }
+
+                    job = SigningJob.buildFromRequest(body.getDocument(), parameters,
+                            new ResponderInBatch(IdempotencyStore.recording(claim, responder), batch));
+                } catch (Exception e) {
+                    IdempotencyStore.abandon(claim, e);
+                    writer.writeError(index, ErrorResponse.buildFromException(e));
+                    continue;
+                }
+
+                pending.add(responder.getDone());
+                if (!batchSign(job, batchId, responder, claim))
+                    break;
+            }
+        } catch (IOException | JsonParseException e) {
+            writer.writeError(index, ErrorResponse.buildFromException(new MalformedBodyException(e.getMessage(), e)));
+        }
+
+        CompletableFuture.allOf(pending.toArray(CompletableFuture[]::new)).join();
+    }
+
+    /**
+     * @return false if the batch can not continue with the next document
+     */
+    private boolean batchSign(SigningJob job, String batchId, BatchDocumentResponder responder,
+            IdempotencyStore.Claim claim) {
+        try {
+            autogram.batchSign(job, batchId);
+        } catch (AutogramException e) {
+            IdempotencyStore.abandon(claim, e);
+            if (!responder.getDone().isDone())
+                responder.onDocumentSignFailed(e);
+
+            return e.batchCanContinue();
+        } catch (Exception e) {
+            IdempotencyStore.abandon(claim, e);
+            if (!responder.getDone().isDone())
+                responder.onDocumentSignFailed(new UnrecognizedException(e));
+        }
+
+        return true;
+    }
+}
@@ -5,9 +5,11 @@ import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
 import digital.slovensko.autogram.core.Autogram;
 import digital.slovensko.autogram.server.dto.BatchEndRequestBody;
+import digital.slovensko.autogram.server.dto.BatchEndResponseBody;
 import digital.slovensko.autogram.server.dto.BatchStartRequestBody;
 import digital.slovensko.autogram.server.dto.ErrorResponse;
 import digital.slovensko.autogram.server.errors.MalformedBodyException;
+import digital.slovensko.autogram.server.filters.ServerTimingFilter;
 
 import java.io.IOException;
 
@@ -21,23 +23,27 @@ public class BatchEndpoint implements HttpHandler {
     @Override
     public void handle(HttpExchange exchange) throws IOException {
         var requestMethod = exchange.getRequestMethod();
+        var timing = ServerTimingFilter.of(exchange);
         try {
             if (requestMethod.equalsIgnoreCase("POST")) {
                 // Start batch
+                var start = System.nanoTime();
                 var body = EndpointUtils.loadFromJsonExchange(exchange,
                         BatchStartRequestBody.class);
+                timing.record("decode", start);
                 autogram.batchStart(body.getTotalNumberOfDocuments(),
                         new BatchServerResponder(exchange));
             } else if (requestMethod.equalsIgnoreCase("DELETE")) {
                 // End batch
+                var start = System.nanoTime();
                 var body = EndpointUtils.loadFromJsonExchange(exchange,
                         BatchEndRequestBody.class);
+                timing.record("decode", start);
+
+                start = System.nanoTime();
                 var finished = autogram.batchEnd(body.batchId());
-                EndpointUtils.respondWith(finished ? new Object() {
-                    public String status = "FINISHED";
-                } : new Object() {
-                    public String status = "NOT_FINISHED";
-                }, exchange);
+                timing.record("batchEnd", start);
+                EndpointUtils.respondWith(new BatchEndResponseBody(finished ? "FINISHED" : "NOT_FINISHED"), exchange);
             } else {
                 exchange.sendResponseHeaders(405, -1);
             }
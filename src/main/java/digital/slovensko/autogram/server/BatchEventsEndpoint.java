@@ -0,0 +1,209 @@
+package digital.slovensko.autogram.server;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import digital.slovensko.autogram.core.Autogram;
+import digital.slovensko.autogram.core.Batch;
+import digital.slovensko.autogram.core.BatchListener;
+import digital.slovensko.autogram.core.errors.AutogramException;
+import digital.slovensko.autogram.server.dto.ErrorResponse;
+import digital.slovensko.autogram.server.dto.ServerJson;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+/**
+ * Server-Sent Events stream of batch progress ({@code GET /batch/{id}/events}).
+ *
+ * Sends a {@code progress} event with current counts right away, a {@code document} event whenever a document is
+ * signed or fails and an {@code end} event when the batch ends, after which the stream is closed.
+ *
+ * The thread that changed the batch only puts the event into a bounded queue of each stream, events are written by
+ * writer threads, so signing never waits for a connected client. A client too slow to keep up with its queue is
+ * disconnected, it can reconnect and gets current counts in the {@code progress} event.
+ */
+public class BatchEventsEndpoint implements HttpHandler {
+    private static final Pattern PATH = Pattern.compile("^/batch/([^/]+)/events/?$");
+    private static final int QUEUE_CAPACITY = 256;
+    private final static Gson gson = ServerJson.gson();
+
+    private final Autogram autogram;
+    private final Executor writers;
+    private final int queueCapacity;
+
+    public BatchEventsEndpoint(Autogram autogram) {
+        this(autogram, buildWriters(), QUEUE_CAPACITY);
+    }
+
+    BatchEventsEndpoint(Autogram autogram, Executor writers, int queueCapacity) {
+        this.autogram = autogram;
+        this.writers = writers;
+        this.queueCapacity = queueCapacity;
+    }
+
+    /**
+     * Idle writer threads stop after a while, so the endpoint needs no shutdown.
+     */
+    private static Executor buildWriters() {
+        var threadCounter = new AtomicInteger();
+        return Executors.newCachedThreadPool(runnable -> {
+            var thread = new Thread(runnable, "autogram-batch-events-" + threadCounter.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        var matcher = PATH.matcher(exchange.getRequestURI().getPath());
+        if (!matcher.matches()) {
+            exchange.sendResponseHeaders(404, -1);
+            exchange.close();
+            return;
+        }
+
+        Batch batch;
+        try {
+            batch = autogram.getBatch(matcher.group(1));
+        } catch (Exception e) {
+            EndpointUtils.respondWithError(ErrorResponse.buildFromException(e), exchange);
+            return;
+        }
+
+        exchange.getResponseHeaders().add("Content-Type", "text/event-stream");
+        exchange.getResponseHeaders().add("Cache-Control", "no-cache");
+        exchange.sendResponseHeaders(200, 0);
+
+        var stream = new EventStream(exchange, batch, writers, queueCapacity);
+        batch.addListener(stream);
+        stream.send("progress", counts(batch));
+
+        // batch could have ended before the listener was added
+        if (batch.isEnded())
+            stream.onBatchEnded(batch);
+    }
+
+    private static JsonObject counts(Batch batch) {
+        var data = new JsonObject();
+        data.addProperty("total", batch.getTotalNumberOfDocuments());
+        data.addProperty("processed", batch.getProcessedDocumentsCount());
+        data.addProperty("successful", batch.getSuccessfulDocumentsCount());
+        data.addProperty("failed", batch.getFailedDocumentsCount());
+        return data;
+    }
+
+    private static class EventStream implements BatchListener {
+        /**
+         * Queued after the end event, the stream is closed once everything before it was written. Events are never empty.
+         */
+        private static final String END_OF_STREAM = "";
+
+        private final HttpExchange exchange;
+        private final Batch batch;
+        private final OutputStream out;
+        private final Executor writers;
+        private final BlockingQueue<String> queue;
+        private final AtomicBoolean writing = new AtomicBoolean();
+        private volatile boolean closed = false;
+
+        EventStream(HttpExchange exchange, Batch batch, Executor writers, int queueCapacity) {
+            this.exchange = exchange;
+            this.batch = batch;
+            this.out = exchange.getResponseBody();
+            this.writers = writers;
+            this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        }
+
+        @Override
+        public void onDocumentProcessed(Batch batch, String documentName, AutogramException error) {
+            var data = counts(batch);
+            data.addProperty("status", error == null ? "SIGNED" : "FAILED");
+            if (documentName != null)
+                data.addProperty("filename", documentName);
+            if (error != null)
+                data.add("error", gson.toJsonTree(ErrorResponse.buildFromException(error).getBody()));
+
+            send("document", data);
+        }
+
+        @Override
+        public void onBatchEnded(Batch batch) {
+            var data = counts(batch);
+            data.addProperty("allProcessed", batch.isAllProcessed());
+            send("end", data);
+            enqueue(END_OF_STREAM);
+        }
+
+        void send(String event, JsonObject data) {
+            enqueue("event: " + event + "\ndata: " + gson.toJson(data) + "\n\n");
+        }
+
+        private void enqueue(String event) {
+            if (closed)
+                return;
+
+            if (!queue.offer(event)) {
+                // client does not keep up, do not buffer for it without bound
+                close();
+                return;
+            }
+
+            scheduleWrite();
+        }
+
+        private void scheduleWrite() {
+            if (writing.compareAndSet(false, true))
+                writers.execute(this::write);
+        }
+
+        /**
+         * Runs on one writer thread at a time, writes everything queued and flushes once.
+         */
+        private void write() {
+            try {
+                for (var event = queue.poll(); event != null && !closed; event = queue.poll()) {
+                    if (event.isEmpty()) {
+                        out.flush();
+                        close();
+                        return;
+                    }
+
+                    out.write(event.getBytes(StandardCharsets.UTF_8));
+                }
+
+                if (!closed)
+                    out.flush();
+            } catch (IOException e) {
+                // client has gone away
+                close();
+            } finally {
+                writing.set(false);
+            }
+
+            // an event queued after the last poll, but before the flag was cleared
+            if (!queue.isEmpty() && !closed)
+                scheduleWrite();
+        }
+
+        private synchronized void close() {
+            if (closed)
+                return;
+
+            closed = true;
+            queue.clear();
+            batch.removeListener(this);
+
+            exchange.close();
+        }
+    }
+}
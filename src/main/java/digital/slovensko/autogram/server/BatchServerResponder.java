@@ -1,6 +1,5 @@
 package digital.slovensko.autogram.server;
 
-import com.google.gson.Gson;
 import com.google.gson.JsonSyntaxException;
 import com.sun.net.httpserver.HttpExchange;
 
@@ -9,6 +8,7 @@ import digital.slovensko.autogram.core.BatchResponder;
 import digital.slovensko.autogram.core.errors.AutogramException;
 import digital.slovensko.autogram.server.dto.BatchStartResponseBody;
 import digital.slovensko.autogram.server.dto.ErrorResponse;
+import digital.slovensko.autogram.server.dto.ServerJson;
 import digital.slovensko.autogram.server.errors.MalformedBodyException;
 
 public class BatchServerResponder extends BatchResponder {
@@ -19,13 +19,11 @@ public class BatchServerResponder extends BatchResponder {
     }
 
     public void onBatchStartSuccess(Batch batch) {
-        var gson = new Gson();
-
         try {
             var response = new BatchStartResponseBody(batch.getBatchId());
             exchange.getResponseHeaders().add("Content-Type", "application/json");
             exchange.sendResponseHeaders(200, 0);
-            exchange.getResponseBody().write(gson.toJson(response).getBytes());
+            exchange.getResponseBody().write(ServerJson.gson().toJson(response).getBytes());
             exchange.getResponseBody().close();
         } catch (JsonSyntaxException e) {
             var errorResponse = ErrorResponse.buildFromException(new MalformedBodyException(e.getMessage(), e));
@@ -0,0 +1,48 @@
+package digital.slovensko.autogram.server;
+
+import com.google.gson.JsonSyntaxException;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import digital.slovensko.autogram.core.Autogram;
+import digital.slovensko.autogram.core.SigningJob;
+import digital.slovensko.autogram.server.dto.ErrorResponse;
+import digital.slovensko.autogram.server.dto.SignBundleRequestBody;
+import digital.slovensko.autogram.server.errors.MalformedBodyException;
+import digital.slovensko.autogram.server.filters.ServerTimingFilter;
+
+import java.io.IOException;
+
+/**
+ * Sign several documents with one signature in a single ASiC-E container, the user confirms and the token signs once
+ * for the whole bundle. Response is the same as for a single document.
+ */
+public class BundleSignEndpoint implements HttpHandler {
+    private final Autogram autogram;
+
+    public BundleSignEndpoint(Autogram autogram) {
+        this.autogram = autogram;
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        var timing = ServerTimingFilter.of(exchange);
+        try {
+            var start = System.nanoTime();
+            var body = EndpointUtils.loadFromJsonExchange(exchange, SignBundleRequestBody.class);
+            body.validate();
+            var documents = body.getDocuments();
+            timing.record("decode", start);
+
+            var parameters = body.getParameters(autogram.getTspSource());
+            var job = SigningJob.buildBundle(documents, parameters, new ServerResponder(exchange), timing);
+            autogram.sign(job);
+
+        } catch (JsonSyntaxException | IOException e) {
+            var response = ErrorResponse.buildFromException(new MalformedBodyException(e.getMessage(), e));
+            EndpointUtils.respondWithError(response, exchange);
+
+        } catch (Exception e) {
+            EndpointUtils.respondWithError(ErrorResponse.buildFromException(e), exchange);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package digital.slovensko.autogram.server;
+
+import com.google.gson.JsonSyntaxException;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import digital.slovensko.autogram.core.Autogram;
+import digital.slovensko.autogram.core.SigningJob;
+import digital.slovensko.autogram.server.dto.ErrorResponse;
+import digital.slovensko.autogram.server.dto.SignDigestRequestBody;
+import digital.slovensko.autogram.server.errors.MalformedBodyException;
+import digital.slovensko.autogram.server.filters.ServerTimingFilter;
+
+import java.io.IOException;
+
+/**
+ * Detached signature of a document sent only as its digest, so that large files are hashed by the client and never
+ * uploaded. Response contains only the signature.
+ */
+public class DigestSignEndpoint implements HttpHandler {
+    private final Autogram autogram;
+
+    public DigestSignEndpoint(Autogram autogram) {
+        this.autogram = autogram;
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        var timing = ServerTimingFilter.of(exchange);
+        try {
+            var start = System.nanoTime();
+            var body = EndpointUtils.loadFromJsonExchange(exchange, SignDigestRequestBody.class);
+            body.validate();
+            var parameters = body.getParameters();
+            var document = body.getDocument(parameters.getDigestAlgorithm());
+            timing.record("decode", start);
+
+            autogram.sign(SigningJob.buildFromDigest(document, parameters, new ServerResponder(exchange), timing));
+
+        } catch (JsonSyntaxException | IOException e) {
+            var response = ErrorResponse.buildFromException(new MalformedBodyException(e.getMessage(), e));
+            EndpointUtils.respondWithError(response, exchange);
+
+        } catch (Exception e) {
+            EndpointUtils.respondWithError(ErrorResponse.buildFromException(e), exchange);
+        }
+    }
+}
@@ -1,22 +1,42 @@
 package digital.slovensko.autogram.server;
 
 import com.google.gson.Gson;
+import com.google.gson.stream.JsonReader;
 import com.sun.net.httpserver.HttpExchange;
 
 import digital.slovensko.autogram.core.errors.ResponseNetworkErrorException;
 import digital.slovensko.autogram.server.dto.ErrorResponse;
+import digital.slovensko.autogram.server.dto.ServerJson;
 import digital.slovensko.autogram.server.errors.EmptyBodyException;
+import digital.slovensko.autogram.server.filters.ServerTimingFilter;
+import eu.europa.esig.dss.model.DSSDocument;
+
+import java.io.BufferedOutputStream;
+import java.io.FilterOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PushbackInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
 
 public class EndpointUtils {
-    private final static Gson gson = new Gson();
+    private final static Gson gson = ServerJson.gson();
+    private final static int STREAM_BUFFER_SIZE = 64 * 1024;
 
     public static void respondWithError(ErrorResponse error, HttpExchange exchange) {
         try {
             exchange.getResponseHeaders().add("Content-Type", "application/json");
-            exchange.sendResponseHeaders(error.getStatusCode(), 0);
-            if (error.getStatusCode() != 204)
-                exchange.getResponseBody().write(gson.toJson(error.getBody()).getBytes());
+            if (error.getStatusCode() == 204) {
+                exchange.sendResponseHeaders(204, -1);
+            } else {
+                var start = System.nanoTime();
+                var body = gson.toJson(error.getBody()).getBytes();
+                ServerTimingFilter.of(exchange).record("encode", start);
+                exchange.sendResponseHeaders(error.getStatusCode(), body.length);
+                exchange.getResponseBody().write(body);
+            }
             exchange.getResponseBody().close();
         } catch (IOException e) {
             throw new ResponseNetworkErrorException("Externá aplikácia nečakala na odpoveď", e);
@@ -24,23 +44,118 @@ public class EndpointUtils {
     }
 
     public static void respondWith(Object response, HttpExchange exchange) {
+        respondWith(response, 200, exchange);
+    }
+
+    public static void respondWith(Object response, int statusCode, HttpExchange exchange) {
         try {
+            var start = System.nanoTime();
+            var body = gson.toJson(response).getBytes();
+            ServerTimingFilter.of(exchange).record("encode", start);
             exchange.getResponseHeaders().add("Content-Type", "application/json");
-            exchange.sendResponseHeaders(200, 0);
-            exchange.getResponseBody().write(gson.toJson(response).getBytes());
+            exchange.sendResponseHeaders(statusCode, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.getResponseBody().close();
+        } catch (IOException e) {
+            throw new ResponseNetworkErrorException("Externá aplikácia nečakala na odpoveď", e);
+        }
+    }
+
+    public static void respondWithContent(byte[] body, String contentType, HttpExchange exchange) {
+        try {
+            exchange.getResponseHeaders().add("Content-Type", contentType);
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
             exchange.getResponseBody().close();
         } catch (IOException e) {
             throw new ResponseNetworkErrorException("Externá aplikácia nečakala na odpoveď", e);
         }
     }
 
+    /**
+     * Writes a {@link digital.slovensko.autogram.server.dto.SignResponse} JSON envelope with chunked transfer encoding.
+     * Document is base64-encoded on the fly, so only a few buffers are held in memory regardless of document size.
+     */
+    public static void respondWithSignedDocument(DSSDocument document, String signedBy, String issuedBy, HttpExchange exchange) {
+        try (var out = new BufferedOutputStream(exchange.getResponseBody(), STREAM_BUFFER_SIZE)) {
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, 0);
+
+            out.write("{\"content\":\"".getBytes(StandardCharsets.UTF_8));
+            writeBase64(document, out);
+            out.write(("\",\"signedBy\":" + gson.toJson(signedBy) + ",\"issuedby\":" + gson.toJson(issuedBy) + "}")
+                    .getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new ResponseNetworkErrorException("Externá aplikácia nečakala na odpoveď", e);
+        }
+    }
+
+    /**
+     * Writes {@code {"content": "..."}} with base64-encoded document the same way as
+     * {@link #respondWithSignedDocument}, for documents not signed by the user.
+     */
+    public static void respondWithDocument(DSSDocument document, HttpExchange exchange) {
+        try (var out = new BufferedOutputStream(exchange.getResponseBody(), STREAM_BUFFER_SIZE)) {
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, 0);
+
+            out.write("{\"content\":\"".getBytes(StandardCharsets.UTF_8));
+            writeBase64(document, out);
+            out.write("\"}".getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new ResponseNetworkErrorException("Externá aplikácia nečakala na odpoveď", e);
+        }
+    }
+
+    /**
+     * Writes base64-encoded document content to the stream without closing it.
+     */
+    static void writeBase64(DSSDocument document, OutputStream out) throws IOException {
+        try (var in = document.openStream(); var encoder = Base64.getEncoder().wrap(new NonClosingOutputStream(out))) {
+            in.transferTo(encoder);
+        }
+    }
+
+    /**
+     * Loads JSON object from a stream, e.g. a part of a multipart request, without closing it.
+     *
+     * @return null for an empty stream
+     */
+    public static <T> T loadFromJsonStream(InputStream in, Class<T> classOfT) {
+        return gson.fromJson(new JsonReader(new InputStreamReader(in, StandardCharsets.UTF_8)), classOfT);
+    }
+
     public static <T> T loadFromJsonExchange(HttpExchange exchange, Class<T> classOfT) throws IOException {
-        var content = new String(exchange.getRequestBody().readAllBytes());
-        if (content == null || content.isEmpty())
+        var stream = new PushbackInputStream(exchange.getRequestBody());
+        var firstByte = stream.read();
+        if (firstByte == -1)
             throw new EmptyBodyException("Empty body");
-        var ret = gson.fromJson(content, classOfT);
+        stream.unread(firstByte);
+
+        // parse directly from the request stream, so the body is never buffered as a whole
+        var reader = new JsonReader(new InputStreamReader(stream, StandardCharsets.UTF_8));
+        T ret = gson.fromJson(reader, classOfT);
         if (ret == null)
             throw new IOException("Failed to parse JSON body");
         return ret;
     }
+
+    /**
+     * Base64 encoder stream has to be closed to write the final padding, but the response must stay open.
+     */
+    private static class NonClosingOutputStream extends FilterOutputStream {
+        NonClosingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
 }
@@ -0,0 +1,83 @@
+package digital.slovensko.autogram.server;
+
+import com.google.gson.JsonSyntaxException;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import digital.slovensko.autogram.core.Autogram;
+import digital.slovensko.autogram.core.SignatureExtender;
+import digital.slovensko.autogram.core.SignatureValidator;
+import digital.slovensko.autogram.server.dto.ErrorResponse;
+import digital.slovensko.autogram.server.dto.ExtendRequestBody;
+import digital.slovensko.autogram.server.errors.MalformedBodyException;
+import digital.slovensko.autogram.server.errors.RequestValidationException;
+import digital.slovensko.autogram.server.errors.ServerBusyException;
+import digital.slovensko.autogram.server.filters.ServerTimingFilter;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Extends signatures of an already signed document to BASELINE_T or BASELINE_LT ({@code POST /extend}) without any
+ * user interaction or token. Extension runs on the {@link WorkerPool}, so concurrent requests use all cores, while
+ * timestamp requests of all of them share the per-server limit of the configured {@link
+ * digital.slovensko.autogram.core.PooledTSPSource}.
+ */
+public class ExtendEndpoint implements HttpHandler {
+    private static final long INITIALIZATION_TIMEOUT_SECONDS = 5;
+    private static final String RETRY_AFTER_SECONDS = "10";
+
+    private final Autogram autogram;
+    private final WorkerPool workerPool;
+
+    public ExtendEndpoint(Autogram autogram, WorkerPool workerPool) {
+        this.autogram = autogram;
+        this.workerPool = workerPool;
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        var timing = ServerTimingFilter.of(exchange);
+        try {
+            var start = System.nanoTime();
+            var body = EndpointUtils.loadFromJsonExchange(exchange, ExtendRequestBody.class);
+            body.validate();
+            var level = body.getLevel();
+
+            if (autogram.getTspSource() == null)
+                throw new RequestValidationException("TSA server is not configured",
+                        "Set TSA server in Autogram settings, timestamps are required for " + level + " level.");
+
+            if (level == SignatureExtender.Level.BASELINE_LT && !SignatureValidator.getInstance()
+                    .awaitInitialization(INITIALIZATION_TIMEOUT_SECONDS, TimeUnit.SECONDS))
+                throw new ServerBusyException("Trusted lists are not loaded yet",
+                        "Revocation data for BASELINE_LT level can not be added until trusted lists are loaded, retry later.");
+
+            var extender = SignatureExtender.create(level, autogram.getTspSource());
+
+            try (var document = body.getDocument()) {
+                timing.record("decode", start);
+
+                start = System.nanoTime();
+                var extended = workerPool.run(() -> extender.extend(document));
+                timing.record("extend", start);
+
+                EndpointUtils.respondWithDocument(extended, exchange);
+            }
+
+        } catch (JsonSyntaxException | IOException e) {
+            var response = ErrorResponse.buildFromException(new MalformedBodyException(e.getMessage(), e));
+            EndpointUtils.respondWithError(response, exchange);
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            exchange.close();
+
+        } catch (ServerBusyException e) {
+            exchange.getResponseHeaders().add("Retry-After", RETRY_AFTER_SECONDS);
+            EndpointUtils.respondWithError(ErrorResponse.buildFromException(e), exchange);
+
+        } catch (Exception e) {
+            EndpointUtils.respondWithError(ErrorResponse.buildFromException(e), exchange);
+        }
+    }
+}
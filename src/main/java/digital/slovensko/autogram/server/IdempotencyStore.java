@@ -0,0 +1,203 @@
+package digital.slovensko.autogram.server;
+
+import com.sun.net.httpserver.HttpExchange;
+import digital.slovensko.autogram.core.Responder;
+import digital.slovensko.autogram.core.SignedDocument;
+import digital.slovensko.autogram.core.errors.AutogramException;
+import digital.slovensko.autogram.core.errors.UnrecognizedException;
+import digital.slovensko.autogram.server.dto.SignRequestBody;
+import digital.slovensko.autogram.server.errors.RequestValidationException;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Signing results by request, so that a retried request does not open a second signing dialog.
+ *
+ * Deduplication is opt-in: only requests with the {@code Idempotency-Key} header are stored, so the same document
+ * can still be signed twice on purpose. Requests are identified by the key and SHA-256 of the document, parameters
+ * and batch. A request that is being signed is joined by its duplicates, a signed one is answered right away.
+ * Signed results are kept for {@code ttlMillis}, failed ones are forgotten, so that a retry after e.g. cancelled
+ * signing signs again. Least recently used results are evicted over capacity or over {@code maxBytes} of signed
+ * documents, pending ones never are. A result larger than {@code maxBytes} is not kept at all.
+ */
+public class IdempotencyStore {
+    public static final String KEY_HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private final int capacity;
+    private final long ttlMillis;
+    private final long maxBytes;
+    private final Map<String, Entry> jobs = new LinkedHashMap<>(16, 0.75f, true);
+    private long storedBytes = 0;
+
+    public IdempotencyStore(int capacity, long ttlMillis, long maxBytes) {
+        this.capacity = capacity;
+        this.ttlMillis = ttlMillis;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * @param isNew true if the caller should sign and report the result to {@link #recording}
+     */
+    public record Claim(AsyncJob job, boolean isNew) {}
+
+    /**
+     * @return null if the request has no {@code Idempotency-Key} header and is not deduplicated
+     */
+    public static String buildKey(HttpExchange exchange, SignRequestBody body) {
+        var header = exchange == null ? null : exchange.getRequestHeaders().getFirst(KEY_HEADER);
+        if (header == null || header.isBlank())
+            return null;
+
+        if (header.length() > MAX_KEY_LENGTH)
+            throw new RequestValidationException("Invalid " + KEY_HEADER + " header",
+                    KEY_HEADER + " must be at most " + MAX_KEY_LENGTH + " characters long.");
+
+        return header.strip() + ":" + body.computeDigest();
+    }
+
+    /**
+     * @param key null to sign without deduplication
+     */
+    public synchronized Claim claim(String key) {
+        if (key == null)
+            return new Claim(new AsyncJob(), true);
+
+        removeExpired();
+
+        var existing = jobs.get(key);
+        if (existing != null)
+            return new Claim(existing.job, false);
+
+        var entry = new Entry(new AsyncJob());
+        if (!makeRoom())
+            return new Claim(entry.job, true); // every stored job is pending, sign without deduplication
+
+        jobs.put(key, entry);
+        entry.job.getResult().whenComplete((signedDocument, e) -> {
+            if (e != null)
+                remove(key, entry);
+            else
+                onSigned(key, entry);
+        });
+
+        return new Claim(entry.job, true);
+    }
+
+    /**
+     * Reports the result of a claimed request to the responder and to everybody waiting for the same request.
+     */
+    public static Responder recording(Claim claim, Responder responder) {
+        return new Responder() {
+            @Override
+            public void onDocumentSigned(SignedDocument signedDocument) {
+                claim.job().onDocumentSigned(signedDocument);
+                responder.onDocumentSigned(signedDocument);
+            }
+
+            @Override
+            public void onDocumentSignFailed(AutogramException error) {
+                claim.job().onDocumentSignFailed(error);
+                responder.onDocumentSignFailed(error);
+            }
+        };
+    }
+
+    /**
+     * Responds to a duplicate request with the result of the original one, once there is one.
+     */
+    public static void replay(Claim claim, Responder responder) {
+        claim.job().getResult().whenComplete((signedDocument, e) -> {
+            if (e == null) {
+                responder.onDocumentSigned(signedDocument);
+                return;
+            }
+
+            var cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            responder.onDocumentSignFailed(cause instanceof AutogramException autogramException
+                    ? autogramException : new UnrecognizedException(cause));
+        });
+    }
+
+    /**
+     * Fails a claimed request that could not be submitted for signing, so that its duplicates do not wait forever.
+     */
+    public static void abandon(Claim claim, Exception e) {
+        if (claim == null || claim.job().isDone())
+            return;
+
+        claim.job().onDocumentSignFailed(e instanceof AutogramException autogramException
+                ? autogramException : new UnrecognizedException(e));
+    }
+
+    synchronized long getStoredBytes() {
+        return storedBytes;
+    }
+
+    private boolean makeRoom() {
+        var iterator = jobs.values().iterator();
+        while (jobs.size() >= capacity && iterator.hasNext()) {
+            var entry = iterator.next();
+            if (entry.job.isDone()) {
+                iterator.remove();
+                storedBytes -= entry.bytes;
+            }
+        }
+
+        return jobs.size() < capacity;
+    }
+
+    private synchronized void onSigned(String key, Entry entry) {
+        if (jobs.get(key) != entry)
+            return;
+
+        var bytes = entry.job.getResultBytes();
+        if (bytes > maxBytes) {
+            // duplicates already waiting got the result, later ones sign again
+            remove(key, entry);
+            return;
+        }
+
+        entry.bytes = bytes;
+        storedBytes += bytes;
+
+        var iterator = jobs.values().iterator();
+        while (storedBytes > maxBytes && iterator.hasNext()) {
+            var stored = iterator.next();
+            if (stored.job.isDone()) {
+                iterator.remove();
+                storedBytes -= stored.bytes;
+            }
+        }
+    }
+
+    private synchronized void remove(String key, Entry entry) {
+        if (jobs.remove(key, entry))
+            storedBytes -= entry.bytes;
+    }
+
+    private void removeExpired() {
+        var now = System.currentTimeMillis();
+        var iterator = jobs.values().iterator();
+        while (iterator.hasNext()) {
+            var entry = iterator.next();
+            if (entry.job.isDone() && entry.job.getCompletedAt() + ttlMillis < now) {
+                iterator.remove();
+                storedBytes -= entry.bytes;
+            }
+        }
+    }
+
+    private static final class Entry {
+        private final AsyncJob job;
+        /** size of the signed document, counted once it is signed */
+        private long bytes = 0;
+
+        private Entry(AsyncJob job) {
+            this.job = job;
+        }
+    }
+}
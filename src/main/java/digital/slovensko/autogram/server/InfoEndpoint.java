@@ -1,11 +1,11 @@
 package digital.slovensko.autogram.server;
 
-import com.google.gson.Gson;
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
 
 import digital.slovensko.autogram.Main;
 import digital.slovensko.autogram.server.dto.InfoResponse;
+import digital.slovensko.autogram.server.dto.ServerJson;
 import static digital.slovensko.autogram.server.dto.InfoResponse.*;
 
 import java.io.IOException;
@@ -14,12 +14,11 @@ public class InfoEndpoint implements HttpHandler {
     @Override
     public void handle(HttpExchange exchange) throws IOException {
         var response = new InfoResponse(Main.getVersionString(), getStatus());
-        var gson = new Gson();
 
         try (exchange) {
             exchange.getResponseHeaders().add("Content-Type", "application/json");
             exchange.sendResponseHeaders(200, 0);
-            exchange.getResponseBody().write(gson.toJson(response).getBytes());
+            exchange.getResponseBody().write(ServerJson.gson().toJson(response).getBytes());
         }
     }
 }
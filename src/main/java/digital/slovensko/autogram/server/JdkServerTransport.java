@@ -0,0 +1,83 @@
+package digital.slovensko.autogram.server;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.concurrent.Executor;
+import javax.net.ssl.SSLContext;
+
+import com.sun.net.httpserver.Filter;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import com.sun.net.httpserver.HttpsConfigurator;
+import com.sun.net.httpserver.HttpsParameters;
+import com.sun.net.httpserver.HttpsServer;
+
+/**
+ * {@code com.sun.net.httpserver} of the JDK, HTTP/1.1 only.
+ *
+ * Keep-alive of the JDK server is only configurable by system properties read once per JVM, see
+ * {@link #configureIdleTimeout(long)}.
+ */
+public class JdkServerTransport implements ServerTransport {
+    private static final String IDLE_INTERVAL_PROPERTY = "sun.net.httpserver.idleInterval";
+
+    private final HttpServer server;
+
+    public JdkServerTransport(InetSocketAddress address, SSLContext sslContext, Executor executor)
+            throws IOException {
+        if (sslContext == null) {
+            server = HttpServer.create(address, 0);
+        } else {
+            var httpsServer = HttpsServer.create(address, 0);
+            httpsServer.setHttpsConfigurator(new HttpsConfigurator(sslContext) {
+                public void configure(HttpsParameters params) {
+                    try {
+                        var c = SSLContext.getDefault();
+                        var engine = c.createSSLEngine();
+                        params.setNeedClientAuth(false);
+                        params.setCipherSuites(engine.getEnabledCipherSuites());
+                        params.setProtocols(engine.getEnabledProtocols());
+                        var defaultSSLParameters = c.getDefaultSSLParameters();
+                        params.setSSLParameters(defaultSSLParameters);
+                    } catch (Exception e) {
+                        throw new RuntimeException(e); // TODO
+                    }
+                }
+            });
+            server = httpsServer;
+        }
+
+        server.setExecutor(executor);
+    }
+
+    /**
+     * Sets the keep-alive idle timeout of all JDK servers in the JVM, unless {@code sun.net.httpserver.idleInterval}
+     * is already set. Has to be called once at application start, before the first server is created.
+     */
+    public static void configureIdleTimeout(long idleTimeoutMillis) {
+        System.getProperties().putIfAbsent(IDLE_INTERVAL_PROPERTY,
+                Long.toString(Math.max(1, idleTimeoutMillis / 1000)));
+    }
+
+    @Override
+    public void createContext(String path, HttpHandler handler, List<Filter> filters) {
+        server.createContext(path, handler).getFilters().addAll(filters);
+    }
+
+    @Override
+    public void start() {
+        server.start();
+    }
+
+    @Override
+    public void stop(long timeoutMillis) {
+        // waits until all exchanges are closed, but at most the delay rounded up to seconds
+        server.stop((int) Math.ceil(timeoutMillis / 1000.0));
+    }
+
+    @Override
+    public InetSocketAddress getAddress() {
+        return server.getAddress();
+    }
+}
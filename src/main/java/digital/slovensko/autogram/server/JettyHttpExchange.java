@@ -0,0 +1,242 @@
+package digital.slovensko.autogram.server;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.eclipse.jetty.http.HttpField;
+import org.eclipse.jetty.http.HttpHeader;
+import org.eclipse.jetty.io.Content;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.Response;
+import org.eclipse.jetty.util.Callback;
+
+import com.sun.net.httpserver.Filter;
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpContext;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpPrincipal;
+
+/**
+ * Jetty request as {@link HttpExchange}, with the same contract as the JDK server: response headers are sent by
+ * {@link #sendResponseHeaders} (length -1 for no body, 0 for streamed), the exchange ends when the response body
+ * stream or the exchange is closed, possibly from another thread than the one that handled the request.
+ */
+class JettyHttpExchange extends HttpExchange {
+    private final Request request;
+    private final Response response;
+    private final Callback callback;
+    private final HttpContext context;
+    private final Headers requestHeaders = new Headers();
+    private final Headers responseHeaders = new Headers();
+    private final AtomicBoolean completed = new AtomicBoolean();
+    private final ResponseStream responseStream = new ResponseStream();
+    private InputStream requestBody;
+    private OutputStream responseBody = responseStream;
+    private volatile int responseCode = -1;
+
+    JettyHttpExchange(Request request, Response response, Callback callback, HttpContext context) {
+        this.request = request;
+        this.response = response;
+        this.callback = callback;
+        this.context = context;
+        this.requestBody = Content.Source.asInputStream(request);
+
+        // idle timeout only applies to reads and writes, not while the handler waits e.g. for the user to sign
+        request.addIdleTimeoutListener(timeout -> false);
+
+        for (HttpField field : request.getHeaders())
+            requestHeaders.add(field.getName(), field.getValue());
+    }
+
+    void handle(HttpHandler handler, List<Filter> filters) {
+        try {
+            new Filter.Chain(filters, handler).doFilter(this);
+        } catch (Exception e) {
+            complete(e);
+        }
+    }
+
+    @Override
+    public Headers getRequestHeaders() {
+        return requestHeaders;
+    }
+
+    @Override
+    public Headers getResponseHeaders() {
+        return responseHeaders;
+    }
+
+    @Override
+    public URI getRequestURI() {
+        return URI.create(request.getHttpURI().getPathQuery());
+    }
+
+    @Override
+    public String getRequestMethod() {
+        return request.getMethod();
+    }
+
+    @Override
+    public HttpContext getHttpContext() {
+        return context;
+    }
+
+    @Override
+    public void close() {
+        try {
+            responseBody.close();
+        } catch (IOException e) {
+            complete(e);
+        }
+    }
+
+    @Override
+    public InputStream getRequestBody() {
+        return requestBody;
+    }
+
+    @Override
+    public OutputStream getResponseBody() {
+        return responseBody;
+    }
+
+    @Override
+    public void sendResponseHeaders(int rCode, long responseLength) throws IOException {
+        if (responseCode != -1)
+            throw new IOException("Response headers already sent");
+
+        response.setStatus(rCode);
+        for (var header : responseHeaders.entrySet())
+            for (var value : header.getValue())
+                response.getHeaders().add(header.getKey(), value);
+
+        var hasBody = rCode >= 200 && rCode != 204 && rCode != 304;
+        if (responseLength > 0)
+            response.getHeaders().put(HttpHeader.CONTENT_LENGTH, responseLength);
+        else if (responseLength == -1 && hasBody)
+            response.getHeaders().put(HttpHeader.CONTENT_LENGTH, 0);
+
+        responseCode = rCode;
+        responseStream.flush(); // commits the headers, streamed responses are read by the client right away
+    }
+
+    @Override
+    public InetSocketAddress getRemoteAddress() {
+        return request.getConnectionMetaData().getRemoteSocketAddress() instanceof InetSocketAddress address
+                ? address : null;
+    }
+
+    @Override
+    public int getResponseCode() {
+        return responseCode;
+    }
+
+    @Override
+    public InetSocketAddress getLocalAddress() {
+        return request.getConnectionMetaData().getLocalSocketAddress() instanceof InetSocketAddress address
+                ? address : null;
+    }
+
+    @Override
+    public String getProtocol() {
+        return request.getConnectionMetaData().getProtocol();
+    }
+
+    @Override
+    public Object getAttribute(String name) {
+        return request.getAttribute(name);
+    }
+
+    @Override
+    public void setAttribute(String name, Object value) {
+        request.setAttribute(name, value);
+    }
+
+    @Override
+    public void setStreams(InputStream i, OutputStream o) {
+        if (i != null)
+            requestBody = i;
+        if (o != null)
+            responseBody = o;
+    }
+
+    @Override
+    public HttpPrincipal getPrincipal() {
+        return null;
+    }
+
+    private void complete(Throwable failure) {
+        if (!completed.compareAndSet(false, true))
+            return;
+
+        if (failure == null)
+            callback.succeeded();
+        else
+            callback.failed(failure);
+    }
+
+    /**
+     * Writes to Jetty once the headers are sent, closing it finishes the exchange.
+     */
+    private class ResponseStream extends OutputStream {
+        private OutputStream out;
+        private boolean closed;
+
+        @Override
+        public synchronized void write(int b) throws IOException {
+            sink().write(b);
+        }
+
+        @Override
+        public synchronized void write(byte[] b, int off, int len) throws IOException {
+            sink().write(b, off, len);
+        }
+
+        @Override
+        public synchronized void flush() throws IOException {
+            if (responseCode != -1 && !closed)
+                sink().flush();
+        }
+
+        @Override
+        public synchronized void close() throws IOException {
+            if (closed)
+                return;
+
+            if (responseCode == -1) {
+                closed = true;
+                complete(new IOException("Exchange closed without response headers"));
+                return;
+            }
+
+            try {
+                var sink = sink();
+                closed = true;
+                sink.close();
+            } catch (IOException e) {
+                complete(e);
+                throw e;
+            }
+
+            complete(null);
+        }
+
+        private OutputStream sink() throws IOException {
+            if (closed)
+                throw new IOException("Response body already closed");
+            if (responseCode == -1)
+                throw new IOException("Response headers not sent");
+
+            if (out == null)
+                out = Content.Sink.asOutputStream(response);
+
+            return out;
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package digital.slovensko.autogram.server;
+
+import java.io.IOException;
+import java.net.BindException;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import javax.net.ssl.SSLContext;
+
+import org.eclipse.jetty.alpn.server.ALPNServerConnectionFactory;
+import org.eclipse.jetty.http2.server.HTTP2CServerConnectionFactory;
+import org.eclipse.jetty.http2.server.HTTP2ServerConnectionFactory;
+import org.eclipse.jetty.server.Handler;
+import org.eclipse.jetty.server.HttpConfiguration;
+import org.eclipse.jetty.server.HttpConnectionFactory;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.Response;
+import org.eclipse.jetty.server.SecureRequestCustomizer;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.server.SslConnectionFactory;
+import org.eclipse.jetty.server.handler.GracefulHandler;
+import org.eclipse.jetty.util.Callback;
+import org.eclipse.jetty.util.ssl.SslContextFactory;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+
+import com.sun.net.httpserver.Authenticator;
+import com.sun.net.httpserver.Filter;
+import com.sun.net.httpserver.HttpContext;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Embedded Jetty speaking HTTP/1.1 and HTTP/2: over TLS negotiated by ALPN, over cleartext as h2c (prior knowledge
+ * or upgrade). Connections are kept alive until idle for {@code idleTimeoutMillis}.
+ *
+ * Jetty threads only do the I/O, handlers run on the given executor, the same as with {@link JdkServerTransport}.
+ * Stopping is graceful: new requests are refused, requests in progress get up to the stop timeout to finish.
+ */
+public class JettyServerTransport implements ServerTransport {
+    private static final int MAX_CONCURRENT_STREAMS = 128;
+
+    private final Server server;
+    private final ServerConnector connector;
+    private final Executor executor;
+    private final List<JettyHttpContext> contexts = new CopyOnWriteArrayList<>();
+
+    public JettyServerTransport(InetSocketAddress address, SSLContext sslContext, Executor executor,
+            long idleTimeoutMillis) throws IOException {
+        this.executor = executor;
+
+        var threadPool = new QueuedThreadPool();
+        threadPool.setName("autogram-jetty");
+        threadPool.setDaemon(true);
+        server = new Server(threadPool);
+
+        var httpConfiguration = new HttpConfiguration();
+        httpConfiguration.setSendServerVersion(false);
+        var http11 = new HttpConnectionFactory(httpConfiguration);
+
+        if (sslContext == null) {
+            var h2c = new HTTP2CServerConnectionFactory(httpConfiguration);
+            h2c.setMaxConcurrentStreams(MAX_CONCURRENT_STREAMS);
+            connector = new ServerConnector(server, http11, h2c);
+        } else {
+            // certificate is issued for localhost, clients may connect by IP address
+            httpConfiguration.addCustomizer(new SecureRequestCustomizer(false));
+            var h2 = new HTTP2ServerConnectionFactory(httpConfiguration);
+            h2.setMaxConcurrentStreams(MAX_CONCURRENT_STREAMS);
+            var alpn = new ALPNServerConnectionFactory(h2.getProtocol(), http11.getProtocol());
+            alpn.setDefaultProtocol(http11.getProtocol());
+
+            var sslContextFactory = new SslContextFactory.Server();
+            sslContextFactory.setSslContext(sslContext);
+            connector = new ServerConnector(server, new SslConnectionFactory(sslContextFactory, alpn.getProtocol()),
+                    alpn, h2, http11);
+        }
+
+        connector.setHost(address.getHostString());
+        connector.setPort(address.getPort());
+        connector.setIdleTimeout(idleTimeoutMillis);
+        server.addConnector(connector);
+        server.setHandler(new GracefulHandler(new ExchangeHandler()));
+
+        // bind right away like the JDK server does, so that a used port is reported when the server is created
+        try {
+            connector.open();
+        } catch (IOException e) {
+            if (e.getCause() instanceof BindException bindException)
+                throw bindException;
+
+            throw e;
+        }
+    }
+
+    @Override
+    public void createContext(String path, HttpHandler handler, List<Filter> filters) {
+        var context = new JettyHttpContext(path, handler);
+        context.getFilters().addAll(filters);
+        contexts.add(context);
+    }
+
+    @Override
+    public void start() throws IOException {
+        try {
+            server.start();
+        } catch (IOException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException("Jetty server could not be started", e);
+        }
+    }
+
+    @Override
+    public void stop(long timeoutMillis) {
+        server.setStopTimeout(timeoutMillis);
+        try {
+            server.stop();
+        } catch (Exception e) {
+            // connections are closed even when graceful shutdown times out
+        }
+    }
+
+    @Override
+    public InetSocketAddress getAddress() {
+        return new InetSocketAddress(connector.getHost(), connector.getLocalPort());
+    }
+
+    private JettyHttpContext findContext(String path) {
+        return contexts.stream()
+                .filter(context -> path.startsWith(context.getPath()))
+                .max(Comparator.comparingInt(context -> context.getPath().length()))
+                .orElse(null);
+    }
+
+    private class ExchangeHandler extends Handler.Abstract {
+        @Override
+        public boolean handle(Request request, Response response, Callback callback) {
+            var context = findContext(request.getHttpURI().getDecodedPath());
+            if (context == null) {
+                Response.writeError(request, response, callback, 404);
+                return true;
+            }
+
+            var exchange = new JettyHttpExchange(request, response, callback, context);
+            try {
+                executor.execute(() -> exchange.handle(context.getHandler(), context.getFilters()));
+            } catch (RejectedExecutionException e) {
+                response.getHeaders().put("Retry-After", "1");
+                Response.writeError(request, response, callback, 503);
+            }
+
+            return true;
+        }
+    }
+
+    static class JettyHttpContext extends HttpContext {
+        private final String path;
+        private final List<Filter> filters = new ArrayList<>();
+        private final Map<String, Object> attributes = new HashMap<>();
+        private HttpHandler handler;
+        private Authenticator authenticator;
+
+        JettyHttpContext(String path, HttpHandler handler) {
+            this.path = path;
+            this.handler = handler;
+        }
+
+        @Override
+        public HttpHandler getHandler() {
+            return handler;
+        }
+
+        @Override
+        public void setHandler(HttpHandler handler) {
+            this.handler = handler;
+        }
+
+        @Override
+        public String getPath() {
+            return path;
+        }
+
+        /**
+         * @return null, there is no {@link HttpServer} behind Jetty contexts
+         */
+        @Override
+        public HttpServer getServer() {
+            return null;
+        }
+
+        @Override
+        public Map<String, Object> getAttributes() {
+            return attributes;
+        }
+
+        @Override
+        public List<Filter> getFilters() {
+            return filters;
+        }
+
+        @Override
+        public Authenticator setAuthenticator(Authenticator authenticator) {
+            var previous = this.authenticator;
+            this.authenticator = authenticator;
+            return previous;
+        }
+
+        @Override
+        public Authenticator getAuthenticator() {
+            return authenticator;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package digital.slovensko.autogram.server;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import digital.slovensko.autogram.server.dto.ErrorResponse;
+import digital.slovensko.autogram.server.errors.RequestValidationException;
+
+import java.io.IOException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+/**
+ * Status ({@code GET /jobs/{id}}) and result ({@code GET /jobs/{id}/result}) of jobs submitted by {@link JobSubmitEndpoint}.
+ *
+ * With {@code ?wait=30s} the response is postponed until the job finishes or the time runs out. No thread is held
+ * while waiting, the response is written on the server executor, not on the signing or timeout thread that completed
+ * the wait.
+ */
+public class JobEndpoint implements HttpHandler {
+    private static final Pattern PATH = Pattern.compile("^/jobs/([^/]+)(/result)?/?$");
+    private static final Pattern WAIT = Pattern.compile("^(\\d{1,9})(ms|s)?$");
+    private static final long MAX_WAIT_MILLIS = 60_000;
+
+    private final JobStore jobStore;
+    private final Executor executor;
+
+    public JobEndpoint(JobStore jobStore, Executor executor) {
+        this.jobStore = jobStore;
+        this.executor = executor;
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        var matcher = PATH.matcher(exchange.getRequestURI().getPath());
+        if (!matcher.matches()) {
+            exchange.sendResponseHeaders(404, -1);
+            exchange.close();
+            return;
+        }
+
+        try {
+            var job = jobStore.get(matcher.group(1));
+            var waitMillis = parseWaitMillis(exchange.getRequestURI().getQuery());
+            Consumer<AsyncJob> respond = matcher.group(2) == null
+                    ? (j) -> respondWithStatus(j, exchange)
+                    : (j) -> respondWithResult(j, exchange);
+
+            if (job.isDone() || waitMillis == 0) {
+                respond.accept(job);
+                return;
+            }
+
+            job.getResult().copy().orTimeout(waitMillis, TimeUnit.MILLISECONDS).whenCompleteAsync((result, e) -> {
+                try {
+                    respond.accept(job);
+                } catch (Exception ex) {
+                    exchange.close();
+                }
+            }, executor).exceptionally(e -> {
+                // rejected by the executor
+                exchange.close();
+                return null;
+            });
+        } catch (Exception e) {
+            EndpointUtils.respondWithError(ErrorResponse.buildFromException(e), exchange);
+        }
+    }
+
+    private static void respondWithStatus(AsyncJob job, HttpExchange exchange) {
+        EndpointUtils.respondWith(job.toResponseBody(), exchange);
+    }
+
+    private static void respondWithResult(AsyncJob job, HttpExchange exchange) {
+        switch (job.getStatus()) {
+            case PENDING -> EndpointUtils.respondWith(job.toResponseBody(), 202, exchange);
+            case FAILED -> EndpointUtils.respondWithError(job.getError(), exchange);
+            case SIGNED -> new ServerResponder(exchange).onDocumentSigned(job.getSignedDocument());
+        }
+    }
+
+    private static long parseWaitMillis(String query) {
+        if (query == null)
+            return 0;
+
+        for (var param : query.split("&")) {
+            if (!param.startsWith("wait="))
+                continue;
+
+            var matcher = WAIT.matcher(param.substring("wait=".length()));
+            if (!matcher.matches())
+                throw new RequestValidationException("Invalid wait parameter",
+                        "Parameter wait must be a number of seconds, optionally followed by s or ms, e.g. 30s.");
+
+            var value = Long.parseLong(matcher.group(1));
+            var millis = "ms".equals(matcher.group(2)) ? value : value * 1000;
+            return Math.min(millis, MAX_WAIT_MILLIS);
+        }
+
+        return 0;
+    }
+}
@@ -0,0 +1,99 @@
+package digital.slovensko.autogram.server;
+
+import digital.slovensko.autogram.server.errors.JobNotFoundException;
+import digital.slovensko.autogram.server.errors.ServerBusyException;
+
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded store of asynchronous signing jobs.
+ *
+ * Finished jobs are kept for {@code ttlMillis} after they complete. When the store is full or its signed documents
+ * take more than {@code maxBytes}, the oldest finished jobs are evicted; pending jobs are never evicted since the user
+ * may still be signing them. A job whose signed document alone is larger than {@code maxBytes} fails instead.
+ */
+public class JobStore {
+    private final int capacity;
+    private final long ttlMillis;
+    private final long maxBytes;
+    private final Map<String, AsyncJob> jobs = new LinkedHashMap<>();
+    private long storedBytes = 0;
+
+    public JobStore(int capacity, long ttlMillis, long maxBytes) {
+        this.capacity = capacity;
+        this.ttlMillis = ttlMillis;
+        this.maxBytes = maxBytes;
+    }
+
+    public synchronized AsyncJob create() {
+        removeExpired();
+
+        if (jobs.size() >= capacity && !removeOldestDone())
+            throw new ServerBusyException("Too many pending jobs",
+                    "Server is already holding " + capacity + " unfinished jobs, retry later.");
+
+        var job = new AsyncJob(maxBytes);
+        jobs.put(job.getJobId(), job);
+        job.getResult().whenComplete((signedDocument, e) -> {
+            if (e == null)
+                onSigned(job);
+        });
+
+        return job;
+    }
+
+    /**
+     * Forgets a job that was never handed over for signing, so that it does not hold a place of a pending job.
+     */
+    public synchronized void remove(AsyncJob job) {
+        if (jobs.remove(job.getJobId(), job))
+            storedBytes -= job.getResultBytes();
+    }
+
+    public synchronized AsyncJob get(String jobId) {
+        removeExpired();
+
+        var job = jobs.get(jobId);
+        if (job == null)
+            throw new JobNotFoundException(jobId);
+
+        return job;
+    }
+
+    synchronized long getStoredBytes() {
+        return storedBytes;
+    }
+
+    private synchronized void onSigned(AsyncJob job) {
+        if (jobs.get(job.getJobId()) != job)
+            return;
+
+        storedBytes += job.getResultBytes();
+        while (storedBytes > maxBytes && removeOldestDone()) {
+            // older results go first, the job itself fits into maxBytes
+        }
+    }
+
+    private boolean removeOldestDone() {
+        var oldestDone = jobs.values().stream()
+                .filter(AsyncJob::isDone)
+                .min(Comparator.comparingLong(AsyncJob::getCompletedAt));
+
+        oldestDone.ifPresent(this::remove);
+        return oldestDone.isPresent();
+    }
+
+    private void removeExpired() {
+        var now = System.currentTimeMillis();
+        var iterator = jobs.values().iterator();
+        while (iterator.hasNext()) {
+            var job = iterator.next();
+            if (job.isDone() && job.getCompletedAt() + ttlMillis < now) {
+                iterator.remove();
+                storedBytes -= job.getResultBytes();
+            }
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package digital.slovensko.autogram.server;
+
+import com.sun.net.httpserver.HttpExchange;
+import digital.slovensko.autogram.core.Autogram;
+import digital.slovensko.autogram.core.Responder;
+
+/**
+ * Same as {@link SignEndpoint}, but responds right away with the job ID instead of waiting for the user to sign.
+ */
+public class JobSubmitEndpoint extends SignEndpoint {
+    private final JobStore jobStore;
+
+    public JobSubmitEndpoint(Autogram autogram, JobStore jobStore, IdempotencyStore idempotencyStore) {
+        super(autogram, idempotencyStore);
+        this.jobStore = jobStore;
+    }
+
+    @Override
+    protected Responder createResponder(HttpExchange exchange) {
+        return jobStore.create();
+    }
+
+    @Override
+    protected void onJobRejected(Responder responder) {
+        jobStore.remove((AsyncJob) responder);
+    }
+
+    @Override
+    protected void onJobSubmitted(HttpExchange exchange, Responder responder) {
+        var job = (AsyncJob) responder;
+        exchange.getResponseHeaders().add("Location", "/jobs/" + job.getJobId());
+        EndpointUtils.respondWith(job.toResponseBody(), 202, exchange);
+    }
+}
@@ -0,0 +1,272 @@
+package digital.slovensko.autogram.server;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Streaming reader of a {@code multipart/form-data} body (RFC 7578).
+ *
+ * Parts are read one after another straight from the request stream, so that a large document part is never held in
+ * memory as a whole. Malformed bodies fail with {@link IOException}, endpoints answer them as malformed requests.
+ */
+public class MultipartReader {
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_HEADERS_BYTES = 16 * 1024;
+    private static final int MAX_BOUNDARY_LENGTH = 70;
+    private static final Pattern BOUNDARY = Pattern.compile("(?i);\\s*boundary=(\"([^\"]+)\"|[^;\\s]+)");
+    private static final Pattern DISPOSITION_PARAMETER = Pattern.compile(
+            "(?i);\\s*([a-z*]+)\\s*=\\s*(\"((?:[^\"\\\\]|\\\\.)*)\"|[^;\\s]*)");
+
+    private final InputStream in;
+    /** CRLF and dashes before the boundary, the body is read as if it started with CRLF */
+    private final byte[] delimiter;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int start = 0;
+    private int end = 0;
+    private boolean eof = false;
+    private boolean finished = false;
+    private PartStream current = null;
+
+    /**
+     * @param name        name of the form field
+     * @param filename    null for fields that are not files
+     * @param contentType null if the part has no Content-Type header
+     * @param body        content of the part, valid until the next part is read
+     */
+    public record Part(String name, String filename, String contentType, InputStream body) {}
+
+    public MultipartReader(InputStream in, String boundary) {
+        this.in = in;
+        this.delimiter = ("\r\n--" + boundary).getBytes(StandardCharsets.US_ASCII);
+        buffer[end++] = '\r';
+        buffer[end++] = '\n';
+    }
+
+    /**
+     * @return boundary of a {@code multipart/form-data} Content-Type, null for any other Content-Type
+     */
+    public static String boundaryOf(String contentType) {
+        if (contentType == null || !contentType.strip().toLowerCase(Locale.ROOT).startsWith("multipart/form-data"))
+            return null;
+
+        var matcher = BOUNDARY.matcher(contentType);
+        if (!matcher.find())
+            return null;
+
+        var boundary = matcher.group(2) != null ? matcher.group(2) : matcher.group(1);
+        if (boundary.isEmpty() || boundary.length() > MAX_BOUNDARY_LENGTH)
+            return null;
+
+        return boundary;
+    }
+
+    /**
+     * Skips the rest of the previous part.
+     *
+     * @return null after the last part
+     */
+    public Part next() throws IOException {
+        if (finished)
+            return null;
+
+        var previous = current != null ? current : new PartStream();
+        previous.skipAll();
+
+        fill(2);
+        if (end - start < 2)
+            throw new IOException("Multipart body ends without closing boundary");
+
+        if (buffer[start] == '-' && buffer[start + 1] == '-') {
+            finished = true;
+            return null;
+        }
+
+        skipLineEnd();
+        return readPart();
+    }
+
+    private Part readPart() throws IOException {
+        String name = null;
+        String filename = null;
+        String contentType = null;
+
+        var headersBytes = 0;
+        for (var line = readLine(); !line.isEmpty(); line = readLine()) {
+            headersBytes += line.length();
+            if (headersBytes > MAX_HEADERS_BYTES)
+                throw new IOException("Multipart part headers are too long");
+
+            var colon = line.indexOf(':');
+            if (colon < 0)
+                throw new IOException("Malformed multipart part header");
+
+            var headerName = line.substring(0, colon).strip().toLowerCase(Locale.ROOT);
+            var value = line.substring(colon + 1).strip();
+            if (headerName.equals("content-type")) {
+                contentType = value;
+            } else if (headerName.equals("content-disposition")) {
+                var matcher = DISPOSITION_PARAMETER.matcher(value);
+                while (matcher.find()) {
+                    var parameter = matcher.group(1).toLowerCase(Locale.ROOT);
+                    var parameterValue = matcher.group(3) != null
+                            ? matcher.group(3).replaceAll("\\\\(.)", "$1") : matcher.group(2);
+
+                    if (parameter.equals("name"))
+                        name = parameterValue;
+                    else if (parameter.equals("filename") && filename == null)
+                        filename = parameterValue;
+                    else if (parameter.equals("filename*"))
+                        filename = decodeExtendedValue(parameterValue);
+                }
+            }
+        }
+
+        if (name == null)
+            throw new IOException("Multipart part without name");
+
+        current = new PartStream();
+        return new Part(name, filename, contentType, current);
+    }
+
+    /**
+     * RFC 5987 value, e.g. {@code UTF-8''n%C3%A1zov.pdf}
+     */
+    private static String decodeExtendedValue(String value) {
+        var quote = value.indexOf("''");
+        if (quote < 0)
+            return value;
+
+        return URLDecoder.decode(value.substring(quote + 2).replace("+", "%2B"), StandardCharsets.UTF_8);
+    }
+
+    private String readLine() throws IOException {
+        var line = new ByteArrayOutputStream();
+        while (true) {
+            fill(1);
+            if (end == start)
+                throw new IOException("Multipart body ends in part headers");
+
+            var b = buffer[start++];
+            if (b == '\r') {
+                fill(1);
+                if (end > start && buffer[start] == '\n')
+                    start++;
+
+                return line.toString(StandardCharsets.UTF_8);
+            }
+
+            if (line.size() > MAX_HEADERS_BYTES)
+                throw new IOException("Multipart part headers are too long");
+
+            line.write(b);
+        }
+    }
+
+    private void skipLineEnd() throws IOException {
+        // transport padding after the boundary is allowed by RFC 2046
+        while (true) {
+            fill(1);
+            if (end == start)
+                throw new IOException("Multipart body ends after boundary");
+
+            var b = buffer[start++];
+            if (b == '\n')
+                return;
+
+            if (b != '\r' && b != ' ' && b != '\t')
+                throw new IOException("Malformed multipart boundary");
+        }
+    }
+
+    /**
+     * Reads until at least {@code bytes} are buffered or the stream ends.
+     */
+    private void fill(int bytes) throws IOException {
+        while (end - start < bytes && !eof) {
+            if (buffer.length - end < bytes) {
+                System.arraycopy(buffer, start, buffer, 0, end - start);
+                end -= start;
+                start = 0;
+            }
+
+            var read = in.read(buffer, end, buffer.length - end);
+            if (read < 0)
+                eof = true;
+            else
+                end += read;
+        }
+    }
+
+    /**
+     * @return position of the delimiter in the buffered data, -1 if it is not there
+     */
+    private int findDelimiter() {
+        outer:
+        for (var i = start; i <= end - delimiter.length; i++) {
+            for (var j = 0; j < delimiter.length; j++) {
+                if (buffer[i + j] != delimiter[j])
+                    continue outer;
+            }
+
+            return i;
+        }
+
+        return -1;
+    }
+
+    /**
+     * Content of a part, ends right before the delimiter of the next part.
+     */
+    private class PartStream extends InputStream {
+        private boolean done = false;
+
+        @Override
+        public int read() throws IOException {
+            var b = new byte[1];
+            return read(b, 0, 1) < 0 ? -1 : b[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (done)
+                return -1;
+
+            if (len == 0)
+                return 0;
+
+            fill(delimiter.length);
+            var position = findDelimiter();
+            if (position == start) {
+                start += delimiter.length;
+                done = true;
+                return -1;
+            }
+
+            int available;
+            if (position >= 0)
+                available = position - start;
+            else if (eof)
+                throw new IOException("Multipart body ends without closing boundary");
+            else
+                available = end - start - delimiter.length + 1;
+
+            var count = Math.min(len, available);
+            System.arraycopy(buffer, start, b, off, count);
+            start += count;
+
+            return count;
+        }
+
+        private void skipAll() throws IOException {
+            var skipped = new byte[BUFFER_SIZE];
+            while (read(skipped, 0, skipped.length) >= 0) {
+                // discard
+            }
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package digital.slovensko.autogram.server;
+
+import com.google.gson.Gson;
+import com.sun.net.httpserver.HttpExchange;
+
+import digital.slovensko.autogram.core.SignedDocument;
+import digital.slovensko.autogram.core.errors.ResponseNetworkErrorException;
+import digital.slovensko.autogram.server.dto.ErrorResponse;
+import digital.slovensko.autogram.server.dto.ServerJson;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes results of multiple documents as newline delimited JSON, one line per document, as soon as they are ready.
+ *
+ * Lines may be written from different threads, every line is written and flushed as a whole.
+ */
+public class NdjsonResponseWriter {
+    private final static Gson gson = ServerJson.gson();
+    private final static int STREAM_BUFFER_SIZE = 64 * 1024;
+
+    private final HttpExchange exchange;
+    private OutputStream out;
+
+    public NdjsonResponseWriter(HttpExchange exchange) {
+        this.exchange = exchange;
+    }
+
+    public synchronized void start() {
+        try {
+            exchange.getResponseHeaders().add("Content-Type", "application/x-ndjson");
+            exchange.sendResponseHeaders(200, 0);
+            out = new BufferedOutputStream(exchange.getResponseBody(), STREAM_BUFFER_SIZE);
+        } catch (IOException e) {
+            throw new ResponseNetworkErrorException("Externá aplikácia nečakala na odpoveď", e);
+        }
+    }
+
+    public synchronized void writeSignedDocument(int index, SignedDocument signedDocument) {
+        var signedBy = signedDocument.getCertificate().getSubject().getPrincipal().toString();
+        var issuedBy = signedDocument.getCertificate().getIssuer().getPrincipal().toString();
+
+        try {
+            out.write(("{\"index\":" + index + ",\"content\":\"").getBytes(StandardCharsets.UTF_8));
+            EndpointUtils.writeBase64(signedDocument.getDocument(), out);
+            out.write(("\",\"signedBy\":" + gson.toJson(signedBy) + ",\"issuedby\":" + gson.toJson(issuedBy) + "}\n")
+                    .getBytes(StandardCharsets.UTF_8));
+            out.flush();
+        } catch (IOException e) {
+            throw new ResponseNetworkErrorException("Externá aplikácia nečakala na odpoveď", e);
+        }
+    }
+
+    public synchronized void writeError(int index, ErrorResponse error) {
+        var line = gson.toJsonTree(error.getBody()).getAsJsonObject();
+        line.addProperty("index", index);
+
+        try {
+            out.write((gson.toJson(line) + "\n").getBytes(StandardCharsets.UTF_8));
+            out.flush();
+        } catch (IOException e) {
+            throw new ResponseNetworkErrorException("Externá aplikácia nečakala na odpoveď", e);
+        }
+    }
+
+    public synchronized void close() {
+        try {
+            out.close();
+        } catch (IOException e) {
+            throw new ResponseNetworkErrorException("Externá aplikácia nečakala na odpoveď", e);
+        }
+    }
+}
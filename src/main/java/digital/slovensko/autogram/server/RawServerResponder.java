@@ -0,0 +1,51 @@
+package digital.slovensko.autogram.server;
+
+import com.sun.net.httpserver.HttpExchange;
+import digital.slovensko.autogram.core.Responder;
+import digital.slovensko.autogram.core.SignedDocument;
+import digital.slovensko.autogram.core.errors.AutogramException;
+import digital.slovensko.autogram.core.errors.ResponseNetworkErrorException;
+import digital.slovensko.autogram.server.dto.ErrorResponse;
+
+import java.io.IOException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+
+public class RawServerResponder extends Responder {
+    public static final String SIGNED_BY_HEADER = "X-Autogram-Signed-By";
+    public static final String ISSUED_BY_HEADER = "X-Autogram-Issued-By";
+
+    private final HttpExchange exchange;
+
+    public RawServerResponder(HttpExchange exchange) {
+        this.exchange = exchange;
+    }
+
+    @Override
+    public void onDocumentSigned(SignedDocument signedDocument) throws AutogramException {
+        var signer = signedDocument.getCertificate().getSubject().getPrincipal().toString();
+        var issuer = signedDocument.getCertificate().getIssuer().getPrincipal().toString();
+        var document = signedDocument.getDocument();
+
+        try (exchange; var in = document.openStream()) {
+            var headers = exchange.getResponseHeaders();
+            headers.add("Content-Type", "application/octet-stream");
+            // header values are ISO-8859-1 only, certificate names can contain any characters
+            headers.add(SIGNED_BY_HEADER, URLEncoder.encode(signer, StandardCharsets.UTF_8));
+            headers.add(ISSUED_BY_HEADER, URLEncoder.encode(issuer, StandardCharsets.UTF_8));
+            if (document.getName() != null)
+                headers.add("Content-Disposition", "attachment; filename*=UTF-8''"
+                        + URLEncoder.encode(document.getName(), StandardCharsets.UTF_8).replace("+", "%20"));
+
+            exchange.sendResponseHeaders(200, 0);
+            in.transferTo(exchange.getResponseBody());
+        } catch (IOException e) {
+            throw new ResponseNetworkErrorException("Externá aplikácia nečakala na odpoveď", e);
+        }
+    }
+
+    @Override
+    public void onDocumentSignFailed(AutogramException error) {
+        EndpointUtils.respondWithError(ErrorResponse.buildFromException(error), exchange);
+    }
+}
@@ -0,0 +1,108 @@
+package digital.slovensko.autogram.server;
+
+import com.sun.net.httpserver.HttpExchange;
+import digital.slovensko.autogram.core.Autogram;
+import digital.slovensko.autogram.core.Responder;
+import digital.slovensko.autogram.server.dto.ServerSigningParameters;
+import digital.slovensko.autogram.server.dto.SignRequestBody;
+import digital.slovensko.autogram.server.errors.EmptyBodyException;
+import digital.slovensko.autogram.server.errors.MalformedBodyException;
+import digital.slovensko.autogram.server.errors.RequestValidationException;
+import digital.slovensko.autogram.util.SpillableDocument;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Sign a document sent as raw binary part of a {@code multipart/form-data} request, without base64 and JSON overhead.
+ *
+ * Part {@code document} holds the document, its Content-Type is used as payload MIME type and its filename as
+ * the document name. Signing parameters are sent as JSON in part {@code parameters}, batch ID in part {@code batchId}.
+ * Parameters may be large (e.g. XSD schema and XSLT transformation), so they are not sent in a header.
+ */
+public class RawSignEndpoint extends SignEndpoint {
+    public static final String DOCUMENT_PART = "document";
+    public static final String PARAMETERS_PART = "parameters";
+    public static final String BATCH_ID_PART = "batchId";
+    private static final int MAX_BATCH_ID_BYTES = 1024;
+
+    public RawSignEndpoint(Autogram autogram, IdempotencyStore idempotencyStore) {
+        super(autogram, idempotencyStore);
+    }
+
+    @Override
+    protected SignRequestBody loadBody(HttpExchange exchange) throws IOException {
+        return loadRawBody(exchange);
+    }
+
+    static SignRequestBody loadRawBody(HttpExchange exchange) throws IOException {
+        var boundary = MultipartReader.boundaryOf(exchange.getRequestHeaders().getFirst("Content-Type"));
+        if (boundary == null)
+            throw new RequestValidationException("Content-Type must be multipart/form-data",
+                    "Send the document in part \"" + DOCUMENT_PART + "\" and signing parameters as JSON in part \""
+                            + PARAMETERS_PART + "\".");
+
+        var reader = new MultipartReader(exchange.getRequestBody(), boundary);
+        ServerSigningParameters parameters = null;
+        SpillableDocument content = null;
+        String filename = null;
+        String payloadMimeType = null;
+        String batchId = null;
+
+        try {
+            for (var part = reader.next(); part != null; part = reader.next()) {
+                switch (part.name()) {
+                    case PARAMETERS_PART -> parameters = EndpointUtils.loadFromJsonStream(part.body(),
+                            ServerSigningParameters.class);
+                    case BATCH_ID_PART -> batchId = readText(part);
+                    case DOCUMENT_PART -> {
+                        if (content != null)
+                            throw new MalformedBodyException("Duplicate document part",
+                                    "Request must contain exactly one part \"" + DOCUMENT_PART + "\".");
+
+                        content = SpillableDocument.from(part.body(), null, null);
+                        filename = part.filename();
+                        payloadMimeType = part.contentType();
+                    }
+                    default -> {
+                        // unknown parts are skipped
+                    }
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            if (content != null)
+                content.close();
+
+            throw e;
+        }
+
+        if (content == null || content.getSize() == 0) {
+            if (content != null)
+                content.close();
+
+            throw new EmptyBodyException("Empty body");
+        }
+
+        if (payloadMimeType == null || payloadMimeType.isBlank()) {
+            content.close();
+            throw new RequestValidationException("Content-Type of document part is required",
+                    "Content-Type of part \"" + DOCUMENT_PART + "\" is used as PayloadMimeType");
+        }
+
+        return SignRequestBody.fromRawDocument(content, filename, parameters, payloadMimeType, batchId);
+    }
+
+    private static String readText(MultipartReader.Part part) throws IOException {
+        var bytes = part.body().readNBytes(MAX_BATCH_ID_BYTES + 1);
+        if (bytes.length > MAX_BATCH_ID_BYTES)
+            throw new MalformedBodyException("Part " + part.name() + " is too long", "");
+
+        var text = new String(bytes, StandardCharsets.UTF_8).strip();
+        return text.isEmpty() ? null : text;
+    }
+
+    @Override
+    protected Responder createResponder(HttpExchange exchange) {
+        return new RawServerResponder(exchange);
+    }
+}
@@ -0,0 +1,131 @@
+package digital.slovensko.autogram.server;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import digital.slovensko.autogram.core.ServerSettings;
+
+/**
+ * Executor of the server transports, requests are admitted when they are handed over, not after they waited in a queue.
+ *
+ * Up to {@code maxConcurrentRequests} requests run on virtual threads when available (JDK 21+), otherwise on a bounded
+ * pool with a bounded queue. Requests over the limit, or over a full queue, run on a small separate pool in rejecting
+ * mode: {@link digital.slovensko.autogram.server.filters.ConcurrencyLimitFilter} answers them right away with 503 and
+ * Retry-After. Neither a long running request nor a burst of requests ever blocks the thread accepting connections.
+ */
+public class ServerExecutor implements Executor {
+    private static final Logger logger = LoggerFactory.getLogger(ServerExecutor.class);
+    private static final int REJECTING_THREADS = 2;
+    private static final int REJECTING_QUEUE_SIZE = 256;
+    private static final ThreadLocal<Boolean> rejecting = ThreadLocal.withInitial(() -> false);
+
+    private final ExecutorService workers;
+    private final ThreadPoolExecutor rejectingWorkers;
+    private final Semaphore permits;
+
+    public ServerExecutor(int threads, int queueSize, int maxConcurrentRequests, boolean preferVirtualThreads) {
+        var virtualWorkers = preferVirtualThreads ? buildVirtualThreadExecutor() : null;
+        this.workers = virtualWorkers != null ? virtualWorkers : buildPool("autogram-server-", threads, queueSize);
+        this.rejectingWorkers = buildPool("autogram-server-rejecting-", REJECTING_THREADS, REJECTING_QUEUE_SIZE);
+        this.permits = new Semaphore(maxConcurrentRequests);
+    }
+
+    public ServerExecutor(ServerSettings settings) {
+        this(settings.getServerThreads(), settings.getServerQueueSize(), settings.getServerMaxConcurrentRequests(),
+                true);
+    }
+
+    /**
+     * @return true on a thread handling a request that was not admitted
+     */
+    public static boolean isRejecting() {
+        return rejecting.get();
+    }
+
+    /**
+     * @throws RejectedExecutionException when even the rejecting pool is full, the transport then closes the
+     *                                    connection or answers 503 by itself
+     */
+    @Override
+    public void execute(Runnable task) {
+        if (permits.tryAcquire()) {
+            try {
+                workers.execute(() -> {
+                    try {
+                        task.run();
+                    } finally {
+                        permits.release();
+                    }
+                });
+                return;
+            } catch (RejectedExecutionException e) {
+                // queue is full
+                permits.release();
+            }
+        }
+
+        rejectingWorkers.execute(() -> {
+            rejecting.set(true);
+            try {
+                task.run();
+            } finally {
+                rejecting.remove();
+            }
+        });
+    }
+
+    /**
+     * Interrupts handlers that are still running, e.g. waiting for the user to sign.
+     */
+    public void shutdownNow() {
+        workers.shutdownNow();
+        rejectingWorkers.shutdownNow();
+    }
+
+    /**
+     * Looked up reflectively on the public {@code Thread.Builder} interfaces, the application is built for JDK 17.
+     *
+     * @return null when virtual threads are not available
+     */
+    private static ExecutorService buildVirtualThreadExecutor() {
+        try {
+            var builderClass = Class.forName("java.lang.Thread$Builder");
+            var builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, "autogram-server-", 0L);
+            var factory = (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+
+            return (ExecutorService) Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class)
+                    .invoke(null, factory);
+
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            logger.info("Virtual threads are not available ({}), server uses a pool of platform threads", e.toString());
+            return null;
+        }
+    }
+
+    private static ThreadPoolExecutor buildPool(String name, int threads, int queueSize) {
+        var threadCounter = new AtomicInteger();
+        var executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueSize),
+                runnable -> {
+                    var thread = new Thread(runnable, name + threadCounter.getAndIncrement());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        executor.allowCoreThreadTimeOut(true);
+
+        return executor;
+    }
+}
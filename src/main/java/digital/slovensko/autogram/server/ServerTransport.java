@@ -0,0 +1,35 @@
+package digital.slovensko.autogram.server;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.List;
+
+import com.sun.net.httpserver.Filter;
+import com.sun.net.httpserver.HttpHandler;
+
+/**
+ * HTTP server the endpoints are mounted on.
+ *
+ * Endpoints and filters only use the {@link HttpHandler}/{@link com.sun.net.httpserver.HttpExchange} API, transports
+ * differ in how they accept connections and which protocols they speak: {@link JdkServerTransport} (default, HTTP/1.1)
+ * and {@link JettyServerTransport} (HTTP/1.1 and HTTP/2).
+ */
+public interface ServerTransport {
+    /**
+     * Requests are routed to the context with the longest path that is a prefix of the request path.
+     */
+    void createContext(String path, HttpHandler handler, List<Filter> filters);
+
+    /**
+     * @throws java.net.BindException when the address is already in use
+     */
+    void start() throws IOException;
+
+    /**
+     * Stops accepting connections and waits at most {@code timeoutMillis} for requests in progress, then closes all
+     * connections.
+     */
+    void stop(long timeoutMillis);
+
+    InetSocketAddress getAddress();
+}
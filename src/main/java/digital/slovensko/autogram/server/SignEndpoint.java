@@ -4,37 +4,74 @@ import com.google.gson.JsonSyntaxException;
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
 import digital.slovensko.autogram.core.Autogram;
+import digital.slovensko.autogram.core.Batch;
+import digital.slovensko.autogram.core.Responder;
 import digital.slovensko.autogram.core.ResponderInBatch;
 import digital.slovensko.autogram.core.SigningJob;
+import digital.slovensko.autogram.core.SigningParameters;
 import digital.slovensko.autogram.core.errors.AutogramException;
 import digital.slovensko.autogram.server.dto.ErrorResponse;
 import digital.slovensko.autogram.server.dto.SignRequestBody;
 import digital.slovensko.autogram.server.errors.MalformedBodyException;
+import digital.slovensko.autogram.server.filters.ServerTimingFilter;
+import digital.slovensko.autogram.util.Timing;
 
 import java.io.IOException;
 
 public class SignEndpoint implements HttpHandler {
     private final Autogram autogram;
+    private final IdempotencyStore idempotencyStore;
 
-    public SignEndpoint(Autogram autogram) {
+    public SignEndpoint(Autogram autogram, IdempotencyStore idempotencyStore) {
         this.autogram = autogram;
+        this.idempotencyStore = idempotencyStore;
+    }
+
+    protected SignRequestBody loadBody(HttpExchange exchange) throws IOException {
+        return EndpointUtils.loadFromJsonExchange(exchange, SignRequestBody.class);
+    }
+
+    protected Responder createResponder(HttpExchange exchange) {
+        return new ServerResponder(exchange);
+    }
+
+    /**
+     * Called after the job was handed over for signing, the response is normally written later by the responder.
+     */
+    protected void onJobSubmitted(HttpExchange exchange, Responder responder) {
+    }
+
+    /**
+     * Called when the job could not be handed over for signing, the error is responded right away.
+     */
+    protected void onJobRejected(Responder responder) {
     }
 
     @Override
     public void handle(HttpExchange exchange) throws IOException {
+        var timing = ServerTimingFilter.of(exchange);
         try {
-            var body = EndpointUtils.loadFromJsonExchange(exchange, SignRequestBody.class);
+            var start = System.nanoTime();
+            var body = loadBody(exchange);
+            timing.record("decode", start);
+
+            start = System.nanoTime();
             body.validateDocument();
             body.validateSigningParameters();
+            timing.record("validate", start);
 
-            var responder = body.getBatchId() == null ? new ServerResponder(exchange)
-                    : new ResponderInBatch(new ServerResponder(exchange), autogram.getBatch(body.getBatchId()));
-            var job = SigningJob.buildFromRequest(body.getDocument(), body.getParameters(autogram.getTspSource(), autogram.isPlainXmlEnabled()), responder);
+            var parameters = body.getParameters(autogram.getTspSource(), autogram.isPlainXmlEnabled(), timing);
+            var batch = body.getBatchId() == null ? null : autogram.getBatch(body.getBatchId());
+            var idempotencyKey = IdempotencyStore.buildKey(exchange, body);
+            var responder = createResponder(exchange);
+            try {
+                submit(exchange, body, parameters, batch, idempotencyKey, responder, timing);
+            } catch (RuntimeException e) {
+                onJobRejected(responder);
+                throw e;
+            }
 
-            if (body.getBatchId() != null)
-                autogram.batchSign(job, body.getBatchId());
-            else
-                autogram.sign(job);
+            onJobSubmitted(exchange, responder);
 
         } catch (JsonSyntaxException | IOException e) {
             var response = ErrorResponse.buildFromException(new MalformedBodyException(e.getMessage(), e));
@@ -47,4 +84,29 @@ public class SignEndpoint implements HttpHandler {
             EndpointUtils.respondWithError(ErrorResponse.buildFromException(e), exchange);
         }
     }
+
+    private void submit(HttpExchange exchange, SignRequestBody body, SigningParameters parameters, Batch batch,
+            String idempotencyKey, Responder responder, Timing timing) {
+        var claim = idempotencyStore.claim(idempotencyKey);
+        if (!claim.isNew()) {
+            // retried request, answer with the result of the original one instead of signing again
+            exchange.getResponseHeaders().add(IdempotencyStore.REPLAYED_HEADER, "true");
+            IdempotencyStore.replay(claim, responder);
+            return;
+        }
+
+        try {
+            var recordingResponder = IdempotencyStore.recording(claim, responder);
+            var job = SigningJob.buildFromRequest(body.getDocument(), parameters,
+                    batch == null ? recordingResponder : new ResponderInBatch(recordingResponder, batch), timing);
+
+            if (body.getBatchId() != null)
+                autogram.batchSign(job, body.getBatchId());
+            else
+                autogram.sign(job);
+        } catch (RuntimeException e) {
+            IdempotencyStore.abandon(claim, e);
+            throw e;
+        }
+    }
 }
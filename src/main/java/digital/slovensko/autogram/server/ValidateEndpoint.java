@@ -0,0 +1,130 @@
+package digital.slovensko.autogram.server;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonPrimitive;
+import com.google.gson.JsonSerializer;
+import com.google.gson.JsonSyntaxException;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import digital.slovensko.autogram.core.SignatureValidator;
+import digital.slovensko.autogram.server.dto.ErrorResponse;
+import digital.slovensko.autogram.server.dto.ServerJson;
+import digital.slovensko.autogram.server.dto.ValidateRequestBody;
+import digital.slovensko.autogram.server.dto.ValidationResponseBody;
+import digital.slovensko.autogram.server.errors.EmptyBodyException;
+import digital.slovensko.autogram.server.errors.MalformedBodyException;
+import digital.slovensko.autogram.server.errors.RequestValidationException;
+import digital.slovensko.autogram.server.errors.ServerBusyException;
+import digital.slovensko.autogram.util.SpillableDocument;
+import eu.europa.esig.dss.model.DSSDocument;
+import eu.europa.esig.dss.model.DSSException;
+
+import java.io.IOException;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Validates signatures of a document against trusted lists ({@code POST /validate}) without any user interaction.
+ *
+ * Document is sent either as JSON {@link ValidateRequestBody} with base64-encoded content or as raw binary body with
+ * any other Content-Type. Response contains the DSS simple report and with {@code ?detailedReport=true} also
+ * the detailed report. Validation runs on the {@link WorkerPool}, so it never competes with the UI or signing threads.
+ */
+public class ValidateEndpoint implements HttpHandler {
+    public static final String FILENAME_HEADER = "X-Autogram-Filename";
+    private static final long INITIALIZATION_TIMEOUT_SECONDS = 5;
+    private static final String RETRY_AFTER_SECONDS = "10";
+    private final static Gson gson = ServerJson.gson().newBuilder()
+            .registerTypeAdapter(Date.class, (JsonSerializer<Date>) (date, type, context) ->
+                    new JsonPrimitive(date.toInstant().toString()))
+            .create();
+
+    private final SignatureValidator validator;
+    private final WorkerPool workerPool;
+
+    public ValidateEndpoint(SignatureValidator validator, WorkerPool workerPool) {
+        this.validator = validator;
+        this.workerPool = workerPool;
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        DSSDocument document = null;
+        try {
+            document = loadDocument(exchange);
+            var detailedReport = isDetailedReportRequested(exchange.getRequestURI().getQuery());
+
+            if (!validator.awaitInitialization(INITIALIZATION_TIMEOUT_SECONDS, TimeUnit.SECONDS))
+                throw new ServerBusyException("Trusted lists are not loaded yet",
+                        "Signature validator is still loading trusted lists, retry later.");
+
+            var loaded = document;
+            var response = workerPool.run(() -> validate(loaded, detailedReport));
+            EndpointUtils.respondWith(response, exchange);
+
+        } catch (JsonSyntaxException | IOException e) {
+            var response = ErrorResponse.buildFromException(new MalformedBodyException(e.getMessage(), e));
+            EndpointUtils.respondWithError(response, exchange);
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            exchange.close();
+
+        } catch (ServerBusyException e) {
+            exchange.getResponseHeaders().add("Retry-After", RETRY_AFTER_SECONDS);
+            EndpointUtils.respondWithError(ErrorResponse.buildFromException(e), exchange);
+
+        } catch (Exception e) {
+            EndpointUtils.respondWithError(ErrorResponse.buildFromException(e), exchange);
+
+        } finally {
+            if (document instanceof SpillableDocument spillable)
+                spillable.close();
+        }
+    }
+
+    private ValidationResponseBody validate(DSSDocument document, boolean detailedReport) {
+        try {
+            var reports = validator.validate(document);
+            if (reports == null)
+                throw new RequestValidationException("Unsupported document format",
+                        "Document is not a PDF, XML, ASiC container or CMS signature.");
+
+            return new ValidationResponseBody(gson.toJsonTree(reports.getSimpleReportJaxb()),
+                    detailedReport ? gson.toJsonTree(reports.getDetailedReportJaxb()) : null);
+        } catch (DSSException e) {
+            throw new RequestValidationException("Document can not be validated", e.getMessage());
+        }
+    }
+
+    private static DSSDocument loadDocument(HttpExchange exchange) throws IOException {
+        var contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+        if (contentType != null && contentType.strip().startsWith("application/json"))
+            return EndpointUtils.loadFromJsonExchange(exchange, ValidateRequestBody.class).getDocument();
+
+        var filename = exchange.getRequestHeaders().getFirst(FILENAME_HEADER);
+        if (filename != null)
+            filename = URLDecoder.decode(filename, StandardCharsets.UTF_8);
+
+        var document = SpillableDocument.from(exchange.getRequestBody(), filename, null);
+        if (document.getSize() == 0) {
+            document.close();
+            throw new EmptyBodyException("Empty body");
+        }
+
+        return document;
+    }
+
+    private static boolean isDetailedReportRequested(String query) {
+        if (query == null)
+            return false;
+
+        for (var param : query.split("&"))
+            if (param.equals("detailedReport") || param.equals("detailedReport=true"))
+                return true;
+
+        return false;
+    }
+}
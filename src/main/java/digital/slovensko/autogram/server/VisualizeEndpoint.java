@@ -0,0 +1,236 @@
+package digital.slovensko.autogram.server;
+
+import com.google.gson.JsonSyntaxException;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import digital.slovensko.autogram.core.Autogram;
+import digital.slovensko.autogram.core.Responder;
+import digital.slovensko.autogram.core.SignedDocument;
+import digital.slovensko.autogram.core.SigningJob;
+import digital.slovensko.autogram.core.errors.AutogramException;
+import digital.slovensko.autogram.core.visualization.PDFVisualization;
+import digital.slovensko.autogram.core.visualization.Visualization;
+import digital.slovensko.autogram.server.dto.ErrorResponse;
+import digital.slovensko.autogram.server.dto.SignRequestBody;
+import digital.slovensko.autogram.server.errors.MalformedBodyException;
+import digital.slovensko.autogram.server.errors.RequestValidationException;
+import digital.slovensko.autogram.server.errors.ServerBusyException;
+import digital.slovensko.autogram.ui.Visualizer;
+import digital.slovensko.autogram.util.LruCache;
+import eu.europa.esig.dss.enumerations.DigestAlgorithm;
+import eu.europa.esig.dss.model.DSSDocument;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.regex.Pattern;
+
+/**
+ * Renders the same preview of a document as is shown before signing ({@code POST /visualize}), without any dialog.
+ *
+ * Request is the same as for {@link SignEndpoint} (JSON) or {@link RawSignEndpoint} (multipart/form-data).
+ * eForms are returned as HTML or plain text, images as they are and PDFs as PNG of a single page selected with
+ * {@code ?page=N} (from 1) at {@code ?dpi=}. Rendering runs on the {@link WorkerPool}. Transformation outputs are
+ * cached by the transformation itself, rendered pages are cached here.
+ */
+public class VisualizeEndpoint implements HttpHandler {
+    public static final String PAGE_COUNT_HEADER = "X-Autogram-Page-Count";
+    public static final String WIDTH_HEADER = "X-Autogram-Visualization-Width";
+    private static final Pattern NUMBER = Pattern.compile("^\\d{1,4}$");
+    private static final int MIN_DPI = 36;
+    private static final int MAX_DPI = 300;
+    private static final long PAGE_CACHE_MAX_BYTES = 64 * 1024 * 1024;
+    private static final String RETRY_AFTER_SECONDS = "1";
+
+    private final Autogram autogram;
+    private final WorkerPool workerPool;
+    private final LruCache<String, PDFVisualization.RenderedPage> pageCache = new LruCache<>("pdf_page",
+            PAGE_CACHE_MAX_BYTES, page -> page.image().length);
+
+    public VisualizeEndpoint(Autogram autogram, WorkerPool workerPool) {
+        this.autogram = autogram;
+        this.workerPool = workerPool;
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        try {
+            var body = loadBody(exchange);
+            body.validateDocument();
+            body.validateSigningParameters();
+
+            var query = exchange.getRequestURI().getQuery();
+            var page = parseNumber(query, "page", 1);
+            var dpi = parseNumber(query, "dpi", 0);
+            if (page < 1)
+                throw new RequestValidationException("Invalid page parameter", "Pages are numbered from 1.");
+            if (dpi != 0 && (dpi < MIN_DPI || dpi > MAX_DPI))
+                throw new RequestValidationException("Invalid dpi parameter",
+                        "Parameter dpi must be between " + MIN_DPI + " and " + MAX_DPI + ".");
+
+            var job = SigningJob.buildFromRequest(body.getDocument(),
+                    body.getParameters(autogram.getTspSource(), autogram.isPlainXmlEnabled()), new PreviewResponder());
+
+            Preview preview;
+            try {
+                preview = workerPool.run(() -> render(job, page, dpi));
+            } finally {
+                job.release();
+            }
+            if (preview.pageCount() > 0)
+                exchange.getResponseHeaders().add(PAGE_COUNT_HEADER, Integer.toString(preview.pageCount()));
+            if (preview.width() > 0)
+                exchange.getResponseHeaders().add(WIDTH_HEADER, Long.toString(Math.round(preview.width())));
+
+            EndpointUtils.respondWithContent(preview.content(), preview.contentType(), exchange);
+
+        } catch (JsonSyntaxException | IOException e) {
+            var response = ErrorResponse.buildFromException(new MalformedBodyException(e.getMessage(), e));
+            EndpointUtils.respondWithError(response, exchange);
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            exchange.close();
+
+        } catch (ServerBusyException e) {
+            exchange.getResponseHeaders().add("Retry-After", RETRY_AFTER_SECONDS);
+            EndpointUtils.respondWithError(ErrorResponse.buildFromException(e), exchange);
+
+        } catch (Exception e) {
+            EndpointUtils.respondWithError(ErrorResponse.buildFromException(e), exchange);
+        }
+    }
+
+    private static SignRequestBody loadBody(HttpExchange exchange) throws IOException {
+        var contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+        if (contentType != null && contentType.strip().startsWith("application/json"))
+            return EndpointUtils.loadFromJsonExchange(exchange, SignRequestBody.class);
+
+        return RawSignEndpoint.loadRawBody(exchange);
+    }
+
+    private Preview render(SigningJob job, int page, int dpi) throws AutogramException {
+        Visualization visualization;
+        try {
+            visualization = autogram.buildVisualization(job);
+        } catch (AutogramException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RequestValidationException("Document can not be visualized", e.getMessage());
+        }
+
+        if (visualization instanceof PDFVisualization pdf)
+            return renderPage(pdf, page - 1, dpi == 0 ? pdf.getDpi() : dpi, job.getVisualizationWidth());
+
+        var visualizer = new CapturingVisualizer();
+        try {
+            visualization.initialize(visualizer);
+        } catch (IOException e) {
+            throw new RequestValidationException("Document can not be visualized", e.getMessage());
+        }
+
+        if (visualizer.preview == null)
+            throw new RequestValidationException("Document can not be visualized",
+                    "Preview is available for eForms, PDF, plain text, HTML and image documents.");
+
+        return visualizer.preview;
+    }
+
+    private Preview renderPage(PDFVisualization pdf, int page, int dpi, double width) {
+        var key = pdf.getDocument().getDigest(DigestAlgorithm.SHA256) + ":" + page + ":" + dpi;
+        var rendered = pageCache.get(key);
+        if (rendered == null) {
+            try {
+                rendered = pdf.renderPage(page, dpi);
+            } catch (IOException e) {
+                throw new RequestValidationException("Document can not be visualized", e.getMessage());
+            }
+
+            if (rendered.image() == null)
+                throw new RequestValidationException("Page does not exist",
+                        "Document has " + rendered.pageCount() + " pages.");
+
+            pageCache.put(key, rendered);
+        }
+
+        return new Preview(rendered.image(), "image/png", width, rendered.pageCount());
+    }
+
+    private static int parseNumber(String query, String name, int defaultValue) {
+        if (query == null)
+            return defaultValue;
+
+        for (var param : query.split("&")) {
+            if (!param.startsWith(name + "="))
+                continue;
+
+            var value = param.substring(name.length() + 1);
+            if (!NUMBER.matcher(value).matches())
+                throw new RequestValidationException("Invalid " + name + " parameter",
+                        "Parameter " + name + " must be a positive number.");
+
+            return Integer.parseInt(value);
+        }
+
+        return defaultValue;
+    }
+
+    private record Preview(byte[] content, String contentType, double width, int pageCount) {}
+
+    /**
+     * Takes the output the GUI would show, so every visualization type is rendered exactly as before signing.
+     */
+    private static class CapturingVisualizer implements Visualizer {
+        private Preview preview;
+        private double width;
+
+        @Override
+        public void showUnsupportedVisualization() {
+            preview = null;
+        }
+
+        @Override
+        public void showPDFVisualization(ArrayList<byte[]> base64EncodedDocument) {
+            if (!base64EncodedDocument.isEmpty())
+                preview = new Preview(base64EncodedDocument.get(0), "image/png", width, base64EncodedDocument.size());
+        }
+
+        @Override
+        public void showHTMLVisualization(String document) {
+            preview = new Preview(document.getBytes(StandardCharsets.UTF_8), "text/html; charset=UTF-8", width, 0);
+        }
+
+        @Override
+        public void showPlainTextVisualization(String document) {
+            preview = new Preview(document.getBytes(StandardCharsets.UTF_8), "text/plain; charset=UTF-8", width, 0);
+        }
+
+        @Override
+        public void showImageVisualization(DSSDocument document) {
+            try (var stream = document.openStream()) {
+                preview = new Preview(stream.readAllBytes(), document.getMimeType().getMimeTypeString(), width, 0);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void setPrefWidth(double visualizationWidth) {
+            width = visualizationWidth;
+        }
+    }
+
+    /**
+     * Preview jobs are never signed.
+     */
+    private static class PreviewResponder extends Responder {
+        @Override
+        public void onDocumentSigned(SignedDocument signedDocument) {
+        }
+
+        @Override
+        public void onDocumentSignFailed(AutogramException error) {
+        }
+    }
+}
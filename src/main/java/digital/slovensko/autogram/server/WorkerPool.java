@@ -0,0 +1,62 @@
+package digital.slovensko.autogram.server;
+
+import digital.slovensko.autogram.server.errors.ServerBusyException;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounded pool for CPU heavy work of endpoints, such as validation and rendering.
+ *
+ * Request threads wait for the result, so the concurrency limit of the server still applies, but no more tasks run
+ * at once than there are workers. Tasks over the queue size are rejected with {@link ServerBusyException}.
+ */
+public class WorkerPool {
+    private final ThreadPoolExecutor executor;
+
+    public WorkerPool(int threads, int queueSize) {
+        var threadCounter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueSize),
+                runnable -> {
+                    var thread = new Thread(runnable, "autogram-worker-" + threadCounter.getAndIncrement());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Runs the task on a worker and waits for it, exceptions thrown by the task are rethrown as they are.
+     */
+    public <T> T run(Callable<T> task) throws Exception {
+        Future<T> future;
+        try {
+            future = executor.submit(task);
+        } catch (RejectedExecutionException e) {
+            throw new ServerBusyException("Too many tasks", "Server is already processing too many documents, retry later.");
+        }
+
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception cause)
+                throw cause;
+
+            throw e;
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            throw e;
+        }
+    }
+
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -1,3 +1,42 @@
 package digital.slovensko.autogram.server.dto;
 
-public record BatchEndRequestBody(String batchId){}
+import java.io.IOException;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+public record BatchEndRequestBody(String batchId){
+    static final class JsonAdapter extends TypeAdapter<BatchEndRequestBody> {
+        static final JsonAdapter INSTANCE = new JsonAdapter();
+
+        @Override
+        public void write(JsonWriter out, BatchEndRequestBody value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+                return;
+            }
+
+            out.beginObject();
+            out.name("batchId").value(value.batchId);
+            out.endObject();
+        }
+
+        @Override
+        public BatchEndRequestBody read(JsonReader in) throws IOException {
+            if (!ServerJson.beginObject(in))
+                return null;
+
+            String batchId = null;
+            while (in.hasNext()) {
+                if (in.nextName().equals("batchId"))
+                    batchId = ServerJson.readString(in);
+                else
+                    in.skipValue();
+            }
+            in.endObject();
+
+            return new BatchEndRequestBody(batchId);
+        }
+    }
+}
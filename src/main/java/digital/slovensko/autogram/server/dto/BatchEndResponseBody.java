@@ -0,0 +1,45 @@
+package digital.slovensko.autogram.server.dto;
+
+import java.io.IOException;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * @param status FINISHED or NOT_FINISHED
+ */
+public record BatchEndResponseBody(String status) {
+    static final class JsonAdapter extends TypeAdapter<BatchEndResponseBody> {
+        static final JsonAdapter INSTANCE = new JsonAdapter();
+
+        @Override
+        public void write(JsonWriter out, BatchEndResponseBody value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+                return;
+            }
+
+            out.beginObject();
+            out.name("status").value(value.status);
+            out.endObject();
+        }
+
+        @Override
+        public BatchEndResponseBody read(JsonReader in) throws IOException {
+            if (!ServerJson.beginObject(in))
+                return null;
+
+            String status = null;
+            while (in.hasNext()) {
+                if (in.nextName().equals("status"))
+                    status = ServerJson.readString(in);
+                else
+                    in.skipValue();
+            }
+            in.endObject();
+
+            return new BatchEndResponseBody(status);
+        }
+    }
+}
@@ -1,11 +1,17 @@
 package digital.slovensko.autogram.server.dto;
 
+import java.io.IOException;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
 import digital.slovensko.autogram.server.errors.RequestValidationException;
 
 public class BatchStartRequestBody {
     private final Integer totalNumberOfDocuments;
 
-    public BatchStartRequestBody(int totalNumberOfDocuments) {
+    public BatchStartRequestBody(Integer totalNumberOfDocuments) {
         this.totalNumberOfDocuments = totalNumberOfDocuments;
 
     }
@@ -16,4 +22,36 @@ public class BatchStartRequestBody {
         return totalNumberOfDocuments;
     }
 
+    static final class JsonAdapter extends TypeAdapter<BatchStartRequestBody> {
+        static final JsonAdapter INSTANCE = new JsonAdapter();
+
+        @Override
+        public void write(JsonWriter out, BatchStartRequestBody value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+                return;
+            }
+
+            out.beginObject();
+            out.name("totalNumberOfDocuments").value(value.totalNumberOfDocuments);
+            out.endObject();
+        }
+
+        @Override
+        public BatchStartRequestBody read(JsonReader in) throws IOException {
+            if (!ServerJson.beginObject(in))
+                return null;
+
+            Integer totalNumberOfDocuments = null;
+            while (in.hasNext()) {
+                if (in.nextName().equals("totalNumberOfDocuments"))
+                    totalNumberOfDocuments = ServerJson.readInteger(in);
+                else
+                    in.skipValue();
+            }
+            in.endObject();
+
+            return new BatchStartRequestBody(totalNumberOfDocuments);
+        }
+    }
 }
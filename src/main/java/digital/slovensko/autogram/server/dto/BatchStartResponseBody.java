@@ -1,3 +1,42 @@
 package digital.slovensko.autogram.server.dto;
 
-public record BatchStartResponseBody(String batchId) {}
\ No newline at end of file
+import java.io.IOException;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+public record BatchStartResponseBody(String batchId) {
+    static final class JsonAdapter extends TypeAdapter<BatchStartResponseBody> {
+        static final JsonAdapter INSTANCE = new JsonAdapter();
+
+        @Override
+        public void write(JsonWriter out, BatchStartResponseBody value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+                return;
+            }
+
+            out.beginObject();
+            out.name("batchId").value(value.batchId);
+            out.endObject();
+        }
+
+        @Override
+        public BatchStartResponseBody read(JsonReader in) throws IOException {
+            if (!ServerJson.beginObject(in))
+                return null;
+
+            String batchId = null;
+            while (in.hasNext()) {
+                if (in.nextName().equals("batchId"))
+                    batchId = ServerJson.readString(in);
+                else
+                    in.skipValue();
+            }
+            in.endObject();
+
+            return new BatchStartResponseBody(batchId);
+        }
+    }
+}
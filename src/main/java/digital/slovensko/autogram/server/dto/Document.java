@@ -1,5 +1,11 @@
 package digital.slovensko.autogram.server.dto;
 
+import java.io.IOException;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
 public class Document {
     private String filename;
     private String content;
@@ -20,4 +26,40 @@ public class Document {
     public String getContent() {
         return content;
     }
+
+    static final class JsonAdapter extends TypeAdapter<Document> {
+        static final JsonAdapter INSTANCE = new JsonAdapter();
+
+        @Override
+        public void write(JsonWriter out, Document value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+                return;
+            }
+
+            out.beginObject();
+            out.name("filename").value(value.filename);
+            out.name("content").value(value.content);
+            out.endObject();
+        }
+
+        @Override
+        public Document read(JsonReader in) throws IOException {
+            if (!ServerJson.beginObject(in))
+                return null;
+
+            String filename = null;
+            String content = null;
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "filename" -> filename = ServerJson.readString(in);
+                    case "content" -> content = ServerJson.readString(in);
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+
+            return new Document(filename, content);
+        }
+    }
 }
@@ -41,6 +41,7 @@ public class ErrorResponse {
                 "TransformationParsingErrorException" -> new ErrorResponse(422, "UNPROCESSABLE_INPUT", (AutogramException) e);
             case "MultipleOriginalDocumentsFoundException" -> new ErrorResponse(422, "MULTIPLE_ORIGINAL_DOCUMENTS", (AutogramException) e);
             case "OriginalDocumentNotFoundException" -> new ErrorResponse(422, "ORIGINAL_DOCUMENT_NOT_FOUND", (AutogramException) e);
+            case "DocumentNotSignedException" -> new ErrorResponse(422, "DOCUMENT_NOT_SIGNED", (AutogramException) e);
             case "MalformedBodyException" -> new ErrorResponse(400, "MALFORMED_INPUT", (AutogramException) e);
             case "UnknownEformException" -> new ErrorResponse(400, "UNKNOWN_EFORM", (AutogramException) e);
             case "AutogramException" -> new ErrorResponse(502, "SIGNING_FAILED", (AutogramException) e);
@@ -49,7 +50,11 @@ public class ErrorResponse {
             case "BatchExpiredException" -> new ErrorResponse(400, "BATCH_EXPIRED", (AutogramException) e);
             case "BatchNotStartedException" -> new ErrorResponse(400, "BATCH_NOT_STARTED", (AutogramException) e);
             case "BatchInvalidIdException" -> new ErrorResponse(404, "BATCH_NOT_FOUND", (AutogramException) e);
-            case "BatchConflictException" -> new ErrorResponse(400, "BATCH_CONFLICT", (AutogramException) e);
+            case "BatchDocumentsExceededException" -> new ErrorResponse(400, "BATCH_DOCUMENTS_EXCEEDED", (AutogramException) e);
+            case "ServerBusyException" -> new ErrorResponse(503, "SERVER_BUSY", (AutogramException) e);
+            case "JobNotFoundException" -> new ErrorResponse(404, "JOB_NOT_FOUND", (AutogramException) e);
+            case "RequestTooLargeException" -> new ErrorResponse(413, "REQUEST_TOO_LARGE", (AutogramException) e);
+            case "ResultTooLargeException" -> new ErrorResponse(413, "RESULT_TOO_LARGE", (AutogramException) e);
             default -> new ErrorResponse(500, "INTERNAL_ERROR", "Unexpected exception signing document", e.getMessage());
         };
     }
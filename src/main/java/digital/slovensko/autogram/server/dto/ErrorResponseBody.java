@@ -1,5 +1,11 @@
 package digital.slovensko.autogram.server.dto;
 
+import java.io.IOException;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
 public class ErrorResponseBody {
     private final String code;
     private final String message;
@@ -10,4 +16,43 @@ public class ErrorResponseBody {
         this.message = message;
         this.details = details;
     }
+
+    static final class JsonAdapter extends TypeAdapter<ErrorResponseBody> {
+        static final JsonAdapter INSTANCE = new JsonAdapter();
+
+        @Override
+        public void write(JsonWriter out, ErrorResponseBody value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+                return;
+            }
+
+            out.beginObject();
+            out.name("code").value(value.code);
+            out.name("message").value(value.message);
+            out.name("details").value(value.details);
+            out.endObject();
+        }
+
+        @Override
+        public ErrorResponseBody read(JsonReader in) throws IOException {
+            if (!ServerJson.beginObject(in))
+                return null;
+
+            String code = null;
+            String message = null;
+            String details = null;
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "code" -> code = ServerJson.readString(in);
+                    case "message" -> message = ServerJson.readString(in);
+                    case "details" -> details = ServerJson.readString(in);
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+
+            return new ErrorResponseBody(code, message, details);
+        }
+    }
 }
@@ -0,0 +1,94 @@
+package digital.slovensko.autogram.server.dto;
+
+import java.io.IOException;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import digital.slovensko.autogram.core.SignatureExtender;
+import digital.slovensko.autogram.server.errors.MalformedBodyException;
+import digital.slovensko.autogram.server.errors.RequestValidationException;
+import digital.slovensko.autogram.util.SpillableDocument;
+import eu.europa.esig.dss.enumerations.MimeType;
+
+/**
+ * Signed document with base64-encoded content and the level its signatures are extended to.
+ */
+public class ExtendRequestBody {
+    private final Document document;
+    private final String level;
+
+    public ExtendRequestBody(Document document, String level) {
+        this.document = document;
+        this.level = level;
+    }
+
+    public void validate() throws RequestValidationException {
+        if (document == null)
+            throw new RequestValidationException("Document is required", "");
+
+        if (document.getContent() == null)
+            throw new RequestValidationException("Document.Content is required", "");
+
+        getLevel();
+    }
+
+    public SignatureExtender.Level getLevel() throws RequestValidationException {
+        if (level == null)
+            throw new RequestValidationException("Level is required", "Supported levels are BASELINE_T and BASELINE_LT");
+
+        try {
+            return SignatureExtender.Level.valueOf(level);
+        } catch (IllegalArgumentException e) {
+            throw new RequestValidationException("Invalid level " + level,
+                    "Supported levels are BASELINE_T and BASELINE_LT");
+        }
+    }
+
+    public SpillableDocument getDocument() throws MalformedBodyException, IOException {
+        try {
+            return SpillableDocument.decodeBase64(document.getContent(), document.getFilename(),
+                    document.getFilename() == null ? null : MimeType.fromFileName(document.getFilename()));
+        } catch (IllegalArgumentException e) {
+            throw new MalformedBodyException("Base64 decoding failed", "Invalid document content");
+        }
+    }
+
+    static final class JsonAdapter extends TypeAdapter<ExtendRequestBody> {
+        static final JsonAdapter INSTANCE = new JsonAdapter();
+
+        @Override
+        public void write(JsonWriter out, ExtendRequestBody value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+                return;
+            }
+
+            out.beginObject();
+            out.name("document");
+            Document.JsonAdapter.INSTANCE.write(out, value.document);
+            out.name("level").value(value.level);
+            out.endObject();
+        }
+
+        @Override
+        public ExtendRequestBody read(JsonReader in) throws IOException {
+            if (!ServerJson.beginObject(in))
+                return null;
+
+            Document document = null;
+            String level = null;
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "document" -> document = Document.JsonAdapter.INSTANCE.read(in);
+                    case "level" -> level = ServerJson.readString(in);
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+
+            return new ExtendRequestBody(document, level);
+        }
+    }
+}
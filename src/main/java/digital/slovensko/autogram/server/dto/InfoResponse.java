@@ -1,5 +1,11 @@
 package digital.slovensko.autogram.server.dto;
 
+import java.io.IOException;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
 public class InfoResponse {
     private final String version;
     private final String status;
@@ -12,4 +18,40 @@ public class InfoResponse {
     public static String getStatus() {
         return "READY"; // TODO: check if server is ready
     }
+
+    static final class JsonAdapter extends TypeAdapter<InfoResponse> {
+        static final JsonAdapter INSTANCE = new JsonAdapter();
+
+        @Override
+        public void write(JsonWriter out, InfoResponse value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+                return;
+            }
+
+            out.beginObject();
+            out.name("version").value(value.version);
+            out.name("status").value(value.status);
+            out.endObject();
+        }
+
+        @Override
+        public InfoResponse read(JsonReader in) throws IOException {
+            if (!ServerJson.beginObject(in))
+                return null;
+
+            String version = null;
+            String status = null;
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "version" -> version = ServerJson.readString(in);
+                    case "status" -> status = ServerJson.readString(in);
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+
+            return new InfoResponse(version, status);
+        }
+    }
 }
@@ -0,0 +1,49 @@
+package digital.slovensko.autogram.server.dto;
+
+import java.io.IOException;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+public record JobResponseBody(String jobId, String status, ErrorResponseBody error) {
+    static final class JsonAdapter extends TypeAdapter<JobResponseBody> {
+        static final JsonAdapter INSTANCE = new JsonAdapter();
+
+        @Override
+        public void write(JsonWriter out, JobResponseBody value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+                return;
+            }
+
+            out.beginObject();
+            out.name("jobId").value(value.jobId);
+            out.name("status").value(value.status);
+            out.name("error");
+            ErrorResponseBody.JsonAdapter.INSTANCE.write(out, value.error);
+            out.endObject();
+        }
+
+        @Override
+        public JobResponseBody read(JsonReader in) throws IOException {
+            if (!ServerJson.beginObject(in))
+                return null;
+
+            String jobId = null;
+            String status = null;
+            ErrorResponseBody error = null;
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "jobId" -> jobId = ServerJson.readString(in);
+                    case "status" -> status = ServerJson.readString(in);
+                    case "error" -> error = ErrorResponseBody.JsonAdapter.INSTANCE.read(in);
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+
+            return new JobResponseBody(jobId, status, error);
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package digital.slovensko.autogram.server.dto;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import eu.europa.esig.dss.enumerations.ASiCContainerType;
+import eu.europa.esig.dss.enumerations.DigestAlgorithm;
+import eu.europa.esig.dss.enumerations.SignatureLevel;
+import eu.europa.esig.dss.enumerations.SignaturePackaging;
+
+/**
+ * Single {@link Gson} for all server DTOs.
+ *
+ * Every DTO is bound by its hand-written {@code JsonAdapter} instead of reflection, with the same JSON as reflective
+ * Gson: field names as declared, nulls omitted, unknown properties ignored, unknown enum constants read as null and
+ * strings, booleans and numbers read as leniently as Gson does.
+ */
+public final class ServerJson {
+    static final TypeAdapter<SignatureLevel> SIGNATURE_LEVEL = new EnumAdapter<>(SignatureLevel.class);
+    static final TypeAdapter<ASiCContainerType> CONTAINER_TYPE = new EnumAdapter<>(ASiCContainerType.class);
+    static final TypeAdapter<SignaturePackaging> PACKAGING = new EnumAdapter<>(SignaturePackaging.class);
+    static final TypeAdapter<DigestAlgorithm> DIGEST_ALGORITHM = new EnumAdapter<>(DigestAlgorithm.class);
+
+    private static final Gson gson = new GsonBuilder()
+            .registerTypeAdapter(Document.class, Document.JsonAdapter.INSTANCE)
+            .registerTypeAdapter(ServerSigningParameters.class, ServerSigningParameters.JsonAdapter.INSTANCE)
+            .registerTypeAdapter(SignRequestBody.class, SignRequestBody.JsonAdapter.INSTANCE)
+            .registerTypeAdapter(SignBundleRequestBody.class, SignBundleRequestBody.JsonAdapter.INSTANCE)
+            .registerTypeAdapter(SignDigestRequestBody.class, SignDigestRequestBody.JsonAdapter.INSTANCE)
+            .registerTypeAdapter(ValidateRequestBody.class, ValidateRequestBody.JsonAdapter.INSTANCE)
+            .registerTypeAdapter(ExtendRequestBody.class, ExtendRequestBody.JsonAdapter.INSTANCE)
+            .registerTypeAdapter(BatchStartRequestBody.class, BatchStartRequestBody.JsonAdapter.INSTANCE)
+            .registerTypeAdapter(BatchStartResponseBody.class, BatchStartResponseBody.JsonAdapter.INSTANCE)
+            .registerTypeAdapter(BatchEndRequestBody.class, BatchEndRequestBody.JsonAdapter.INSTANCE)
+            .registerTypeAdapter(BatchEndResponseBody.class, BatchEndResponseBody.JsonAdapter.INSTANCE)
+            .registerTypeAdapter(ErrorResponseBody.class, ErrorResponseBody.JsonAdapter.INSTANCE)
+            .registerTypeAdapter(JobResponseBody.class, JobResponseBody.JsonAdapter.INSTANCE)
+            .registerTypeAdapter(InfoResponse.class, InfoResponse.JsonAdapter.INSTANCE)
+            .registerTypeAdapter(SignResponse.class, SignResponse.JsonAdapter.INSTANCE)
+            .registerTypeAdapter(ValidationResponseBody.class, ValidationResponseBody.JsonAdapter.INSTANCE)
+            .create();
+
+    private ServerJson() {
+    }
+
+    public static Gson gson() {
+        return gson;
+    }
+
+    static String readString(JsonReader in) throws IOException {
+        return switch (in.peek()) {
+            case NULL -> {
+                in.nextNull();
+                yield null;
+            }
+            case BOOLEAN -> Boolean.toString(in.nextBoolean());
+            default -> in.nextString();
+        };
+    }
+
+    static Boolean readBoolean(JsonReader in) throws IOException {
+        return switch (in.peek()) {
+            case NULL -> {
+                in.nextNull();
+                yield null;
+            }
+            case STRING -> Boolean.parseBoolean(in.nextString());
+            default -> in.nextBoolean();
+        };
+    }
+
+    static boolean readPrimitiveBoolean(JsonReader in, boolean defaultValue) throws IOException {
+        var value = readBoolean(in);
+        return value == null ? defaultValue : value;
+    }
+
+    static Integer readInteger(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+
+        try {
+            return in.nextInt();
+        } catch (NumberFormatException e) {
+            throw new JsonSyntaxException(e);
+        }
+    }
+
+    /**
+     * @return false for JSON null, so that callers return null for the whole object like reflective Gson does
+     */
+    static boolean beginObject(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return false;
+        }
+
+        in.beginObject();
+        return true;
+    }
+
+    /**
+     * Constants by name and by {@code toString()}, written by name.
+     */
+    static class EnumAdapter<E extends Enum<E>> extends TypeAdapter<E> {
+        private final Map<String, E> constants = new HashMap<>();
+
+        EnumAdapter(Class<E> type) {
+            for (var constant : type.getEnumConstants())
+                constants.putIfAbsent(constant.toString(), constant);
+            for (var constant : type.getEnumConstants())
+                constants.put(constant.name(), constant);
+        }
+
+        @Override
+        public void write(JsonWriter out, E value) throws IOException {
+            out.value(value == null ? null : value.name());
+        }
+
+        @Override
+        public E read(JsonReader in) throws IOException {
+            var value = readString(in);
+            return value == null ? null : constants.get(value);
+        }
+    }
+}
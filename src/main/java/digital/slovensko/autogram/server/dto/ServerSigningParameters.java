@@ -4,6 +4,7 @@ import static digital.slovensko.autogram.core.AutogramMimeType.isAsice;
 import static digital.slovensko.autogram.core.AutogramMimeType.isXDC;
 import static digital.slovensko.autogram.core.AutogramMimeType.isXML;
 
+import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.Base64;
@@ -11,6 +12,10 @@ import java.util.regex.Pattern;
 
 import javax.xml.crypto.dsig.CanonicalizationMethod;
 
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
 import digital.slovensko.autogram.core.SignatureValidator;
 import digital.slovensko.autogram.core.SigningParameters;
 import digital.slovensko.autogram.core.eforms.dto.EFormAttributes;
@@ -18,6 +23,7 @@ import digital.slovensko.autogram.core.eforms.dto.XsltParams;
 import digital.slovensko.autogram.server.errors.MalformedBodyException;
 import digital.slovensko.autogram.server.errors.RequestValidationException;
 import digital.slovensko.autogram.server.errors.UnsupportedSignatureLevelException;
+import digital.slovensko.autogram.util.Timing;
 import eu.europa.esig.dss.enumerations.ASiCContainerType;
 import eu.europa.esig.dss.enumerations.DigestAlgorithm;
 import eu.europa.esig.dss.enumerations.MimeType;
@@ -26,7 +32,6 @@ import eu.europa.esig.dss.enumerations.SignatureForm;
 import eu.europa.esig.dss.enumerations.SignatureLevel;
 import eu.europa.esig.dss.enumerations.SignaturePackaging;
 import eu.europa.esig.dss.model.DSSDocument;
-import eu.europa.esig.dss.model.InMemoryDocument;
 import eu.europa.esig.dss.spi.x509.tsp.TSPSource;
 
 public class ServerSigningParameters {
@@ -133,7 +138,8 @@ public class ServerSigningParameters {
         this.fsFormId = null;
     }
 
-    public SigningParameters getSigningParameters(boolean isBase64, DSSDocument document, TSPSource tspSource, boolean plainXmlEnabled) {
+    public SigningParameters getSigningParameters(boolean isBase64, DSSDocument document, TSPSource tspSource,
+            boolean plainXmlEnabled, Timing timing) {
         var xsltParams = new XsltParams(
                 transformationIdentifier,
                 transformationLanguage,
@@ -166,7 +172,54 @@ public class ServerSigningParameters {
                 getVisualizationWidth(),
                 document,
                 tspSource,
-                plainXmlEnabled);
+                plainXmlEnabled,
+                timing);
+    }
+
+    /**
+     * Parameters for signing several documents together, only level, digest algorithm, EN 319 132 and container are
+     * used, eForm parameters do not apply to bundles.
+     */
+    public SigningParameters getBundleSigningParameters(TSPSource tspSource) throws RequestValidationException {
+        if (level == null)
+            throw new RequestValidationException("Parameters.Level is required", "");
+
+        var supportedLevels = Arrays.asList(
+                SignatureLevel.XAdES_BASELINE_B,
+                SignatureLevel.CAdES_BASELINE_B,
+                SignatureLevel.XAdES_BASELINE_T);
+
+        if (!supportedLevels.contains(level))
+            throw new UnsupportedSignatureLevelException(level.name());
+
+        if (container != null && container != ASiCContainerType.ASiC_E)
+            throw new RequestValidationException("Parameters.Container is not supported for bundles",
+                    "Documents signed together are always in ASiC_E container");
+
+        return SigningParameters.buildForBundle(level, digestAlgorithm, getBoolean(en319132), tspSource);
+    }
+
+    /**
+     * Parameters for a detached signature of a document sent as digest, only level, digest algorithm and EN 319 132
+     * are used. Digest algorithm is the one the client computed the digest with.
+     */
+    public SigningParameters getDetachedSigningParameters() throws RequestValidationException {
+        if (level == null)
+            throw new RequestValidationException("Parameters.Level is required", "");
+
+        if (level != SignatureLevel.XAdES_BASELINE_B && level != SignatureLevel.CAdES_BASELINE_B)
+            throw new UnsupportedSignatureLevelException(level.name());
+
+        if (container != null)
+            throw new RequestValidationException("Parameters.Container is not supported for digest signing",
+                    "Only detached signature is returned when signing a digest");
+
+        if (packaging != null && packaging != SignaturePackaging.DETACHED)
+            throw new RequestValidationException("Parameters.Packaging is not supported for digest signing",
+                    "Only DETACHED packaging is possible when signing a digest");
+
+        return SigningParameters.buildForDetached(level, digestAlgorithm == null ? DigestAlgorithm.SHA256 : digestAlgorithm,
+                getBoolean(en319132));
     }
 
     private static boolean getBoolean(Boolean variable) {
@@ -251,7 +304,7 @@ public class ServerSigningParameters {
         return container;
     }
 
-    public void resolveSigningLevel(InMemoryDocument document) throws RequestValidationException {
+    public void resolveSigningLevel(DSSDocument document) throws RequestValidationException {
         if (level != null)
             return;
 
@@ -333,4 +386,111 @@ public class ServerSigningParameters {
                                 + mimeType.getMimeTypeString());
         }
     }
+
+    static final class JsonAdapter extends TypeAdapter<ServerSigningParameters> {
+        static final JsonAdapter INSTANCE = new JsonAdapter();
+        private static final TypeAdapter<LocalCanonicalizationMethod> CANONICALIZATION =
+                new ServerJson.EnumAdapter<>(LocalCanonicalizationMethod.class);
+        private static final TypeAdapter<VisualizationWidthEnum> VISUALIZATION_WIDTH =
+                new ServerJson.EnumAdapter<>(VisualizationWidthEnum.class);
+        private static final TypeAdapter<TransformationOutputMimeType> OUTPUT_MIME_TYPE =
+                new ServerJson.EnumAdapter<>(TransformationOutputMimeType.class);
+
+        @Override
+        public void write(JsonWriter out, ServerSigningParameters value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+                return;
+            }
+
+            out.beginObject();
+            ServerJson.CONTAINER_TYPE.write(out.name("container"), value.container);
+            ServerJson.SIGNATURE_LEVEL.write(out.name("level"), value.level);
+            out.name("containerXmlns").value(value.containerXmlns);
+            out.name("schema").value(value.schema);
+            out.name("transformation").value(value.transformation);
+            ServerJson.PACKAGING.write(out.name("packaging"), value.packaging);
+            ServerJson.DIGEST_ALGORITHM.write(out.name("digestAlgorithm"), value.digestAlgorithm);
+            out.name("en319132").value(value.en319132);
+            CANONICALIZATION.write(out.name("infoCanonicalization"), value.infoCanonicalization);
+            CANONICALIZATION.write(out.name("propertiesCanonicalization"), value.propertiesCanonicalization);
+            CANONICALIZATION.write(out.name("keyInfoCanonicalization"), value.keyInfoCanonicalization);
+            out.name("identifier").value(value.identifier);
+            out.name("checkPDFACompliance").value(value.checkPDFACompliance);
+            VISUALIZATION_WIDTH.write(out.name("visualizationWidth"), value.visualizationWidth);
+            out.name("autoLoadEform").value(value.autoLoadEform);
+            out.name("embedUsedSchemas").value(value.embedUsedSchemas);
+            out.name("schemaIdentifier").value(value.schemaIdentifier);
+            out.name("transformationIdentifier").value(value.transformationIdentifier);
+            out.name("transformationLanguage").value(value.transformationLanguage);
+            OUTPUT_MIME_TYPE.write(out.name("transformationMediaDestinationTypeDescription"),
+                    value.transformationMediaDestinationTypeDescription);
+            out.name("transformationTargetEnvironment").value(value.transformationTargetEnvironment);
+            out.name("fsFormId").value(value.fsFormId);
+            out.endObject();
+        }
+
+        @Override
+        public ServerSigningParameters read(JsonReader in) throws IOException {
+            if (!ServerJson.beginObject(in))
+                return null;
+
+            ASiCContainerType container = null;
+            SignatureLevel level = null;
+            String containerXmlns = null;
+            String schema = null;
+            String transformation = null;
+            SignaturePackaging packaging = null;
+            DigestAlgorithm digestAlgorithm = null;
+            Boolean en319132 = null;
+            LocalCanonicalizationMethod infoCanonicalization = null;
+            LocalCanonicalizationMethod propertiesCanonicalization = null;
+            LocalCanonicalizationMethod keyInfoCanonicalization = null;
+            String identifier = null;
+            boolean checkPDFACompliance = false;
+            VisualizationWidthEnum visualizationWidth = null;
+            boolean autoLoadEform = false;
+            boolean embedUsedSchemas = false;
+            String schemaIdentifier = null;
+            String transformationIdentifier = null;
+            String transformationLanguage = null;
+            TransformationOutputMimeType transformationMediaDestinationTypeDescription = null;
+            String transformationTargetEnvironment = null;
+            String fsFormId = null;
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "container" -> container = ServerJson.CONTAINER_TYPE.read(in);
+                    case "level" -> level = ServerJson.SIGNATURE_LEVEL.read(in);
+                    case "containerXmlns" -> containerXmlns = ServerJson.readString(in);
+                    case "schema" -> schema = ServerJson.readString(in);
+                    case "transformation" -> transformation = ServerJson.readString(in);
+                    case "packaging" -> packaging = ServerJson.PACKAGING.read(in);
+                    case "digestAlgorithm" -> digestAlgorithm = ServerJson.DIGEST_ALGORITHM.read(in);
+                    case "en319132" -> en319132 = ServerJson.readBoolean(in);
+                    case "infoCanonicalization" -> infoCanonicalization = CANONICALIZATION.read(in);
+                    case "propertiesCanonicalization" -> propertiesCanonicalization = CANONICALIZATION.read(in);
+                    case "keyInfoCanonicalization" -> keyInfoCanonicalization = CANONICALIZATION.read(in);
+                    case "identifier" -> identifier = ServerJson.readString(in);
+                    case "checkPDFACompliance" -> checkPDFACompliance = ServerJson.readPrimitiveBoolean(in, checkPDFACompliance);
+                    case "visualizationWidth" -> visualizationWidth = VISUALIZATION_WIDTH.read(in);
+                    case "autoLoadEform" -> autoLoadEform = ServerJson.readPrimitiveBoolean(in, autoLoadEform);
+                    case "embedUsedSchemas" -> embedUsedSchemas = ServerJson.readPrimitiveBoolean(in, embedUsedSchemas);
+                    case "schemaIdentifier" -> schemaIdentifier = ServerJson.readString(in);
+                    case "transformationIdentifier" -> transformationIdentifier = ServerJson.readString(in);
+                    case "transformationLanguage" -> transformationLanguage = ServerJson.readString(in);
+                    case "transformationMediaDestinationTypeDescription" -> transformationMediaDestinationTypeDescription = OUTPUT_MIME_TYPE.read(in);
+                    case "transformationTargetEnvironment" -> transformationTargetEnvironment = ServerJson.readString(in);
+                    case "fsFormId" -> fsFormId = ServerJson.readString(in);
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+
+            return new ServerSigningParameters(level, container, null, containerXmlns, packaging, digestAlgorithm,
+                    en319132, infoCanonicalization, propertiesCanonicalization, keyInfoCanonicalization, schema,
+                    transformation, identifier, checkPDFACompliance, visualizationWidth, autoLoadEform,
+                    embedUsedSchemas, schemaIdentifier, transformationIdentifier, transformationLanguage,
+                    transformationMediaDestinationTypeDescription, transformationTargetEnvironment, fsFormId);
+        }
+    }
 }
@@ -0,0 +1,124 @@
+package digital.slovensko.autogram.server.dto;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import digital.slovensko.autogram.core.SigningParameters;
+import digital.slovensko.autogram.server.errors.MalformedBodyException;
+import digital.slovensko.autogram.server.errors.RequestValidationException;
+import digital.slovensko.autogram.util.SpillableDocument;
+import eu.europa.esig.dss.enumerations.MimeType;
+import eu.europa.esig.dss.model.DSSDocument;
+import eu.europa.esig.dss.spi.x509.tsp.TSPSource;
+
+/**
+ * Documents signed together with one signature in an ASiC-E container. Content of every document is base64-encoded,
+ * its MIME type is derived from the filename.
+ */
+public class SignBundleRequestBody {
+    private final List<Document> documents;
+    private final ServerSigningParameters parameters;
+
+    public SignBundleRequestBody(List<Document> documents, ServerSigningParameters parameters) {
+        this.documents = documents;
+        this.parameters = parameters;
+    }
+
+    public void validate() throws RequestValidationException {
+        if (documents == null || documents.isEmpty())
+            throw new RequestValidationException("Documents are required", "");
+
+        for (var document : documents) {
+            if (document == null || document.getContent() == null)
+                throw new RequestValidationException("Documents.Content is required", "");
+
+            if (document.getFilename() == null || document.getFilename().isEmpty())
+                throw new RequestValidationException("Documents.Filename is required",
+                        "Filename is used to name the document inside ASiC container");
+        }
+
+        if (parameters == null)
+            throw new RequestValidationException("Parameters are required", "");
+    }
+
+    public List<DSSDocument> getDocuments() throws MalformedBodyException, IOException {
+        var decoded = new ArrayList<DSSDocument>(documents.size());
+        for (var document : documents) {
+            try {
+                decoded.add(SpillableDocument.decodeBase64(document.getContent(), document.getFilename(),
+                        MimeType.fromFileName(document.getFilename())));
+            } catch (IllegalArgumentException e) {
+                throw new MalformedBodyException("Base64 decoding failed", "Invalid content of " + document.getFilename());
+            }
+        }
+
+        return decoded;
+    }
+
+    public SigningParameters getParameters(TSPSource tspSource) throws RequestValidationException {
+        return parameters.getBundleSigningParameters(tspSource);
+    }
+
+    static final class JsonAdapter extends TypeAdapter<SignBundleRequestBody> {
+        static final JsonAdapter INSTANCE = new JsonAdapter();
+
+        @Override
+        public void write(JsonWriter out, SignBundleRequestBody value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+                return;
+            }
+
+            out.beginObject();
+            if (value.documents != null) {
+                out.name("documents").beginArray();
+                for (var document : value.documents)
+                    Document.JsonAdapter.INSTANCE.write(out, document);
+                out.endArray();
+            }
+            out.name("parameters");
+            ServerSigningParameters.JsonAdapter.INSTANCE.write(out, value.parameters);
+            out.endObject();
+        }
+
+        @Override
+        public SignBundleRequestBody read(JsonReader in) throws IOException {
+            if (!ServerJson.beginObject(in))
+                return null;
+
+            List<Document> documents = null;
+            ServerSigningParameters parameters = null;
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "documents" -> documents = readDocuments(in);
+                    case "parameters" -> parameters = ServerSigningParameters.JsonAdapter.INSTANCE.read(in);
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+
+            return new SignBundleRequestBody(documents, parameters);
+        }
+
+        private static List<Document> readDocuments(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+
+            var documents = new ArrayList<Document>();
+            in.beginArray();
+            while (in.hasNext())
+                documents.add(Document.JsonAdapter.INSTANCE.read(in));
+            in.endArray();
+
+            return documents;
+        }
+    }
+}
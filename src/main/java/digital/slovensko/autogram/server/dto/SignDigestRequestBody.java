@@ -0,0 +1,123 @@
+package digital.slovensko.autogram.server.dto;
+
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import digital.slovensko.autogram.core.SigningParameters;
+import digital.slovensko.autogram.server.errors.MalformedBodyException;
+import digital.slovensko.autogram.server.errors.RequestValidationException;
+import eu.europa.esig.dss.enumerations.DigestAlgorithm;
+import eu.europa.esig.dss.model.DigestDocument;
+
+import static digital.slovensko.autogram.core.AutogramMimeType.fromMimeTypeString;
+
+/**
+ * Document known only by its base64-encoded digest, name and MIME type, the content stays with the client.
+ */
+public class SignDigestRequestBody {
+    private final String filename;
+    private final String digest;
+    private final String mimeType;
+    private final ServerSigningParameters parameters;
+
+    public SignDigestRequestBody(String filename, String digest, String mimeType, ServerSigningParameters parameters) {
+        this.filename = filename;
+        this.digest = digest;
+        this.mimeType = mimeType;
+        this.parameters = parameters;
+    }
+
+    public void validate() throws RequestValidationException {
+        if (digest == null || digest.isEmpty())
+            throw new RequestValidationException("Digest is required", "");
+
+        if (filename == null || filename.isEmpty())
+            throw new RequestValidationException("Filename is required", "Filename is referenced from the signature");
+
+        if (parameters == null)
+            throw new RequestValidationException("Parameters are required", "");
+    }
+
+    public SigningParameters getParameters() throws RequestValidationException {
+        return parameters.getDetachedSigningParameters();
+    }
+
+    /**
+     * @param digestAlgorithm algorithm the digest was computed with, see {@link SigningParameters#getDigestAlgorithm()}
+     */
+    public DigestDocument getDocument(DigestAlgorithm digestAlgorithm) throws MalformedBodyException {
+        byte[] decoded;
+        try {
+            decoded = Base64.getDecoder().decode(digest);
+        } catch (IllegalArgumentException e) {
+            throw new MalformedBodyException("Base64 decoding failed", "Invalid digest");
+        }
+
+        if (decoded.length != getDigestLength(digestAlgorithm))
+            throw new MalformedBodyException("Invalid digest length",
+                    "Digest is not a " + digestAlgorithm.getName() + " digest, set Parameters.DigestAlgorithm");
+
+        var document = new DigestDocument(digestAlgorithm, digest, filename);
+        if (mimeType != null)
+            document.setMimeType(fromMimeTypeString(mimeType.split(";")[0]));
+
+        return document;
+    }
+
+    private static int getDigestLength(DigestAlgorithm digestAlgorithm) {
+        try {
+            return MessageDigest.getInstance(digestAlgorithm.getJavaName()).getDigestLength();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalArgumentException("Unsupported digest algorithm " + digestAlgorithm.getName(), e);
+        }
+    }
+
+    static final class JsonAdapter extends TypeAdapter<SignDigestRequestBody> {
+        static final JsonAdapter INSTANCE = new JsonAdapter();
+
+        @Override
+        public void write(JsonWriter out, SignDigestRequestBody value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+                return;
+            }
+
+            out.beginObject();
+            out.name("filename").value(value.filename);
+            out.name("digest").value(value.digest);
+            out.name("mimeType").value(value.mimeType);
+            out.name("parameters");
+            ServerSigningParameters.JsonAdapter.INSTANCE.write(out, value.parameters);
+            out.endObject();
+        }
+
+        @Override
+        public SignDigestRequestBody read(JsonReader in) throws IOException {
+            if (!ServerJson.beginObject(in))
+                return null;
+
+            String filename = null;
+            String digest = null;
+            String mimeType = null;
+            ServerSigningParameters parameters = null;
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "filename" -> filename = ServerJson.readString(in);
+                    case "digest" -> digest = ServerJson.readString(in);
+                    case "mimeType" -> mimeType = ServerJson.readString(in);
+                    case "parameters" -> parameters = ServerSigningParameters.JsonAdapter.INSTANCE.read(in);
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+
+            return new SignDigestRequestBody(filename, digest, mimeType, parameters);
+        }
+    }
+}
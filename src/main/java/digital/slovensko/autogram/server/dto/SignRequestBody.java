@@ -1,23 +1,37 @@
 package digital.slovensko.autogram.server.dto;
 
-import java.util.Base64;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
 
 import digital.slovensko.autogram.core.errors.TransformationParsingErrorException;
 
 import digital.slovensko.autogram.core.SigningParameters;
 import digital.slovensko.autogram.server.errors.MalformedBodyException;
 import digital.slovensko.autogram.server.errors.RequestValidationException;
+import digital.slovensko.autogram.util.SpillableDocument;
+import digital.slovensko.autogram.util.Timing;
 import eu.europa.esig.dss.enumerations.MimeType;
-import eu.europa.esig.dss.model.InMemoryDocument;
 import eu.europa.esig.dss.spi.x509.tsp.TSPSource;
 
 import static digital.slovensko.autogram.core.AutogramMimeType.*;
 
 public class SignRequestBody {
+    private static final int DIGEST_BUFFER_SIZE = 64 * 1024;
+
     private final Document document;
     private ServerSigningParameters parameters;
     private final String payloadMimeType;
     private final String batchId;
+    private transient SpillableDocument content;
 
     public SignRequestBody(Document document, ServerSigningParameters parameters, String payloadMimeType) {
         this(document, parameters, payloadMimeType, null);
@@ -31,6 +45,17 @@ public class SignRequestBody {
         this.batchId = batchId;
     }
 
+    /**
+     * Request body for documents sent as raw binary, content is never decoded.
+     */
+    public static SignRequestBody fromRawDocument(SpillableDocument content, String filename,
+            ServerSigningParameters parameters, String payloadMimeType, String batchId) {
+        var body = new SignRequestBody(new Document(filename, null), parameters, payloadMimeType, batchId);
+        body.content = content;
+
+        return body;
+    }
+
     public void validateDocument() throws RequestValidationException, MalformedBodyException {
         if (payloadMimeType == null)
             throw new RequestValidationException("PayloadMimeType is required", "");
@@ -38,7 +63,7 @@ public class SignRequestBody {
         if (document == null)
             throw new RequestValidationException("Document is required", "");
 
-        if (document.getContent() == null)
+        if (document.getContent() == null && content == null)
             throw new RequestValidationException("Document.Content is required", "");
 
 //      TODO: resolve values at class instantiation
@@ -52,11 +77,20 @@ public class SignRequestBody {
         parameters.resolveSigningLevel(getDocument());
     }
 
-    public InMemoryDocument getDocument() {
-        var content = decodeDocumentContent(document.getContent(), isBase64());
-        var filename = document.getFilename();
+    /**
+     * Document content is decoded only once per request, every returned document
+     * shares the decoded content, so metadata changes on one of them do not leak to the others.
+     * Large content is spilled to a temporary file released with the signing job, see {@link SpillableDocument}.
+     */
+    public SpillableDocument getDocument() {
+        return getContent().copy(document.getFilename(), getMimetype());
+    }
+
+    private SpillableDocument getContent() throws MalformedBodyException {
+        if (content == null)
+            content = decodeDocumentContent(document.getContent(), isBase64());
 
-        return new InMemoryDocument(content, filename, getMimetype());
+        return content;
     }
 
     public void validateSigningParameters() throws RequestValidationException, MalformedBodyException,
@@ -64,17 +98,46 @@ public class SignRequestBody {
         if (parameters == null)
             throw new RequestValidationException("Parameters are required", "");
 
-        parameters.validate(getDocument().getMimeType());
+        parameters.validate(getMimetype());
     }
 
     public SigningParameters getParameters(TSPSource tspSource, boolean plainXmlEnabled) {
-        return parameters.getSigningParameters(isBase64(), getDocument(), tspSource, plainXmlEnabled);
+        return getParameters(tspSource, plainXmlEnabled, Timing.NONE);
+    }
+
+    public SigningParameters getParameters(TSPSource tspSource, boolean plainXmlEnabled, Timing timing) {
+        return parameters.getSigningParameters(isBase64(), getDocument(), tspSource, plainXmlEnabled, timing);
     }
 
     public String getBatchId() {
         return batchId;
     }
 
+    /**
+     * SHA-256 over decoded document content, parameters, payload MIME type and batch, identical requests have
+     * the same digest.
+     */
+    public String computeDigest() throws MalformedBodyException {
+        try {
+            var digest = MessageDigest.getInstance("SHA-256");
+            try (var in = getContent().openStream()) {
+                var buffer = new byte[DIGEST_BUFFER_SIZE];
+                for (int read; (read = in.read(buffer)) != -1; )
+                    digest.update(buffer, 0, read);
+            }
+            for (var part : new String[]{ServerSigningParameters.JsonAdapter.INSTANCE.toJson(parameters), payloadMimeType, batchId}) {
+                digest.update((byte) 0);
+                digest.update(String.valueOf(part).getBytes(StandardCharsets.UTF_8));
+            }
+
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new AssertionError("SHA-256 is always available", e);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
     private MimeType getMimetype() {
         return fromMimeTypeString(payloadMimeType.split(";")[0]);
     }
@@ -83,14 +146,66 @@ public class SignRequestBody {
         return payloadMimeType.contains("base64");
     }
 
-    private static byte[] decodeDocumentContent(String content, boolean isBase64) throws MalformedBodyException {
-        if (isBase64)
-            try {
-                return Base64.getDecoder().decode(content);
-            } catch (IllegalArgumentException e) {
-                throw new MalformedBodyException("Base64 decoding failed", "Invalid document content");
+    private static SpillableDocument decodeDocumentContent(String content, boolean isBase64)
+            throws MalformedBodyException {
+        try {
+            if (isBase64)
+                return SpillableDocument.decodeBase64(content, null, null);
+
+            var sink = SpillableDocument.sink();
+            try (var writer = new OutputStreamWriter(sink, StandardCharsets.UTF_8)) {
+                writer.write(content);
+            }
+
+            return sink.toDocument(null, null);
+        } catch (IllegalArgumentException e) {
+            throw new MalformedBodyException("Base64 decoding failed", "Invalid document content");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static final class JsonAdapter extends TypeAdapter<SignRequestBody> {
+        static final JsonAdapter INSTANCE = new JsonAdapter();
+
+        @Override
+        public void write(JsonWriter out, SignRequestBody value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+                return;
+            }
+
+            out.beginObject();
+            out.name("document");
+            Document.JsonAdapter.INSTANCE.write(out, value.document);
+            out.name("parameters");
+            ServerSigningParameters.JsonAdapter.INSTANCE.write(out, value.parameters);
+            out.name("payloadMimeType").value(value.payloadMimeType);
+            out.name("batchId").value(value.batchId);
+            out.endObject();
+        }
+
+        @Override
+        public SignRequestBody read(JsonReader in) throws IOException {
+            if (!ServerJson.beginObject(in))
+                return null;
+
+            Document document = null;
+            ServerSigningParameters parameters = null;
+            String payloadMimeType = null;
+            String batchId = null;
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "document" -> document = Document.JsonAdapter.INSTANCE.read(in);
+                    case "parameters" -> parameters = ServerSigningParameters.JsonAdapter.INSTANCE.read(in);
+                    case "payloadMimeType" -> payloadMimeType = ServerJson.readString(in);
+                    case "batchId" -> batchId = ServerJson.readString(in);
+                    default -> in.skipValue();
+                }
             }
+            in.endObject();
 
-        return content.getBytes();
+            return new SignRequestBody(document, parameters, payloadMimeType, batchId);
+        }
     }
 }
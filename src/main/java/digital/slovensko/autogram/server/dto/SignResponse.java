@@ -1,5 +1,11 @@
 package digital.slovensko.autogram.server.dto;
 
+import java.io.IOException;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
 public class SignResponse {
     private String content;
     private String signedBy;
@@ -10,4 +16,43 @@ public class SignResponse {
         this.signedBy = signedBy;
         this.issuedby = issuedby;
     }
+
+    static final class JsonAdapter extends TypeAdapter<SignResponse> {
+        static final JsonAdapter INSTANCE = new JsonAdapter();
+
+        @Override
+        public void write(JsonWriter out, SignResponse value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+                return;
+            }
+
+            out.beginObject();
+            out.name("content").value(value.content);
+            out.name("signedBy").value(value.signedBy);
+            out.name("issuedby").value(value.issuedby);
+            out.endObject();
+        }
+
+        @Override
+        public SignResponse read(JsonReader in) throws IOException {
+            if (!ServerJson.beginObject(in))
+                return null;
+
+            String content = null;
+            String signedBy = null;
+            String issuedby = null;
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "content" -> content = ServerJson.readString(in);
+                    case "signedBy" -> signedBy = ServerJson.readString(in);
+                    case "issuedby" -> issuedby = ServerJson.readString(in);
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+
+            return new SignResponse(content, signedBy, issuedby);
+        }
+    }
 }
@@ -0,0 +1,68 @@
+package digital.slovensko.autogram.server.dto;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import digital.slovensko.autogram.server.errors.MalformedBodyException;
+import digital.slovensko.autogram.server.errors.RequestValidationException;
+import eu.europa.esig.dss.model.DSSDocument;
+import eu.europa.esig.dss.model.InMemoryDocument;
+
+import java.io.IOException;
+import java.util.Base64;
+
+public class ValidateRequestBody {
+    private final Document document;
+
+    public ValidateRequestBody(Document document) {
+        this.document = document;
+    }
+
+    public DSSDocument getDocument() throws RequestValidationException, MalformedBodyException {
+        if (document == null)
+            throw new RequestValidationException("Document is required", "");
+
+        if (document.getContent() == null)
+            throw new RequestValidationException("Document.Content is required", "");
+
+        try {
+            return new InMemoryDocument(Base64.getDecoder().decode(document.getContent()), document.getFilename());
+        } catch (IllegalArgumentException e) {
+            throw new MalformedBodyException("Base64 decoding failed", "Invalid document content");
+        }
+    }
+
+    static final class JsonAdapter extends TypeAdapter<ValidateRequestBody> {
+        static final JsonAdapter INSTANCE = new JsonAdapter();
+
+        @Override
+        public void write(JsonWriter out, ValidateRequestBody value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+                return;
+            }
+
+            out.beginObject();
+            out.name("document");
+            Document.JsonAdapter.INSTANCE.write(out, value.document);
+            out.endObject();
+        }
+
+        @Override
+        public ValidateRequestBody read(JsonReader in) throws IOException {
+            if (!ServerJson.beginObject(in))
+                return null;
+
+            Document document = null;
+            while (in.hasNext()) {
+                if (in.nextName().equals("document"))
+                    document = Document.JsonAdapter.INSTANCE.read(in);
+                else
+                    in.skipValue();
+            }
+            in.endObject();
+
+            return new ValidateRequestBody(document);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package digital.slovensko.autogram.server.dto;
+
+import java.io.IOException;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+public record ValidationResponseBody(JsonElement simpleReport, JsonElement detailedReport) {
+    static final class JsonAdapter extends TypeAdapter<ValidationResponseBody> {
+        static final JsonAdapter INSTANCE = new JsonAdapter();
+
+        @Override
+        public void write(JsonWriter out, ValidationResponseBody value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+                return;
+            }
+
+            out.beginObject();
+            writeElement(out.name("simpleReport"), value.simpleReport);
+            writeElement(out.name("detailedReport"), value.detailedReport);
+            out.endObject();
+        }
+
+        private static void writeElement(JsonWriter out, JsonElement element) throws IOException {
+            if (element == null)
+                out.nullValue();
+            else
+                ServerJson.gson().toJson(element, out);
+        }
+
+        @Override
+        public ValidationResponseBody read(JsonReader in) throws IOException {
+            if (!ServerJson.beginObject(in))
+                return null;
+
+            JsonElement simpleReport = null;
+            JsonElement detailedReport = null;
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "simpleReport" -> simpleReport = JsonParser.parseReader(in);
+                    case "detailedReport" -> detailedReport = JsonParser.parseReader(in);
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+
+            return new ValidationResponseBody(simpleReport, detailedReport);
+        }
+    }
+}
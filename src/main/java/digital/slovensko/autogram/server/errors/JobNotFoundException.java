@@ -0,0 +1,9 @@
+package digital.slovensko.autogram.server.errors;
+
+import digital.slovensko.autogram.core.errors.AutogramException;
+
+public class JobNotFoundException extends AutogramException {
+    public JobNotFoundException(String jobId) {
+        super("Job not found", "Unknown job", "Job " + jobId + " does not exist or its result has already expired.");
+    }
+}
@@ -0,0 +1,10 @@
+package digital.slovensko.autogram.server.errors;
+
+import digital.slovensko.autogram.core.errors.AutogramException;
+
+public class RequestTooLargeException extends AutogramException {
+    public RequestTooLargeException(long maxBytes) {
+        super("Request is too large", "Request body is too large",
+                "Request body exceeds the limit of " + maxBytes + " bytes.");
+    }
+}
@@ -0,0 +1,10 @@
+package digital.slovensko.autogram.server.errors;
+
+import digital.slovensko.autogram.core.errors.AutogramException;
+
+public class ResultTooLargeException extends AutogramException {
+    public ResultTooLargeException(long maxBytes) {
+        super("Result is too large", "Signed document is too large to be kept",
+                "Signed document exceeds the limit of " + maxBytes + " bytes kept for jobs, sign it with POST /sign.");
+    }
+}
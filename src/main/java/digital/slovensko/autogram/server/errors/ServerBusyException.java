@@ -0,0 +1,14 @@
+package digital.slovensko.autogram.server.errors;
+
+import digital.slovensko.autogram.core.errors.AutogramException;
+
+public class ServerBusyException extends AutogramException {
+    public ServerBusyException(int maxConcurrentRequests) {
+        super("Server is busy", "Too many concurrent requests",
+                "Server is already processing " + maxConcurrentRequests + " requests, retry later.");
+    }
+
+    public ServerBusyException(String subheading, String description) {
+        super("Server is busy", subheading, description);
+    }
+}
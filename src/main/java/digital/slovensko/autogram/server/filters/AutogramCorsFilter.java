@@ -37,7 +37,11 @@ public class AutogramCorsFilter extends Filter {
         exchange.getResponseHeaders().add("Access-Control-Allow-Methods",
                 String.join(",", methods));
         exchange.getResponseHeaders().add("Access-Control-Allow-Headers",
-                "Content-Type, Authorization");
+                "Content-Type, Authorization, X-Autogram-Filename, "
+                        + "Idempotency-Key");
+        exchange.getResponseHeaders().add("Access-Control-Expose-Headers",
+                "X-Autogram-Signed-By, X-Autogram-Issued-By, Content-Disposition, Location, X-Autogram-Page-Count, "
+                        + "X-Autogram-Visualization-Width, Idempotent-Replayed, Server-Timing");
 
         // Allow preflight requests
         if (exchange.getRequestMethod().equalsIgnoreCase("OPTIONS")) {
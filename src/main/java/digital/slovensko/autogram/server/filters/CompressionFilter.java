@@ -0,0 +1,203 @@
+package digital.slovensko.autogram.server.filters;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Locale;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import com.sun.net.httpserver.Filter;
+import com.sun.net.httpserver.HttpExchange;
+
+/**
+ * Transparent gzip/deflate for request and response bodies.
+ *
+ * Request bodies are decoded according to {@code Content-Encoding}. Responses are encoded according to
+ * {@code Accept-Encoding} when their length is unknown (streamed) or at least {@code minCompressedLength} bytes,
+ * so tiny responses go out as they are.
+ */
+public class CompressionFilter extends Filter {
+    private static final int DEFAULT_MIN_COMPRESSED_LENGTH = 1024;
+    private static final int BUFFER_SIZE = 8 * 1024;
+
+    private final int minCompressedLength;
+
+    public CompressionFilter() {
+        this(DEFAULT_MIN_COMPRESSED_LENGTH);
+    }
+
+    public CompressionFilter(int minCompressedLength) {
+        this.minCompressedLength = minCompressedLength;
+    }
+
+    @Override
+    public String description() {
+        return "Decode compressed request bodies and compress response bodies";
+    }
+
+    @Override
+    public void doFilter(HttpExchange exchange, Chain chain) throws IOException {
+        var requestEncoding = exchange.getRequestHeaders().getFirst("Content-Encoding");
+        if (requestEncoding != null && !isSupported(requestEncoding.strip().toLowerCase(Locale.ROOT))) {
+            exchange.sendResponseHeaders(415, -1);
+            exchange.close();
+            return;
+        }
+
+        var responseEncoding = pickEncoding(exchange.getRequestHeaders().getFirst("Accept-Encoding"));
+        chain.doFilter(new CompressingExchange(exchange, requestEncoding, responseEncoding, minCompressedLength));
+    }
+
+    private static boolean isSupported(String encoding) {
+        return encoding.equals("gzip") || encoding.equals("deflate") || encoding.equals("identity");
+    }
+
+    /**
+     * @return gzip, deflate or null if the client does not accept either of them
+     */
+    static String pickEncoding(String acceptEncoding) {
+        if (acceptEncoding == null)
+            return null;
+
+        String picked = null;
+        for (var part : acceptEncoding.split(",")) {
+            var params = part.split(";");
+            var coding = params[0].strip().toLowerCase(Locale.ROOT);
+            if (isRejected(params))
+                continue;
+
+            if (coding.equals("gzip") || coding.equals("*"))
+                return "gzip";
+
+            if (coding.equals("deflate"))
+                picked = "deflate";
+        }
+
+        return picked;
+    }
+
+    private static boolean isRejected(String[] params) {
+        for (int i = 1; i < params.length; i++) {
+            var param = params[i].strip().toLowerCase(Locale.ROOT);
+            if (param.startsWith("q=")) {
+                try {
+                    return Double.parseDouble(param.substring(2)) <= 0;
+                } catch (NumberFormatException e) {
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Decides about compression when the response headers are sent, the body stream may be obtained before that.
+     */
+    private static class CompressingExchange extends ForwardingHttpExchange {
+        private final String requestEncoding;
+        private final String responseEncoding;
+        private final int minCompressedLength;
+        private final ResponseStream responseStream = new ResponseStream();
+        private InputStream requestStream;
+
+        CompressingExchange(HttpExchange exchange, String requestEncoding, String responseEncoding, int minCompressedLength) {
+            super(exchange);
+            this.requestEncoding = requestEncoding == null ? null : requestEncoding.strip().toLowerCase(Locale.ROOT);
+            this.responseEncoding = responseEncoding;
+            this.minCompressedLength = minCompressedLength;
+        }
+
+        @Override
+        public synchronized InputStream getRequestBody() {
+            if (requestStream != null)
+                return requestStream;
+
+            try {
+                requestStream = switch (requestEncoding == null ? "identity" : requestEncoding) {
+                    case "gzip" -> new GZIPInputStream(exchange.getRequestBody(), BUFFER_SIZE);
+                    case "deflate" -> new InflaterInputStream(exchange.getRequestBody());
+                    default -> exchange.getRequestBody();
+                };
+            } catch (IOException e) {
+                // not a gzip stream, let the parser fail on it
+                requestStream = InputStream.nullInputStream();
+            }
+
+            return requestStream;
+        }
+
+        @Override
+        public OutputStream getResponseBody() {
+            return responseStream;
+        }
+
+        @Override
+        public void sendResponseHeaders(int rCode, long responseLength) throws IOException {
+            var shouldCompress = responseEncoding != null && responseLength >= 0
+                    && (responseLength == 0 || responseLength >= minCompressedLength)
+                    && !exchange.getResponseHeaders().containsKey("Content-Encoding");
+
+            if (!shouldCompress) {
+                exchange.sendResponseHeaders(rCode, responseLength);
+                responseStream.target = exchange.getResponseBody();
+                return;
+            }
+
+            exchange.getResponseHeaders().set("Content-Encoding", responseEncoding);
+            exchange.getResponseHeaders().add("Vary", "Accept-Encoding");
+            exchange.sendResponseHeaders(rCode, 0);
+            responseStream.target = responseEncoding.equals("gzip")
+                    ? new GZIPOutputStream(exchange.getResponseBody(), BUFFER_SIZE, true)
+                    : new DeflaterOutputStream(exchange.getResponseBody(), new Deflater(), BUFFER_SIZE, true);
+        }
+
+        @Override
+        public void close() {
+            try {
+                responseStream.close();
+            } catch (IOException e) {
+                // client has gone away, nothing to do
+            }
+            exchange.close();
+        }
+
+        private class ResponseStream extends OutputStream {
+            private OutputStream target;
+            private boolean closed = false;
+
+            private OutputStream target() {
+                // writing before sending headers is an error of the handler, let the server report it
+                return target != null ? target : exchange.getResponseBody();
+            }
+
+            @Override
+            public void write(int b) throws IOException {
+                target().write(b);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                target().write(b, off, len);
+            }
+
+            @Override
+            public void flush() throws IOException {
+                target().flush();
+            }
+
+            @Override
+            public synchronized void close() throws IOException {
+                if (closed)
+                    return;
+
+                closed = true;
+                target().close();
+            }
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package digital.slovensko.autogram.server.filters;
+
+import java.io.IOException;
+
+import com.sun.net.httpserver.Filter;
+import com.sun.net.httpserver.HttpExchange;
+
+import digital.slovensko.autogram.server.EndpointUtils;
+import digital.slovensko.autogram.server.ServerExecutor;
+import digital.slovensko.autogram.server.dto.ErrorResponse;
+import digital.slovensko.autogram.server.errors.ServerBusyException;
+
+/**
+ * Limit number of concurrently handled requests.
+ *
+ * Requests over the limit are not admitted by {@link ServerExecutor} and are rejected here right away with 503 and
+ * Retry-After, instead of waiting for a free thread.
+ */
+public class ConcurrencyLimitFilter extends Filter {
+    private static final String RETRY_AFTER_SECONDS = "1";
+
+    private final int maxConcurrentRequests;
+
+    public ConcurrencyLimitFilter(int maxConcurrentRequests) {
+        this.maxConcurrentRequests = maxConcurrentRequests;
+    }
+
+    @Override
+    public String description() {
+        return "Reject requests over the concurrency limit";
+    }
+
+    @Override
+    public void doFilter(HttpExchange exchange, Chain chain) throws IOException {
+        if (ServerExecutor.isRejecting()) {
+            exchange.getResponseHeaders().add("Retry-After", RETRY_AFTER_SECONDS);
+            EndpointUtils.respondWithError(ErrorResponse.buildFromException(new ServerBusyException(maxConcurrentRequests)), exchange);
+            return;
+        }
+
+        chain.doFilter(exchange);
+    }
+}
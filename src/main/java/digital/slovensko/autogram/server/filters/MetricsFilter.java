@@ -0,0 +1,38 @@
+package digital.slovensko.autogram.server.filters;
+
+import java.io.IOException;
+
+import com.sun.net.httpserver.Filter;
+import com.sun.net.httpserver.HttpExchange;
+
+import digital.slovensko.autogram.util.Metrics;
+
+/**
+ * Count requests and measure how long their handlers take, per context path.
+ *
+ * Responses written later by another thread (long-polling, streams) are counted with status {@code async}
+ * and the time until the handler returned.
+ */
+public class MetricsFilter extends Filter {
+    @Override
+    public String description() {
+        return "Record request count and latency";
+    }
+
+    @Override
+    public void doFilter(HttpExchange exchange, Chain chain) throws IOException {
+        var start = System.nanoTime();
+        try {
+            chain.doFilter(exchange);
+        } finally {
+            var endpoint = exchange.getHttpContext().getPath();
+            var method = exchange.getRequestMethod();
+            var status = exchange.getResponseCode() == -1 ? "async" : String.valueOf(exchange.getResponseCode());
+
+            Metrics.counter("autogram_http_requests_total", "HTTP requests handled by the server",
+                    "endpoint", endpoint, "method", method, "status", status).increment();
+            Metrics.latency("autogram_http_request_duration_seconds", "Time spent handling HTTP requests",
+                    "endpoint", endpoint, "method", method).observeSince(start);
+        }
+    }
+}
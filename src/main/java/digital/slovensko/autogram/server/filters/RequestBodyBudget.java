@@ -0,0 +1,33 @@
+package digital.slovensko.autogram.server.filters;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Number of request body bytes all requests together may hold at once.
+ */
+public class RequestBodyBudget {
+    private final AtomicLong available;
+
+    public RequestBodyBudget(long bytes) {
+        this.available = new AtomicLong(bytes);
+    }
+
+    public boolean tryReserve(long bytes) {
+        while (true) {
+            var current = available.get();
+            if (current < bytes)
+                return false;
+
+            if (available.compareAndSet(current, current - bytes))
+                return true;
+        }
+    }
+
+    public void release(long bytes) {
+        available.addAndGet(bytes);
+    }
+
+    public long getAvailable() {
+        return available.get();
+    }
+}
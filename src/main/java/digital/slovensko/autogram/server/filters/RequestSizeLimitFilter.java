@@ -0,0 +1,167 @@
+package digital.slovensko.autogram.server.filters;
+
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import com.sun.net.httpserver.Filter;
+import com.sun.net.httpserver.HttpExchange;
+
+import digital.slovensko.autogram.core.errors.AutogramException;
+import digital.slovensko.autogram.server.EndpointUtils;
+import digital.slovensko.autogram.server.dto.ErrorResponse;
+import digital.slovensko.autogram.server.errors.RequestTooLargeException;
+import digital.slovensko.autogram.server.errors.ServerBusyException;
+
+/**
+ * Limit size of request bodies and how much of them all requests together may hold.
+ *
+ * Requests are rejected with 413 by {@code Content-Length} before anything is read, chunked bodies are counted
+ * while they are read. Bytes are taken from the shared {@link RequestBodyBudget} as they arrive (or up front when
+ * the length is known) and returned when the response is complete. Requests over the budget get 503.
+ *
+ * Should be the last filter, so that decompressed bytes are counted.
+ */
+public class RequestSizeLimitFilter extends Filter {
+    private static final String RETRY_AFTER_SECONDS = "1";
+
+    private final long maxBytes;
+    private final RequestBodyBudget budget;
+
+    public RequestSizeLimitFilter(long maxBytes, RequestBodyBudget budget) {
+        this.maxBytes = maxBytes;
+        this.budget = budget;
+    }
+
+    @Override
+    public String description() {
+        return "Limit size of request bodies";
+    }
+
+    @Override
+    public void doFilter(HttpExchange exchange, Chain chain) throws IOException {
+        var contentLength = getContentLength(exchange);
+        if (contentLength > maxBytes) {
+            EndpointUtils.respondWithError(ErrorResponse.buildFromException(new RequestTooLargeException(maxBytes)), exchange);
+            return;
+        }
+
+        var limitedExchange = new LimitedExchange(exchange);
+        if (contentLength > 0 && !limitedExchange.reserve(contentLength)) {
+            exchange.getResponseHeaders().add("Retry-After", RETRY_AFTER_SECONDS);
+            EndpointUtils.respondWithError(ErrorResponse.buildFromException(budgetExceeded()), exchange);
+            return;
+        }
+
+        try {
+            chain.doFilter(limitedExchange);
+        } catch (IOException | RuntimeException e) {
+            limitedExchange.release();
+            throw e;
+        }
+    }
+
+    private static long getContentLength(HttpExchange exchange) {
+        var header = exchange.getRequestHeaders().getFirst("Content-Length");
+        if (header == null)
+            return -1;
+
+        try {
+            return Long.parseLong(header.strip());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static AutogramException budgetExceeded() {
+        return new ServerBusyException("Too much data in flight",
+                "Server is already processing too much data from other requests, retry later.");
+    }
+
+    private class LimitedExchange extends ForwardingHttpExchange {
+        private long reserved = 0;
+        private long read = 0;
+        private InputStream requestStream;
+        private OutputStream responseStream;
+
+        LimitedExchange(HttpExchange exchange) {
+            super(exchange);
+        }
+
+        synchronized boolean reserve(long bytes) {
+            if (!budget.tryReserve(bytes))
+                return false;
+
+            reserved += bytes;
+            return true;
+        }
+
+        synchronized void release() {
+            budget.release(reserved);
+            reserved = 0;
+        }
+
+        private synchronized void onRead(long bytes) {
+            read += bytes;
+            if (read > maxBytes)
+                throw new RequestTooLargeException(maxBytes);
+
+            if (read > reserved && !reserve(read - reserved))
+                throw budgetExceeded();
+        }
+
+        @Override
+        public synchronized InputStream getRequestBody() {
+            if (requestStream == null) {
+                requestStream = new FilterInputStream(exchange.getRequestBody()) {
+                    @Override
+                    public int read() throws IOException {
+                        var b = super.read();
+                        if (b != -1)
+                            onRead(1);
+                        return b;
+                    }
+
+                    @Override
+                    public int read(byte[] b, int off, int len) throws IOException {
+                        var n = super.read(b, off, len);
+                        if (n > 0)
+                            onRead(n);
+                        return n;
+                    }
+                };
+            }
+
+            return requestStream;
+        }
+
+        @Override
+        public synchronized OutputStream getResponseBody() {
+            if (responseStream == null) {
+                responseStream = new FilterOutputStream(exchange.getResponseBody()) {
+                    @Override
+                    public void write(byte[] b, int off, int len) throws IOException {
+                        out.write(b, off, len);
+                    }
+
+                    @Override
+                    public void close() throws IOException {
+                        // request body is not read anymore, release before the client sees the end of the response
+                        release();
+                        super.close();
+                    }
+                };
+            }
+
+            return responseStream;
+        }
+
+        @Override
+        public void close() {
+            release();
+            exchange.close();
+        }
+    }
+}
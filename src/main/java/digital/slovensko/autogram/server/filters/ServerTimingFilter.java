@@ -0,0 +1,60 @@
+package digital.slovensko.autogram.server.filters;
+
+import java.io.IOException;
+
+import com.sun.net.httpserver.Filter;
+import com.sun.net.httpserver.HttpExchange;
+
+import digital.slovensko.autogram.util.Timing;
+
+/**
+ * Starts a {@link Timing} for each request and sends what handlers recorded into it in the {@code Server-Timing}
+ * header of the response.
+ *
+ * Handlers get the timing with {@link #of(HttpExchange)}. The header goes out with the response headers, so phases
+ * after them, e.g. writing a streamed body, are not included.
+ */
+public class ServerTimingFilter extends Filter {
+    private static final String TIMING_ATTRIBUTE = Timing.class.getName();
+
+    @Override
+    public String description() {
+        return "Report request phase durations in Server-Timing header";
+    }
+
+    @Override
+    public void doFilter(HttpExchange exchange, Chain chain) throws IOException {
+        chain.doFilter(new TimedExchange(exchange, new Timing()));
+    }
+
+    /**
+     * @return timing of the request or {@link Timing#NONE} when the context has no {@link ServerTimingFilter}
+     */
+    public static Timing of(HttpExchange exchange) {
+        return exchange.getAttribute(TIMING_ATTRIBUTE) instanceof Timing timing ? timing : Timing.NONE;
+    }
+
+    /**
+     * Timing is kept in the wrapper rather than in exchange attributes, which the JDK server shares by context.
+     */
+    private static class TimedExchange extends ForwardingHttpExchange {
+        private final Timing timing;
+
+        TimedExchange(HttpExchange exchange, Timing timing) {
+            super(exchange);
+            this.timing = timing;
+        }
+
+        @Override
+        public Object getAttribute(String name) {
+            return TIMING_ATTRIBUTE.equals(name) ? timing : super.getAttribute(name);
+        }
+
+        @Override
+        public void sendResponseHeaders(int rCode, long responseLength) throws IOException {
+            getResponseHeaders().set("Server-Timing", timing.toServerTimingHeader());
+            getResponseHeaders().set("Timing-Allow-Origin", "*");
+            super.sendResponseHeaders(rCode, responseLength);
+        }
+    }
+}
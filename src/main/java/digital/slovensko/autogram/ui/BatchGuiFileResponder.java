@@ -5,6 +5,10 @@ import java.nio.file.Path;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import digital.slovensko.autogram.core.Autogram;
 import digital.slovensko.autogram.core.Batch;
@@ -20,9 +24,11 @@ import eu.europa.esig.dss.spi.x509.tsp.TSPSource;
 public class BatchGuiFileResponder extends BatchResponder {
     private final Autogram autogram;
     private final List<File> list;
-    private final Map<File, File> targetFiles = new HashMap<>();
-    private final Map<File, AutogramException> errors = new HashMap<>();
-    private boolean uiNotifiedOnAllFilesSigned = false;
+    // written from signing threads, the values are empty until the file is signed or failed
+    private final Map<File, Optional<File>> targetFiles = new ConcurrentHashMap<>();
+    private final Map<File, Optional<AutogramException>> errors = new ConcurrentHashMap<>();
+    private final Set<File> processedFiles = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean uiNotifiedOnAllFilesSigned = new AtomicBoolean(false);
     private final TargetPath targetPath;
     private final boolean checkPDFACompliance;
     private final SignatureLevel pDFSignatureLevel;
@@ -52,16 +58,16 @@ public class BatchGuiFileResponder extends BatchResponder {
 
         for (File file : list) {
             try {
-                targetFiles.put(file, null);
-                errors.put(file, null);
+                targetFiles.put(file, Optional.empty());
+                errors.put(file, Optional.empty());
                 var responder = new ResponderInBatch(new SaveFileFromBatchResponder(file, targetPath, (File targetFile) -> {
-                    targetFiles.put(file, targetFile);
+                    targetFiles.put(file, Optional.of(targetFile));
                     Logging.log(batch.getProcessedDocumentsCount() + " / " + batch.getTotalNumberOfDocuments() + " signed " + file.toString());
-                    onAllFilesSigned(batch);
+                    onAllFilesSigned(batch, file);
                 }, (AutogramException error) -> {
                     Logging.log("Signing failed " + file.toString() + " all:" + batch.isAllProcessed());
-                    errors.put(file, error);
-                    onAllFilesSigned(batch);
+                    errors.put(file, Optional.of(error));
+                    onAllFilesSigned(batch, file);
                 }), batch);
 
                 var job = SigningJob.buildFromFile(file, responder, checkPDFACompliance, pDFSignatureLevel, isEn319132, tspSource, plainXmlEnabled);
@@ -74,16 +80,31 @@ public class BatchGuiFileResponder extends BatchResponder {
         }
     }
 
-    private void onAllFilesSigned(Batch batch) { // synchronized
-        Logging.log("onAllFilesSigned " + batch.isAllProcessed() + " " + uiNotifiedOnAllFilesSigned);
-        if (batch.isAllProcessed() && !uiNotifiedOnAllFilesSigned) {
-            uiNotifiedOnAllFilesSigned = true;
-            Logging.log(errors.values().stream().map(e -> e == null ? "" : e.toString()).toList());
-            var result = new BatchUiResult(targetPath, targetFiles, errors);
+    /**
+     * Files are counted here after their result was stored, the batch counts them before, so the result would miss
+     * files of other threads that were counted by the batch but not stored yet.
+     */
+    private void onAllFilesSigned(Batch batch, File file) {
+        processedFiles.add(file);
+        var isAllProcessed = processedFiles.size() >= batch.getTotalNumberOfDocuments();
+        Logging.log("onAllFilesSigned " + isAllProcessed + " " + uiNotifiedOnAllFilesSigned.get());
+        if (isAllProcessed && uiNotifiedOnAllFilesSigned.compareAndSet(false, true)) {
+            Logging.log(errors.values().stream().map(e -> e.map(Object::toString).orElse("")).toList());
+            var result = new BatchUiResult(targetPath, unwrap(targetFiles), unwrap(errors));
             autogram.onDocumentBatchSaved(result);
         }
     }
 
+    /**
+     * @return snapshot with null for files that were not signed or did not fail, as expected by {@link BatchUiResult}
+     */
+    private static <V> Map<File, V> unwrap(Map<File, Optional<V>> values) {
+        var result = new HashMap<File, V>();
+        values.forEach((file, value) -> result.put(file, value.orElse(null)));
+
+        return result;
+    }
+
     @Override
     public void onBatchStartFailure(AutogramException error) {
         autogram.onSigningFailed(error);
@@ -7,8 +7,16 @@ import digital.slovensko.autogram.core.errors.SourceDoesNotExistException;
 import digital.slovensko.autogram.ui.SaveFileResponder;
 
 import java.io.File;
+import java.io.IOException;
 import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import eu.europa.esig.dss.enumerations.SignatureForm;
+import eu.europa.esig.dss.enumerations.SignatureLevel;
+import eu.europa.esig.dss.model.DSSDocument;
 import org.apache.commons.cli.CommandLine;
 
 public class CliApp {
@@ -24,6 +32,18 @@ public class CliApp {
             if (!settings.getSource().exists())
                 throw new SourceDoesNotExistException();
 
+            if (settings.isBundle()) {
+                signBundle(settings, ui, autogram);
+                return;
+            }
+
+            if (settings.isExtension()) {
+                if (!extend(settings))
+                    System.exit(1);
+
+                return;
+            }
+
             var targetPathBuilder = TargetPath.fromParams(settings);
             targetPathBuilder.mkdirIfDir();
 
@@ -49,4 +69,90 @@ public class CliApp {
             System.err.println(CliUI.parseError(e));
         }
     }
+
+    /**
+     * Extends signatures of all files of the source in parallel on all cores, no token is used. Timestamp requests
+     * are limited by --tsa-concurrency, a file that fails is reported and the others are still extended.
+     *
+     * @return false if any of the files failed
+     */
+    private static boolean extend(CliSettings settings) {
+        var level = settings.getExtensionLevel();
+        if (level == SignatureExtender.Level.BASELINE_LT && settings.getTspSource() != null) {
+            System.out.println("Loading trusted lists for revocation data");
+            var executor = Executors.newCachedThreadPool();
+            try {
+                SignatureValidator.getInstance().initialize(executor, settings.getTrustedList());
+            } finally {
+                executor.shutdown();
+            }
+        }
+
+        var extender = SignatureExtender.create(level, settings.getTspSource());
+        var targetPathBuilder = TargetPath.forExtension(settings);
+        targetPathBuilder.mkdirIfDir();
+
+        var source = settings.getSource();
+        var sourceList = source.isDirectory() ? source.listFiles() : new File[] { source };
+        var executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        var failed = new AtomicInteger();
+        try {
+            var tasks = Arrays.stream(sourceList).filter(f -> f.isFile())
+                    .map(f -> CompletableFuture.runAsync(() -> {
+                        if (!extendFile(extender, f, targetPathBuilder))
+                            failed.incrementAndGet();
+                    }, executor))
+                    .toArray(CompletableFuture[]::new);
+            CompletableFuture.allOf(tasks).join();
+        } finally {
+            executor.shutdown();
+        }
+
+        if (failed.get() > 0)
+            System.err.println("Extension of %d file(s) failed".formatted(failed.get()));
+
+        return failed.get() == 0;
+    }
+
+    /**
+     * @return false if the file failed, the error is already reported
+     */
+    private static boolean extendFile(SignatureExtender extender, File file, TargetPath targetPathBuilder) {
+        try {
+            var extended = extender.extend(SigningJob.createDSSFileDocumentFromFile(file));
+            var targetFile = targetPathBuilder.getSaveFilePath(file.toPath());
+            extended.save(targetFile.toString());
+            System.out.println("File \"%s\" successfully extended to %s. Extended file saved as \"%s\""
+                    .formatted(file.getName(), extender.getLevel(), targetFile));
+            return true;
+        } catch (AutogramException e) {
+            System.err.println("Extension of \"%s\" failed: %s".formatted(file.getName(), CliUI.parseError(e)));
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Extension of \"%s\" failed: %s".formatted(file.getName(), e));
+        }
+
+        return false;
+    }
+
+    /**
+     * Signs all files of the source with one signature, the token is used once however many files there are.
+     */
+    private static void signBundle(CliSettings settings, CliUI ui, Autogram autogram) {
+        var source = settings.getSource();
+        var targetPathBuilder = TargetPath.forBundle(settings);
+        targetPathBuilder.mkdirIfDir();
+
+        var sourceList = source.isDirectory() ? source.listFiles() : new File[] { source };
+        var documents = Arrays.stream(sourceList).filter(f -> f.isFile())
+                .sorted(Comparator.comparing(File::getName))
+                .<DSSDocument>map(SigningJob::createDSSFileDocumentFromFile)
+                .toList();
+
+        var form = settings.getSignatureLevel() == SignatureLevel.CAdES_BASELINE_B ? SignatureForm.CAdES : SignatureForm.XAdES;
+        var parameters = SigningParameters.buildForBundle(form, settings.isEn319132(), settings.getTspSource());
+        var job = SigningJob.buildBundle(documents, parameters, new SaveFileResponder(source, autogram, targetPathBuilder));
+
+        ui.setJobsCount(1);
+        autogram.sign(job);
+    }
 }
@@ -2,10 +2,14 @@ package digital.slovensko.autogram.ui.cli;
 
 import digital.slovensko.autogram.core.DefaultDriverDetector;
 import digital.slovensko.autogram.core.DriverDetector;
+import digital.slovensko.autogram.core.PooledTSPSource;
+import digital.slovensko.autogram.core.SignatureExtender;
 import digital.slovensko.autogram.core.UserSettings;
+import digital.slovensko.autogram.core.errors.ExtensionLevelIsNotValidException;
 import digital.slovensko.autogram.core.errors.PDFSignatureLevelIsNotValidException;
 import digital.slovensko.autogram.core.errors.SlotIndexIsNotANumberException;
 import digital.slovensko.autogram.core.errors.SourceDoesNotExistException;
+import digital.slovensko.autogram.core.errors.TsaConcurrencyIsNotValidException;
 import eu.europa.esig.dss.enumerations.SignatureLevel;
 import org.apache.commons.cli.CommandLine;
 
@@ -16,6 +20,8 @@ public class CliSettings extends UserSettings {
     private File source;
     private boolean isForce;
     private boolean shouldMakeParentDirectories;
+    private boolean isBundle;
+    private SignatureExtender.Level extensionLevel;
 
     public static CliSettings fromCmd(CommandLine cmd) {
         var settings = new CliSettings();
@@ -30,10 +36,15 @@ public class CliSettings extends UserSettings {
         settings.setMakeParentDirectories(cmd.hasOption("parents"));
         settings.setSignatureLevel(getValidSignatureLevel(cmd.getOptionValue("pdf-level", SignatureLevel.PAdES_BASELINE_B.name())));
         settings.setEn319132(cmd.hasOption("en319132"));
+        settings.setTsaConcurrency(getValidTsaConcurrency(
+                cmd.getOptionValue("tsa-concurrency", String.valueOf(PooledTSPSource.DEFAULT_CONCURRENCY))));
         settings.setTsaServer(cmd.getOptionValue("tsa-server", null));
         settings.setTsaEnabled(settings.getTsaServer() != null);
         settings.setBulkEnabled(true);
         settings.setPlainXmlEnabled(cmd.hasOption("plain-xml"));
+        settings.setBundle(cmd.hasOption("bundle"));
+        settings.setExtensionLevel(getValidExtensionLevel(cmd.getOptionValue("extend")));
+        settings.setTrustedList(DEFAULT_TRUSTED_LIST);
 
         return settings;
     }
@@ -47,6 +58,14 @@ public class CliSettings extends UserSettings {
         shouldMakeParentDirectories = value;
     }
 
+    private void setBundle(boolean value) {
+        isBundle = value;
+    }
+
+    private void setExtensionLevel(SignatureExtender.Level value) {
+        extensionLevel = value;
+    }
+
     private void setForce(boolean value) {
         isForce = value;
     }
@@ -71,6 +90,21 @@ public class CliSettings extends UserSettings {
         return isForce;
     }
 
+    public boolean isBundle() {
+        return isBundle;
+    }
+
+    /**
+     * @return level the signatures of the source are extended to, null when signing
+     */
+    public SignatureExtender.Level getExtensionLevel() {
+        return extensionLevel;
+    }
+
+    public boolean isExtension() {
+        return extensionLevel != null;
+    }
+
     public boolean shouldMakeParentDirectories() {
         return shouldMakeParentDirectories;
     }
@@ -92,6 +126,32 @@ public class CliSettings extends UserSettings {
         }
     }
 
+    private static SignatureExtender.Level getValidExtensionLevel(String optionValue)
+            throws ExtensionLevelIsNotValidException {
+        if (optionValue == null)
+            return null;
+
+        try {
+            return SignatureExtender.Level.valueOf(optionValue);
+        } catch (IllegalArgumentException e) {
+            throw new ExtensionLevelIsNotValidException(optionValue);
+        }
+    }
+
+    private static int getValidTsaConcurrency(String optionValue) throws TsaConcurrencyIsNotValidException {
+        int value;
+        try {
+            value = Integer.parseInt(optionValue);
+        } catch (NumberFormatException e) {
+            throw new TsaConcurrencyIsNotValidException(optionValue);
+        }
+
+        if (value < 1)
+            throw new TsaConcurrencyIsNotValidException(optionValue);
+
+        return value;
+    }
+
     private static SignatureLevel getValidSignatureLevel(String optionValue) throws PDFSignatureLevelIsNotValidException {
         try {
             return SignatureLevel.valueOf(optionValue);
@@ -250,10 +250,16 @@ public class CliUI implements UI {
             return "Slot ID is not a number";
         } else if (e instanceof PDFSignatureLevelIsNotValidException) {
             return "PDF signature level is not valid";
+        } else if (e instanceof ExtensionLevelIsNotValidException) {
+            return "Extension level given by --extend is not valid, use BASELINE_T or BASELINE_LT";
         } else if (e instanceof TsaServerMisconfiguredException) {
             return "TSA server refused to add timestamp. Check TSA server configuration.";
         } else if (e instanceof SlotIndexOutOfRangeException) {
             return "Provided slot index is out of range for chosen driver.";
+        } else if (e instanceof DocumentNotSignedException) {
+            return "Document is not signed, there are no signatures to extend";
+        } else if (e instanceof TsaConcurrencyIsNotValidException) {
+            return "TSA concurrency is not a positive number";
         } else if (e instanceof PkcsEidWindowsDllException) {
             return "PKCS library problem. Microsoft Visual C++ 2015 Redistributable probably needs to be installed.";
         } else {
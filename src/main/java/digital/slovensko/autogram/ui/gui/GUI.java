@@ -33,7 +33,7 @@ public class GUI implements UI {
     private boolean driverWasAlreadySet = false;
     private final HostServices hostServices;
     private final UserSettings userSettings;
-    private BatchDialogController batchController;
+    private final Map<Batch, BatchDialogController> batchControllers = new HashMap<>();
     private static final boolean DEBUG = false;
     private static Logger logger = LoggerFactory.getLogger(GUI.class);
     private int nWindows = 0;
@@ -50,7 +50,8 @@ public class GUI implements UI {
 
     @Override
     public void startBatch(Batch batch, Autogram autogram, Consumer<SigningKey> callback) {
-        batchController = new BatchDialogController(batch, callback, autogram, this);
+        var batchController = new BatchDialogController(batch, callback, autogram, this);
+        batchControllers.put(batch, batchController);
         var root = GUIUtils.loadFXML(batchController, "batch-dialog.fxml");
 
         var stage = new Stage();
@@ -66,17 +67,20 @@ public class GUI implements UI {
 
     @Override
     public void cancelBatch(Batch batch) {
-        batchController.close();
+        var batchController = batchControllers.remove(batch);
+        if (batchController != null)
+            batchController.close();
         batch.end();
         refreshKeyOnAllJobs();
         enableSigningOnAllJobs();
     }
 
     public void updateBatch() {
-        if (batchController == null)
+        if (batchControllers.isEmpty())
             return;
         assertOnUIThread();
-        batchController.update();
+        batchControllers.values().forEach(BatchDialogController::update);
+        batchControllers.keySet().removeIf(Batch::isEnded);
     }
 
     @Override
@@ -166,15 +170,12 @@ public class GUI implements UI {
 
     public void refreshKeyOnAllJobs() {
         jobControllers.values().forEach(SigningDialogController::refreshSigningKey);
-        if (batchController != null) {
-            batchController.refreshSigningKey();
-        }
+        batchControllers.values().forEach(BatchDialogController::refreshSigningKey);
     }
 
     public void enableSigningOnAllJobs() {
         jobControllers.values().forEach(SigningDialogController::enableSigning);
-        if (batchController != null)
-            batchController.enableSigning();
+        batchControllers.values().forEach(BatchDialogController::enableSigning);
     }
 
     @Override
@@ -313,7 +314,9 @@ public class GUI implements UI {
 
     public void showVisualization(Visualization visualization, Autogram autogram) {
         var title = "Dokument";
-        if (visualization.getJob().getDocument().getName() != null)
+        if (visualization.getJob().isBundle())
+            title = "Balík " + visualization.getJob().getDocuments().size() + " dokumentov";
+        else if (visualization.getJob().getDocument().getName() != null)
             title = "Dokument " + visualization.getJob().getDocument().getName();
 
         var controller = new SigningDialogController(visualization, autogram, this, title, userSettings.isSignaturesValidity());
@@ -363,8 +366,7 @@ public class GUI implements UI {
 
     private void disableKeyPicking() {
         jobControllers.values().forEach(SigningDialogController::disableKeyPicking);
-        if (batchController != null)
-            batchController.disableKeyPicking();
+        batchControllers.values().forEach(BatchDialogController::disableKeyPicking);
     }
 
     @Override
@@ -496,8 +498,7 @@ public class GUI implements UI {
 
     public void disableSigning() {
         jobControllers.values().forEach(SigningDialogController::disableSigning);
-        if (batchController != null)
-            batchController.disableSigning();
+        batchControllers.values().forEach(BatchDialogController::disableSigning);
     }
 
     public void resetSigningKey() {
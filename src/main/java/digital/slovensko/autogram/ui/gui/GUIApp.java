@@ -5,6 +5,7 @@ import digital.slovensko.autogram.core.LaunchParameters;
 import digital.slovensko.autogram.core.UserSettings;
 import digital.slovensko.autogram.core.errors.UnrecognizedException;
 import digital.slovensko.autogram.server.AutogramServer;
+import digital.slovensko.autogram.server.JdkServerTransport;
 import javafx.application.Application;
 import javafx.application.Platform;
 import javafx.scene.Scene;
@@ -31,11 +32,13 @@ public class GUIApp extends Application {
             autogram = new Autogram(new GUI(getHostServices(), userSettings), userSettings);
             autogram.checkForUpdate();
             autogram.initializeSignatureValidator(scheduledExecutorService, cachedExecutorService, userSettings.getTrustedList());
+            autogram.initializeBatchSweeper(scheduledExecutorService);
 
             final var params = LaunchParameters.fromParameters(getParameters());
             final var controller = new MainMenuController(autogram, userSettings);
 
-            server = new AutogramServer(autogram, params.getHost(), params.getPort(), params.isProtocolHttps(), cachedExecutorService);
+            JdkServerTransport.configureIdleTimeout(userSettings.getServerIdleTimeout());
+            server = new AutogramServer(autogram, params.getHost(), params.getPort(), params.isProtocolHttps(), userSettings);
             if (userSettings.isServerEnabled()) {
                 server.start();
             }
@@ -47,6 +47,12 @@ public class SettingsDialogController {
     @FXML
     private HBox localServerEnabledRadios;
     @FXML
+    private ChoiceBox<String> serverThreadsChoiceBox;
+    @FXML
+    private ChoiceBox<String> serverQueueSizeChoiceBox;
+    @FXML
+    private ChoiceBox<String> serverMaxConcurrentRequestsChoiceBox;
+    @FXML
     private ChoiceBox<String> pdfDpiChoiceBox;
     @FXML
     private ChoiceBox<String> slotIndexChoiceBox;
@@ -81,6 +87,7 @@ public class SettingsDialogController {
         initializeCheckPDFAComplianceCheckBox();
         initializeExpiredCertsEnabledCheckBox();
         initializeLocalServerEnabledCheckBox();
+        initializeServerLimitsSettings();
         initializeTrustedCountriesList();
         initializeSlotIndexSettings();
         initializePdfDpiSettings();
@@ -213,6 +220,29 @@ public class SettingsDialogController {
                 userSettings.isServerEnabled());
     }
 
+    private void initializeServerLimitsSettings() {
+        initializeNumberChoiceBox(serverThreadsChoiceBox, List.of(2, 4, 8, 16, 32, 64),
+                userSettings.getServerThreads(), userSettings::setServerThreads);
+        initializeNumberChoiceBox(serverQueueSizeChoiceBox, List.of(16, 32, 64, 128, 256, 512),
+                userSettings.getServerQueueSize(), userSettings::setServerQueueSize);
+        initializeNumberChoiceBox(serverMaxConcurrentRequestsChoiceBox, List.of(2, 4, 8, 16, 32, 64),
+                userSettings.getServerMaxConcurrentRequests(), userSettings::setServerMaxConcurrentRequests);
+    }
+
+    private void initializeNumberChoiceBox(ChoiceBox<String> choiceBox, List<Integer> values, int value,
+            Consumer<Integer> consumer) {
+        for (var v : values)
+            choiceBox.getItems().add(String.valueOf(v));
+
+        // keep a value set outside of the dialog, e.g. by hand in preferences
+        if (!values.contains(value))
+            choiceBox.getItems().add(String.valueOf(value));
+
+        choiceBox.setValue(String.valueOf(value));
+        choiceBox.getSelectionModel().selectedItemProperty()
+                .addListener((observable, oldValue, newValue) -> consumer.accept(Integer.parseInt(newValue)));
+    }
+
     private void initializeTrustedCountriesList() {
         var europeanCountries = List.of(
                 new Country("Belgicko", "BE"),
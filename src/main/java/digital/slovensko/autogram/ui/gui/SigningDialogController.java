@@ -24,6 +24,7 @@ import javafx.scene.input.ContextMenuEvent;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.VBox;
 import javafx.scene.text.Text;
+import javafx.scene.text.TextFlow;
 import javafx.scene.web.WebView;
 import javafx.stage.Modality;
 import javafx.stage.Stage;
@@ -74,6 +75,8 @@ public class SigningDialogController implements SuppressedFocusController, Visua
     VBox signaturesTable;
     @FXML
     Text headerText;
+    @FXML
+    VBox bundleDocumentsBox;
 
     public SigningDialogController(Visualization visualization, Autogram autogram, GUI gui, String title,
             boolean shouldCheckValidityBeforeSigning) {
@@ -89,10 +92,39 @@ public class SigningDialogController implements SuppressedFocusController, Visua
         signaturesTable.setManaged(false);
         signaturesTable.setVisible(false);
         refreshSigningKey();
+        showBundleDocuments();
         visualization.initialize(this);
         autogram.checkPDFACompliance(visualization.getJob());
     }
 
+    /**
+     * Only the first document of a bundle is visualized, the user still has to see what else the signature covers
+     */
+    private void showBundleDocuments() {
+        var job = visualization.getJob();
+        if (!job.isBundle())
+            return;
+
+        var documents = job.getDocuments();
+        var intro = new Text("Jedným podpisom podpisujete všetkých " + documents.size()
+                + " dokumentov balíka, zobrazený je prvý z nich:");
+        intro.getStyleClass().add("autogram-body");
+        bundleDocumentsBox.getChildren().add(new TextFlow(intro));
+
+        for (int i = 0; i < documents.size(); i++) {
+            var name = documents.get(i).getName();
+            var text = new Text((i + 1) + ". " + (name == null ? "Dokument bez názvu" : name));
+            text.getStyleClass().add("autogram-body");
+            if (i == 0)
+                text.getStyleClass().add("autogram-font-weight-bold");
+
+            bundleDocumentsBox.getChildren().add(new TextFlow(text));
+        }
+
+        bundleDocumentsBox.setVisible(true);
+        bundleDocumentsBox.setManaged(true);
+    }
+
     public void onMainButtonPressed(ActionEvent event) {
         checkExistingSignatureValidityAndSign();
     }
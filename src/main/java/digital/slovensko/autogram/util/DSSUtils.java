@@ -4,6 +4,7 @@ import eu.europa.esig.dss.asic.cades.validation.ASiCContainerWithCAdESValidatorF
 import eu.europa.esig.dss.asic.xades.validation.ASiCContainerWithXAdESValidatorFactory;
 import eu.europa.esig.dss.cades.validation.CMSDocumentValidatorFactory;
 import eu.europa.esig.dss.model.DSSDocument;
+import eu.europa.esig.dss.model.DigestDocument;
 import eu.europa.esig.dss.pades.validation.PDFDocumentValidatorFactory;
 import eu.europa.esig.dss.token.DSSPrivateKeyEntry;
 import eu.europa.esig.dss.validation.SignedDocumentValidator;
@@ -38,6 +39,10 @@ public class DSSUtils {
     }
 
     public static SignedDocumentValidator createDocumentValidator(DSSDocument document) {
+        // only the digest of content is known, there is nothing to look for signatures in
+        if (document instanceof DigestDocument)
+            return null;
+
         if (new PDFDocumentValidatorFactory().isSupported(document))
             return new PDFDocumentValidatorFactory().create(document);
 
@@ -0,0 +1,64 @@
+package digital.slovensko.autogram.util;
+
+import java.util.LinkedHashMap;
+import java.util.function.ToLongFunction;
+
+/**
+ * Thread-safe least recently used cache bounded by the total weight of its values, e.g. their size in bytes.
+ *
+ * Values are computed by callers outside of the lock, so two threads missing the same key at once may both compute
+ * it. Hits and misses are counted in {@code autogram_cache_requests_total} under the name of the cache.
+ */
+public class LruCache<K, V> {
+    private final LinkedHashMap<K, V> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final long maxWeight;
+    private final ToLongFunction<V> weigher;
+    private final Metrics.Counter hits;
+    private final Metrics.Counter misses;
+    private long weight = 0;
+
+    public LruCache(String name, long maxWeight, ToLongFunction<V> weigher) {
+        this.maxWeight = maxWeight;
+        this.weigher = weigher;
+        this.hits = Metrics.counter("autogram_cache_requests_total", "Cache lookups", "cache", name, "result", "hit");
+        this.misses = Metrics.counter("autogram_cache_requests_total", "Cache lookups", "cache", name, "result", "miss");
+    }
+
+    /**
+     * @return cached value or null
+     */
+    public synchronized V get(K key) {
+        var value = entries.get(key);
+        if (value == null)
+            misses.increment();
+        else
+            hits.increment();
+
+        return value;
+    }
+
+    /**
+     * Stores the value and evicts least recently used values over the weight limit. Values heavier than the whole
+     * cache are not stored.
+     */
+    public synchronized void put(K key, V value) {
+        var valueWeight = weigher.applyAsLong(value);
+        if (valueWeight > maxWeight)
+            return;
+
+        var previous = entries.put(key, value);
+        if (previous != null)
+            weight -= weigher.applyAsLong(previous);
+        weight += valueWeight;
+
+        var iterator = entries.values().iterator();
+        while (weight > maxWeight && iterator.hasNext()) {
+            weight -= weigher.applyAsLong(iterator.next());
+            iterator.remove();
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+}
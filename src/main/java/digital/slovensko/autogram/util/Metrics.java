@@ -0,0 +1,175 @@
+package digital.slovensko.autogram.util;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Process-wide registry of counters, histograms and gauges exported in Prometheus text format.
+ *
+ * Recording is lock-free: collectors are looked up in concurrent maps and updated with adders, so instrumentation can
+ * be used on the signing hot path. Labels are given as name/value pairs.
+ */
+public class Metrics {
+    public static final double[] LATENCY_BUCKETS = {0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10, 30, 60, 120, 300};
+    public static final double[] SIZE_BUCKETS = {1, 5, 10, 50, 100, 500, 1000, 5000, 10000};
+
+    private static final Map<String, Family> families = new ConcurrentHashMap<>();
+
+    public static Counter counter(String name, String help, String... labels) {
+        return (Counter) family(name, help, "counter").collectors
+                .computeIfAbsent(List.of(labels), k -> new Counter());
+    }
+
+    public static Histogram histogram(String name, String help, double[] buckets, String... labels) {
+        return (Histogram) family(name, help, "histogram").collectors
+                .computeIfAbsent(List.of(labels), k -> new Histogram(buckets));
+    }
+
+    public static Histogram latency(String name, String help, String... labels) {
+        return histogram(name, help, LATENCY_BUCKETS, labels);
+    }
+
+    public static void gauge(String name, String help, Supplier<Number> value, String... labels) {
+        family(name, help, "gauge").collectors.put(List.of(labels), new Gauge(value));
+    }
+
+    private static Family family(String name, String help, String type) {
+        var family = families.get(name);
+        if (family != null)
+            return family;
+
+        return families.computeIfAbsent(name, k -> new Family(help, type));
+    }
+
+    /**
+     * Writes all metrics in the Prometheus text exposition format, version 0.0.4.
+     */
+    public static String toPrometheusText() {
+        var out = new StringBuilder();
+        families.entrySet().stream().sorted(Map.Entry.comparingByKey()).forEach(entry -> {
+            var name = entry.getKey();
+            var family = entry.getValue();
+            out.append("# HELP ").append(name).append(' ').append(family.help).append('\n');
+            out.append("# TYPE ").append(name).append(' ').append(family.type).append('\n');
+            family.collectors.forEach((labels, collector) -> collector.write(out, name, labels));
+        });
+
+        return out.toString();
+    }
+
+    private static String formatLabels(List<String> labels, String extraName, String extraValue) {
+        if (labels.isEmpty() && extraName == null)
+            return "";
+
+        var out = new StringBuilder("{");
+        for (int i = 0; i + 1 < labels.size(); i += 2) {
+            if (i > 0)
+                out.append(',');
+            out.append(labels.get(i)).append("=\"").append(escape(labels.get(i + 1))).append('"');
+        }
+        if (extraName != null) {
+            if (!labels.isEmpty())
+                out.append(',');
+            out.append(extraName).append("=\"").append(extraValue).append('"');
+        }
+
+        return out.append('}').toString();
+    }
+
+    private static String escape(String value) {
+        return String.valueOf(value).replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    private static String formatNumber(double value) {
+        if (value == Double.POSITIVE_INFINITY)
+            return "+Inf";
+
+        return value == Math.rint(value) && Math.abs(value) < 1e15 ? Long.toString((long) value) : Double.toString(value);
+    }
+
+    private record Family(String help, String type, Map<List<String>, Collector> collectors) {
+        Family(String help, String type) {
+            this(help, type, new ConcurrentHashMap<>());
+        }
+    }
+
+    private interface Collector {
+        void write(StringBuilder out, String name, List<String> labels);
+    }
+
+    public static class Counter implements Collector {
+        private final LongAdder count = new LongAdder();
+
+        public void increment() {
+            count.increment();
+        }
+
+        public void add(long value) {
+            count.add(value);
+        }
+
+        @Override
+        public void write(StringBuilder out, String name, List<String> labels) {
+            out.append(name).append(formatLabels(labels, null, null)).append(' ').append(count.sum()).append('\n');
+        }
+    }
+
+    public static class Histogram implements Collector {
+        private final double[] buckets;
+        private final LongAdder[] counts;
+        private final LongAdder count = new LongAdder();
+        private final DoubleAdder sum = new DoubleAdder();
+
+        Histogram(double[] buckets) {
+            this.buckets = Arrays.copyOf(buckets, buckets.length);
+            this.counts = new LongAdder[buckets.length];
+            for (int i = 0; i < counts.length; i++)
+                counts[i] = new LongAdder();
+        }
+
+        public void observe(double value) {
+            for (int i = 0; i < buckets.length; i++) {
+                if (value <= buckets[i]) {
+                    counts[i].increment();
+                    break;
+                }
+            }
+            count.increment();
+            sum.add(value);
+        }
+
+        /**
+         * Observes time elapsed since {@code startNanos} obtained from {@link System#nanoTime()}, in seconds.
+         */
+        public void observeSince(long startNanos) {
+            observe((System.nanoTime() - startNanos) / 1e9);
+        }
+
+        @Override
+        public void write(StringBuilder out, String name, List<String> labels) {
+            long cumulative = 0;
+            for (int i = 0; i < buckets.length; i++) {
+                cumulative += counts[i].sum();
+                out.append(name).append("_bucket").append(formatLabels(labels, "le", formatNumber(buckets[i])))
+                        .append(' ').append(cumulative).append('\n');
+            }
+            var total = count.sum();
+            out.append(name).append("_bucket").append(formatLabels(labels, "le", "+Inf")).append(' ').append(total).append('\n');
+            out.append(name).append("_sum").append(formatLabels(labels, null, null)).append(' ').append(sum.sum()).append('\n');
+            out.append(name).append("_count").append(formatLabels(labels, null, null)).append(' ').append(total).append('\n');
+        }
+    }
+
+    private record Gauge(Supplier<Number> value) implements Collector {
+        @Override
+        public void write(StringBuilder out, String name, List<String> labels) {
+            out.append(name).append(formatLabels(labels, null, null)).append(' ')
+                    .append(formatNumber(value.get().doubleValue())).append('\n');
+        }
+    }
+}
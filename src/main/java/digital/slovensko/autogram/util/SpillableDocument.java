@@ -0,0 +1,300 @@
+package digital.slovensko.autogram.util;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.ref.Cleaner;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Base64;
+
+import eu.europa.esig.dss.enumerations.MimeType;
+import eu.europa.esig.dss.model.CommonDocument;
+import eu.europa.esig.dss.model.DSSException;
+import eu.europa.esig.dss.signature.resources.AbstractResourcesHandler;
+import eu.europa.esig.dss.signature.resources.DSSResourcesHandler;
+import eu.europa.esig.dss.signature.resources.DSSResourcesHandlerBuilder;
+
+/**
+ * Document kept in memory while small, content over the threshold is spilled to a temporary file, so that large
+ * documents in flight do not fill the heap.
+ *
+ * The file is read through plain streams, not mapped: a mapped file cannot be deleted on Windows until the mapping
+ * is garbage collected.
+ *
+ * Copies made by {@link #copy} share the content. The temporary file is deleted by {@link #close()} of any of them,
+ * or once none of them is reachable anymore.
+ */
+public class SpillableDocument extends CommonDocument implements AutoCloseable {
+    public static final long DEFAULT_THRESHOLD = 16L * 1024 * 1024;
+    private static final Cleaner cleaner = Cleaner.create();
+    /** multiple of 4, so that every chunk but the last one decodes without padding */
+    private static final int BASE64_CHUNK_CHARS = 64 * 1024;
+    private static volatile long defaultThreshold = DEFAULT_THRESHOLD;
+
+    private final Storage storage;
+
+    private SpillableDocument(Storage storage, String name, MimeType mimeType) {
+        this.storage = storage;
+        setName(name);
+        setMimeType(mimeType);
+    }
+
+    /**
+     * @param threshold bytes kept in memory, see {@code ServerSettings#getServerSpillThreshold()}
+     */
+    public static void setDefaultThreshold(long threshold) {
+        defaultThreshold = threshold;
+    }
+
+    public static Sink sink() {
+        return sink(defaultThreshold);
+    }
+
+    public static Sink sink(long threshold) {
+        return new Sink(threshold);
+    }
+
+    /**
+     * Reads the whole stream without closing it.
+     */
+    public static SpillableDocument from(InputStream in, String name, MimeType mimeType) throws IOException {
+        var sink = sink();
+        try {
+            in.transferTo(sink);
+        } catch (IOException | RuntimeException e) {
+            sink.discard();
+            throw e;
+        }
+
+        return sink.toDocument(name, mimeType);
+    }
+
+    /**
+     * Decodes base64 in chunks, so that the decoded content is never held in memory as a whole.
+     *
+     * @throws IllegalArgumentException if the content is not valid base64
+     */
+    public static SpillableDocument decodeBase64(String content, String name, MimeType mimeType) throws IOException {
+        var decoder = Base64.getDecoder();
+        var sink = sink();
+        try {
+            for (var start = 0; start < content.length(); start += BASE64_CHUNK_CHARS) {
+                var end = Math.min(content.length(), start + BASE64_CHUNK_CHARS);
+                sink.write(decoder.decode(content.substring(start, end)));
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            sink.discard();
+            throw e;
+        }
+
+        return sink.toDocument(name, mimeType);
+    }
+
+    /**
+     * @return document with the same content and its own name and MIME type
+     */
+    public SpillableDocument copy(String name, MimeType mimeType) {
+        return new SpillableDocument(storage, name, mimeType);
+    }
+
+    public long getSize() {
+        return storage.size;
+    }
+
+    public boolean isSpilled() {
+        return storage.file != null;
+    }
+
+    @Override
+    public InputStream openStream() {
+        try {
+            return storage.open();
+        } catch (IOException e) {
+            throw new DSSException("Unable to read spilled document " + getName(), e);
+        }
+    }
+
+    /**
+     * Releases content of this document and all its copies.
+     */
+    @Override
+    public void close() {
+        storage.release();
+    }
+
+    /**
+     * Stream collecting content of a new document, spills to a temporary file once the threshold is exceeded.
+     */
+    public static final class Sink extends OutputStream {
+        private final long threshold;
+        private ByteArrayOutputStream memory = new ByteArrayOutputStream();
+        private TempFile file;
+        private OutputStream fileStream;
+        private long size = 0;
+        private boolean closed = false;
+
+        private Sink(long threshold) {
+            this.threshold = threshold;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (closed)
+                throw new IOException("Stream closed");
+
+            if (file == null && size + len > threshold)
+                spill();
+
+            (file == null ? memory : fileStream).write(b, off, len);
+            size += len;
+        }
+
+        private void spill() throws IOException {
+            file = new TempFile(Files.createTempFile("autogram-", ".tmp"));
+            fileStream = new BufferedOutputStream(Files.newOutputStream(file.path));
+            memory.writeTo(fileStream);
+            memory = null;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (fileStream != null)
+                fileStream.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed)
+                return;
+
+            closed = true;
+            if (fileStream != null)
+                fileStream.close();
+        }
+
+        /**
+         * Closes the stream and drops everything written so far.
+         */
+        public void discard() {
+            try {
+                close();
+            } catch (IOException ignored) {
+                // the file is deleted anyway
+            }
+
+            memory = null;
+            if (file != null)
+                file.delete();
+        }
+
+        public SpillableDocument toDocument(String name, MimeType mimeType) throws IOException {
+            close();
+            if (file == null)
+                return new SpillableDocument(new Storage(memory.toByteArray(), null, size), name, mimeType);
+
+            return new SpillableDocument(new Storage(null, file, size), name, mimeType);
+        }
+    }
+
+    /**
+     * DSS resources handler producing spillable documents, used for signed PDFs, see
+     * {@code eu.europa.esig.dss.pdf.IPdfObjFactory#setResourcesHandlerBuilder}.
+     */
+    public static final class ResourcesHandlerBuilder implements DSSResourcesHandlerBuilder {
+        @Override
+        public DSSResourcesHandler createResourcesHandler() {
+            return new AbstractResourcesHandler() {
+                private boolean written = false;
+
+                @Override
+                protected OutputStream buildOutputStream() {
+                    return sink();
+                }
+
+                @Override
+                public SpillableDocument writeToDSSDocument() throws IOException {
+                    var document = ((Sink) getOutputStream()).toDocument(null, null);
+                    written = true;
+
+                    return document;
+                }
+
+                @Override
+                public void close() throws IOException {
+                    if (!written && getOutputStream() != null)
+                        ((Sink) getOutputStream()).discard();
+
+                    super.close();
+                }
+            };
+        }
+    }
+
+    private static final class Storage {
+        private final byte[] bytes;
+        private final TempFile file;
+        private final long size;
+        private volatile boolean released = false;
+
+        private Storage(byte[] bytes, TempFile file, long size) {
+            this.bytes = bytes;
+            this.file = file;
+            this.size = size;
+        }
+
+        private InputStream open() throws IOException {
+            if (released)
+                throw new IllegalStateException("Document content was already released");
+
+            if (bytes != null)
+                return new ByteArrayInputStream(bytes);
+
+            return new BufferedInputStream(Files.newInputStream(file.path));
+        }
+
+        private void release() {
+            released = true;
+            if (file != null)
+                file.delete();
+        }
+    }
+
+    /**
+     * Temporary file deleted explicitly or when it is no longer reachable.
+     */
+    private static final class TempFile {
+        private final Path path;
+        private final Cleaner.Cleanable cleanable;
+
+        private TempFile(Path path) {
+            this.path = path;
+            this.cleanable = cleaner.register(this, new Deleter(path));
+        }
+
+        private void delete() {
+            cleanable.clean();
+        }
+    }
+
+    private record Deleter(Path path) implements Runnable {
+        @Override
+        public void run() {
+            try {
+                Files.deleteIfExists(path);
+            } catch (IOException e) {
+                // a stream is still open on Windows, last resort
+                path.toFile().deleteOnExit();
+            }
+        }
+    }
+}
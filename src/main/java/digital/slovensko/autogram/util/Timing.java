@@ -0,0 +1,52 @@
+package digital.slovensko.autogram.util;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+
+/**
+ * Durations of the phases of one request, e.g. to report them in a {@code Server-Timing} header.
+ *
+ * Phases are recorded as they finish, possibly from different threads (request handler, signing, response), and
+ * repeated phases add up. Recording into {@link #NONE} does nothing, so callers without a request can pass it.
+ */
+public class Timing {
+    public static final Timing NONE = new Timing() {
+        @Override
+        public void record(String phase, long startNanos) {
+        }
+    };
+
+    private final LinkedHashMap<String, Long> phases = new LinkedHashMap<>();
+    private final long startNanos = System.nanoTime();
+
+    /**
+     * Adds time from {@code startNanos} (as returned by {@link System#nanoTime()}) until now to the phase.
+     */
+    public void record(String phase, long startNanos) {
+        var duration = System.nanoTime() - startNanos;
+        synchronized (phases) {
+            phases.merge(phase, duration, Long::sum);
+        }
+    }
+
+    /**
+     * @return phases in the order they first finished and {@code total} since this timing was created, in the
+     *         {@code Server-Timing} header format with milliseconds, e.g. {@code decode;dur=1.2, total;dur=8.5}
+     */
+    public String toServerTimingHeader() {
+        var out = new StringBuilder();
+        synchronized (phases) {
+            phases.forEach((phase, duration) -> appendPhase(out, phase, duration));
+        }
+        appendPhase(out, "total", System.nanoTime() - startNanos);
+
+        return out.toString();
+    }
+
+    private static void appendPhase(StringBuilder out, String phase, long durationNanos) {
+        if (!out.isEmpty())
+            out.append(", ");
+
+        out.append(phase).append(";dur=").append(String.format(Locale.ROOT, "%.1f", durationNanos / 1e6));
+    }
+}
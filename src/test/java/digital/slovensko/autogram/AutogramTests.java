@@ -2,6 +2,8 @@ package digital.slovensko.autogram;
 
 import digital.slovensko.autogram.core.*;
 import digital.slovensko.autogram.core.errors.AutogramException;
+import digital.slovensko.autogram.core.errors.BatchEndedException;
+import digital.slovensko.autogram.core.errors.BatchInvalidIdException;
 import digital.slovensko.autogram.core.errors.UnknownEformException;
 import digital.slovensko.autogram.core.visualization.Visualization;
 import digital.slovensko.autogram.drivers.TokenDriver;
@@ -19,6 +21,7 @@ import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.MethodSource;
+import org.mockito.ArgumentCaptor;
 
 import java.io.File;
 import java.io.FileOutputStream;
@@ -78,6 +81,32 @@ class AutogramTests {
         Assertions.assertThrows(UnknownEformException.class, () -> SigningParameters.buildForASiCWithXAdES(document, false, false, null, false));
     }
 
+    @Test
+    void testIndependentBatchesRunAtTheSameTime() {
+        var autogram = new Autogram(new FakeUI(), new TestSettings());
+        var firstResponder = mock(BatchResponder.class);
+        var secondResponder = mock(BatchResponder.class);
+
+        autogram.batchStart(2, firstResponder);
+        autogram.batchStart(2, secondResponder);
+
+        var firstBatch = ArgumentCaptor.forClass(Batch.class);
+        var secondBatch = ArgumentCaptor.forClass(Batch.class);
+        verify(firstResponder).onBatchStartSuccess(firstBatch.capture());
+        verify(secondResponder).onBatchStartSuccess(secondBatch.capture());
+
+        var firstId = firstBatch.getValue().getBatchId();
+        var secondId = secondBatch.getValue().getBatchId();
+        Assertions.assertNotEquals(firstId, secondId);
+        Assertions.assertSame(firstBatch.getValue(), autogram.getBatch(firstId));
+        Assertions.assertSame(secondBatch.getValue(), autogram.getBatch(secondId));
+
+        autogram.batchEnd(firstId);
+        Assertions.assertThrows(BatchEndedException.class, () -> autogram.getBatch(firstId));
+        Assertions.assertSame(secondBatch.getValue(), autogram.getBatch(secondId));
+        Assertions.assertThrows(BatchInvalidIdException.class, () -> autogram.getBatch("unknown"));
+    }
+
     @ParameterizedTest
     @MethodSource({"digital.slovensko.autogram.TestMethodSources#validOtherDocumentsProvider",
             "digital.slovensko.autogram.TestMethodSources#validCadesDocumentsProvider"})
@@ -199,6 +228,7 @@ class AutogramTests {
 
         @Override
         public void startBatch(Batch batch, Autogram autogram, Consumer<SigningKey> callback) {
+            autogram.pickSigningKeyAndThen(callback);
         }
 
         @Override
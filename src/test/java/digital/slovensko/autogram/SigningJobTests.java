@@ -1,7 +1,13 @@
 package digital.slovensko.autogram;
 
+import digital.slovensko.autogram.core.Responder;
+import digital.slovensko.autogram.core.SignedDocument;
 import digital.slovensko.autogram.core.SigningJob;
+import digital.slovensko.autogram.core.SigningKey;
+import digital.slovensko.autogram.core.SigningParameters;
 import digital.slovensko.autogram.core.UserSettings;
+import digital.slovensko.autogram.core.errors.AutogramException;
+import digital.slovensko.autogram.util.Timing;
 import digital.slovensko.autogram.core.visualization.DocumentVisualizationBuilder;
 import digital.slovensko.autogram.core.visualization.HTMLVisualization;
 import digital.slovensko.autogram.core.visualization.Visualization;
@@ -9,12 +15,30 @@ import digital.slovensko.autogram.server.dto.Document;
 import digital.slovensko.autogram.server.dto.ServerSigningParameters;
 import digital.slovensko.autogram.server.dto.SignRequestBody;
 import digital.slovensko.autogram.server.errors.RequestValidationException;
+import eu.europa.esig.dss.asic.xades.ASiCWithXAdESContainerExtractor;
+import eu.europa.esig.dss.enumerations.DigestAlgorithm;
+import eu.europa.esig.dss.enumerations.SignatureForm;
 import eu.europa.esig.dss.enumerations.SignatureLevel;
+import eu.europa.esig.dss.model.DSSDocument;
+import eu.europa.esig.dss.model.DigestDocument;
+import eu.europa.esig.dss.model.InMemoryDocument;
+import eu.europa.esig.dss.model.SignatureValue;
+import eu.europa.esig.dss.model.ToBeSigned;
+import eu.europa.esig.dss.token.Pkcs12SignatureToken;
+import eu.europa.esig.dss.validation.CommonCertificateVerifier;
+import eu.europa.esig.dss.validation.SignedDocumentValidator;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
 
 import org.junit.jupiter.api.Test;
 
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.security.KeyStore;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -69,4 +93,92 @@ public class SigningJobTests {
             fail();
         }
     }
+
+    @Test
+    void testBundleIsSignedWithOneTokenOperation() throws IOException {
+        var keystore = Objects.requireNonNull(getClass().getResource("test.keystore")).getFile();
+        try (var token = new Pkcs12SignatureToken(keystore, new KeyStore.PasswordProtection("".toCharArray()))) {
+            var tokenOperations = new AtomicInteger();
+            var key = new SigningKey(token, token.getKeys().get(0)) {
+                @Override
+                public SignatureValue sign(ToBeSigned dataToSign, DigestAlgorithm algo) {
+                    tokenOperations.incrementAndGet();
+                    return super.sign(dataToSign, algo);
+                }
+            };
+
+            var pdf = getClass().getResourceAsStream("sample.pdf").readAllBytes();
+            List<DSSDocument> documents = List.of(
+                    new InMemoryDocument(pdf, "first.pdf"),
+                    new InMemoryDocument(pdf, "second.pdf"),
+                    new InMemoryDocument("Hello".getBytes(StandardCharsets.UTF_8), "note.txt"));
+
+            var signed = new AtomicReference<DSSDocument>();
+            var parameters = SigningParameters.buildForBundle(SignatureForm.XAdES, false, null);
+            var job = SigningJob.buildBundle(documents, parameters, new Responder() {
+                @Override
+                public void onDocumentSigned(SignedDocument signedDocument) {
+                    signed.set(signedDocument.getDocument());
+                }
+
+                @Override
+                public void onDocumentSignFailed(AutogramException error) {
+                    fail(error);
+                }
+            });
+            job.signWithKeyAndRespond(key);
+
+            assertEquals(1, tokenOperations.get());
+            var content = new ASiCWithXAdESContainerExtractor(signed.get()).extract();
+            assertEquals(1, content.getSignatureDocuments().size());
+            assertEquals(List.of("first.pdf", "second.pdf", "note.txt"),
+                    content.getSignedDocuments().stream().map(DSSDocument::getName).toList());
+        } catch (InterruptedException e) {
+            fail(e);
+        }
+    }
+
+    @Test
+    void testBundleRejectsDuplicateNames() {
+        var parameters = SigningParameters.buildForBundle(SignatureForm.CAdES, false, null);
+        List<DSSDocument> documents = List.of(
+                new InMemoryDocument(new byte[] { 1 }, "same.bin"),
+                new InMemoryDocument(new byte[] { 2 }, "same.bin"));
+
+        assertThrows(AutogramException.class, () -> SigningJob.buildBundle(documents, parameters, null));
+        assertThrows(AutogramException.class,
+                () -> SigningParameters.buildForBundle(SignatureLevel.PAdES_BASELINE_B, DigestAlgorithm.SHA256, false, null));
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = SignatureLevel.class, names = {"XAdES_BASELINE_B", "CAdES_BASELINE_B"})
+    void testDetachedSignatureOfDigestCoversDocument(SignatureLevel level) throws IOException, InterruptedException {
+        var pdf = new InMemoryDocument(getClass().getResourceAsStream("sample.pdf").readAllBytes(), "sample.pdf");
+        var digest = new DigestDocument(DigestAlgorithm.SHA256, pdf.getDigest(DigestAlgorithm.SHA256), "sample.pdf");
+
+        var keystore = Objects.requireNonNull(getClass().getResource("test.keystore")).getFile();
+        try (var token = new Pkcs12SignatureToken(keystore, new KeyStore.PasswordProtection("".toCharArray()))) {
+            var signed = new AtomicReference<DSSDocument>();
+            var parameters = SigningParameters.buildForDetached(level, DigestAlgorithm.SHA256, false);
+            var job = SigningJob.buildFromDigest(digest, parameters, new Responder() {
+                @Override
+                public void onDocumentSigned(SignedDocument signedDocument) {
+                    signed.set(signedDocument.getDocument());
+                }
+
+                @Override
+                public void onDocumentSignFailed(AutogramException error) {
+                    fail(error);
+                }
+            }, Timing.NONE);
+            job.signWithKeyAndRespond(new SigningKey(token, token.getKeys().get(0)));
+
+            var validator = SignedDocumentValidator.fromDocument(signed.get());
+            validator.setCertificateVerifier(new CommonCertificateVerifier());
+            validator.setDetachedContents(List.of(pdf));
+            var signature = validator.validateDocument().getDiagnosticData().getSignatures().get(0);
+            assertTrue(signature.isSignatureIntact());
+            assertTrue(signature.isSignatureValid());
+        }
+    }
 }
@@ -0,0 +1,170 @@
+package digital.slovensko.autogram.core;
+
+import digital.slovensko.autogram.core.errors.AutogramException;
+import digital.slovensko.autogram.core.errors.PINIncorrectException;
+import eu.europa.esig.dss.enumerations.DigestAlgorithm;
+import eu.europa.esig.dss.enumerations.MimeTypeEnum;
+import eu.europa.esig.dss.model.InMemoryDocument;
+import eu.europa.esig.dss.model.SignatureValue;
+import eu.europa.esig.dss.model.ToBeSigned;
+import eu.europa.esig.dss.token.AbstractKeyStoreTokenConnection;
+import eu.europa.esig.dss.token.DSSPrivateKeyEntry;
+import eu.europa.esig.dss.token.Pkcs12SignatureToken;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.security.KeyStore;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class BatchSigningPipelineTest {
+    private static final int DOCUMENTS = 12;
+
+    private static Pkcs12SignatureToken token;
+    private static byte[] pdf;
+
+    @BeforeAll
+    static void loadToken() throws IOException {
+        var keystore = Objects.requireNonNull(BatchSigningPipelineTest.class.getResource("../test.keystore")).getFile();
+        token = new Pkcs12SignatureToken(keystore, new KeyStore.PasswordProtection("".toCharArray()));
+        pdf = BatchSigningPipelineTest.class.getResourceAsStream("../sample.pdf").readAllBytes();
+    }
+
+    @AfterAll
+    static void closeToken() {
+        token.close();
+    }
+
+    @Test
+    void testTokenSignsOneDocumentAtATime() throws InterruptedException {
+        var key = new RecordingKey(token, token.getKeys().get(0), false);
+        var results = new CountDownLatch(DOCUMENTS);
+        var signed = new AtomicInteger();
+        var pipeline = new BatchSigningPipeline(key, 4, job -> {
+            signed.incrementAndGet();
+            results.countDown();
+        }, (job, e) -> results.countDown());
+
+        for (int i = 0; i < DOCUMENTS; i++)
+            pipeline.submit(buildJob());
+
+        Assertions.assertTrue(results.await(60, TimeUnit.SECONDS));
+        Assertions.assertEquals(DOCUMENTS, signed.get());
+        Assertions.assertEquals(DOCUMENTS, key.calls.get());
+        Assertions.assertEquals(1, key.maxConcurrentCalls);
+        Assertions.assertEquals(1, key.threads.size());
+    }
+
+    @Test
+    void testStoppedPipelineDoesNotUseTokenAgain() throws InterruptedException {
+        var key = new RecordingKey(token, token.getKeys().get(0), true);
+        var results = new CountDownLatch(DOCUMENTS);
+        var failed = new AtomicInteger();
+        var pipeline = new BatchSigningPipeline[1];
+        pipeline[0] = new BatchSigningPipeline(key, 4, job -> results.countDown(), (job, e) -> {
+            if (e instanceof AutogramException error && !error.batchCanContinue())
+                pipeline[0].stop(e);
+
+            failed.incrementAndGet();
+            results.countDown();
+        });
+
+        for (int i = 0; i < DOCUMENTS; i++)
+            pipeline[0].submit(buildJob());
+
+        Assertions.assertTrue(results.await(60, TimeUnit.SECONDS));
+        Assertions.assertEquals(DOCUMENTS, failed.get());
+        Assertions.assertEquals(1, key.calls.get());
+    }
+
+    @Test
+    void testTokenGetsJobsInSubmissionOrder() throws InterruptedException {
+        var key = new SigningKey(token, token.getKeys().get(0)) {
+            @Override
+            public SignatureValue sign(ToBeSigned dataToSign, DigestAlgorithm algo) {
+                // fail every job on the token, so that the token order is seen in onFailed
+                throw new IllegalStateException("token is not available");
+            }
+        };
+        var jobs = new ArrayList<SigningJob>();
+        for (int i = 0; i < DOCUMENTS; i++)
+            jobs.add(buildJob());
+
+        var results = new CountDownLatch(DOCUMENTS);
+        var tokenOrder = Collections.synchronizedList(new ArrayList<SigningJob>());
+        var pipeline = new BatchSigningPipeline(key, 4, job -> {
+            // first job is prepared last
+            if (job == jobs.get(0))
+                sleep(300);
+        }, job -> results.countDown(), (job, e) -> {
+            tokenOrder.add(job);
+            results.countDown();
+        });
+
+        for (var job : jobs)
+            pipeline.submit(job);
+
+        Assertions.assertTrue(results.await(60, TimeUnit.SECONDS));
+        Assertions.assertEquals(jobs, tokenOrder);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static SigningJob buildJob() {
+        var document = new InMemoryDocument(pdf, "sample.pdf", MimeTypeEnum.PDF);
+        var parameters = SigningParameters.buildForPDF(document, false, false, null);
+
+        return SigningJob.buildFromRequest(document, parameters, new Responder() {
+            @Override
+            public void onDocumentSigned(SignedDocument signedDocument) {
+            }
+
+            @Override
+            public void onDocumentSignFailed(AutogramException error) {
+            }
+        });
+    }
+
+    private static class RecordingKey extends SigningKey {
+        private final boolean incorrectPin;
+        private final AtomicInteger calls = new AtomicInteger();
+        private final AtomicInteger concurrentCalls = new AtomicInteger();
+        private final Set<Thread> threads = ConcurrentHashMap.newKeySet();
+        private volatile int maxConcurrentCalls;
+
+        RecordingKey(AbstractKeyStoreTokenConnection token, DSSPrivateKeyEntry privateKey, boolean incorrectPin) {
+            super(token, privateKey);
+            this.incorrectPin = incorrectPin;
+        }
+
+        @Override
+        public SignatureValue sign(ToBeSigned dataToSign, DigestAlgorithm algo) {
+            calls.incrementAndGet();
+            threads.add(Thread.currentThread());
+            maxConcurrentCalls = Math.max(maxConcurrentCalls, concurrentCalls.incrementAndGet());
+            try {
+                if (incorrectPin)
+                    throw new PINIncorrectException();
+
+                return super.sign(dataToSign, algo);
+            } finally {
+                concurrentCalls.decrementAndGet();
+            }
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package digital.slovensko.autogram.core;
+
+import digital.slovensko.autogram.core.errors.AutogramException;
+import digital.slovensko.autogram.core.errors.BatchDocumentsExceededException;
+import digital.slovensko.autogram.core.errors.DocumentNotSignedException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class BatchTest {
+    private static final int THREADS = 16;
+    private static final int DOCUMENTS = 2000;
+
+    @Test
+    void testCountsAreExactUnderConcurrentProgress() throws Exception {
+        var batch = new Batch(DOCUMENTS);
+        batch.start(null);
+        var notified = new AtomicInteger();
+        batch.addListener(new BatchListener() {
+            @Override
+            public void onDocumentProcessed(Batch batch, String documentName, AutogramException error) {
+                notified.incrementAndGet();
+            }
+
+            @Override
+            public void onBatchEnded(Batch batch) {
+            }
+        });
+
+        runConcurrently(i -> {
+            var responder = new NoopResponder();
+            batch.addJob(batch.getBatchId(), responder, "document-" + i);
+            batch.onJobStarted(responder);
+            if (i % 3 == 0)
+                batch.onJobFailure(responder, new DocumentNotSignedException("document-" + i));
+            else
+                batch.onJobSuccess(responder, "document-" + i);
+        });
+
+        Assertions.assertEquals(DOCUMENTS, batch.getAddedDocumentsCount());
+        Assertions.assertEquals(DOCUMENTS / 3 + 1, batch.getFailedDocumentsCount());
+        Assertions.assertEquals(DOCUMENTS - DOCUMENTS / 3 - 1, batch.getSuccessfulDocumentsCount());
+        Assertions.assertEquals(DOCUMENTS, notified.get());
+        Assertions.assertTrue(batch.isAllProcessed());
+
+        var documents = batch.getDocuments();
+        Assertions.assertEquals(DOCUMENTS, documents.size());
+        for (int i = 0; i < DOCUMENTS; i++) {
+            Assertions.assertEquals(i, documents.get(i).getIndex());
+            Assertions.assertTrue(documents.get(i).getStatus().isFinished());
+        }
+        Assertions.assertEquals(0, batch.countDocuments(BatchDocument.Status.QUEUED));
+        Assertions.assertEquals(0, batch.countDocuments(BatchDocument.Status.SIGNING));
+    }
+
+    @Test
+    void testNoMoreDocumentsThanDeclaredAreAdded() throws Exception {
+        var batch = new Batch(DOCUMENTS / 2);
+        batch.start(null);
+        var rejected = new AtomicInteger();
+
+        runConcurrently(i -> {
+            try {
+                batch.addJob(batch.getBatchId(), new NoopResponder(), "document-" + i);
+            } catch (BatchDocumentsExceededException e) {
+                rejected.incrementAndGet();
+            }
+        });
+
+        Assertions.assertEquals(DOCUMENTS / 2, batch.getAddedDocumentsCount());
+        Assertions.assertEquals(DOCUMENTS / 2, rejected.get());
+        Assertions.assertEquals(DOCUMENTS / 2, batch.countDocuments(BatchDocument.Status.QUEUED));
+    }
+
+    @Test
+    void testDocumentReportedFromManyThreadsIsCountedOnce() throws Exception {
+        var batch = new Batch(1);
+        batch.start(null);
+        var responder = new NoopResponder();
+        var document = batch.addJob(batch.getBatchId(), responder, "document");
+
+        runConcurrently(i -> {
+            if (i % 2 == 0)
+                batch.onJobSuccess(responder, "document");
+            else
+                batch.onJobFailure(responder, new DocumentNotSignedException("document"));
+        });
+
+        Assertions.assertEquals(1, batch.getProcessedDocumentsCount());
+        Assertions.assertTrue(document.getStatus().isFinished());
+        Assertions.assertTrue(document.getSigningTime().toNanos() >= 0);
+    }
+
+    @Test
+    void testUnknownResponderIsIgnored() {
+        var batch = new Batch(1);
+        batch.start(null);
+
+        batch.onJobFailure(new NoopResponder(), new DocumentNotSignedException("document"));
+        batch.onJobSuccess(new NoopResponder(), "document");
+
+        Assertions.assertEquals(0, batch.getProcessedDocumentsCount());
+        Assertions.assertTrue(batch.getDocuments().isEmpty());
+    }
+
+    @Test
+    void testFailureIsReportedWithDocumentName() {
+        var batch = new Batch(1);
+        batch.start(null);
+        var names = new ArrayList<String>();
+        batch.addListener(new BatchListener() {
+            @Override
+            public void onDocumentProcessed(Batch batch, String documentName, AutogramException error) {
+                names.add(documentName);
+            }
+
+            @Override
+            public void onBatchEnded(Batch batch) {
+            }
+        });
+        var responder = new NoopResponder();
+        batch.addJob(batch.getBatchId(), responder, "invoice.pdf");
+
+        batch.onJobFailure(responder, new DocumentNotSignedException("invoice.pdf"));
+
+        Assertions.assertEquals(List.of("invoice.pdf"), names);
+    }
+
+    @Test
+    void testFinishedDocumentsDoNotKeepTheirResponders() {
+        var batch = new Batch(3);
+        batch.start(null);
+        var signed = new NoopResponder();
+        var failed = new NoopResponder();
+        batch.addJob(batch.getBatchId(), signed, "signed.pdf");
+        batch.addJob(batch.getBatchId(), failed, "failed.pdf");
+        batch.addJob(batch.getBatchId(), new NoopResponder(), "queued.pdf");
+
+        batch.onJobSuccess(signed, "signed.pdf");
+        batch.onJobFailure(failed, new DocumentNotSignedException("failed.pdf"));
+        batch.onJobSuccess(signed, "signed.pdf");
+
+        Assertions.assertEquals(1, batch.getUnfinishedResponderCount());
+        Assertions.assertEquals(2, batch.getProcessedDocumentsCount());
+        Assertions.assertEquals(1, batch.countDocuments(BatchDocument.Status.QUEUED));
+    }
+
+    private interface Step {
+        void run(int document) throws Exception;
+    }
+
+    /**
+     * Runs the step for every document on many threads, all released at once.
+     */
+    private static void runConcurrently(Step step) throws Exception {
+        var executor = Executors.newFixedThreadPool(THREADS);
+        var start = new CountDownLatch(1);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < DOCUMENTS; i++) {
+                var document = i;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    step.run(document);
+                    return null;
+                }));
+            }
+
+            start.countDown();
+            for (var future : futures)
+                future.get(30, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static class NoopResponder extends Responder {
+        @Override
+        public void onDocumentSigned(SignedDocument signedDocument) {
+        }
+
+        @Override
+        public void onDocumentSignFailed(AutogramException error) {
+        }
+    }
+}
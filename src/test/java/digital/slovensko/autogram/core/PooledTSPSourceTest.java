@@ -0,0 +1,79 @@
+package digital.slovensko.autogram.core;
+
+import com.sun.net.httpserver.HttpServer;
+import eu.europa.esig.dss.enumerations.DigestAlgorithm;
+import eu.europa.esig.dss.model.TimestampBinary;
+import eu.europa.esig.dss.spi.exception.DSSExternalResourceException;
+import eu.europa.esig.dss.spi.x509.tsp.TSPSource;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class PooledTSPSourceTest {
+    @Test
+    void testFailsOverToNextTsaAndKeepsUsingIt() {
+        var calls = new ConcurrentHashMap<String, AtomicInteger>();
+        var source = new PooledTSPSource(List.of("http://a", "http://b"), url -> counting(calls, url,
+                url.equals("http://a") ? null : new TimestampBinary(new byte[]{1})), 0, 1, 0);
+
+        source.getTimeStampResponse(DigestAlgorithm.SHA256, new byte[32]);
+        source.getTimeStampResponse(DigestAlgorithm.SHA256, new byte[32]);
+
+        Assertions.assertEquals(1, calls.get("http://a").get());
+        Assertions.assertEquals(2, calls.get("http://b").get());
+    }
+
+    @Test
+    void testRetriesAreBounded() {
+        var calls = new ConcurrentHashMap<String, AtomicInteger>();
+        var source = new PooledTSPSource(List.of("http://a", "http://b"), url -> counting(calls, url, null), 2, 1, 0);
+
+        Assertions.assertThrows(DSSExternalResourceException.class,
+                () -> source.getTimeStampResponse(DigestAlgorithm.SHA256, new byte[32]));
+        Assertions.assertEquals(3, calls.get("http://a").get());
+        Assertions.assertEquals(3, calls.get("http://b").get());
+    }
+
+    @Test
+    void testHttpErrorOfTsaIsExternalResourceFailure() throws IOException {
+        var requests = new AtomicInteger();
+        var server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", exchange -> {
+            requests.incrementAndGet();
+            exchange.sendResponseHeaders(503, -1);
+            exchange.close();
+        });
+        server.start();
+
+        try {
+            var source = new PooledTSPSource(List.of("http://localhost:" + server.getAddress().getPort() + "/tsa"),
+                    Duration.ofSeconds(5), 1, 1);
+
+            Assertions.assertThrows(DSSExternalResourceException.class,
+                    () -> source.getTimeStampResponse(DigestAlgorithm.SHA256, new byte[32]));
+            Assertions.assertEquals(2, requests.get());
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    /**
+     * @param response null to fail every request
+     */
+    private static TSPSource counting(Map<String, AtomicInteger> calls, String url, TimestampBinary response) {
+        return (digestAlgorithm, digest) -> {
+            calls.computeIfAbsent(url, k -> new AtomicInteger()).incrementAndGet();
+            if (response == null)
+                throw new DSSExternalResourceException("TSA " + url + " is down");
+
+            return response;
+        };
+    }
+}
@@ -0,0 +1,56 @@
+package digital.slovensko.autogram.core;
+
+import digital.slovensko.autogram.core.errors.AutogramException;
+import digital.slovensko.autogram.core.errors.DocumentNotSignedException;
+import digital.slovensko.autogram.core.errors.TsaServerMisconfiguredException;
+import eu.europa.esig.dss.enumerations.MimeTypeEnum;
+import eu.europa.esig.dss.enumerations.SignatureForm;
+import eu.europa.esig.dss.enumerations.SignatureLevel;
+import eu.europa.esig.dss.model.InMemoryDocument;
+import eu.europa.esig.dss.validation.CommonCertificateVerifier;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+class SignatureExtenderTest {
+    @Test
+    void testLevelForForm() {
+        Assertions.assertEquals(SignatureLevel.XAdES_BASELINE_T, SignatureExtender.Level.BASELINE_T.forForm(SignatureForm.XAdES));
+        Assertions.assertEquals(SignatureLevel.CAdES_BASELINE_LT, SignatureExtender.Level.BASELINE_LT.forForm(SignatureForm.CAdES));
+        Assertions.assertEquals(SignatureLevel.PAdES_BASELINE_LT, SignatureExtender.Level.BASELINE_LT.forForm(SignatureForm.PAdES));
+    }
+
+    @Test
+    void testCreateWithoutTspSourceThrows() {
+        Assertions.assertThrows(TsaServerMisconfiguredException.class,
+                () -> SignatureExtender.create(SignatureExtender.Level.BASELINE_T, null));
+    }
+
+    @Test
+    void testUnsignedDocumentsAreRejected() throws IOException {
+        var extender = new SignatureExtender(SignatureExtender.Level.BASELINE_T, (digestAlgorithm, digest) -> null,
+                new CommonCertificateVerifier());
+
+        var pdf = new InMemoryDocument(getClass().getResourceAsStream("../sample.pdf").readAllBytes(), "sample.pdf",
+                MimeTypeEnum.PDF);
+        var asice = new InMemoryDocument(getClass().getResourceAsStream("../no_signatures.asice").readAllBytes(),
+                "no_signatures.asice", MimeTypeEnum.ASICE);
+
+        Assertions.assertThrows(DocumentNotSignedException.class, () -> extender.extend(pdf));
+        Assertions.assertThrows(DocumentNotSignedException.class, () -> extender.extend(asice));
+    }
+
+    @Test
+    void testBrokenDocumentsFailWithAutogramException() throws IOException {
+        var extender = new SignatureExtender(SignatureExtender.Level.BASELINE_T, (digestAlgorithm, digest) -> null,
+                new CommonCertificateVerifier());
+
+        var truncatedPdf = new InMemoryDocument("%PDF-1.7\n1 0 obj".getBytes(), "truncated.pdf", MimeTypeEnum.PDF);
+        var invalidAsice = new InMemoryDocument(getClass().getResourceAsStream("../invalid_asice.asice").readAllBytes(),
+                "invalid_asice.asice", MimeTypeEnum.ASICE);
+
+        Assertions.assertThrows(AutogramException.class, () -> extender.extend(truncatedPdf));
+        Assertions.assertThrows(AutogramException.class, () -> extender.extend(invalidAsice));
+    }
+}
@@ -0,0 +1,114 @@
+package digital.slovensko.autogram.core;
+
+import eu.europa.esig.dss.asic.xades.ASiCWithXAdESSignatureParameters;
+import eu.europa.esig.dss.asic.xades.signature.ASiCWithXAdESService;
+import eu.europa.esig.dss.enumerations.ASiCContainerType;
+import eu.europa.esig.dss.enumerations.DigestAlgorithm;
+import eu.europa.esig.dss.enumerations.SignatureLevel;
+import eu.europa.esig.dss.model.DSSDocument;
+import eu.europa.esig.dss.model.InMemoryDocument;
+import eu.europa.esig.dss.model.ToBeSigned;
+import eu.europa.esig.dss.pades.PAdESSignatureParameters;
+import eu.europa.esig.dss.pades.signature.PAdESService;
+import eu.europa.esig.dss.token.Pkcs12SignatureToken;
+import eu.europa.esig.dss.validation.CommonCertificateVerifier;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.security.KeyStore;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-document cost of building DSS services for every document, as {@link SigningJob} used to, against taking them
+ * from {@link SignatureServiceRegistry}. Both compute the data to sign, the part of signing done before the token.
+ * Run with {@code mvn test -Pbenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SignatureServiceBenchmark {
+    private DSSDocument xml;
+    private DSSDocument pdf;
+    private ASiCWithXAdESSignatureParameters asicParameters;
+    private PAdESSignatureParameters padesParameters;
+
+    @Setup
+    public void setUp() throws IOException {
+        var keystore = Objects.requireNonNull(getClass().getResource("/digital/slovensko/autogram/test.keystore")).getFile();
+        try (var token = new Pkcs12SignatureToken(keystore, new KeyStore.PasswordProtection("".toCharArray()))) {
+            var key = token.getKeys().get(0);
+
+            asicParameters = new ASiCWithXAdESSignatureParameters();
+            asicParameters.aSiC().setContainerType(ASiCContainerType.ASiC_E);
+            asicParameters.setSignatureLevel(SignatureLevel.XAdES_BASELINE_B);
+            asicParameters.setDigestAlgorithm(DigestAlgorithm.SHA256);
+            asicParameters.setSigningCertificate(key.getCertificate());
+            asicParameters.setCertificateChain(key.getCertificateChain());
+            asicParameters.setSignWithExpiredCertificate(true);
+
+            padesParameters = new PAdESSignatureParameters();
+            padesParameters.setSignatureLevel(SignatureLevel.PAdES_BASELINE_B);
+            padesParameters.setDigestAlgorithm(DigestAlgorithm.SHA256);
+            padesParameters.setSigningCertificate(key.getCertificate());
+            padesParameters.setCertificateChain(key.getCertificateChain());
+            padesParameters.setSignWithExpiredCertificate(true);
+        }
+
+        xml = new InMemoryDocument(resource("/digital/slovensko/autogram/general_agenda.xml"), "general_agenda.xml");
+        pdf = new InMemoryDocument(resource("/digital/slovensko/autogram/sample.pdf"), "sample.pdf");
+    }
+
+    @Benchmark
+    public ToBeSigned asicXAdESNewServicePerDocument() {
+        var service = new ASiCWithXAdESService(new CommonCertificateVerifier());
+        return service.getDataToSign(xml, asicParameters);
+    }
+
+    @Benchmark
+    public ToBeSigned asicXAdESSharedService() {
+        var service = SignatureServiceRegistry.getInstance().getASiCWithXAdESService(ASiCContainerType.ASiC_E, null);
+        return service.getDataToSign(xml, asicParameters);
+    }
+
+    @Benchmark
+    public ToBeSigned padesNewServicePerDocument() {
+        var service = new PAdESService(new CommonCertificateVerifier());
+        return service.getDataToSign(pdf, padesParameters);
+    }
+
+    @Benchmark
+    public ToBeSigned padesSharedService() {
+        var service = SignatureServiceRegistry.getInstance().getPAdESService(null);
+        return service.getDataToSign(pdf, padesParameters);
+    }
+
+    @Test
+    @Tag("Benchmark")
+    void runBenchmarks() throws RunnerException {
+        new Runner(new OptionsBuilder().include(SignatureServiceBenchmark.class.getName()).build()).run();
+    }
+
+    private static byte[] resource(String name) throws IOException {
+        try (var stream = SignatureServiceBenchmark.class.getResourceAsStream(name)) {
+            return stream.readAllBytes();
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package digital.slovensko.autogram.core;
+
+import eu.europa.esig.dss.enumerations.ASiCContainerType;
+import eu.europa.esig.dss.spi.x509.tsp.TSPSource;
+import eu.europa.esig.dss.validation.CommonCertificateVerifier;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+class SignatureServiceRegistryTest {
+    private final SignatureServiceRegistry registry = SignatureServiceRegistry.getInstance();
+
+    @Test
+    void testServiceIsSharedPerTspSource() {
+        var tspSource = Mockito.mock(TSPSource.class);
+        var otherTspSource = Mockito.mock(TSPSource.class);
+
+        var service = registry.getASiCWithXAdESService(ASiCContainerType.ASiC_E, tspSource);
+
+        Assertions.assertSame(service, registry.getASiCWithXAdESService(ASiCContainerType.ASiC_E, tspSource));
+        Assertions.assertNotSame(service, registry.getASiCWithXAdESService(ASiCContainerType.ASiC_E, otherTspSource));
+        Assertions.assertNotSame(service, registry.getASiCWithXAdESService(ASiCContainerType.ASiC_E, null));
+        Assertions.assertNotSame(service, registry.getASiCWithXAdESService(ASiCContainerType.ASiC_S, tspSource));
+        Assertions.assertSame(registry.getPAdESService(null), registry.getPAdESService(null));
+    }
+
+    @Test
+    void testServiceIsSharedPerCertificateVerifier() {
+        var tspSource = Mockito.mock(TSPSource.class);
+        var verifier = new CommonCertificateVerifier();
+
+        var service = registry.getXAdESService(tspSource, verifier);
+
+        Assertions.assertSame(service, registry.getXAdESService(tspSource, verifier));
+        Assertions.assertNotSame(service, registry.getXAdESService(tspSource, new CommonCertificateVerifier()));
+        Assertions.assertNotSame(service, registry.getXAdESService(tspSource, registry.getCertificateVerifier()));
+        Assertions.assertSame(registry.getPAdESService(tspSource),
+                registry.getPAdESService(tspSource, registry.getCertificateVerifier()));
+    }
+
+    @Test
+    void testConcurrentJobsEndUpWithOneService() throws InterruptedException {
+        var tspSource = Mockito.mock(TSPSource.class);
+        registry.getCAdESService();
+
+        var services = ConcurrentHashMap.newKeySet();
+        var executor = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 1000; i++)
+            executor.execute(() -> {
+                services.add(registry.getCAdESService());
+                registry.getASiCWithCAdESService(ASiCContainerType.ASiC_E, tspSource);
+            });
+        executor.shutdown();
+
+        Assertions.assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        Assertions.assertEquals(1, services.size());
+    }
+}
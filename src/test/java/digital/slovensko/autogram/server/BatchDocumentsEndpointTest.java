@@ -0,0 +1,230 @@
+package digital.slovensko.autogram.server;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.sun.net.httpserver.HttpServer;
+import digital.slovensko.autogram.core.Autogram;
+import digital.slovensko.autogram.core.Batch;
+import digital.slovensko.autogram.core.SignedDocument;
+import digital.slovensko.autogram.core.SigningJob;
+import digital.slovensko.autogram.core.errors.BatchInvalidIdException;
+import digital.slovensko.autogram.core.errors.SigningCanceledByUserException;
+import eu.europa.esig.dss.model.x509.CertificateToken;
+import eu.europa.esig.dss.token.Pkcs12SignatureToken;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.Socket;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyStore;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+
+class BatchDocumentsEndpointTest {
+    private static final String DOCUMENT = "{\"document\":{\"filename\":\"%s\",\"content\":\"aGVsbG8=\"},"
+            + "\"parameters\":{\"level\":\"CAdES_BASELINE_B\",\"container\":\"ASiC_E\"},"
+            + "\"payloadMimeType\":\"text/plain;base64\"}";
+    private static final String WITHOUT_MIME_TYPE = "{\"document\":{\"filename\":\"note.txt\",\"content\":\"aGVsbG8=\"},"
+            + "\"parameters\":{\"level\":\"CAdES_BASELINE_B\",\"container\":\"ASiC_E\"}}";
+
+    private static final int LARGE_REQUEST_DOCUMENTS = 64;
+
+    private static CertificateToken certificate;
+    private HttpServer server;
+    private Batch batch;
+
+    @BeforeAll
+    static void loadCertificate() throws IOException {
+        var keystore = Objects.requireNonNull(BatchDocumentsEndpointTest.class.getResource("../test.keystore"))
+                .getFile();
+        try (var token = new Pkcs12SignatureToken(keystore, new KeyStore.PasswordProtection("".toCharArray()))) {
+            certificate = token.getKeys().get(0).getCertificate();
+        }
+    }
+
+    @BeforeEach
+    void startServer() throws IOException {
+        batch = new Batch(LARGE_REQUEST_DOCUMENTS);
+        batch.start(null);
+
+        var autogram = Mockito.mock(Autogram.class);
+        Mockito.when(autogram.getBatch(batch.getBatchId())).thenReturn(batch);
+        Mockito.when(autogram.getBatch("unknown")).thenThrow(new BatchInvalidIdException());
+        Mockito.doAnswer(invocation -> {
+            SigningJob job = invocation.getArgument(0);
+            batch.addJob(batch.getBatchId(), job.getResponder(), job.getDocument().getName());
+            if (job.getDocument().getName().startsWith("cancel"))
+                job.onDocumentSignFailed(new SigningCanceledByUserException());
+            else
+                job.getResponder().onDocumentSigned(new SignedDocument(job.getDocument(), certificate));
+
+            return null;
+        }).when(autogram).batchSign(Mockito.any(), Mockito.eq(batch.getBatchId()));
+
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/batch/", new BatchDocumentsEndpoint(autogram, new IdempotencyStore(16, 60_000, 1024)));
+        server.start();
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    void testEveryDocumentOfNdjsonGetsItsLine() throws Exception {
+        var body = DOCUMENT.formatted("first.txt") + "\n"
+                + WITHOUT_MIME_TYPE + "\n"
+                + DOCUMENT.formatted("cancel.txt") + "\n"
+                + DOCUMENT.formatted("last.txt") + "\n";
+
+        var lines = post(body);
+
+        Assertions.assertEquals(4, lines.size());
+        Assertions.assertTrue(lines.get(0).has("content"));
+        Assertions.assertTrue(lines.get(0).get("signedBy").getAsString().length() > 0);
+        Assertions.assertEquals("UNPROCESSABLE_INPUT", lines.get(1).get("code").getAsString(),
+                lines.get(1).toString());
+        Assertions.assertEquals("USER_CANCELLED", lines.get(2).get("code").getAsString(), lines.get(2).toString());
+        Assertions.assertTrue(lines.get(3).has("content"));
+        Assertions.assertEquals(3, batch.getProcessedDocumentsCount());
+    }
+
+    @Test
+    void testDocumentsInJsonArrayAreSigned() throws Exception {
+        var body = "[" + DOCUMENT.formatted("first.txt") + "," + DOCUMENT.formatted("second.txt") + "]";
+
+        var lines = post(body);
+
+        Assertions.assertEquals(2, lines.size());
+        Assertions.assertTrue(lines.get(0).has("content"));
+        Assertions.assertTrue(lines.get(1).has("content"));
+    }
+
+    @Test
+    void testMalformedLineEndsTheStreamWithErrorLine() throws Exception {
+        var body = DOCUMENT.formatted("first.txt") + "\n{\"document\": [\n";
+
+        var lines = post(body);
+
+        Assertions.assertEquals(2, lines.size());
+        Assertions.assertTrue(lines.get(0).has("content"));
+        Assertions.assertEquals(1, lines.get(1).get("index").getAsInt());
+        Assertions.assertEquals("MALFORMED_INPUT", lines.get(1).get("code").getAsString(), lines.get(1).toString());
+    }
+
+    @Test
+    void testUnknownBatchIsAnsweredWithError() throws Exception {
+        var response = HttpClient.newHttpClient().send(
+                HttpRequest.newBuilder(URI.create(baseUri() + "/batch/unknown/documents"))
+                        .POST(HttpRequest.BodyPublishers.ofString(DOCUMENT.formatted("first.txt")))
+                        .build(),
+                HttpResponse.BodyHandlers.ofString());
+
+        Assertions.assertEquals(404, response.statusCode());
+        Assertions.assertTrue(response.body().contains("BATCH_NOT_FOUND"));
+    }
+
+    @Test
+    void testClientReadingOnlyAfterUploadGetsAllLines() throws Exception {
+        // far over the socket buffers, lines written while the client is still sending would never be read
+        var content = Base64.getEncoder().encodeToString(new byte[128 * 1024]);
+        var body = new StringBuilder();
+        for (int i = 0; i < LARGE_REQUEST_DOCUMENTS; i++)
+            body.append(DOCUMENT.formatted("document-" + i + ".txt").replace("aGVsbG8=", content)).append('\n');
+        var bodyBytes = body.toString().getBytes(StandardCharsets.UTF_8);
+
+        try (var socket = new Socket()) {
+            socket.setSendBufferSize(8 * 1024);
+            socket.setReceiveBufferSize(8 * 1024);
+            socket.setSoTimeout(60_000);
+            socket.connect(server.getAddress());
+
+            var out = socket.getOutputStream();
+            out.write(("POST /batch/" + batch.getBatchId() + "/documents HTTP/1.1\r\n"
+                    + "Host: localhost\r\n"
+                    + "Content-Type: application/x-ndjson\r\n"
+                    + "Content-Length: " + bodyBytes.length + "\r\n"
+                    + "Connection: close\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+            out.write(bodyBytes);
+            out.flush();
+
+            var response = readChunkedBody(socket.getInputStream());
+            var lines = response.lines().map(line -> JsonParser.parseString(line).getAsJsonObject()).toList();
+
+            Assertions.assertEquals(LARGE_REQUEST_DOCUMENTS, lines.size());
+            Assertions.assertTrue(lines.stream().allMatch(line -> line.has("content")));
+        }
+    }
+
+    private static String readChunkedBody(InputStream in) throws IOException {
+        var input = new DataInputStream(new BufferedInputStream(in));
+        var statusLine = readLine(input);
+        Assertions.assertTrue(statusLine.startsWith("HTTP/1.1 200"), statusLine);
+        while (!readLine(input).isEmpty()) {
+            // headers
+        }
+
+        var body = new ByteArrayOutputStream();
+        for (var size = Integer.parseInt(readLine(input).strip(), 16); size > 0;
+                size = Integer.parseInt(readLine(input).strip(), 16)) {
+            body.write(input.readNBytes(size));
+            readLine(input);
+        }
+
+        return body.toString(StandardCharsets.UTF_8);
+    }
+
+    private static String readLine(DataInputStream input) throws IOException {
+        var line = new StringBuilder();
+        for (int b = input.read(); b != '\n'; b = input.read()) {
+            if (b < 0)
+                throw new EOFException();
+            if (b != '\r')
+                line.append((char) b);
+        }
+
+        return line.toString();
+    }
+
+    /**
+     * @return lines of the response ordered by index of the document
+     */
+    private List<JsonObject> post(String body) throws Exception {
+        var response = HttpClient.newHttpClient().send(
+                HttpRequest.newBuilder(URI.create(baseUri() + "/batch/" + batch.getBatchId() + "/documents"))
+                        .header("Content-Type", "application/x-ndjson")
+                        .POST(HttpRequest.BodyPublishers.ofString(body))
+                        .build(),
+                HttpResponse.BodyHandlers.ofLines());
+
+        Assertions.assertEquals(200, response.statusCode());
+        Assertions.assertEquals("application/x-ndjson", response.headers().firstValue("Content-Type").orElse(null));
+
+        return response.body()
+                .map(line -> JsonParser.parseString(line).getAsJsonObject())
+                .sorted(Comparator.comparingInt(line -> line.get("index").getAsInt()))
+                .toList();
+    }
+
+    private String baseUri() {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+}
@@ -0,0 +1,111 @@
+package digital.slovensko.autogram.server;
+
+import com.sun.net.httpserver.HttpServer;
+import digital.slovensko.autogram.core.Autogram;
+import digital.slovensko.autogram.core.Batch;
+import digital.slovensko.autogram.core.Responder;
+import digital.slovensko.autogram.core.SignedDocument;
+import digital.slovensko.autogram.core.errors.AutogramException;
+import digital.slovensko.autogram.core.errors.DocumentNotSignedException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+class BatchEventsEndpointTest {
+    private HttpServer server;
+    private final Batch batch = new Batch(3);
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    void testEventsAreStreamedUntilBatchEnds() throws Exception {
+        start(Executors.newSingleThreadExecutor(), 16);
+        var lines = HttpClient.newHttpClient().send(request(), HttpResponse.BodyHandlers.ofLines()).body().iterator();
+        // stream is registered as listener before the progress event is sent
+        Assertions.assertEquals("event: progress", lines.next());
+
+        var signed = addJob("a.pdf");
+        var failed = addJob("b.pdf");
+        batch.onJobSuccess(signed, "a.pdf");
+        batch.onJobFailure(failed, new DocumentNotSignedException("b.pdf"));
+        batch.end();
+
+        var rest = new ArrayList<String>();
+        lines.forEachRemaining(rest::add);
+        var body = String.join("\n", rest);
+        Assertions.assertEquals(List.of("document", "document", "end"), events(body));
+        Assertions.assertTrue(body.contains("\"filename\":\"a.pdf\""));
+        Assertions.assertTrue(body.contains("\"status\":\"FAILED\",\"filename\":\"b.pdf\""));
+    }
+
+    @Test
+    void testSlowClientIsDisconnectedWithoutBlockingBatch() throws Exception {
+        // writer that never gets to run, as if the client did not read
+        var stalled = new CopyOnWriteArrayList<Runnable>();
+        start(stalled::add, 2);
+        var response = HttpClient.newHttpClient().sendAsync(request(), HttpResponse.BodyHandlers.ofString());
+        // progress event is queued once the stream is registered as listener
+        for (int i = 0; i < 500 && stalled.isEmpty(); i++)
+            Thread.sleep(10);
+
+        for (var name : List.of("a.pdf", "b.pdf", "c.pdf"))
+            batch.onJobSuccess(addJob(name), name);
+
+        Assertions.assertEquals(3, batch.getSuccessfulDocumentsCount());
+        Assertions.assertEquals("", response.get(10, TimeUnit.SECONDS).body());
+
+        // queued writes find the stream closed
+        stalled.forEach(Runnable::run);
+        batch.end();
+    }
+
+    private void start(Executor writers, int queueCapacity) throws IOException {
+        batch.start(null);
+        var autogram = Mockito.mock(Autogram.class);
+        Mockito.when(autogram.getBatch(batch.getBatchId())).thenReturn(batch);
+
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/batch/", new BatchEventsEndpoint(autogram, writers, queueCapacity));
+        server.start();
+    }
+
+    private Responder addJob(String name) {
+        var responder = new Responder() {
+            @Override
+            public void onDocumentSigned(SignedDocument signedDocument) {
+            }
+
+            @Override
+            public void onDocumentSignFailed(AutogramException error) {
+            }
+        };
+        batch.addJob(batch.getBatchId(), responder, name);
+        return responder;
+    }
+
+    private HttpRequest request() {
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + server.getAddress().getPort() + "/batch/"
+                + batch.getBatchId() + "/events")).build();
+    }
+
+    private static List<String> events(String body) {
+        return body.lines().filter(line -> line.startsWith("event: ")).map(line -> line.substring(7)).toList();
+    }
+}
@@ -0,0 +1,37 @@
+package digital.slovensko.autogram.server;
+
+import com.google.gson.Gson;
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import digital.slovensko.autogram.server.dto.SignResponse;
+import eu.europa.esig.dss.model.InMemoryDocument;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Random;
+
+import static org.mockito.Mockito.*;
+
+class EndpointUtilsTest {
+    @Test
+    void testRespondWithSignedDocumentMatchesSignResponse() throws Exception {
+        var content = new byte[200_001];
+        new Random(42).nextBytes(content);
+
+        var body = new ByteArrayOutputStream();
+        var exchange = mock(HttpExchange.class);
+        when(exchange.getResponseHeaders()).thenReturn(new Headers());
+        when(exchange.getResponseBody()).thenReturn(body);
+
+        var signedBy = "CN=Ján Novák, C=SK";
+        var issuedBy = "CN=SVK eID ACA2, O=Disig a.s.";
+        EndpointUtils.respondWithSignedDocument(new InMemoryDocument(content), signedBy, issuedBy, exchange);
+
+        verify(exchange).sendResponseHeaders(200, 0);
+        var expected = new Gson().toJson(new SignResponse(Base64.getEncoder().encodeToString(content), signedBy, issuedBy));
+        Assertions.assertEquals(expected, body.toString(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,125 @@
+package digital.slovensko.autogram.server;
+
+import digital.slovensko.autogram.core.Responder;
+import digital.slovensko.autogram.core.SignedDocument;
+import digital.slovensko.autogram.core.errors.AutogramException;
+import digital.slovensko.autogram.core.errors.SigningCanceledByUserException;
+import eu.europa.esig.dss.model.InMemoryDocument;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+class IdempotencyStoreTest {
+    @Test
+    void testDuplicateIsAnsweredWithResultOfOriginal() {
+        var store = new IdempotencyStore(10, 60_000, 1000);
+        var original = store.claim("key");
+        var originalResponder = new CollectingResponder();
+        var recording = IdempotencyStore.recording(original, originalResponder);
+
+        var duplicate = store.claim("key");
+        var duplicateResponder = new CollectingResponder();
+        IdempotencyStore.replay(duplicate, duplicateResponder);
+
+        Assertions.assertTrue(original.isNew());
+        Assertions.assertFalse(duplicate.isNew());
+        Assertions.assertTrue(duplicateResponder.signed.isEmpty());
+
+        var signedDocument = new SignedDocument(new InMemoryDocument(new byte[]{1}), null);
+        recording.onDocumentSigned(signedDocument);
+
+        Assertions.assertEquals(List.of(signedDocument), originalResponder.signed);
+        Assertions.assertEquals(List.of(signedDocument), duplicateResponder.signed);
+
+        var retry = new CollectingResponder();
+        IdempotencyStore.replay(store.claim("key"), retry);
+        Assertions.assertEquals(List.of(signedDocument), retry.signed);
+    }
+
+    @Test
+    void testFailedRequestIsForgotten() {
+        var store = new IdempotencyStore(10, 60_000, 1000);
+        var original = store.claim("key");
+        var duplicateResponder = new CollectingResponder();
+        IdempotencyStore.replay(store.claim("key"), duplicateResponder);
+
+        IdempotencyStore.recording(original, new CollectingResponder())
+                .onDocumentSignFailed(new SigningCanceledByUserException());
+
+        Assertions.assertEquals(1, duplicateResponder.failed.size());
+        Assertions.assertTrue(store.claim("key").isNew());
+    }
+
+    @Test
+    void testAbandonedRequestReleasesDuplicates() {
+        var store = new IdempotencyStore(10, 60_000, 1000);
+        var original = store.claim("key");
+        var duplicateResponder = new CollectingResponder();
+        IdempotencyStore.replay(store.claim("key"), duplicateResponder);
+
+        IdempotencyStore.abandon(original, new IllegalStateException("batch ended"));
+
+        Assertions.assertEquals(1, duplicateResponder.failed.size());
+    }
+
+    @Test
+    void testFullStoreOfPendingRequestsDoesNotDeduplicate() {
+        var store = new IdempotencyStore(1, 60_000, 1000);
+        store.claim("first");
+
+        Assertions.assertTrue(store.claim("second").isNew());
+        Assertions.assertTrue(store.claim("second").isNew());
+        Assertions.assertFalse(store.claim("first").isNew());
+    }
+
+    @Test
+    void testRequestWithoutKeyIsNotDeduplicated() {
+        var store = new IdempotencyStore(10, 60_000, 1000);
+
+        Assertions.assertNull(IdempotencyStore.buildKey(null, null));
+        Assertions.assertTrue(store.claim(null).isNew());
+        Assertions.assertTrue(store.claim(null).isNew());
+    }
+
+    @Test
+    void testResultsAreBoundedByBytes() {
+        var store = new IdempotencyStore(10, 60_000, 1000);
+        sign(store, "first", 600);
+        sign(store, "second", 600);
+
+        Assertions.assertEquals(600, store.getStoredBytes());
+        Assertions.assertTrue(store.claim("first").isNew());
+        Assertions.assertFalse(store.claim("second").isNew());
+    }
+
+    @Test
+    void testResultOverLimitIsNotKept() {
+        var store = new IdempotencyStore(10, 60_000, 1000);
+        sign(store, "key", 1001);
+
+        Assertions.assertEquals(0, store.getStoredBytes());
+        Assertions.assertTrue(store.claim("key").isNew());
+    }
+
+    private static void sign(IdempotencyStore store, String key, int bytes) {
+        IdempotencyStore.recording(store.claim(key), new CollectingResponder())
+                .onDocumentSigned(new SignedDocument(new InMemoryDocument(new byte[bytes]), null));
+    }
+
+    private static class CollectingResponder extends Responder {
+        private final List<SignedDocument> signed = new ArrayList<>();
+        private final List<AutogramException> failed = new ArrayList<>();
+
+        @Override
+        public void onDocumentSigned(SignedDocument signedDocument) {
+            signed.add(signedDocument);
+        }
+
+        @Override
+        public void onDocumentSignFailed(AutogramException error) {
+            failed.add(error);
+        }
+    }
+}
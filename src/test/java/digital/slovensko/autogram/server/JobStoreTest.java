@@ -0,0 +1,101 @@
+package digital.slovensko.autogram.server;
+
+import digital.slovensko.autogram.core.SignedDocument;
+import digital.slovensko.autogram.core.errors.SigningCanceledByUserException;
+import digital.slovensko.autogram.server.errors.JobNotFoundException;
+import digital.slovensko.autogram.server.errors.ServerBusyException;
+import eu.europa.esig.dss.model.InMemoryDocument;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class JobStoreTest {
+    @Test
+    void testFullStoreEvictsOldestFinishedJob() {
+        var store = new JobStore(2, 60_000, 1024);
+        var finished = store.create();
+        var pending = store.create();
+        finished.onDocumentSignFailed(new SigningCanceledByUserException());
+
+        var added = store.create();
+
+        Assertions.assertThrows(JobNotFoundException.class, () -> store.get(finished.getJobId()));
+        Assertions.assertSame(pending, store.get(pending.getJobId()));
+        Assertions.assertSame(added, store.get(added.getJobId()));
+    }
+
+    @Test
+    void testFullStoreOfPendingJobsIsBusy() {
+        var store = new JobStore(1, 60_000, 1024);
+        store.create();
+
+        Assertions.assertThrows(ServerBusyException.class, store::create);
+    }
+
+    @Test
+    void testFinishedJobExpires() throws InterruptedException {
+        var store = new JobStore(10, 0, 1024);
+        var job = store.create();
+        Assertions.assertEquals(AsyncJobStatus.PENDING, store.get(job.getJobId()).getStatus());
+
+        job.onDocumentSignFailed(new SigningCanceledByUserException());
+        Thread.sleep(5);
+
+        Assertions.assertThrows(JobNotFoundException.class, () -> store.get(job.getJobId()));
+    }
+
+    @Test
+    void testRemovedJobFreesItsPlace() {
+        var store = new JobStore(1, 60_000, 1024);
+        var rejected = store.create();
+
+        store.remove(rejected);
+
+        Assertions.assertThrows(JobNotFoundException.class, () -> store.get(rejected.getJobId()));
+        Assertions.assertNotNull(store.create());
+    }
+
+    @Test
+    void testSignedDocumentsOverBudgetEvictOldestJob() {
+        var store = new JobStore(10, 60_000, 1024);
+        var oldest = store.create();
+        var older = store.create();
+        var pending = store.create();
+        sign(oldest, 400);
+        sign(older, 400);
+
+        var newest = store.create();
+        sign(newest, 400);
+
+        Assertions.assertThrows(JobNotFoundException.class, () -> store.get(oldest.getJobId()));
+        Assertions.assertSame(older, store.get(older.getJobId()));
+        Assertions.assertSame(pending, store.get(pending.getJobId()));
+        Assertions.assertSame(newest, store.get(newest.getJobId()));
+        Assertions.assertEquals(800, store.getStoredBytes());
+    }
+
+    @Test
+    void testSignedDocumentOverBudgetFailsTheJob() {
+        var store = new JobStore(10, 60_000, 1024);
+        var job = store.create();
+
+        sign(job, 1025);
+
+        Assertions.assertEquals(AsyncJobStatus.FAILED, store.get(job.getJobId()).getStatus());
+        Assertions.assertEquals(413, job.getError().getStatusCode());
+        Assertions.assertEquals(0, store.getStoredBytes());
+    }
+
+    @Test
+    void testEvictedJobFreesItsBytes() {
+        var store = new JobStore(1, 60_000, 1024);
+        sign(store.create(), 1000);
+
+        sign(store.create(), 1000);
+
+        Assertions.assertEquals(1000, store.getStoredBytes());
+    }
+
+    private static void sign(AsyncJob job, int bytes) {
+        job.onDocumentSigned(new SignedDocument(new InMemoryDocument(new byte[bytes]), null));
+    }
+}
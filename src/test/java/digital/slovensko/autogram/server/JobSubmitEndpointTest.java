@@ -0,0 +1,74 @@
+package digital.slovensko.autogram.server;
+
+import com.sun.net.httpserver.HttpServer;
+import digital.slovensko.autogram.core.Autogram;
+import digital.slovensko.autogram.core.Batch;
+import digital.slovensko.autogram.core.errors.BatchEndedException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+class JobSubmitEndpointTest {
+    private static final int CAPACITY = 64;
+    private static final String DOCUMENT = "{\"document\":{\"filename\":\"note.txt\",\"content\":\"aGVsbG8=\"},"
+            + "\"parameters\":{\"level\":\"CAdES_BASELINE_B\",\"container\":\"ASiC_E\"},"
+            + "\"payloadMimeType\":\"text/plain;base64\"%s}";
+
+    private HttpServer server;
+    private JobStore jobStore;
+    private Batch batch;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        batch = new Batch(1);
+        batch.start(null);
+
+        var autogram = Mockito.mock(Autogram.class);
+        Mockito.when(autogram.getBatch(batch.getBatchId())).thenReturn(batch);
+        Mockito.doThrow(new BatchEndedException("Hromadné podpisovanie bolo ukončené"))
+                .when(autogram).batchSign(Mockito.any(), Mockito.eq(batch.getBatchId()));
+
+        jobStore = new JobStore(CAPACITY, 60_000, 1024);
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/jobs", new JobSubmitEndpoint(autogram, jobStore, new IdempotencyStore(16, 60_000, 1024)));
+        server.start();
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    void testRejectedSubmissionsDoNotFillTheStore() throws Exception {
+        var rejected = DOCUMENT.formatted(",\"batchId\":\"" + batch.getBatchId() + "\"");
+        for (int i = 0; i <= CAPACITY; i++) {
+            var response = post(rejected);
+            Assertions.assertEquals(400, response.statusCode(), response.body());
+            Assertions.assertTrue(response.body().contains("BATCH_ENDED"), response.body());
+        }
+
+        var response = post(DOCUMENT.formatted(""));
+
+        Assertions.assertEquals(202, response.statusCode(), response.body());
+        Assertions.assertTrue(response.headers().firstValue("Location").orElse("").startsWith("/jobs/"));
+    }
+
+    private HttpResponse<String> post(String body) throws IOException, InterruptedException {
+        return HttpClient.newHttpClient().send(
+                HttpRequest.newBuilder(URI.create("http://localhost:" + server.getAddress().getPort() + "/jobs"))
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(body))
+                        .build(),
+                HttpResponse.BodyHandlers.ofString());
+    }
+}
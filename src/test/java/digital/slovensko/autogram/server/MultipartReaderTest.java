@@ -0,0 +1,149 @@
+package digital.slovensko.autogram.server;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+class MultipartReaderTest {
+    private static final String BOUNDARY = "----autogram-boundary";
+
+    @Test
+    void testBoundaryIsTakenFromFormDataContentTypeOnly() {
+        Assertions.assertEquals("abc", MultipartReader.boundaryOf("multipart/form-data; boundary=abc"));
+        Assertions.assertEquals("a b", MultipartReader.boundaryOf("multipart/form-data; charset=utf-8; boundary=\"a b\""));
+        Assertions.assertNull(MultipartReader.boundaryOf("application/pdf"));
+        Assertions.assertNull(MultipartReader.boundaryOf("multipart/form-data"));
+        Assertions.assertNull(MultipartReader.boundaryOf(null));
+    }
+
+    @Test
+    void testPartsAreReadInOrder() throws IOException {
+        var document = new byte[200_000];
+        for (var i = 0; i < document.length; i++)
+            document[i] = (byte) i;
+
+        var body = new Body()
+                .preamble("ignored preamble")
+                .text("parameters", "application/json", "{\"level\":\"PAdES_BASELINE_B\"}")
+                .file("document", "form-data; name=\"document\"; filename=\"zmluva.pdf\"", "application/pdf", document)
+                .end();
+
+        // one byte at a time, so that delimiters are split across reads
+        var reader = new MultipartReader(new TrickleInputStream(body), BOUNDARY);
+
+        var parameters = reader.next();
+        Assertions.assertEquals("parameters", parameters.name());
+        Assertions.assertNull(parameters.filename());
+        Assertions.assertEquals("application/json", parameters.contentType());
+        Assertions.assertEquals("{\"level\":\"PAdES_BASELINE_B\"}",
+                new String(parameters.body().readAllBytes(), StandardCharsets.UTF_8));
+
+        var file = reader.next();
+        Assertions.assertEquals("document", file.name());
+        Assertions.assertEquals("zmluva.pdf", file.filename());
+        Assertions.assertEquals("application/pdf", file.contentType());
+        Assertions.assertArrayEquals(document, file.body().readAllBytes());
+
+        Assertions.assertNull(reader.next());
+    }
+
+    @Test
+    void testUnreadPartIsSkipped() throws IOException {
+        var body = new Body()
+                .text("first", null, "skipped\r\n--not-a-boundary")
+                .text("second", null, "read")
+                .end();
+
+        var reader = new MultipartReader(new ByteArrayInputStream(body), BOUNDARY);
+        reader.next();
+
+        Assertions.assertEquals("read", new String(reader.next().body().readAllBytes(), StandardCharsets.UTF_8));
+        Assertions.assertNull(reader.next());
+    }
+
+    @Test
+    void testExtendedFilenameIsDecoded() throws IOException {
+        var body = new Body()
+                .file("document", "form-data; name=\"document\"; filename=\"zmluva.pdf\"; filename*=UTF-8''n%C3%A1vrh+1.pdf",
+                        "application/pdf", new byte[]{1})
+                .end();
+
+        Assertions.assertEquals("návrh+1.pdf", new MultipartReader(new ByteArrayInputStream(body), BOUNDARY).next().filename());
+    }
+
+    @Test
+    void testBodyWithoutClosingBoundaryFails() throws IOException {
+        var body = ("--" + BOUNDARY + "\r\nContent-Disposition: form-data; name=\"document\"\r\n\r\ncut off")
+                .getBytes(StandardCharsets.UTF_8);
+
+        var part = new MultipartReader(new ByteArrayInputStream(body), BOUNDARY).next();
+
+        Assertions.assertThrows(IOException.class, () -> part.body().readAllBytes());
+    }
+
+    @Test
+    void testPartWithoutNameFails() {
+        var body = ("--" + BOUNDARY + "\r\nContent-Type: text/plain\r\n\r\nx\r\n--" + BOUNDARY + "--\r\n")
+                .getBytes(StandardCharsets.UTF_8);
+
+        Assertions.assertThrows(IOException.class, () -> new MultipartReader(new ByteArrayInputStream(body), BOUNDARY).next());
+    }
+
+    /**
+     * Builds a multipart body with {@link #BOUNDARY}.
+     */
+    static class Body {
+        private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        Body preamble(String text) {
+            write(text + "\r\n");
+            return this;
+        }
+
+        Body text(String name, String contentType, String value) {
+            write("--" + BOUNDARY + "\r\nContent-Disposition: form-data; name=\"" + name + "\"\r\n");
+            if (contentType != null)
+                write("Content-Type: " + contentType + "\r\n");
+
+            write("\r\n" + value + "\r\n");
+            return this;
+        }
+
+        Body file(String name, String disposition, String contentType, byte[] content) {
+            write("--" + BOUNDARY + "\r\nContent-Disposition: " + disposition + "\r\n");
+            if (contentType != null)
+                write("Content-Type: " + contentType + "\r\n");
+
+            write("\r\n");
+            out.writeBytes(content);
+            write("\r\n");
+            return this;
+        }
+
+        byte[] end() {
+            write("--" + BOUNDARY + "--\r\n");
+            return out.toByteArray();
+        }
+
+        private void write(String text) {
+            out.writeBytes(text.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private static class TrickleInputStream extends FilterInputStream {
+        TrickleInputStream(byte[] content) {
+            super(new ByteArrayInputStream(content));
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            return super.read(b, off, Math.min(len, 1));
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package digital.slovensko.autogram.server;
+
+import com.sun.net.httpserver.HttpServer;
+import digital.slovensko.autogram.server.dto.ErrorResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+
+class RawSignEndpointTest {
+    private HttpServer server;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/sign/raw", exchange -> {
+            try {
+                var body = RawSignEndpoint.loadRawBody(exchange);
+                body.validateDocument();
+                body.validateSigningParameters();
+
+                var document = body.getDocument();
+                var summary = document.getName() + "|" + document.getMimeType().getMimeTypeString() + "|"
+                        + body.getBatchId() + "|" + body.getParameters(null, false).getLevel() + "|"
+                        + new String(document.openStream().readAllBytes(), StandardCharsets.UTF_8);
+                var bytes = summary.getBytes(StandardCharsets.UTF_8);
+                exchange.sendResponseHeaders(200, bytes.length);
+                exchange.getResponseBody().write(bytes);
+                exchange.close();
+            } catch (Exception e) {
+                EndpointUtils.respondWithError(ErrorResponse.buildFromException(e), exchange);
+            }
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    void testDocumentAndParametersAreReadFromParts() throws Exception {
+        // over the 8 KB header limit of Jetty, which parameters sent in a header hit with schema and transformation
+        var parameters = "{\"level\":\"CAdES_BASELINE_B\",\"container\":\"ASiC_E\"" + " ".repeat(20_000) + "}";
+        var body = new MultipartReaderTest.Body()
+                .text("parameters", "application/json", parameters)
+                .text("batchId", null, "batch-1")
+                .file("document", "form-data; name=\"document\"; filename=\"note.txt\"", "text/plain",
+                        "hello".getBytes(StandardCharsets.UTF_8))
+                .end();
+
+        var response = post("multipart/form-data; boundary=----autogram-boundary", body);
+
+        Assertions.assertEquals(200, response.statusCode(), response.body());
+        Assertions.assertEquals("note.txt|text/plain|batch-1|CAdES-BASELINE-B|hello", response.body());
+    }
+
+    @Test
+    void testRequestWithoutMultipartIsRejected() throws Exception {
+        var response = post("application/pdf", new byte[]{1, 2, 3});
+
+        Assertions.assertEquals(422, response.statusCode());
+        Assertions.assertTrue(response.body().contains("multipart/form-data"));
+    }
+
+    @Test
+    void testRequestWithoutDocumentIsEmpty() throws Exception {
+        var body = new MultipartReaderTest.Body()
+                .text("parameters", "application/json", "{\"level\":\"CAdES_BASELINE_B\"}")
+                .end();
+
+        var response = post("multipart/form-data; boundary=----autogram-boundary", body);
+
+        Assertions.assertEquals(400, response.statusCode());
+    }
+
+    private HttpResponse<String> post(String contentType, byte[] body) throws IOException, InterruptedException {
+        var request = HttpRequest.newBuilder(URI.create("http://localhost:" + server.getAddress().getPort() + "/sign/raw"))
+                .header("Content-Type", contentType)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+                .build();
+
+        return HttpClient.newHttpClient().send(request, HttpResponse.BodyHandlers.ofString());
+    }
+}
@@ -0,0 +1,104 @@
+package digital.slovensko.autogram.server;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class ServerExecutorTest {
+    private ServerExecutor executor;
+
+    @AfterEach
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void testRequestsOverLimitAreRejectedWithoutWaiting() throws InterruptedException {
+        executor = new ServerExecutor(4, 16, 2, false);
+        var release = new CountDownLatch(1);
+        var admitted = new CountDownLatch(2);
+        var rejected = new CountDownLatch(3);
+        var admittedCount = new AtomicInteger();
+
+        for (int i = 0; i < 5; i++) {
+            executor.execute(() -> {
+                if (ServerExecutor.isRejecting()) {
+                    rejected.countDown();
+                    return;
+                }
+
+                admittedCount.incrementAndGet();
+                admitted.countDown();
+                await(release);
+            });
+        }
+
+        Assertions.assertTrue(admitted.await(5, TimeUnit.SECONDS));
+        Assertions.assertTrue(rejected.await(5, TimeUnit.SECONDS));
+        Assertions.assertEquals(2, admittedCount.get());
+        release.countDown();
+    }
+
+    @Test
+    void testPermitIsReleasedWhenRequestEnds() throws InterruptedException {
+        executor = new ServerExecutor(1, 1, 1, false);
+
+        for (int i = 0; i < 3; i++) {
+            var done = new CountDownLatch(1);
+            var wasRejecting = new AtomicInteger(-1);
+            executor.execute(() -> {
+                wasRejecting.set(ServerExecutor.isRejecting() ? 1 : 0);
+                done.countDown();
+            });
+
+            Assertions.assertTrue(done.await(5, TimeUnit.SECONDS));
+            Assertions.assertEquals(0, wasRejecting.get());
+            Thread.sleep(50); // permit is released just after the task
+        }
+    }
+
+    @Test
+    void testFullQueueIsRejectedInsteadOfBlockingCaller() throws InterruptedException {
+        // limit over threads + queue, so that the queue fills first
+        executor = new ServerExecutor(1, 1, 10, false);
+        var release = new CountDownLatch(1);
+        var rejected = new CountDownLatch(1);
+
+        for (int i = 0; i < 3; i++) {
+            executor.execute(() -> {
+                if (ServerExecutor.isRejecting()) {
+                    rejected.countDown();
+                    return;
+                }
+
+                await(release);
+            });
+        }
+
+        Assertions.assertTrue(rejected.await(5, TimeUnit.SECONDS));
+        Assertions.assertFalse(ServerExecutor.isRejecting());
+        release.countDown();
+    }
+
+    @Test
+    void testFallsBackToPlatformThreadsWithoutVirtualThreads() throws InterruptedException {
+        executor = new ServerExecutor(1, 1, 1, true);
+        var done = new CountDownLatch(1);
+
+        executor.execute(done::countDown);
+
+        Assertions.assertTrue(done.await(5, TimeUnit.SECONDS));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
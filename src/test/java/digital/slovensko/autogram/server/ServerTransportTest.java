@@ -0,0 +1,147 @@
+package digital.slovensko.autogram.server;
+
+import com.sun.net.httpserver.Filter;
+import com.sun.net.httpserver.HttpExchange;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+class ServerTransportTest {
+    private static final long IDLE_TIMEOUT_MILLIS = 1000;
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private ServerTransport transport;
+
+    @AfterEach
+    void stop() {
+        if (transport != null)
+            transport.stop(0);
+
+        executor.shutdownNow();
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"jdk", "jetty"})
+    void testRequestIsRoutedToLongestContextThroughFilters(String name) throws Exception {
+        transport = start(name);
+        transport.createContext("/sign", exchange -> respond(exchange, 200, "sign"), List.of());
+        transport.createContext("/sign/raw", exchange -> respond(exchange, 200, "raw"), List.of(new HeaderFilter()));
+
+        var response = send(http11Client(), "/sign/raw?x=1", "body");
+
+        Assertions.assertEquals(200, response.statusCode());
+        Assertions.assertEquals("raw:/sign/raw?x=1:body", response.body());
+        Assertions.assertEquals("yes", response.headers().firstValue("X-Filtered").orElse(null));
+        Assertions.assertEquals("sign:/sign:body", send(http11Client(), "/sign", "body").body());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"jdk", "jetty"})
+    void testRequestInProgressFinishesOnStop(String name) throws Exception {
+        var handling = new CountDownLatch(1);
+        transport = start(name);
+        transport.createContext("/slow", exchange -> {
+            handling.countDown();
+            sleep(500);
+            respond(exchange, 200, "slow");
+        }, List.of());
+
+        var response = CompletableFuture.supplyAsync(() -> send(http11Client(), "/slow", ""));
+        Assertions.assertTrue(handling.await(5, TimeUnit.SECONDS));
+        transport.stop(5000);
+
+        Assertions.assertEquals(200, response.get(5, TimeUnit.SECONDS).statusCode());
+        transport = null;
+    }
+
+    @Test
+    void testJettySpeaksHttp2AndKeepsSlowRequestsPastIdleTimeout() throws Exception {
+        transport = start("jetty");
+        transport.createContext("/", exchange -> {
+            sleep(IDLE_TIMEOUT_MILLIS + 500);
+            respond(exchange, 200, exchange.getProtocol());
+        }, List.of());
+
+        var client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_2).build();
+        var request = HttpRequest.newBuilder(uri("/")).GET().build();
+        var response = client.send(request, HttpResponse.BodyHandlers.ofString());
+
+        Assertions.assertEquals(200, response.statusCode());
+        Assertions.assertEquals(HttpClient.Version.HTTP_2, response.version());
+    }
+
+    private ServerTransport start(String name) throws IOException {
+        var address = new InetSocketAddress("localhost", 0);
+        var transport = name.equals("jetty")
+                ? new JettyServerTransport(address, null, executor, IDLE_TIMEOUT_MILLIS)
+                : new JdkServerTransport(address, null, executor);
+        transport.start();
+
+        return transport;
+    }
+
+    /**
+     * JDK 17 client fails HTTP/2 streams in progress on GOAWAY, graceful stop is tested over HTTP/1.1.
+     */
+    private static HttpClient http11Client() {
+        return HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    }
+
+    private HttpResponse<String> send(HttpClient client, String path, String body) {
+        var request = HttpRequest.newBuilder(uri(path)).POST(HttpRequest.BodyPublishers.ofString(body)).build();
+        try {
+            return client.send(request, HttpResponse.BodyHandlers.ofString());
+        } catch (IOException | InterruptedException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + transport.getAddress().getPort() + path);
+    }
+
+    private static void respond(HttpExchange exchange, int status, String prefix) throws IOException {
+        var requestBody = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+        var body = (prefix + ":" + exchange.getRequestURI() + ":" + requestBody).getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(status, body.length);
+        exchange.getResponseBody().write(body);
+        exchange.close();
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static class HeaderFilter extends Filter {
+        @Override
+        public void doFilter(HttpExchange exchange, Chain chain) throws IOException {
+            exchange.getResponseHeaders().add("X-Filtered", "yes");
+            chain.doFilter(exchange);
+        }
+
+        @Override
+        public String description() {
+            return "Adds a header";
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package digital.slovensko.autogram.server;
+
+import com.sun.net.httpserver.HttpServer;
+import digital.slovensko.autogram.core.Autogram;
+import digital.slovensko.autogram.core.Batch;
+import digital.slovensko.autogram.core.Responder;
+import digital.slovensko.autogram.core.SignedDocument;
+import digital.slovensko.autogram.core.SigningJob;
+import digital.slovensko.autogram.core.errors.AutogramException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+
+class SignEndpointTest {
+    private HttpServer server;
+    private Batch batch;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        batch = new Batch(1);
+        batch.start(null);
+
+        var autogram = Mockito.mock(Autogram.class);
+        Mockito.when(autogram.getBatch(batch.getBatchId())).thenReturn(batch);
+        Mockito.doAnswer(invocation -> {
+            SigningJob job = invocation.getArgument(0);
+            batch.addJob(batch.getBatchId(), job.getResponder(), job.getDocument().getName());
+            return null;
+        }).when(autogram).batchSign(Mockito.any(), Mockito.eq(batch.getBatchId()));
+
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/sign", new SignEndpoint(autogram, new IdempotencyStore(16, 60_000, 1024)));
+        server.start();
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    void testRetryOfDocumentOverDeclaredCountIsAnswered() throws Exception {
+        batch.addJob(batch.getBatchId(), new NoopResponder(), "declared.txt");
+        var body = "{\"document\":{\"filename\":\"extra.txt\",\"content\":\"aGVsbG8=\"},"
+                + "\"parameters\":{\"level\":\"CAdES_BASELINE_B\",\"container\":\"ASiC_E\"},"
+                + "\"payloadMimeType\":\"text/plain;base64\",\"batchId\":\"" + batch.getBatchId() + "\"}";
+
+        for (int attempt = 0; attempt < 2; attempt++) {
+            var response = HttpClient.newHttpClient().send(
+                    HttpRequest.newBuilder(URI.create("http://localhost:" + server.getAddress().getPort() + "/sign"))
+                            .header("Content-Type", "application/json")
+                            .header(IdempotencyStore.KEY_HEADER, "extra-document")
+                            .timeout(Duration.ofSeconds(10))
+                            .POST(HttpRequest.BodyPublishers.ofString(body))
+                            .build(),
+                    HttpResponse.BodyHandlers.ofString());
+
+            Assertions.assertEquals(400, response.statusCode(), response.body());
+            Assertions.assertTrue(response.body().contains("BATCH_DOCUMENTS_EXCEEDED"), response.body());
+        }
+    }
+
+    private static class NoopResponder extends Responder {
+        @Override
+        public void onDocumentSigned(SignedDocument signedDocument) {
+        }
+
+        @Override
+        public void onDocumentSignFailed(AutogramException error) {
+        }
+    }
+}
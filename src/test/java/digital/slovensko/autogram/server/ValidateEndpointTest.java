@@ -0,0 +1,158 @@
+package digital.slovensko.autogram.server;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.sun.net.httpserver.HttpServer;
+import digital.slovensko.autogram.core.SignatureValidator;
+import eu.europa.esig.dss.detailedreport.jaxb.XmlDetailedReport;
+import eu.europa.esig.dss.model.DSSDocument;
+import eu.europa.esig.dss.simplereport.jaxb.XmlSimpleReport;
+import eu.europa.esig.dss.validation.reports.Reports;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+class ValidateEndpointTest {
+    private HttpServer server;
+    private WorkerPool workerPool;
+    private SignatureValidator validator;
+    private final AtomicReference<String> validatedContent = new AtomicReference<>();
+
+    @BeforeEach
+    void startServer() throws Exception {
+        validator = Mockito.mock(SignatureValidator.class);
+        Mockito.when(validator.awaitInitialization(Mockito.anyLong(), Mockito.any(TimeUnit.class))).thenReturn(true);
+        Mockito.when(validator.validate(Mockito.any(DSSDocument.class))).thenAnswer(invocation -> {
+            DSSDocument document = invocation.getArgument(0);
+            try (var stream = document.openStream()) {
+                validatedContent.set(new String(stream.readAllBytes(), StandardCharsets.UTF_8));
+            }
+
+            var simpleReport = new XmlSimpleReport();
+            simpleReport.setDocumentName(document.getName());
+            var reports = Mockito.mock(Reports.class);
+            Mockito.when(reports.getSimpleReportJaxb()).thenReturn(simpleReport);
+            Mockito.when(reports.getDetailedReportJaxb()).thenReturn(new XmlDetailedReport());
+            return reports;
+        });
+
+        workerPool = new WorkerPool(2, 4);
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/validate", new ValidateEndpoint(validator, workerPool));
+        server.start();
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+        workerPool.shutdown();
+    }
+
+    @Test
+    void testJsonBodyIsDecodedFromBase64() throws Exception {
+        var body = "{\"document\":{\"filename\":\"note.txt\",\"content\":\"aGVsbG8=\"}}";
+
+        var response = post("", "application/json; charset=utf-8", null, body.getBytes(StandardCharsets.UTF_8));
+
+        Assertions.assertEquals(200, response.statusCode(), response.body());
+        var json = JsonParser.parseString(response.body()).getAsJsonObject();
+        Assertions.assertEquals("note.txt", documentName(json));
+        Assertions.assertFalse(hasDetailedReport(json));
+        Assertions.assertEquals("hello", validatedContent.get());
+    }
+
+    @Test
+    void testRawBodyIsValidatedAsIs() throws Exception {
+        var response = post("", "application/pdf", "signed%20contract.pdf", "%PDF-raw".getBytes(StandardCharsets.UTF_8));
+
+        Assertions.assertEquals(200, response.statusCode(), response.body());
+        var json = JsonParser.parseString(response.body()).getAsJsonObject();
+        Assertions.assertEquals("signed contract.pdf", documentName(json));
+        Assertions.assertFalse(hasDetailedReport(json));
+        Assertions.assertEquals("%PDF-raw", validatedContent.get());
+    }
+
+    @Test
+    void testDetailedReportIsAddedOnlyWhenRequested() throws Exception {
+        var content = "%PDF-raw".getBytes(StandardCharsets.UTF_8);
+
+        for (var query : new String[]{"?detailedReport=true", "?other=1&detailedReport"}) {
+            var response = post(query, "application/pdf", "document.pdf", content);
+
+            Assertions.assertEquals(200, response.statusCode(), response.body());
+            var json = JsonParser.parseString(response.body()).getAsJsonObject();
+            Assertions.assertTrue(hasDetailedReport(json), query);
+        }
+
+        var response = post("?detailedReport=false", "application/pdf", "document.pdf", content);
+        var json = JsonParser.parseString(response.body()).getAsJsonObject();
+        Assertions.assertFalse(hasDetailedReport(json));
+    }
+
+    @Test
+    void testEmptyRawBodyIsRejected() throws Exception {
+        var response = post("", "application/pdf", null, new byte[0]);
+
+        Assertions.assertEquals(400, response.statusCode());
+        Assertions.assertTrue(response.body().contains("EMPTY_BODY"));
+    }
+
+    @Test
+    void testMalformedJsonBodyIsRejected() throws Exception {
+        var response = post("", "application/json", null, "{\"document\":".getBytes(StandardCharsets.UTF_8));
+
+        Assertions.assertEquals(400, response.statusCode());
+        Assertions.assertTrue(response.body().contains("MALFORMED_INPUT"));
+    }
+
+    @Test
+    void testUnsupportedDocumentIsUnprocessable() throws Exception {
+        Mockito.when(validator.validate(Mockito.any(DSSDocument.class))).thenReturn(null);
+
+        var response = post("", "text/plain", null, "hello".getBytes(StandardCharsets.UTF_8));
+
+        Assertions.assertEquals(422, response.statusCode());
+    }
+
+    @Test
+    void testBusyValidatorAsksToRetry() throws Exception {
+        Mockito.when(validator.awaitInitialization(Mockito.anyLong(), Mockito.any(TimeUnit.class))).thenReturn(false);
+
+        var response = post("", "application/pdf", null, "%PDF-raw".getBytes(StandardCharsets.UTF_8));
+
+        Assertions.assertEquals(503, response.statusCode());
+        Assertions.assertEquals("10", response.headers().firstValue("Retry-After").orElse(null));
+    }
+
+    private static String documentName(JsonObject response) {
+        return response.getAsJsonObject("simpleReport").get("documentName").getAsString();
+    }
+
+    private static boolean hasDetailedReport(JsonObject response) {
+        return response.has("detailedReport") && response.get("detailedReport").isJsonObject();
+    }
+
+    private HttpResponse<String> post(String query, String contentType, String filename, byte[] body)
+            throws IOException, InterruptedException {
+        var request = HttpRequest.newBuilder(
+                        URI.create("http://localhost:" + server.getAddress().getPort() + "/validate" + query))
+                .header("Content-Type", contentType)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body));
+        if (filename != null)
+            request.header(ValidateEndpoint.FILENAME_HEADER, filename);
+
+        return HttpClient.newHttpClient().send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+}
@@ -0,0 +1,180 @@
+package digital.slovensko.autogram.server;
+
+import com.google.gson.JsonObject;
+import com.sun.net.httpserver.HttpServer;
+import digital.slovensko.autogram.core.Autogram;
+import digital.slovensko.autogram.core.SigningJob;
+import digital.slovensko.autogram.core.UserSettings;
+import digital.slovensko.autogram.core.visualization.DocumentVisualizationBuilder;
+import digital.slovensko.autogram.util.Metrics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Objects;
+
+class VisualizeEndpointTest {
+    private static final byte[] PNG_SIGNATURE = {(byte) 0x89, 'P', 'N', 'G'};
+
+    private HttpServer server;
+    private WorkerPool workerPool;
+
+    @BeforeEach
+    void startServer() throws Exception {
+        var settings = UserSettings.load();
+        var autogram = Mockito.mock(Autogram.class);
+        Mockito.when(autogram.buildVisualization(Mockito.any())).thenAnswer(
+                invocation -> DocumentVisualizationBuilder.fromJob(invocation.<SigningJob>getArgument(0), settings));
+
+        workerPool = new WorkerPool(2, 4);
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/visualize", new VisualizeEndpoint(autogram, workerPool));
+        server.start();
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+        workerPool.shutdown();
+    }
+
+    @Test
+    void testEFormIsVisualizedAsHtml() throws Exception {
+        var response = post("", eFormRequest());
+
+        Assertions.assertEquals(200, response.statusCode(), new String(response.body(), StandardCharsets.UTF_8));
+        Assertions.assertTrue(response.headers().firstValue("Content-Type").orElse("").startsWith("text/html"));
+        Assertions.assertTrue(new String(response.body(), StandardCharsets.UTF_8).contains("<html"));
+        Assertions.assertTrue(response.headers().firstValue(VisualizeEndpoint.PAGE_COUNT_HEADER).isEmpty());
+    }
+
+    @Test
+    void testRepeatedEFormRequestHitsTransformationCache() throws Exception {
+        var request = eFormRequest();
+        Assertions.assertEquals(200, post("", request).statusCode());
+        var hits = cacheHits("transformation");
+
+        var response = post("", request);
+
+        Assertions.assertEquals(200, response.statusCode());
+        Assertions.assertEquals(hits + 1, cacheHits("transformation"));
+    }
+
+    @Test
+    void testPdfPageIsRenderedAsPng() throws Exception {
+        var response = post("?page=1&dpi=72", pdfRequest());
+
+        Assertions.assertEquals(200, response.statusCode(), new String(response.body(), StandardCharsets.UTF_8));
+        Assertions.assertEquals("image/png", response.headers().firstValue("Content-Type").orElse(null));
+        Assertions.assertArrayEquals(PNG_SIGNATURE, Arrays.copyOf(response.body(), PNG_SIGNATURE.length));
+        Assertions.assertEquals("1", response.headers().firstValue(VisualizeEndpoint.PAGE_COUNT_HEADER).orElse(null));
+    }
+
+    @Test
+    void testRepeatedPdfRequestHitsPageCache() throws Exception {
+        var request = pdfRequest();
+        var first = post("?page=1&dpi=72", request);
+        var hits = cacheHits("pdf_page");
+
+        var second = post("?page=1&dpi=72", request);
+
+        Assertions.assertEquals(200, second.statusCode());
+        Assertions.assertArrayEquals(first.body(), second.body());
+        Assertions.assertEquals(hits + 1, cacheHits("pdf_page"));
+    }
+
+    @Test
+    void testPageOutOfRangeIsRejected() throws Exception {
+        for (var query : new String[]{"?page=2", "?page=0"}) {
+            var response = post(query, pdfRequest());
+
+            Assertions.assertEquals(422, response.statusCode(), query);
+            Assertions.assertTrue(new String(response.body(), StandardCharsets.UTF_8).contains("UNPROCESSABLE_INPUT"));
+        }
+    }
+
+    @Test
+    void testInvalidDpiIsRejected() throws Exception {
+        for (var query : new String[]{"?dpi=1000", "?dpi=10", "?dpi=abc", "?page=1&dpi=-72"}) {
+            var response = post(query, pdfRequest());
+
+            Assertions.assertEquals(422, response.statusCode(), query);
+            Assertions.assertTrue(new String(response.body(), StandardCharsets.UTF_8).contains("UNPROCESSABLE_INPUT"));
+        }
+    }
+
+    private static String eFormRequest() throws IOException {
+        var parameters = new JsonObject();
+        parameters.addProperty("level", "XAdES_BASELINE_B");
+        parameters.addProperty("container", "ASiC_E");
+        parameters.addProperty("identifier", "id1/asa");
+        parameters.addProperty("transformation", resource("crystal_test_data/PovolenieZdravotnictvo.html.xslt"));
+        parameters.addProperty("packaging", "ENVELOPING");
+        parameters.addProperty("digestAlgorithm", "SHA256");
+
+        var document = new JsonObject();
+        document.addProperty("filename", "rozhodnutie_X4564-2.xml");
+        document.addProperty("content", resource("crystal_test_data/rozhodnutie_X4564-2.xml"));
+
+        return request(document, parameters, "application/xml");
+    }
+
+    private static String pdfRequest() throws IOException {
+        var parameters = new JsonObject();
+        parameters.addProperty("level", "PAdES_BASELINE_B");
+
+        var document = new JsonObject();
+        document.addProperty("filename", "sample.pdf");
+        document.addProperty("content", Base64.getEncoder().encodeToString(bytes("sample.pdf")));
+
+        return request(document, parameters, "application/pdf;base64");
+    }
+
+    private static String request(JsonObject document, JsonObject parameters, String payloadMimeType) {
+        var body = new JsonObject();
+        body.add("document", document);
+        body.add("parameters", parameters);
+        body.addProperty("payloadMimeType", payloadMimeType);
+        return body.toString();
+    }
+
+    private static String resource(String name) throws IOException {
+        return new String(bytes(name), StandardCharsets.UTF_8);
+    }
+
+    private static byte[] bytes(String name) throws IOException {
+        try (var stream = Objects.requireNonNull(VisualizeEndpointTest.class.getResourceAsStream("../" + name))) {
+            return stream.readAllBytes();
+        }
+    }
+
+    private static long cacheHits(String cache) {
+        var prefix = "autogram_cache_requests_total{cache=\"" + cache + "\",result=\"hit\"} ";
+        return Metrics.toPrometheusText().lines()
+                .filter(line -> line.startsWith(prefix))
+                .mapToLong(line -> Long.parseLong(line.substring(prefix.length())))
+                .findFirst()
+                .orElse(0);
+    }
+
+    private HttpResponse<byte[]> post(String query, String body) throws IOException, InterruptedException {
+        return HttpClient.newHttpClient().send(
+                HttpRequest.newBuilder(
+                                URI.create("http://localhost:" + server.getAddress().getPort() + "/visualize" + query))
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(body))
+                        .build(),
+                HttpResponse.BodyHandlers.ofByteArray());
+    }
+}
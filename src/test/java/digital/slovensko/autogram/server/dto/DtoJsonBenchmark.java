@@ -0,0 +1,122 @@
+package digital.slovensko.autogram.server.dto;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reflective Gson against {@link ServerJson} on the payloads of {@link SignRequestBodyTest}, run with
+ * {@code mvn test -Pbenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DtoJsonBenchmark {
+    private final Gson reflective = new Gson();
+    private final Gson compiled = ServerJson.gson();
+
+    @Param({"xdc", "xades", "pades"})
+    public String payload;
+
+    private String signRequestJson;
+    private SignResponse signResponse;
+
+    @Setup
+    public void setUp() throws IOException {
+        var parameters = new JsonObject();
+        var body = new JsonObject();
+        var document = new JsonObject();
+
+        switch (payload) {
+            case "xdc" -> {
+                parameters.addProperty("level", "XAdES_BASELINE_B");
+                parameters.addProperty("container", "ASiC_E");
+                parameters.addProperty("autoLoadEform", true);
+                document.addProperty("content", resource("xdc.xml"));
+                body.addProperty("payloadMimeType", "application/vnd.gov.sk.xmldatacontainer+xml");
+            }
+            case "xades" -> {
+                parameters.addProperty("level", "XAdES_BASELINE_B");
+                parameters.addProperty("container", "ASiC_E");
+                parameters.addProperty("containerXmlns", "http://data.gov.sk/def/container/xmldatacontainer+xml/1.1");
+                parameters.addProperty("identifier", "http://data.gov.sk/doc/eform/App.GeneralAgenda/1.9");
+                parameters.addProperty("schema", resource("../../general_agenda.xsd"));
+                parameters.addProperty("transformation", resource("../../general_agenda.xslt"));
+                parameters.addProperty("packaging", "ENVELOPING");
+                parameters.addProperty("digestAlgorithm", "SHA256");
+                document.addProperty("content", resource("../../general_agenda.xml"));
+                body.addProperty("payloadMimeType", "application/xml");
+            }
+            default -> {
+                parameters.addProperty("level", "PAdES_BASELINE_B");
+                parameters.addProperty("checkPDFACompliance", "true");
+                document.addProperty("filename", "sample.pdf");
+                document.addProperty("content", Base64.getEncoder().encodeToString(bytes("../../sample.pdf")));
+                body.addProperty("payloadMimeType", "application/pdf;base64");
+            }
+        }
+
+        body.add("document", document);
+        body.add("parameters", parameters);
+        signRequestJson = body.toString();
+        signResponse = new SignResponse(document.get("content").getAsString(), "CN=Signer", "CN=Issuer");
+    }
+
+    @Benchmark
+    public SignRequestBody readSignRequestReflective() {
+        return reflective.fromJson(signRequestJson, SignRequestBody.class);
+    }
+
+    @Benchmark
+    public SignRequestBody readSignRequestCompiled() {
+        return compiled.fromJson(signRequestJson, SignRequestBody.class);
+    }
+
+    @Benchmark
+    public String writeSignResponseReflective() {
+        return reflective.toJson(signResponse);
+    }
+
+    @Benchmark
+    public String writeSignResponseCompiled() {
+        return compiled.toJson(signResponse);
+    }
+
+    @Test
+    @Tag("Benchmark")
+    void runBenchmarks() throws RunnerException {
+        new Runner(new OptionsBuilder().include(DtoJsonBenchmark.class.getName()).build()).run();
+    }
+
+    private static String resource(String name) throws IOException {
+        return new String(bytes(name));
+    }
+
+    private static byte[] bytes(String name) throws IOException {
+        try (var stream = DtoJsonBenchmark.class.getResourceAsStream(name)) {
+            return stream.readAllBytes();
+        }
+    }
+}
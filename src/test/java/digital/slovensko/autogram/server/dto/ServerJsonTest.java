@@ -0,0 +1,82 @@
+package digital.slovensko.autogram.server.dto;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonSyntaxException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.util.List;
+
+class ServerJsonTest {
+    private static final Gson reflective = new Gson();
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            """
+            {"document":{"filename":"a.xml","content":"PGEvPg=="},"payloadMimeType":"application/xml;base64",
+             "batchId":"b1","parameters":{"level":"XAdES_BASELINE_B","container":"ASiC_E","containerXmlns":"x",
+             "schema":"s","transformation":"t","packaging":"ENVELOPING","digestAlgorithm":"SHA256","en319132":true,
+             "infoCanonicalization":"EXCLUSIVE","propertiesCanonicalization":"INCLUSIVE_11",
+             "keyInfoCanonicalization":"INCLUSIVE","identifier":"id","checkPDFACompliance":true,
+             "visualizationWidth":"lg","autoLoadEform":true,"embedUsedSchemas":true,"schemaIdentifier":"si",
+             "transformationIdentifier":"ti","transformationLanguage":"sk",
+             "transformationMediaDestinationTypeDescription":"HTML","transformationTargetEnvironment":"te",
+             "fsFormId":"fs"}}
+            """,
+            """
+            {"document":{"content":"abc"},"payloadMimeType":"text/plain","unknown":{"nested":[1,2]},
+             "parameters":{"level":"NOT_A_LEVEL","en319132":"true","checkPDFACompliance":null,"autoLoadEform":"false",
+             "identifier":12,"visualizationWidth":"huge"}}
+            """,
+            "{}",
+            "{\"document\":null,\"parameters\":null}"
+    })
+    void testSignRequestBodyIsReadAsByReflection(String json) {
+        var expected = reflective.fromJson(json, SignRequestBody.class);
+        var actual = ServerJson.gson().fromJson(json, SignRequestBody.class);
+
+        Assertions.assertEquals(reflective.toJson(expected), reflective.toJson(actual));
+    }
+
+    @Test
+    void testResponsesAreWrittenAsByReflection() {
+        var error = new ErrorResponseBody("CODE", "message", null);
+        var responses = List.of(
+                new SignResponse("Y29udGVudA==", "CN=signer", "CN=issuer"),
+                new InfoResponse("1.2.3", "READY"),
+                new BatchStartResponseBody("b1"),
+                error,
+                new JobResponseBody("j1", "FAILED", error),
+                new JobResponseBody("j2", "PENDING", null),
+                new ValidationResponseBody(JsonParser.parseString("{\"a\":[1,\"b\"]}"), null));
+
+        for (var response : responses)
+            Assertions.assertEquals(reflective.toJson(response), ServerJson.gson().toJson(response));
+    }
+
+    @Test
+    void testRequestsAreReadAsByReflection() throws IOException {
+        var json = "{\"totalNumberOfDocuments\":\"3\",\"batchId\":\"b1\",\"document\":{\"content\":\"Yg==\"},"
+                + "\"payloadMimeType\":\"text/plain;base64\"}";
+
+        Assertions.assertEquals(3, ServerJson.gson().fromJson(json, BatchStartRequestBody.class).getTotalNumberOfDocuments());
+        Assertions.assertEquals(new BatchEndRequestBody("b1"), ServerJson.gson().fromJson(json, BatchEndRequestBody.class));
+        Assertions.assertArrayEquals(new byte[]{98}, ServerJson.gson().fromJson(json, SignRequestBody.class).getDocument().openStream().readAllBytes());
+        Assertions.assertThrows(JsonSyntaxException.class,
+                () -> ServerJson.gson().fromJson("{\"totalNumberOfDocuments\":1.5}", BatchStartRequestBody.class));
+        Assertions.assertThrows(JsonSyntaxException.class,
+                () -> ServerJson.gson().fromJson("{\"document\":\"abc\"}", SignRequestBody.class));
+    }
+
+    @Test
+    void testBatchEndResponseHasStatus() {
+        var json = ServerJson.gson().toJson(new BatchEndResponseBody("FINISHED"));
+
+        Assertions.assertEquals("FINISHED", reflective.fromJson(json, JsonObject.class).get("status").getAsString());
+    }
+}
@@ -0,0 +1,90 @@
+package digital.slovensko.autogram.server.filters;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+class CompressionFilterTest {
+    private HttpServer server;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/echo", exchange -> {
+            try (exchange) {
+                var body = exchange.getRequestBody().readAllBytes();
+                exchange.sendResponseHeaders(200, body.length);
+                exchange.getResponseBody().write(body);
+            }
+        }).getFilters().add(new CompressionFilter(100));
+        server.start();
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    void testGzipRequestAndResponse() throws IOException {
+        var content = "{\"content\":\"" + "a".repeat(10_000) + "\"}";
+        var connection = post(gzip(content), "gzip");
+
+        Assertions.assertEquals("gzip", connection.getHeaderField("Content-Encoding"));
+        try (var in = new GZIPInputStream(connection.getInputStream())) {
+            Assertions.assertEquals(content, new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void testSmallResponseIsNotCompressed() throws IOException {
+        var connection = post("{}".getBytes(StandardCharsets.UTF_8), null);
+
+        Assertions.assertNull(connection.getHeaderField("Content-Encoding"));
+        Assertions.assertEquals("{}", new String(connection.getInputStream().readAllBytes(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testPickEncoding() {
+        Assertions.assertEquals("gzip", CompressionFilter.pickEncoding("deflate, gzip;q=0.5"));
+        Assertions.assertEquals("deflate", CompressionFilter.pickEncoding("gzip;q=0, deflate"));
+        Assertions.assertNull(CompressionFilter.pickEncoding("br"));
+        Assertions.assertNull(CompressionFilter.pickEncoding(null));
+    }
+
+    private HttpURLConnection post(byte[] body, String contentEncoding) throws IOException {
+        var connection = (HttpURLConnection) new URL("http://localhost:" + server.getAddress().getPort() + "/echo").openConnection();
+        connection.setRequestMethod("POST");
+        connection.setDoOutput(true);
+        connection.setRequestProperty("Accept-Encoding", "gzip");
+        if (contentEncoding != null)
+            connection.setRequestProperty("Content-Encoding", contentEncoding);
+
+        try (var out = connection.getOutputStream()) {
+            out.write(body);
+        }
+        Assertions.assertEquals(200, connection.getResponseCode());
+
+        return connection;
+    }
+
+    private static byte[] gzip(String content) throws IOException {
+        var out = new ByteArrayOutputStream();
+        try (var gzip = new GZIPOutputStream(out)) {
+            gzip.write(content.getBytes(StandardCharsets.UTF_8));
+        }
+
+        return out.toByteArray();
+    }
+}
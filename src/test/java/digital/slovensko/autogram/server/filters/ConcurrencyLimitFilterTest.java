@@ -0,0 +1,72 @@
+package digital.slovensko.autogram.server.filters;
+
+import com.sun.net.httpserver.HttpServer;
+import digital.slovensko.autogram.server.ServerExecutor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+class ConcurrencyLimitFilterTest {
+    private HttpServer server;
+    private ServerExecutor executor;
+    private final CountDownLatch started = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @BeforeEach
+    void startServer() throws IOException {
+        executor = new ServerExecutor(4, 16, 1, false);
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(executor);
+        server.createContext("/slow", exchange -> {
+            started.countDown();
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.sendResponseHeaders(204, -1);
+            exchange.close();
+        }).getFilters().add(new ConcurrencyLimitFilter(1));
+        server.start();
+    }
+
+    @AfterEach
+    void stopServer() {
+        release.countDown();
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    @Test
+    void testRequestOverLimitGetsServiceUnavailableRightAway() throws Exception {
+        var client = HttpClient.newHttpClient();
+        CompletableFuture<HttpResponse<Void>> first = client.sendAsync(request(), HttpResponse.BodyHandlers.discarding());
+        Assertions.assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        var second = client.send(request(), HttpResponse.BodyHandlers.ofString());
+
+        Assertions.assertEquals(503, second.statusCode());
+        Assertions.assertEquals("1", second.headers().firstValue("Retry-After").orElse(null));
+        Assertions.assertFalse(first.isDone());
+
+        release.countDown();
+        Assertions.assertEquals(204, first.get(5, TimeUnit.SECONDS).statusCode());
+    }
+
+    private HttpRequest request() {
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + server.getAddress().getPort() + "/slow"))
+                .timeout(Duration.ofSeconds(5)).build();
+    }
+}
@@ -0,0 +1,103 @@
+package digital.slovensko.autogram.server.filters;
+
+import com.sun.net.httpserver.HttpServer;
+import digital.slovensko.autogram.server.EndpointUtils;
+import digital.slovensko.autogram.server.dto.ErrorResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+
+class RequestSizeLimitFilterTest {
+    private static final int MAX_BYTES = 1000;
+
+    private HttpServer server;
+    private RequestBodyBudget budget;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        budget = new RequestBodyBudget(10_000);
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/echo", exchange -> {
+            try {
+                var body = exchange.getRequestBody().readAllBytes();
+                exchange.sendResponseHeaders(200, body.length);
+                exchange.getResponseBody().write(body);
+                exchange.close();
+            } catch (RuntimeException e) {
+                EndpointUtils.respondWithError(ErrorResponse.buildFromException(e), exchange);
+            }
+        }).getFilters().add(new RequestSizeLimitFilter(MAX_BYTES, budget));
+        server.start();
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    void testBodyWithinLimitIsPassedAndBudgetReleased() throws IOException, InterruptedException {
+        var connection = post(new byte[MAX_BYTES], false);
+
+        Assertions.assertEquals(200, connection.getResponseCode());
+        Assertions.assertEquals(MAX_BYTES, connection.getInputStream().readAllBytes().length);
+        assertBudgetReleased();
+    }
+
+    @Test
+    void testContentLengthOverLimitIsRejected() throws IOException, InterruptedException {
+        var connection = post(new byte[MAX_BYTES + 1], false);
+
+        Assertions.assertEquals(413, connection.getResponseCode());
+        assertBudgetReleased();
+    }
+
+    @Test
+    void testChunkedBodyOverLimitIsRejected() throws IOException, InterruptedException {
+        var connection = post(new byte[MAX_BYTES * 3], true);
+
+        Assertions.assertEquals(413, connection.getResponseCode());
+        assertBudgetReleased();
+    }
+
+    @Test
+    void testRequestOverBudgetIsRejected() throws IOException {
+        Assertions.assertTrue(budget.tryReserve(9_500));
+        var connection = post(new byte[MAX_BYTES], false);
+
+        Assertions.assertEquals(503, connection.getResponseCode());
+        Assertions.assertNotNull(connection.getHeaderField("Retry-After"));
+    }
+
+    /**
+     * Budget is released when the server closes the exchange, which may be just after the client got the response.
+     */
+    private void assertBudgetReleased() throws InterruptedException {
+        for (int i = 0; i < 100 && budget.getAvailable() != 10_000; i++)
+            Thread.sleep(10);
+
+        Assertions.assertEquals(10_000, budget.getAvailable());
+    }
+
+    private HttpURLConnection post(byte[] body, boolean chunked) throws IOException {
+        var connection = (HttpURLConnection) new URL("http://localhost:" + server.getAddress().getPort() + "/echo").openConnection();
+        connection.setRequestMethod("POST");
+        connection.setDoOutput(true);
+        if (chunked)
+            connection.setChunkedStreamingMode(256);
+
+        try (var out = connection.getOutputStream()) {
+            out.write(body);
+        } catch (IOException e) {
+            // server may answer before the whole body is sent
+        }
+
+        return connection;
+    }
+}
@@ -0,0 +1,74 @@
+package digital.slovensko.autogram.server.filters;
+
+import com.sun.net.httpserver.HttpServer;
+import digital.slovensko.autogram.server.EndpointUtils;
+import digital.slovensko.autogram.server.dto.InfoResponse;
+import digital.slovensko.autogram.util.Timing;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+
+class ServerTimingFilterTest {
+    private HttpServer server;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        var context = server.createContext("/timed", exchange -> {
+            var start = System.nanoTime();
+            exchange.getRequestBody().readAllBytes();
+            ServerTimingFilter.of(exchange).record("decode", start);
+            EndpointUtils.respondWith(new InfoResponse("1.0.0", "READY"), exchange);
+        });
+        context.getFilters().add(new ServerTimingFilter());
+        context.getFilters().add(new CompressionFilter());
+
+        server.createContext("/untimed", exchange -> {
+            Assertions.assertSame(Timing.NONE, ServerTimingFilter.of(exchange));
+            EndpointUtils.respondWith(new InfoResponse("1.0.0", "READY"), exchange);
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    void testPhasesAreSentInHeader() throws IOException {
+        var connection = get("/timed");
+
+        var header = connection.getHeaderField("Server-Timing");
+        Assertions.assertTrue(header.matches("decode;dur=\\d+\\.\\d, encode;dur=\\d+\\.\\d, total;dur=\\d+\\.\\d"), header);
+        Assertions.assertEquals("*", connection.getHeaderField("Timing-Allow-Origin"));
+    }
+
+    @Test
+    void testContextWithoutFilterHasNoHeader() throws IOException {
+        Assertions.assertNull(get("/untimed").getHeaderField("Server-Timing"));
+    }
+
+    @Test
+    void testRepeatedPhasesAddUp() {
+        var timing = new Timing();
+        timing.record("wait", System.nanoTime() - 2_000_000);
+        timing.record("wait", System.nanoTime() - 3_000_000);
+
+        var wait = Double.parseDouble(timing.toServerTimingHeader().replaceAll("^wait;dur=([\\d.]+),.*$", "$1"));
+        Assertions.assertTrue(wait >= 5.0, timing.toServerTimingHeader());
+    }
+
+    private HttpURLConnection get(String path) throws IOException {
+        var connection = (HttpURLConnection) new URL("http://localhost:" + server.getAddress().getPort() + path).openConnection();
+        Assertions.assertEquals(200, connection.getResponseCode());
+
+        return connection;
+    }
+}
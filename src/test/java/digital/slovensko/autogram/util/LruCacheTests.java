@@ -0,0 +1,37 @@
+package digital.slovensko.autogram.util;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class LruCacheTests {
+    @Test
+    void testLeastRecentlyUsedIsEvictedOverWeight() {
+        var cache = new LruCache<String, String>("test", 10, String::length);
+        cache.put("a", "aaaa");
+        cache.put("b", "bbbb");
+        cache.get("a");
+        cache.put("c", "cccc");
+
+        Assertions.assertEquals("aaaa", cache.get("a"));
+        Assertions.assertNull(cache.get("b"));
+        Assertions.assertEquals("cccc", cache.get("c"));
+    }
+
+    @Test
+    void testValueHeavierThanCacheIsNotStored() {
+        var cache = new LruCache<String, String>("test", 3, String::length);
+        cache.put("a", "aaaa");
+
+        Assertions.assertEquals(0, cache.size());
+    }
+
+    @Test
+    void testReplacedValueWeightIsReturned() {
+        var cache = new LruCache<String, String>("test", 8, String::length);
+        cache.put("a", "aaaa");
+        cache.put("a", "aaaa");
+        cache.put("b", "bbbb");
+
+        Assertions.assertEquals(2, cache.size());
+    }
+}
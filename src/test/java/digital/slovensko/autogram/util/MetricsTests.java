@@ -0,0 +1,34 @@
+package digital.slovensko.autogram.util;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class MetricsTests {
+    @Test
+    void testHistogramExposition() {
+        var histogram = Metrics.histogram("test_histogram_seconds", "Test histogram", new double[]{0.1, 1}, "phase", "a\"b");
+        histogram.observe(0.05);
+        histogram.observe(0.5);
+        histogram.observe(5);
+
+        var text = Metrics.toPrometheusText();
+
+        Assertions.assertTrue(text.contains("# TYPE test_histogram_seconds histogram\n"));
+        Assertions.assertTrue(text.contains("test_histogram_seconds_bucket{phase=\"a\\\"b\",le=\"0.1\"} 1\n"));
+        Assertions.assertTrue(text.contains("test_histogram_seconds_bucket{phase=\"a\\\"b\",le=\"1\"} 2\n"));
+        Assertions.assertTrue(text.contains("test_histogram_seconds_bucket{phase=\"a\\\"b\",le=\"+Inf\"} 3\n"));
+        Assertions.assertTrue(text.contains("test_histogram_seconds_count{phase=\"a\\\"b\"} 3\n"));
+    }
+
+    @Test
+    void testCounterIsSharedByLabels() {
+        Metrics.counter("test_counter_total", "Test counter", "result", "ok").increment();
+        Metrics.counter("test_counter_total", "Test counter", "result", "ok").add(2);
+        Metrics.gauge("test_gauge", "Test gauge", () -> 42);
+
+        var text = Metrics.toPrometheusText();
+
+        Assertions.assertTrue(text.contains("test_counter_total{result=\"ok\"} 3\n"));
+        Assertions.assertTrue(text.contains("test_gauge 42\n"));
+    }
+}
@@ -0,0 +1,55 @@
+package digital.slovensko.autogram.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Base64;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import eu.europa.esig.dss.enumerations.MimeTypeEnum;
+
+class SpillableDocumentTests {
+    @Test
+    void testSmallDocumentStaysInMemory() throws IOException {
+        var sink = SpillableDocument.sink(8);
+        sink.write(new byte[]{1, 2, 3});
+
+        try (var document = sink.toDocument("a.bin", MimeTypeEnum.BINARY)) {
+            Assertions.assertFalse(document.isSpilled());
+            Assertions.assertArrayEquals(new byte[]{1, 2, 3}, document.openStream().readAllBytes());
+        }
+    }
+
+    @Test
+    void testLargeDocumentIsSpilledAndDeletedOnClose() throws IOException {
+        var content = new byte[100_000];
+        for (var i = 0; i < content.length; i++)
+            content[i] = (byte) i;
+
+        var sink = SpillableDocument.sink(1024);
+        new ByteArrayInputStream(content).transferTo(sink);
+        var document = sink.toDocument("a.bin", MimeTypeEnum.BINARY);
+        var copy = document.copy("b.bin", MimeTypeEnum.PDF);
+
+        Assertions.assertTrue(document.isSpilled());
+        Assertions.assertEquals(content.length, copy.getSize());
+        Assertions.assertArrayEquals(content, copy.openStream().readAllBytes());
+        Assertions.assertEquals("a.bin", document.getName());
+
+        copy.close();
+        Assertions.assertThrows(IllegalStateException.class, document::openStream);
+    }
+
+    @Test
+    void testBase64IsDecodedInChunks() throws IOException {
+        var content = new byte[200_000];
+        for (var i = 0; i < content.length; i++)
+            content[i] = (byte) (i * 31);
+
+        var document = SpillableDocument.decodeBase64(Base64.getEncoder().encodeToString(content), "a.bin", null);
+
+        Assertions.assertArrayEquals(content, document.openStream().readAllBytes());
+        Assertions.assertThrows(IllegalArgumentException.class, () -> SpillableDocument.decodeBase64("a?==", null, null));
+    }
+}